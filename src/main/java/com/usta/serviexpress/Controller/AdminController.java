@@ -2,6 +2,7 @@ package com.usta.serviexpress.Controller;
 
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Service.CargaProveedorService;
 import com.usta.serviexpress.Service.RolService;
 import com.usta.serviexpress.Service.ServicioService;
 import com.usta.serviexpress.Service.UsuarioService;
@@ -25,6 +26,7 @@ public class AdminController {
     @Autowired private UsuarioService usuarioService;
     @Autowired private ServicioService servicioService;
     @Autowired private RolService rolService;
+    @Autowired private CargaProveedorService cargaProveedorService;
 
     /* ==================== USUARIOS ==================== */
 
@@ -35,6 +37,11 @@ public class AdminController {
         List<UsuarioEntity> lista = usuarioService.findAll();
         lista.sort(Comparator.comparing(UsuarioEntity::getIdUsuario));
         model.addAttribute("Usuarios", lista);
+        // Carga de cada proveedor listado (mapa en memoria; los que falten, en una sola lectura)
+        model.addAttribute("cargas", cargaProveedorService.cargas(lista.stream()
+                .filter(u -> u.getRol() != null && "PROVEEDOR".equalsIgnoreCase(u.getRol().getRol()))
+                .map(UsuarioEntity::getIdUsuario)
+                .toList()));
         return "Admins/gestionarUsuario";
     }
 
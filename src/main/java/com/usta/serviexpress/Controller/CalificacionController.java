@@ -1,14 +1,20 @@
 package com.usta.serviexpress.Controller;
 
 import com.usta.serviexpress.DTOs.CalificacionCreateDTO;
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
 import com.usta.serviexpress.Entity.SolicitudServicioEntity;
+import com.usta.serviexpress.Repository.CalificacionFeedView;
 import com.usta.serviexpress.Service.CalificacionService;
 import com.usta.serviexpress.Service.ServicioService;
 import com.usta.serviexpress.Service.SolicitudServicioService;
 import com.usta.serviexpress.Service.UsuarioService;
 import com.usta.serviexpress.security.CustomUserDetails;
+import com.usta.serviexpress.util.CursorUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -17,28 +23,48 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @Controller
 @RequiredArgsConstructor
 @RequestMapping("/calificaciones")
 public class CalificacionController {
 
+    private static final int TAMANO_PAGINA = 20;
+
     private final CalificacionService calificacionService;
     private final SolicitudServicioService solicitudServicioService;
     private final ServicioService servicioService;
     private final UsuarioService usuarioService;
 
-    /** LISTAR (con filtro opcional por rating) */
+    /**
+     * LISTAR: keyset por id descendente (cursor = último idCalificacion), con filtros opcionales
+     * rating, proveedor y rango de fechas desde/hasta (yyyy-MM-dd). Una sola consulta por página.
+     */
     @GetMapping
     public String listar(@RequestParam(name = "rating", required = false) Integer rating,
+                         @RequestParam(name = "proveedor", required = false) Long proveedor,
+                         @RequestParam(name = "desde", required = false)
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                         @RequestParam(name = "hasta", required = false)
+                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                         @RequestParam(name = "cursor", required = false) Long cursor,
                          Model model) {
         model.addAttribute("title", "Calificaciones");
-        var lista = (rating == null)
-                ? calificacionService.listarTodas()
-                : calificacionService.listarPorPuntuacion(rating);
-        model.addAttribute("calificaciones", lista);
-        model.addAttribute("rating", rating);
+        CalificacionFiltroDTO filtro = new CalificacionFiltroDTO();
+        filtro.setPuntuacion(rating != null && rating >= 1 && rating <= 5 ? rating : null);
+        filtro.setProveedorId(proveedor);
+        filtro.setDesde(desde);
+        filtro.setHasta(hasta);
+
+        Slice<CalificacionFeedView> pagina = calificacionService.listar(filtro, cursor, TAMANO_PAGINA);
+        model.addAttribute("calificaciones", pagina.getContent());
+        model.addAttribute("nextCursor", CursorUtils.siguienteCursor(pagina, CalificacionFeedView::getIdCalificacion));
+        model.addAttribute("cursor", cursor);
+        model.addAttribute("rating", filtro.getPuntuacion());
+        model.addAttribute("proveedor", proveedor);
+        model.addAttribute("desde", desde);
+        model.addAttribute("hasta", hasta);
         return "calificaciones/lista";
     }
 
@@ -79,7 +105,7 @@ public class CalificacionController {
             ra.addFlashAttribute("error", "Solicitud inválida.");
             return "redirect:/solicitud/historial";
         }
-        if (!"FINALIZADO".equalsIgnoreCase(ss.getEstado())) {
+        if (!EstadoSolicitud.FINALIZADO.valor().equalsIgnoreCase(ss.getEstado())) {
             ra.addFlashAttribute("error", "Solo puedes calificar servicios finalizados.");
             return "redirect:/solicitud/historial";
         }
@@ -1,9 +1,15 @@
 package com.usta.serviexpress.Controller;
 
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Service.CatalogoCiudadService;
+import com.usta.serviexpress.Service.CatalogoQueryService;
 import com.usta.serviexpress.Service.ServicioService;
 import com.usta.serviexpress.Service.UsuarioService;
+import com.usta.serviexpress.util.CursorUtils;
+import org.springframework.data.domain.Slice;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -15,15 +21,26 @@ import java.util.List;
 @RequestMapping("/cliente")
 public class ClienteController {
 
+    private static final int TAMANO_PAGINA = 20;
+    private static final String TODAS_LAS_CIUDADES = "todas";
+
     @Autowired
     private UsuarioService usuarioService;
 
     @Autowired
     private ServicioService servicioService;
 
+    @Autowired
+    private CatalogoQueryService catalogoQueryService;
+
+    @Autowired
+    private CatalogoCiudadService catalogoCiudadService;
+
     // (FALTABA) Mostrar página de servicios disponibles para solicitar
     @GetMapping("/{idCliente}/solicitarServicio")
     public String mostrarServiciosDisponibles(@PathVariable Long idCliente,
+                                              @RequestParam(required = false) Long cursor,
+                                              @RequestParam(required = false) String ciudad,
                                               org.springframework.ui.Model model) {
         UsuarioEntity cliente = usuarioService.findById(idCliente);
         if (cliente == null) {
@@ -31,12 +48,27 @@ public class ClienteController {
             return "error/clienteNoEncontrado";
         }
 
-        // Obtener disponibles y filtrar los que tienen proveedor
-        List<ServicioEntity> disponibles = servicioService.findDisponibles();
-        disponibles.removeIf(s -> s.getProveedor() == null);
+        // Por defecto, la ciudad del cliente; "todas" quita el filtro
+        if (ciudad == null) ciudad = cliente.getCiudad();
+        if (ciudad != null && (ciudad.isBlank() || TODAS_LAS_CIUDADES.equalsIgnoreCase(ciudad.trim()))) {
+            ciudad = null;
+        }
+
+        Slice<ServicioCardView> disponibles;
+        if (ciudad != null) {
+            // Partición en memoria de la ciudad (solo DISPONIBLES con proveedor)
+            disponibles = catalogoCiudadService.disponiblesEnCiudad(ciudad, null, null, cursor, TAMANO_PAGINA);
+        } else {
+            // Disponibles con proveedor asignado, filtrados y paginados en la BD
+            CatalogoFiltroDTO filtro = CatalogoFiltroDTO.disponibles();
+            filtro.setSoloConProveedor(true);
+            disponibles = catalogoQueryService.buscar(filtro, cursor, TAMANO_PAGINA);
+        }
 
-        model.addAttribute("serviciosDisponibles", disponibles);
+        model.addAttribute("serviciosDisponibles", disponibles.getContent());
+        model.addAttribute("nextCursor", CursorUtils.siguienteCursor(disponibles, ServicioCardView::getIdServicio));
         model.addAttribute("idCliente", idCliente);
+        model.addAttribute("ciudad", ciudad != null ? ciudad : TODAS_LAS_CIUDADES);
         return "Clientes/solicitarServicio";
     }
 
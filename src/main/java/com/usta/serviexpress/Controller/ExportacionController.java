@@ -0,0 +1,177 @@
+package com.usta.serviexpress.Controller;
+
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.DTOs.PagoFiltroDTO;
+import com.usta.serviexpress.DTOs.SolicitudFiltroDTO;
+import com.usta.serviexpress.Service.ExportacionService;
+import com.usta.serviexpress.exportacion.FormatoExportacion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Descargas del administrador (/Admins/** exige rol ADMIN en SecurityConfig): solicitudes, pagos y
+ * calificaciones en CSV o XLSX con los mismos filtros que los listados.
+ * La respuesta se escribe mientras se lee (StreamingResponseBody); el CSV va comprimido con gzip
+ * (Content-Encoding) si el cliente lo acepta, el XLSX ya es un zip.
+ */
+@Controller
+@RequestMapping("/Admins/exportar")
+public class ExportacionController {
+
+    private static final int BUFFER = 64 * 1024;
+    private static final DateTimeFormatter SELLO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmm");
+
+    private final ExportacionService exportacionService;
+    // Cada exportación ocupa una conexión y un hilo mientras dura: se limitan las simultáneas
+    private final Semaphore simultaneas;
+
+    public ExportacionController(ExportacionService exportacionService,
+                                 @Value("${exportacion.max-simultaneas:2}") int maxSimultaneas) {
+        this.exportacionService = exportacionService;
+        this.simultaneas = new Semaphore(Math.max(maxSimultaneas, 1));
+    }
+
+    // ================== SOLICITUDES ==================
+    // estado: un valor de EstadoSolicitud o ACTIVAS; fechas inclusivas sobre fechaSolicitud
+    @GetMapping("/solicitudes")
+    public ResponseEntity<StreamingResponseBody> solicitudes(@RequestParam(defaultValue = "csv") String formato,
+                                                             @RequestParam(required = false) String estado,
+                                                             @RequestParam(required = false)
+                                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                             @RequestParam(required = false)
+                                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                             String aceptaCodificacion) {
+        SolicitudFiltroDTO filtro = new SolicitudFiltroDTO();
+        filtro.setEstado(estado != null && !estado.isBlank() ? estado.trim() : null);
+        filtro.setDesde(desde);
+        filtro.setHasta(hasta);
+        return descarga("solicitudes", formato, aceptaCodificacion,
+                (f, out) -> exportacionService.exportarSolicitudes(filtro, f, out));
+    }
+
+    // ================== PAGOS ==================
+    @GetMapping("/pagos")
+    public ResponseEntity<StreamingResponseBody> pagos(@RequestParam(defaultValue = "csv") String formato,
+                                                       PagoFiltroDTO filtro,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                       String aceptaCodificacion) {
+        return descarga("pagos", formato, aceptaCodificacion,
+                (f, out) -> exportacionService.exportarPagos(filtro, f, out));
+    }
+
+    // ================== CALIFICACIONES ==================
+    @GetMapping("/calificaciones")
+    public ResponseEntity<StreamingResponseBody> calificaciones(@RequestParam(defaultValue = "csv") String formato,
+                                                                CalificacionFiltroDTO filtro,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                                String aceptaCodificacion) {
+        return descarga("calificaciones", formato, aceptaCodificacion,
+                (f, out) -> exportacionService.exportarCalificaciones(filtro, f, out));
+    }
+
+    // ================== Internos ==================
+
+    @FunctionalInterface
+    private interface Tabla {
+        void escribir(FormatoExportacion formato, OutputStream destino) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> descarga(String nombre, String formato, String aceptaCodificacion,
+                                                           Tabla tabla) {
+        FormatoExportacion f = FormatoExportacion.de(formato).orElse(null);
+        if (f == null) return ResponseEntity.badRequest().build();
+
+        boolean gzip = f == FormatoExportacion.CSV && aceptaGzip(aceptaCodificacion);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, f.contentType());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(nombre + "-" + LocalDateTime.now().format(SELLO) + "." + f.extension())
+                .build());
+        headers.setCacheControl("no-store");
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        // Lo último antes de devolver: desde aquí el permiso siempre vuelve (cuerpo o cierre asíncrono)
+        if (!simultaneas.tryAcquire()) return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        Runnable liberar = liberarUnaVez();
+        StreamingResponseBody cuerpo = out -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream comprimido = new GZIPOutputStream(out, BUFFER);
+                    tabla.escribir(f, comprimido);
+                    comprimido.finish();
+                } else {
+                    tabla.escribir(f, out);
+                }
+            } finally {
+                liberar.run();
+            }
+        };
+        return new ResponseEntity<>(cuerpo, headers, HttpStatus.OK);
+    }
+
+    // El permiso se toma en el hilo de la petición pero el cuerpo corre después en otro: si nunca llega a
+    // correr (tarea rechazada por el executor, petición abortada o timeout) lo devuelve el cierre de la
+    // petición asíncrona. Lo que ocurra primero libera; la segunda llamada no hace nada.
+    private Runnable liberarUnaVez() {
+        AtomicBoolean liberado = new AtomicBoolean(false);
+        Runnable liberar = () -> {
+            if (liberado.compareAndSet(false, true)) simultaneas.release();
+        };
+        try {
+            var atributos = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+            WebAsyncUtils.getAsyncManager(atributos.getRequest()).registerCallableInterceptor(liberado,
+                    new CallableProcessingInterceptor() {
+                        @Override
+                        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                            liberar.run();
+                        }
+                    });
+        } catch (RuntimeException ex) {
+            liberar.run();
+            throw ex;
+        }
+        return liberar;
+    }
+
+    // "gzip" en Accept-Encoding, salvo que venga con q=0
+    private static boolean aceptaGzip(String aceptaCodificacion) {
+        if (aceptaCodificacion == null) return false;
+        for (String parte : aceptaCodificacion.split(",")) {
+            String[] campos = parte.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(campos[0].trim())) continue;
+            for (int i = 1; i < campos.length; i++) {
+                String p = campos[i].trim().replace(" ", "");
+                if (p.equals("q=0") || p.matches("q=0\\.0*")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,12 +1,15 @@
 package com.usta.serviexpress.Controller;
 
+import com.usta.serviexpress.DTOs.CatalogoFacetadoDTO;
+import com.usta.serviexpress.DTOs.FacetaFiltroDTO;
 import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Service.FacetaService;
 import com.usta.serviexpress.Service.RankingService;
 import com.usta.serviexpress.Service.ServicioService;
+import com.usta.serviexpress.util.CursorUtils;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,26 +19,53 @@ import org.springframework.web.bind.annotation.RequestParam;
 @RequiredArgsConstructor
 public class HomeController {
 
+    private static final int TAMANO_PAGINA = 12;
+
     private final ServicioService servicioService;
     private final RankingService rankingService;
+    private final FacetaService facetaService;
 
     @GetMapping({"/", "/index"})
     public String home(
+            @RequestParam(name = "cursor", required = false) Long cursor,
+            @RequestParam(name = "rangoPrecio", required = false) Integer rangoPrecio,
+            @RequestParam(name = "ciudad", required = false) String ciudad,
+            @RequestParam(name = "ratingMin", required = false) Integer ratingMin,
+            @RequestParam(name = "orden", required = false) String orden,
             @RequestParam(name = "page", defaultValue = "0") int page,
             Model model
     ) {
-        Page<ServicioEntity> pagina = servicioService.listarDisponibles(PageRequest.of(
-                Math.max(page, 0),
-                12,
-                Sort.by(Sort.Direction.DESC, "idServicio")
-        ));
+        // Facetas siempre visibles (conteos desde memoria); el público solo ve servicios DISPONIBLES
+        FacetaFiltroDTO filtro = new FacetaFiltroDTO();
+        filtro.setEstado(ServicioEntity.EstadoServicio.DISPONIBLE);
+        filtro.setRangoPrecio(rangoPrecio);
+        filtro.setCiudad(ciudad);
+        filtro.setRatingMin(ratingMin);
+        filtro.setOrden(orden);
+        filtro.setPage(page);
+        filtro.setSize(TAMANO_PAGINA);
+        CatalogoFacetadoDTO facetas = facetaService.buscar(filtro);
+        model.addAttribute("filtro", filtro);
+        model.addAttribute("facetas", facetas);
 
-        model.addAttribute("servicios", pagina.getContent());
-        model.addAttribute("currentPage", pagina.getNumber());
-        model.addAttribute("totalPages", pagina.getTotalPages());
+        boolean facetado = rangoPrecio != null || (ciudad != null && !ciudad.isBlank())
+                || ratingMin != null || (orden != null && !orden.isBlank()) || page > 0;
+        model.addAttribute("facetado", facetado);
+        if (facetado) {
+            model.addAttribute("servicios", facetas.getServicios());
+        } else {
+            // Keyset: la página N cuesta lo mismo que la primera (sin OFFSET ni count)
+            Slice<ServicioCardView> pagina = servicioService.listarDisponiblesDesde(cursor, TAMANO_PAGINA);
+            model.addAttribute("servicios", pagina.getContent());
+            model.addAttribute("cursor", cursor);
+            model.addAttribute("nextCursor", CursorUtils.siguienteCursor(pagina, ServicioCardView::getIdServicio));
+        }
 
-        model.addAttribute("topProveedores", rankingService.topProveedores(3, 1)); // mínimo 1 reseña
+        // Ranking en memoria (Wilson); con filtro de ciudad se muestra el top de esa ciudad
+        model.addAttribute("topProveedores", (ciudad != null && !ciudad.isBlank())
+                ? rankingService.topProveedoresEnCiudad(ciudad, 3, 1)   // mínimo 1 reseña
+                : rankingService.topProveedores(3, 1));
 
         return "index"; // templates/index.html
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package com.usta.serviexpress.Controller;
 
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Service.CargaProveedorService;
+import com.usta.serviexpress.Service.PerfilProveedorService;
 import com.usta.serviexpress.Service.ServicioService;
 import com.usta.serviexpress.Service.UsuarioService;
 import jakarta.servlet.http.HttpSession;
@@ -11,6 +13,8 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 
 @Controller
@@ -19,6 +23,10 @@ public class ProveedorController {
 
     @Autowired private UsuarioService usuarioService;
     @Autowired private ServicioService servicioService;
+    @Autowired private PerfilProveedorService perfilProveedorService;
+    @Autowired private CargaProveedorService cargaProveedorService;
+
+    private static final int MAX_CAPACIDAD = 50;
 
     /* ========= LANDING DEL PROVEEDOR =========
        Resuelve /proveedor/servicios para evitar el 404 al iniciar sesión */
@@ -30,9 +38,26 @@ public class ProveedorController {
         // carga algo útil para la pantalla de inicio del proveedor
         List<ServicioEntity> servicios = servicioService.findHistorialByProveedor(u.getIdUsuario());
         model.addAttribute("servicios", servicios);
+        // Contadores de carga (pendientes, en proceso, servicios) desde provider_workload, sin COUNT por vista
+        model.addAttribute("carga", cargaProveedorService.carga(u.getIdUsuario()));
+        // Datos de despacho al día (la entidad de sesión puede estar desactualizada)
+        model.addAttribute("proveedor", usuarioService.findById(u.getIdUsuario()));
         return "Servicio/proveedor/listarServicios"; // coincide con templates/Servicio/proveedor/listarServicios.html
     }
 
+    /* ========= PERFIL PÚBLICO =========
+       Servicios, distribución de estrellas, reseñas recientes y trabajos finalizados (vista cacheada) */
+    @GetMapping("/{idProveedor}/perfil")
+    public String perfil(@PathVariable("idProveedor") Long idProveedor, Model model, RedirectAttributes ra) {
+        var perfil = perfilProveedorService.perfil(idProveedor);
+        if (perfil.isEmpty()) {
+            ra.addFlashAttribute("error", "Proveedor no encontrado");
+            return "redirect:/";
+        }
+        model.addAttribute("perfil", perfil.get());
+        return "Proveedores/perfil"; // templates/Proveedores/perfil.html
+    }
+
     // Mostrar formulario para publicar servicio
     @GetMapping("/{idProveedor}/publicarServicio")
     public String publicarServicio(@PathVariable Long idProveedor, Model model) {
@@ -74,20 +99,33 @@ public class ProveedorController {
         return "redirect:/proveedor/" + idProveedor + "/solicitudesPendientes";
     }
 
-    // Actualizar disponibilidad del proveedor
+    // Actualizar disponibilidad, capacidad y ubicación del proveedor (datos del despacho automático)
     @PostMapping("/{idProveedor}/actualizarDisponibilidad")
     public String actualizarDisponibilidad(@PathVariable("idProveedor") Long idProveedor,
-                                           @RequestParam("disponibilidad") boolean disponibilidad,
+                                           @RequestParam(name = "disponibilidad", defaultValue = "false") boolean disponibilidad,
+                                           @RequestParam(name = "capacidad", required = false) Integer capacidad,
+                                           @RequestParam(name = "latitud", required = false) Double latitud,
+                                           @RequestParam(name = "longitud", required = false) Double longitud,
+                                           HttpSession session,
                                            RedirectAttributes ra) {
-        UsuarioEntity proveedor = usuarioService.findById(idProveedor);
-        if (proveedor != null && proveedor.getRol() != null &&
-                "PROVEEDOR".equalsIgnoreCase(proveedor.getRol().getRol())) {
-            proveedor.setDisponibilidad(disponibilidad);
-            usuarioService.save(proveedor);
-            ra.addFlashAttribute("success", "Disponibilidad actualizada");
-        } else {
+        UsuarioEntity proveedor = proveedorEditable(idProveedor, session);
+        if (proveedor == null) {
             ra.addFlashAttribute("error", "Proveedor no encontrado");
+            return "redirect:/proveedor/servicios";
+        }
+        if (capacidad != null && (capacidad < 0 || capacidad > MAX_CAPACIDAD)) {
+            ra.addFlashAttribute("error", "La capacidad debe estar entre 0 y " + MAX_CAPACIDAD);
+            return "redirect:/proveedor/servicios";
         }
+        proveedor.setDisponibilidad(disponibilidad);
+        proveedor.setCapacidad(capacidad);
+        // Solo una pareja válida reemplaza la ubicación guardada
+        if (latitud != null && longitud != null && Math.abs(latitud) <= 90 && Math.abs(longitud) <= 180) {
+            proveedor.setLatitud(latitud);
+            proveedor.setLongitud(longitud);
+        }
+        usuarioService.save(proveedor);
+        ra.addFlashAttribute("success", "Disponibilidad actualizada");
         return "redirect:/proveedor/servicios";
     }
 
@@ -110,17 +148,32 @@ public class ProveedorController {
     // Gestionar tarifas
     @PostMapping("/{idProveedor}/gestionarTarifas")
     public String gestionarTarifas(@PathVariable("idProveedor") Long idProveedor,
-                                   @RequestParam("tarifa") double tarifa,
+                                   @RequestParam("tarifa") BigDecimal tarifa,
+                                   HttpSession session,
                                    RedirectAttributes ra) {
-        UsuarioEntity proveedor = usuarioService.findById(idProveedor);
-        if (proveedor != null && proveedor.getRol() != null &&
-                "PROVEEDOR".equalsIgnoreCase(proveedor.getRol().getRol())) {
-            proveedor.setTarifa(tarifa);
-            usuarioService.save(proveedor);
-            ra.addFlashAttribute("success", "Tarifa actualizada");
-        } else {
+        UsuarioEntity proveedor = proveedorEditable(idProveedor, session);
+        if (proveedor == null) {
             ra.addFlashAttribute("error", "Proveedor no encontrado");
+            return "redirect:/proveedor/servicios";
+        }
+        if (tarifa == null || tarifa.signum() < 0) {
+            ra.addFlashAttribute("error", "La tarifa no puede ser negativa");
+            return "redirect:/proveedor/servicios";
         }
+        proveedor.setTarifa(tarifa.setScale(2, RoundingMode.HALF_UP));
+        usuarioService.save(proveedor);
+        ra.addFlashAttribute("success", "Tarifa actualizada");
         return "redirect:/proveedor/servicios";
     }
-}
\ No newline at end of file
+
+    // El proveedor solo edita sus propios datos (el administrador, los de cualquiera); null si no aplica
+    private UsuarioEntity proveedorEditable(Long idProveedor, HttpSession session) {
+        UsuarioEntity sesion = (UsuarioEntity) session.getAttribute("usuarioSesion");
+        if (sesion == null) return null;
+        boolean admin = sesion.getRol() != null && "ADMIN".equalsIgnoreCase(sesion.getRol().getRol());
+        if (!admin && !idProveedor.equals(sesion.getIdUsuario())) return null;
+        UsuarioEntity proveedor = usuarioService.findById(idProveedor);
+        return proveedor != null && proveedor.getRol() != null
+                && "PROVEEDOR".equalsIgnoreCase(proveedor.getRol().getRol()) ? proveedor : null;
+    }
+}
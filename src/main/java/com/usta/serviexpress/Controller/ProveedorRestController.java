@@ -0,0 +1,23 @@
+package com.usta.serviexpress.Controller;
+
+import com.usta.serviexpress.DTOs.PerfilProveedorDTO;
+import com.usta.serviexpress.Service.PerfilProveedorService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/proveedores")
+public class ProveedorRestController {
+
+    private final PerfilProveedorService perfilProveedorService;
+
+    /** Perfil público del proveedor: servicios, histograma 1..5★, reseñas recientes y trabajos finalizados. */
+    @GetMapping("/{id}")
+    public ResponseEntity<PerfilProveedorDTO> perfil(@PathVariable Long id) {
+        return perfilProveedorService.perfil(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,17 +1,24 @@
 package com.usta.serviexpress.Controller;
 
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
 import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.Service.CatalogoQueryService;
 import com.usta.serviexpress.Service.ServicioApiClient;
+import com.usta.serviexpress.Service.CatalogoCiudadService;
+import com.usta.serviexpress.Service.ServicioSearchService;
 import com.usta.serviexpress.Service.ServicioService;
 import com.usta.serviexpress.Service.UsuarioService;
+import com.usta.serviexpress.util.CiudadUtils;
+import com.usta.serviexpress.util.CursorUtils;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -20,23 +27,38 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/servicio")
 public class ServicioController {
 
+    private static final int TAMANO_PAGINA = 10;
+    private static final String TODAS_LAS_CIUDADES = "todas";
+
     @Autowired
     private ServicioService servicioService;
 
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private CatalogoQueryService catalogoQueryService;
+
+    @Autowired
+    private ServicioSearchService servicioSearchService;
+
+    @Autowired
+    private CatalogoCiudadService catalogoCiudadService;
+
     // ========================= LISTAR SEGÚN ROL =========================
     @GetMapping
     public String listarServicios(@RequestParam(required = false) String nombre,
+                                  @RequestParam(required = false) BigDecimal precioMin,
+                                  @RequestParam(required = false) BigDecimal precioMax,
+                                  @RequestParam(required = false) Long cursor,
                                   @RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(required = false) String modo,
+                                  @RequestParam(required = false) String ciudad,
                                   HttpSession session,
                                   Model model) {
         UsuarioEntity usuarioSesion = (UsuarioEntity) session.getAttribute("usuarioSesion");
@@ -44,54 +66,89 @@ public class ServicioController {
             return "redirect:/auth/login";
         }
 
+        CatalogoFiltroDTO filtro = new CatalogoFiltroDTO();
+        filtro.setNombre(nombre);
+        filtro.setPrecioMin(precioMin);
+        filtro.setPrecioMax(precioMax);
+        filtro.setCiudad(ciudad);
+        return cargarListado(usuarioSesion, filtro, cursor, page, "aprox".equals(modo), model);
+    }
+
+    /**
+     * Arma el listado del rol con una única consulta paginada en la BD
+     * (estado, proveedor y precio se filtran en SQL, no en memoria).
+     * Sin término: navegación keyset por cursor. Con término: texto completo ordenado por relevancia;
+     * cliente/admin pasan a búsqueda aproximada (trigramas) si no hay coincidencias exactas.
+     */
+    private String cargarListado(UsuarioEntity usuarioSesion, CatalogoFiltroDTO filtro,
+                                 Long cursor, int page, boolean aproximado, Model model) {
         String rol = usuarioSesion.getRol().getRol();
         model.addAttribute("rol", rol);
         model.addAttribute("usuarioSesion", usuarioSesion);
+        boolean conTermino = filtro.getNombre() != null && !filtro.getNombre().isBlank();
+        if (conTermino) {
+            model.addAttribute("busqueda", filtro.getNombre());
+        }
+        model.addAttribute("precioMin", filtro.getPrecioMin());
+        model.addAttribute("precioMax", filtro.getPrecioMax());
 
-        Page<ServicioEntity> serviciosPage;
-
+        String vista;
         if ("CLIENTE".equals(rol)) {
-            List<ServicioEntity> serviciosDisponibles;
-            if (nombre != null && !nombre.isEmpty()) {
-                serviciosDisponibles = servicioService.findByNombreContainingIgnoreCase(nombre)
-                        .stream()
-                        .filter(s -> s.getEstado() == ServicioEntity.EstadoServicio.DISPONIBLE)
-                        .collect(Collectors.toList());
-                model.addAttribute("busqueda", nombre);
-            } else {
-                serviciosPage = servicioService.listar(PageRequest.of(page, 10));
-                serviciosDisponibles = serviciosPage.getContent()
-                        .stream()
-                        .filter(s -> s.getEstado() == ServicioEntity.EstadoServicio.DISPONIBLE)
-                        .collect(Collectors.toList());
+            filtro.setEstado(ServicioEntity.EstadoServicio.DISPONIBLE);
+            // Por defecto, la ciudad del cliente; "todas" quita el filtro
+            if (filtro.getCiudad() == null) {
+                filtro.setCiudad(usuarioSesion.getCiudad());
             }
-            model.addAttribute("servicios", serviciosDisponibles);
-            return "Servicio/cliente/listarServicios";
-
+            vista = "Servicio/cliente/listarServicios";
         } else if ("PROVEEDOR".equals(rol)) {
-            List<ServicioEntity> serviciosProveedor;
-            if (nombre != null && !nombre.isEmpty()) {
-                serviciosProveedor = servicioService.findByProveedorAndNombreContainingIgnoreCase(
-                        usuarioSesion.getIdUsuario(), nombre);
-                model.addAttribute("busqueda", nombre);
-            } else {
-                serviciosProveedor = servicioService.findByProveedor(usuarioSesion.getIdUsuario());
-            }
-            model.addAttribute("servicios", serviciosProveedor);
-            return "Servicio/proveedor/listarServicios";
-
+            filtro.setProveedorId(usuarioSesion.getIdUsuario());
+            vista = "Servicio/proveedor/listarServicios";
         } else if ("ADMIN".equals(rol)) {
-            if (nombre != null && !nombre.isEmpty()) {
-                model.addAttribute("servicios", servicioService.findByNombreContainingIgnoreCase(nombre));
-                model.addAttribute("busqueda", nombre);
-            } else {
-                serviciosPage = servicioService.listar(PageRequest.of(page, 10));
-                model.addAttribute("servicios", serviciosPage.getContent());
+            vista = "Servicio/admin/listarServicios";
+        } else {
+            return "redirect:/";
+        }
+        if (filtro.getCiudad() != null
+                && (filtro.getCiudad().isBlank() || TODAS_LAS_CIUDADES.equalsIgnoreCase(filtro.getCiudad().trim()))) {
+            filtro.setCiudad(null);
+        }
+        model.addAttribute("ciudad", filtro.getCiudad() != null ? CiudadUtils.clave(filtro.getCiudad()) : TODAS_LAS_CIUDADES);
+        model.addAttribute("ciudades", catalogoCiudadService.ciudades());
+
+        if (conTermino) {
+            PageRequest pagina = PageRequest.of(Math.max(page, 0), TAMANO_PAGINA);
+            boolean permiteAproximada = !"PROVEEDOR".equals(rol);
+            aproximado = aproximado && permiteAproximada;
+
+            Slice<ServicioCardView> resultados = aproximado
+                    ? servicioSearchService.buscarAproximado(filtro, pagina)
+                    : servicioSearchService.buscar(filtro, pagina);
+            if (!aproximado && permiteAproximada && pagina.getPageNumber() == 0 && resultados.isEmpty()) {
+                resultados = servicioSearchService.buscarAproximado(filtro, pagina);
+                aproximado = true;
+            }
+            if (aproximado) {
+                model.addAttribute("modo", "aprox");
+                if (pagina.getPageNumber() == 0) {
+                    servicioSearchService.sugerir(filtro.getNombre())
+                            .ifPresent(s -> model.addAttribute("sugerencia", s));
+                }
             }
-            return "Servicio/admin/listarServicios";
+            model.addAttribute("servicios", resultados.getContent());
+            model.addAttribute("page", resultados.getNumber());
+            model.addAttribute("nextPage", resultados.hasNext() ? resultados.getNumber() + 1 : null);
+            return vista;
         }
 
-        return "redirect:/";
+        // Cliente con ciudad: solo se recorre la partición en memoria de su ciudad
+        Slice<ServicioCardView> serviciosPage = ("CLIENTE".equals(rol) && filtro.getCiudad() != null)
+                ? catalogoCiudadService.disponiblesEnCiudad(filtro.getCiudad(), filtro.getPrecioMin(),
+                        filtro.getPrecioMax(), cursor, TAMANO_PAGINA)
+                : catalogoQueryService.buscar(filtro, cursor, TAMANO_PAGINA);
+        model.addAttribute("servicios", serviciosPage.getContent());
+        model.addAttribute("cursor", cursor);
+        model.addAttribute("nextCursor", CursorUtils.siguienteCursor(serviciosPage, ServicioCardView::getIdServicio));
+        return vista;
     }
 
     // ========================= CREAR SERVICIO =========================
@@ -218,7 +275,7 @@ public class ServicioController {
     // ========================= ELIMINAR =========================
     @PostMapping("/eliminar/{id}")
     public String eliminarServicio(@PathVariable Long id,
-                                   @RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(required = false) Long cursor,
                                    HttpSession session,
                                    Model model) {
         try {
@@ -227,29 +284,7 @@ public class ServicioController {
             model.addAttribute("error", "❌ No se puede eliminar el servicio porque está asociado a clientes o calificaciones.");
 
             UsuarioEntity usuarioSesion = (UsuarioEntity) session.getAttribute("usuarioSesion");
-            String rol = usuarioSesion.getRol().getRol();
-            model.addAttribute("rol", rol);
-            model.addAttribute("usuarioSesion", usuarioSesion);
-
-            if ("CLIENTE".equals(rol)) {
-                List<ServicioEntity> serviciosDisponibles = servicioService.listar(PageRequest.of(page, 10))
-                        .getContent()
-                        .stream()
-                        .filter(s -> s.getEstado() == ServicioEntity.EstadoServicio.DISPONIBLE)
-                        .collect(Collectors.toList());
-                model.addAttribute("servicios", serviciosDisponibles);
-                return "Servicio/cliente/listarServicios";
-
-            } else if ("PROVEEDOR".equals(rol)) {
-                List<ServicioEntity> serviciosProveedor = servicioService.findByProveedor(usuarioSesion.getIdUsuario());
-                model.addAttribute("servicios", serviciosProveedor);
-                return "Servicio/proveedor/listarServicios";
-
-            } else {
-                Page<ServicioEntity> serviciosPage = servicioService.listar(PageRequest.of(page, 10));
-                model.addAttribute("servicios", serviciosPage.getContent());
-                return "Servicio/admin/listarServicios";
-            }
+            return cargarListado(usuarioSesion, new CatalogoFiltroDTO(), cursor, 0, false, model);
         }
         return "redirect:/servicio";
     }
@@ -1,11 +1,23 @@
 package com.usta.serviexpress.Controller;
 
+import com.usta.serviexpress.DTOs.CatalogoFacetadoDTO;
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
+import com.usta.serviexpress.DTOs.FacetaFiltroDTO;
+import com.usta.serviexpress.DTOs.SugerenciaDTO;
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
 import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.Service.CatalogoCiudadService;
+import com.usta.serviexpress.Service.FacetaService;
+import com.usta.serviexpress.Service.ServicioSearchService;
 import com.usta.serviexpress.Service.ServicioService;
+import com.usta.serviexpress.Service.SugerenciaService;
 import com.usta.serviexpress.Service.UsuarioService;
+import com.usta.serviexpress.util.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -14,21 +26,82 @@ import java.util.List;
 @RequestMapping("/api/servicios")
 public class ServicioRestController {
 
+    private static final int MAX_SIZE = 100;
+
     @Autowired
     private ServicioService servicioService;
     @Autowired
     private UsuarioService usuarioService;
     @Autowired
     private ServicioRepository servicioRepository;
+    @Autowired
+    private ServicioSearchService servicioSearchService;
+    @Autowired
+    private SugerenciaService sugerenciaService;
+    @Autowired
+    private FacetaService facetaService;
+    @Autowired
+    private CatalogoCiudadService catalogoCiudadService;
 
+    /**
+     * Listado keyset: ?cursor=<último idServicio recibido>&size=N.
+     * El cursor de la siguiente página viaja en la cabecera X-Next-Cursor (ausente en la última página).
+     * Con ?ciudad=<ciudad> se sirven solo los DISPONIBLES de esa ciudad, desde la partición en memoria.
+     */
     @GetMapping
-    public List<ServicioEntity> listar() {
-        return servicioService.findAll();
+    public ResponseEntity<List<ServicioCardView>> listar(@RequestParam(required = false) Long cursor,
+                                                       @RequestParam(defaultValue = "20") int size,
+                                                       @RequestParam(required = false) String ciudad) {
+        int tamano = Math.min(Math.max(size, 1), MAX_SIZE);
+        Slice<ServicioCardView> pagina = (ciudad != null && !ciudad.isBlank())
+                ? catalogoCiudadService.disponiblesEnCiudad(ciudad, null, null, cursor, tamano)
+                : servicioService.listarDesde(cursor, tamano);
+        Long siguiente = CursorUtils.siguienteCursor(pagina, ServicioCardView::getIdServicio);
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (siguiente != null) {
+            respuesta.header("X-Next-Cursor", String.valueOf(siguiente));
+        }
+        return respuesta.body(pagina.getContent());
+    }
+
+    /**
+     * Búsqueda de texto completo: ?q=<término>&page=N&size=M, resultados ordenados por relevancia.
+     * Solo servicios DISPONIBLES. X-Has-Next indica si hay otra página.
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<List<ServicioCardView>> buscarTexto(@RequestParam String q,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        CatalogoFiltroDTO filtro = CatalogoFiltroDTO.disponibles();
+        filtro.setNombre(q);
+        Slice<ServicioCardView> resultados = servicioSearchService.buscar(filtro,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_SIZE)));
+        return ResponseEntity.ok()
+                .header("X-Has-Next", String.valueOf(resultados.hasNext()))
+                .body(resultados.getContent());
+    }
+
+    /**
+     * Catálogo facetado: ?estado=&rangoPrecio=&ciudad=&ratingMin=&orden=&page=&size=
+     * Devuelve la página pedida y los conteos por faceta (precio, estado, ciudad, rating), calculados en memoria.
+     */
+    @GetMapping("/facetas")
+    public CatalogoFacetadoDTO facetas(@ModelAttribute FacetaFiltroDTO filtro) {
+        return facetaService.buscar(filtro);
+    }
+
+    /** Autocompletado por prefijo (?q=plom&limit=8); se responde desde memoria, sin consultar la BD. */
+    @GetMapping("/suggest")
+    public List<SugerenciaDTO> sugerir(@RequestParam(defaultValue = "") String q,
+                                       @RequestParam(defaultValue = "8") int limit) {
+        return sugerenciaService.sugerir(q, limit);
     }
 
     @GetMapping("/{id}")
-    public ServicioEntity buscarPorId(@PathVariable Long id) {
-        return servicioService.findById(id);
+    public ResponseEntity<ServicioCardView> buscarPorId(@PathVariable Long id) {
+        ServicioCardView servicio = servicioService.findTarjetaById(id);
+        return servicio != null ? ResponseEntity.ok(servicio) : ResponseEntity.notFound().build();
     }
     @PostMapping
     public ResponseEntity<ServicioEntity> guardar(@RequestBody ServicioEntity servicio) {
@@ -1,19 +1,33 @@
 // src/main/java/com/usta/serviexpress/Controller/SolicitudServicioController.java
 package com.usta.serviexpress.Controller;
 
+import com.usta.serviexpress.DTOs.AgendaDisponibilidadDTO;
+import com.usta.serviexpress.DTOs.SolicitudFiltroDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.SolicitudServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Service.AgendaService;
+import com.usta.serviexpress.Service.DespachoService;
 import com.usta.serviexpress.Service.ServicioService;
 import com.usta.serviexpress.Service.SolicitudServicioService;
+import com.usta.serviexpress.Service.SolicitudServicioService.ResultadoTransicion;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Controller
@@ -25,8 +39,19 @@ public class SolicitudServicioController {
     private static final String VIEW_HISTORIAL_PROV   = "Solicitud/serviciosSolicitados";
     private static final String VIEW_DETALLE          = "Solicitud/detalleSolicitud";
 
+    private static final int TAMANO_PAGINA = 20;
+    private static final int MAX_OFERTAS = 10;
+    private static final int MAX_DURACION_HORAS = 12;
+    private static final DateTimeFormatter FORMATO_HORARIO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final List<String> ESTADOS = EstadoSolicitud.valores();
+
     @Autowired private ServicioService servicioService;
     @Autowired private SolicitudServicioService solicitudServicioService;
+    @Autowired private DespachoService despachoService;
+    @Autowired private AgendaService agendaService;
+
+    @Value("${agenda.hora-por-defecto:08:00}") private String horaPorDefecto;
+    @Value("${agenda.duracion-por-defecto:PT4H}") private Duration duracionPorDefecto;
 
     @GetMapping("/crear/{id}")
     public String mostrarFormulario(@PathVariable Long id, Model model, HttpSession session) {
@@ -42,6 +67,8 @@ public class SolicitudServicioController {
     public String guardarSolicitud(@RequestParam Long idServicio,
                                    @RequestParam String detalles,
                                    @RequestParam String direccionEntrega,
+                                   @RequestParam(required = false) Double latitud,
+                                   @RequestParam(required = false) Double longitud,
                                    HttpSession session) {
         UsuarioEntity cliente = (UsuarioEntity) session.getAttribute("usuarioSesion");
         if (cliente == null) return "redirect:/auth/login";
@@ -55,17 +82,31 @@ public class SolicitudServicioController {
         solicitud.setServicio(servicio);
         solicitud.setCliente(cliente);
         solicitud.setFechaSolicitud(LocalDate.now());
-        solicitud.setEstado("PENDIENTE");
+        solicitud.setEstado(EstadoSolicitud.PENDIENTE.valor());
         solicitud.setDetalles(detalles);
         solicitud.setDireccionEntrega(direccionEntrega);
+        // Ubicación del navegador (opcional): solo si la pareja es válida, para la distancia del despacho
+        if (latitud != null && longitud != null && Math.abs(latitud) <= 90 && Math.abs(longitud) <= 180) {
+            solicitud.setLatitud(latitud);
+            solicitud.setLongitud(longitud);
+        }
 
         solicitudServicioService.save(solicitud);
         return "redirect:/servicio?success=Solicitud realizada con éxito";
     }
 
-    // ================== HISTORIAL (rol-aware) ==================
+    // ================== HISTORIAL (rol-aware, keyset) ==================
+    // Páginas de TAMANO_PAGINA ordenadas por (fechaSolicitud, id) DESC; filtros estado/desde/hasta opcionales.
     @GetMapping("/historial")
-    public String historialSolicitudes(Model model, HttpSession session) {
+    public String historialSolicitudes(@RequestParam(name = "estado", required = false) String estado,
+                                       @RequestParam(name = "desde", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                       @RequestParam(name = "hasta", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                       @RequestParam(name = "cursorFecha", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cursorFecha,
+                                       @RequestParam(name = "cursor", required = false) Long cursor,
+                                       Model model, HttpSession session) {
         UsuarioEntity usuario = (UsuarioEntity) session.getAttribute("usuarioSesion");
         if (usuario == null) return "redirect:/auth/login";
 
@@ -75,24 +116,35 @@ public class SolicitudServicioController {
         model.addAttribute("isProveedor", "PROVEEDOR".equalsIgnoreCase(rol));
         model.addAttribute("isCliente", "CLIENTE".equalsIgnoreCase(rol));
 
+        SolicitudFiltroDTO filtro = filtro(estado, desde, hasta);
+        Slice<SolicitudServicioEntity> pagina;
         if ("ADMIN".equalsIgnoreCase(rol)) {
-            List<SolicitudServicioEntity> todas = solicitudServicioService.findAll();
-            model.addAttribute("solicitudesProveedor", todas);
-            return VIEW_HISTORIAL_PROV;
+            pagina = solicitudServicioService.historial(filtro, cursorFecha, cursor, TAMANO_PAGINA);
+            model.addAttribute("solicitudesProveedor", pagina.getContent());
         } else if ("PROVEEDOR".equalsIgnoreCase(rol)) {
-            List<SolicitudServicioEntity> proveedorSolicitudes = solicitudServicioService.findByProveedor(usuario);
-            model.addAttribute("solicitudesProveedor", proveedorSolicitudes);
-            return VIEW_HISTORIAL_PROV;
+            pagina = solicitudServicioService.historialProveedor(usuario.getIdUsuario(), filtro, cursorFecha, cursor, TAMANO_PAGINA);
+            model.addAttribute("solicitudesProveedor", pagina.getContent());
         } else {
-            List<SolicitudServicioEntity> clienteSolicitudes = solicitudServicioService.findByCliente(usuario);
-            model.addAttribute("solicitudes", clienteSolicitudes);
-            return VIEW_HISTORIAL_CLIENTE; // <-- coincide con tu plantilla: Solicitud/HistorialServicios.html
+            pagina = solicitudServicioService.historialCliente(usuario.getIdUsuario(), filtro, cursorFecha, cursor, TAMANO_PAGINA);
+            model.addAttribute("solicitudes", pagina.getContent());
         }
+        paginacion(model, "/solicitud/historial", filtro, pagina, cursor);
+        return "ADMIN".equalsIgnoreCase(rol) || "PROVEEDOR".equalsIgnoreCase(rol)
+                ? VIEW_HISTORIAL_PROV
+                : VIEW_HISTORIAL_CLIENTE; // <-- coincide con tu plantilla: Solicitud/HistorialServicios.html
     }
 
     // ================== LISTAR PROVEEDOR ==================
     @GetMapping("/proveedor/listar")
-    public String listarSolicitudesProveedor(Model model, HttpSession session) {
+    public String listarSolicitudesProveedor(@RequestParam(name = "estado", required = false) String estado,
+                                             @RequestParam(name = "desde", required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                             @RequestParam(name = "hasta", required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                             @RequestParam(name = "cursorFecha", required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cursorFecha,
+                                             @RequestParam(name = "cursor", required = false) Long cursor,
+                                             Model model, HttpSession session) {
         UsuarioEntity usuario = (UsuarioEntity) session.getAttribute("usuarioSesion");
         if (usuario == null) return "redirect:/auth/login";
 
@@ -102,25 +154,50 @@ public class SolicitudServicioController {
         model.addAttribute("isProveedor", "PROVEEDOR".equalsIgnoreCase(rol));
         model.addAttribute("isCliente", "CLIENTE".equalsIgnoreCase(rol));
 
-        if ("ADMIN".equalsIgnoreCase(rol)) {
-            model.addAttribute("solicitudesProveedor", solicitudServicioService.findAll());
-        } else {
-            model.addAttribute("solicitudesProveedor", solicitudServicioService.findByProveedor(usuario));
-        }
+        SolicitudFiltroDTO filtro = filtro(estado, desde, hasta);
+        Slice<SolicitudServicioEntity> pagina = "ADMIN".equalsIgnoreCase(rol)
+                ? solicitudServicioService.historial(filtro, cursorFecha, cursor, TAMANO_PAGINA)
+                : solicitudServicioService.historialProveedor(usuario.getIdUsuario(), filtro, cursorFecha, cursor, TAMANO_PAGINA);
+        model.addAttribute("solicitudesProveedor", pagina.getContent());
+        // Solicitudes de otros proveedores de su ciudad que el despacho está ofreciendo (solo la primera página)
+        model.addAttribute("ofertas", "PROVEEDOR".equalsIgnoreCase(rol) && cursor == null
+                ? despachoService.ofertasPara(usuario.getIdUsuario(), MAX_OFERTAS) : List.of());
+        paginacion(model, "/solicitud/proveedor/listar", filtro, pagina, cursor);
         return VIEW_HISTORIAL_PROV; // Solicitud/serviciosSolicitados.html
     }
 
+    private static SolicitudFiltroDTO filtro(String estado, LocalDate desde, LocalDate hasta) {
+        SolicitudFiltroDTO filtro = new SolicitudFiltroDTO();
+        filtro.setEstado(estado != null && !estado.isBlank() ? estado.trim() : null);
+        filtro.setDesde(desde);
+        filtro.setHasta(hasta);
+        return filtro;
+    }
+
+    // Filtros vigentes + cursor de la siguiente página (fecha e id del último elemento; null = última página)
+    private static void paginacion(Model model, String baseUrl, SolicitudFiltroDTO filtro,
+                                   Slice<SolicitudServicioEntity> pagina, Long cursor) {
+        SolicitudServicioEntity ultima = pagina.hasNext() && pagina.hasContent()
+                ? pagina.getContent().get(pagina.getNumberOfElements() - 1) : null;
+        model.addAttribute("baseUrl", baseUrl);
+        model.addAttribute("estados", ESTADOS);
+        model.addAttribute("estado", filtro.getEstado());
+        model.addAttribute("desde", filtro.getDesde());
+        model.addAttribute("hasta", filtro.getHasta());
+        model.addAttribute("cursor", cursor);
+        model.addAttribute("nextCursor", ultima != null ? ultima.getIdSolicitud() : null);
+        model.addAttribute("nextCursorFecha", ultima != null ? ultima.getFechaSolicitud() : null);
+    }
+
     // ================== PAGAR (cliente) ==================
     @GetMapping("/pagar/redir/{id}")
     public String pagarSolicitud(@PathVariable Long id, HttpSession session) {
         UsuarioEntity cliente = (UsuarioEntity) session.getAttribute("usuarioSesion");
         if (cliente == null) return "redirect:/auth/login";
 
-        SolicitudServicioEntity solicitud = solicitudServicioService.findById(id);
-        if (solicitud != null && solicitud.getCliente() != null
-                && solicitud.getCliente().getIdUsuario().equals(cliente.getIdUsuario())) {
-            solicitud.setEstado("PAGO_EN_PROCESO");
-            solicitudServicioService.save(solicitud);
+        var resultado = solicitudServicioService.transicionar(id, EstadoSolicitud.PAGO_EN_PROCESO,
+                EstadoSolicitud.Actor.CLIENTE, cliente.getIdUsuario(), false, null);
+        if (resultado == ResultadoTransicion.APLICADA) {
             return "redirect:/checkout/wompi/" + id;
         }
         return "redirect:/solicitud/historial?error=No se pudo procesar el pago";
@@ -170,9 +247,7 @@ public class SolicitudServicioController {
             puedeVer = true;
         } else if (solicitud.getCliente() != null && solicitud.getCliente().getIdUsuario().equals(usuario.getIdUsuario())) {
             puedeVer = true;
-        } else if (solicitud.getServicio() != null
-                && solicitud.getServicio().getProveedor() != null
-                && solicitud.getServicio().getProveedor().getIdUsuario().equals(usuario.getIdUsuario())) {
+        } else if (usuario.getIdUsuario().equals(solicitud.getIdProveedor())) {
             puedeVer = true;
         }
 
@@ -183,31 +258,84 @@ public class SolicitudServicioController {
     }
 
     // ================== CAMBIAR ESTADO (PROVEEDOR) ==================
+    // Transiciones con UPDATE condicional (ver EstadoSolicitud): sin lectura previa ni carrera de lost-update.
+    // Aceptar o reprogramar con fecha pasa por la agenda: la franja [fecha + hora, + duración) no puede
+    // cruzarse con otro trabajo del proveedor; si se cruza, el mensaje sugiere el siguiente horario libre
     @PostMapping("/proveedor/estado/{id}")
     public String cambiarEstadoSolicitud(@PathVariable Long id,
                                          @RequestParam String estado,
                                          @RequestParam(required = false)
-                                         @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE)
-                                         java.time.LocalDate fechaEstimada,
-                                         jakarta.servlet.http.HttpSession session) {
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaEstimada,
+                                         @RequestParam(required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime hora,
+                                         @RequestParam(required = false) Integer duracionHoras,
+                                         HttpSession session) {
         UsuarioEntity proveedor = (UsuarioEntity) session.getAttribute("usuarioSesion");
         if (proveedor == null) return "redirect:/auth/login";
 
-        SolicitudServicioEntity solicitud = solicitudServicioService.findById(id);
-        if (solicitud == null) return "redirect:/solicitud/proveedor/listar?error=Solicitud no encontrada";
-
-        if (solicitud.getServicio() == null || solicitud.getServicio().getProveedor() == null) {
-            return "redirect:/solicitud/proveedor/listar?error=Solicitud sin proveedor asociado";
+        EstadoSolicitud hacia = EstadoSolicitud.de(estado).orElse(null);
+        if (hacia == null) return "redirect:/solicitud/proveedor/listar?error=Estado no válido";
+
+        if (fechaEstimada != null && hacia == EstadoSolicitud.EN_PROCESO) {
+            Duration duracion = duracion(duracionHoras);
+            if (duracion == null) return "redirect:/solicitud/proveedor/listar?error=Duración no válida";
+            LocalDateTime inicio = inicio(fechaEstimada, hora);
+            return switch (agendaService.agendar(id, proveedor.getIdUsuario(), hacia, inicio, duracion)) {
+                case AGENDADA -> "redirect:/solicitud/proveedor/listar?success=Trabajo agendado";
+                case CONFLICTO -> "redirect:/solicitud/proveedor/listar?error=" + mensajeConflicto(
+                        agendaService.disponibilidad(proveedor.getIdUsuario(), id, inicio, duracion));
+                case EN_EL_PASADO -> "redirect:/solicitud/proveedor/listar?error=La fecha y hora ya pasaron";
+                case NO_ENCONTRADA -> "redirect:/solicitud/proveedor/listar?error=Solicitud no encontrada";
+                case NO_AUTORIZADO -> "redirect:/solicitud/proveedor/listar?error=No autorizado";
+                case NO_PERMITIDA -> "redirect:/solicitud/proveedor/listar?error=Estado actual no permite el cambio";
+            };
         }
-        if (!solicitud.getServicio().getProveedor().getIdUsuario().equals(proveedor.getIdUsuario())) {
+
+        // La fecha estimada solo se mueve con la agenda (arriba); los demás cambios de estado no la tocan
+        var resultado = solicitudServicioService.transicionar(id, hacia, EstadoSolicitud.Actor.PROVEEDOR,
+                proveedor.getIdUsuario(), false, null);
+        return switch (resultado) {
+            case APLICADA -> "redirect:/solicitud/proveedor/listar?success=Actualizado";
+            case NO_ENCONTRADA -> "redirect:/solicitud/proveedor/listar?error=Solicitud no encontrada";
+            case NO_AUTORIZADO -> "redirect:/solicitud/proveedor/listar?error=No autorizado";
+            case NO_PERMITIDA -> "redirect:/solicitud/proveedor/listar?error=Estado actual no permite el cambio";
+        };
+    }
+
+    // ================== DISPONIBILIDAD EN LA AGENDA (PROVEEDOR) ==================
+    // JSON para el modal de edición: ¿la franja está libre? y, si no, el siguiente horario libre
+    @GetMapping("/proveedor/agenda/disponibilidad")
+    @ResponseBody
+    public ResponseEntity<AgendaDisponibilidadDTO> disponibilidad(@RequestParam(required = false) Long idSolicitud,
+                                                                  @RequestParam
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+                                                                  @RequestParam(required = false)
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime hora,
+                                                                  @RequestParam(required = false) Integer duracionHoras,
+                                                                  HttpSession session) {
+        UsuarioEntity proveedor = (UsuarioEntity) session.getAttribute("usuarioSesion");
+        if (proveedor == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        Duration duracion = duracion(duracionHoras);
+        if (duracion == null) return ResponseEntity.badRequest().build();
+        LocalDateTime inicio = inicio(fecha, hora);
+        return ResponseEntity.ok(agendaService.disponibilidad(proveedor.getIdUsuario(), idSolicitud, inicio, duracion));
+    }
+
+    // ================== TOMAR UNA SOLICITUD OFERTADA (PROVEEDOR) ==================
+    // Compare-and-set en despacho y solicitud: si otro proveedor la tomó primero, NO_VIGENTE
+    @PostMapping("/proveedor/tomar/{id}")
+    public String tomarSolicitud(@PathVariable Long id, HttpSession session) {
+        UsuarioEntity proveedor = (UsuarioEntity) session.getAttribute("usuarioSesion");
+        if (proveedor == null) return "redirect:/auth/login";
+        if (proveedor.getRol() == null || !"PROVEEDOR".equalsIgnoreCase(proveedor.getRol().getRol())) {
             return "redirect:/solicitud/proveedor/listar?error=No autorizado";
         }
 
-        solicitud.setEstado(estado);
-        if (fechaEstimada != null) solicitud.setFechaEstimada(fechaEstimada);
-        solicitudServicioService.save(solicitud);
-
-        return "redirect:/solicitud/proveedor/listar?success=Actualizado";
+        return switch (despachoService.tomar(id, proveedor.getIdUsuario())) {
+            case TOMADA -> "redirect:/solicitud/proveedor/listar?success=Solicitud asignada a ti";
+            case SIN_CUPO -> "redirect:/solicitud/proveedor/listar?error=No estás disponible o no tienes cupo";
+            case NO_VIGENTE -> "redirect:/solicitud/proveedor/listar?error=La oferta ya no está disponible";
+        };
     }
 
     // ================== CAMBIAR ESTADO (ADMIN) ==================
@@ -221,48 +349,55 @@ public class SolicitudServicioController {
             return "redirect:/solicitud/historial?error=No autorizado";
         }
 
-        SolicitudServicioEntity solicitud = solicitudServicioService.findById(id);
-        if (solicitud == null) return "redirect:/solicitud/historial?error=Solicitud no encontrada";
-        if (!"PAGO_EN_PROCESO".equalsIgnoreCase(solicitud.getEstado())) {
-            return "redirect:/solicitud/historial?error=Estado no válido";
-        }
+        EstadoSolicitud hacia = EstadoSolicitud.de(estado).orElse(null);
+        if (hacia == null) return "redirect:/solicitud/historial?error=Estado no válido";
 
-        solicitud.setEstado(estado);
-        solicitudServicioService.save(solicitud);
-        return "redirect:/solicitud/historial?success=Estado actualizado correctamente";
+        var resultado = solicitudServicioService.transicionar(id, hacia, EstadoSolicitud.Actor.ADMIN,
+                admin.getIdUsuario(), false, null);
+        return switch (resultado) {
+            case APLICADA -> "redirect:/solicitud/historial?success=Estado actualizado correctamente";
+            case NO_ENCONTRADA -> "redirect:/solicitud/historial?error=Solicitud no encontrada";
+            case NO_AUTORIZADO, NO_PERMITIDA -> "redirect:/solicitud/historial?error=Estado no válido";
+        };
     }
 
     // ================== CAMBIAR ESTADO (CLIENTE) ==================
     @PostMapping("/cliente/estado/{id}")
     public String cambiarEstadoCliente(@PathVariable Long id,
                                        @RequestParam String estado,
-                                       @RequestParam(required = false) String fechaEstimada,
                                        HttpSession session) {
         UsuarioEntity cliente = (UsuarioEntity) session.getAttribute("usuarioSesion");
         if (cliente == null) return "redirect:/auth/login";
 
-        SolicitudServicioEntity solicitud = solicitudServicioService.findById(id);
-        if (solicitud == null) return "redirect:/solicitud/historial?error=Solicitud no encontrada";
-        if (solicitud.getCliente() == null || !solicitud.getCliente().getIdUsuario().equals(cliente.getIdUsuario())) {
-            return "redirect:/solicitud/historial?error=No autorizado";
-        }
-        if (!"PAGO_ACEPTADO".equalsIgnoreCase(solicitud.getEstado())
-                && !"EN PROCESO".equalsIgnoreCase(solicitud.getEstado())) {
-            return "redirect:/solicitud/historial?error=Estado actual no permite edición";
-        }
+        EstadoSolicitud hacia = EstadoSolicitud.de(estado).orElse(null);
+        if (hacia == null) return "redirect:/solicitud/historial?error=Estado no válido";
+
+        // La fecha estimada es la franja que reservó el proveedor en su agenda: el cliente no la cambia
+        var resultado = solicitudServicioService.transicionar(id, hacia, EstadoSolicitud.Actor.CLIENTE,
+                cliente.getIdUsuario(), false, null);
+        return switch (resultado) {
+            case APLICADA -> "redirect:/solicitud/historial?success=Cambios guardados";
+            case NO_ENCONTRADA -> "redirect:/solicitud/historial?error=Solicitud no encontrada";
+            case NO_AUTORIZADO -> "redirect:/solicitud/historial?error=No autorizado";
+            case NO_PERMITIDA -> "redirect:/solicitud/historial?error=Estado actual no permite edición";
+        };
+    }
 
-        if (fechaEstimada != null && !fechaEstimada.isBlank()) {
-            try {
-                solicitud.setFechaEstimada(LocalDate.parse(fechaEstimada));
-            } catch (DateTimeParseException ex) {
-                return "redirect:/solicitud/historial?error=Fecha estimada inválida";
-            }
-        } else {
-            solicitud.setFechaEstimada(null);
-        }
+    // Sin hora = agenda.hora-por-defecto (la fecha estimada antes no llevaba hora)
+    private LocalDateTime inicio(LocalDate fecha, LocalTime hora) {
+        return fecha.atTime(hora != null ? hora : LocalTime.parse(horaPorDefecto));
+    }
 
-        solicitud.setEstado(estado);
-        solicitudServicioService.save(solicitud);
-        return "redirect:/solicitud/historial?success=Cambios guardados";
+    // Sin duración = la por defecto; fuera de 1..MAX_DURACION_HORAS = inválida
+    private Duration duracion(Integer horas) {
+        if (horas == null) return duracionPorDefecto;
+        return horas >= 1 && horas <= MAX_DURACION_HORAS ? Duration.ofHours(horas) : null;
+    }
+
+    private static String mensajeConflicto(AgendaDisponibilidadDTO d) {
+        String base = "El horario se cruza con la solicitud " + d.getIdSolicitudEnConflicto();
+        return d.getSiguienteLibre() != null
+                ? base + ". Siguiente horario libre: " + d.getSiguienteLibre().format(FORMATO_HORARIO)
+                : base + ". No hay horario libre en los próximos días";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.usta.serviexpress.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta de /solicitud/proveedor/agenda/disponibilidad: si [inicio, fin) está libre en la agenda del
+ * proveedor y, si no, con qué solicitud se cruza y el primer horario libre de la misma duración dentro
+ * de la jornada (null si no hay uno en el horizonte de búsqueda).
+ */
+@Getter
+@AllArgsConstructor
+public class AgendaDisponibilidadDTO {
+    private final boolean libre;
+    private final LocalDateTime inicio;
+    private final LocalDateTime fin;
+    private final Long idSolicitudEnConflicto;
+    private final LocalDateTime siguienteLibre;
+}
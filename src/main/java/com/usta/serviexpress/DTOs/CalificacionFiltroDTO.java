@@ -0,0 +1,17 @@
+package com.usta.serviexpress.DTOs;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Filtros del listado de calificaciones; los campos null no filtran. Fechas inclusivas. */
+@Data
+public class CalificacionFiltroDTO {
+    private Integer puntuacion;
+    private Long proveedorId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+}
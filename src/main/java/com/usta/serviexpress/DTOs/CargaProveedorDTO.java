@@ -0,0 +1,62 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Entity.ServicioEntity;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Carga de un proveedor para los tableros: solicitudes y servicios suyos por estado.
+ * Inmutable (se guarda tal cual en el mapa en memoria de CargaProveedorService); estados sin fila valen 0.
+ */
+@Getter
+public class CargaProveedorDTO {
+
+    private final Long idProveedor;
+    private final Map<String, Long> solicitudes;   // estado de solicitud_servicio → total
+    private final Map<String, Long> servicios;     // EstadoServicio.name() → total
+
+    public CargaProveedorDTO(Long idProveedor, Map<String, Long> solicitudes, Map<String, Long> servicios) {
+        this.idProveedor = idProveedor;
+        this.solicitudes = Map.copyOf(solicitudes);
+        this.servicios = Map.copyOf(servicios);
+    }
+
+    public static CargaProveedorDTO vacia(Long idProveedor) {
+        return new CargaProveedorDTO(idProveedor, Map.of(), Map.of());
+    }
+
+    public long getPendientes() {
+        return solicitudes(EstadoSolicitud.PENDIENTE);
+    }
+
+    public long getEnProceso() {
+        return solicitudes(EstadoSolicitud.EN_PROCESO);
+    }
+
+    public long getFinalizadas() {
+        return solicitudes(EstadoSolicitud.FINALIZADO);
+    }
+
+    // Solicitudes en curso (mismo criterio que EstadoSolicitud.activo())
+    public long getActivas() {
+        long total = 0;
+        for (EstadoSolicitud e : EstadoSolicitud.values()) {
+            if (e.activo()) total += solicitudes(e);
+        }
+        return total;
+    }
+
+    public long getServiciosTotal() {
+        return servicios.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getServiciosDisponibles() {
+        return servicios.getOrDefault(ServicioEntity.EstadoServicio.DISPONIBLE.name(), 0L);
+    }
+
+    public long solicitudes(EstadoSolicitud estado) {
+        return solicitudes.getOrDefault(estado.valor(), 0L);
+    }
+}
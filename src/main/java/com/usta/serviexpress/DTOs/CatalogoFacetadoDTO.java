@@ -0,0 +1,24 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Repository.ServicioCardView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/** Respuesta del catálogo facetado: página de servicios + conteos por faceta. */
+@Getter
+@AllArgsConstructor
+public class CatalogoFacetadoDTO {
+    private final int total;
+    private final int page;
+    private final boolean hasNext;
+    private final String orden;
+    private final List<FacetaValorDTO> estados;
+    private final List<FacetaValorDTO> precios;
+    private final List<FacetaValorDTO> ciudades;
+    private final List<FacetaValorDTO> ratings;
+    private final List<ServicioCardView> servicios;
+    private final Map<Long, Double> ratingPorProveedor;
+}
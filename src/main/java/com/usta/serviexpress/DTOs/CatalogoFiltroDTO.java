@@ -0,0 +1,24 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/** Filtros combinables del catálogo; los campos null no filtran. */
+@Data
+public class CatalogoFiltroDTO {
+    private ServicioEntity.EstadoServicio estado;
+    private String nombre;                 // término de búsqueda de texto (ServicioSearchService)
+    private Long proveedorId;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private boolean soloConProveedor;      // excluye servicios sin proveedor asignado
+    private String ciudad;                 // ciudad del proveedor (se compara por ciudad_clave)
+
+    public static CatalogoFiltroDTO disponibles() {
+        CatalogoFiltroDTO f = new CatalogoFiltroDTO();
+        f.setEstado(ServicioEntity.EstadoServicio.DISPONIBLE);
+        return f;
+    }
+}
@@ -0,0 +1,16 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+import lombok.Data;
+
+/** Selección de facetas del catálogo; los campos null no filtran. */
+@Data
+public class FacetaFiltroDTO {
+    private ServicioEntity.EstadoServicio estado;
+    private Integer rangoPrecio;            // índice de CatalogoFacetado.LIMITES_PRECIO (0 = el más barato)
+    private String ciudad;                 // ciudad del proveedor (se normaliza: sin tildes ni mayúsculas)
+    private Integer ratingMin;             // promedio mínimo del proveedor (1..4)
+    private String orden;                  // recientes | precio_asc | precio_desc | rating
+    private int page;
+    private int size = 12;
+}
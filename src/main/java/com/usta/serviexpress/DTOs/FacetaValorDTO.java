@@ -0,0 +1,14 @@
+package com.usta.serviexpress.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Un valor de faceta: parámetro a enviar, etiqueta visible, número de resultados y si está seleccionado. */
+@Getter
+@AllArgsConstructor
+public class FacetaValorDTO {
+    private final String valor;
+    private final String etiqueta;
+    private final int conteo;
+    private final boolean seleccionado;
+}
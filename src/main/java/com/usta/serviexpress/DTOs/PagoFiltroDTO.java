@@ -0,0 +1,17 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Entity.PagoEntity;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Filtros de la exportación de pagos; los campos null no filtran. Fechas inclusivas sobre fechaPago. */
+@Data
+public class PagoFiltroDTO {
+    private PagoEntity.EstadoPago estado;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+}
@@ -0,0 +1,47 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Repository.ServicioCardView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Vista compuesta del perfil público de un proveedor (cacheada por PerfilProveedorService).
+ * Inmutable: cada cambio (calificación, servicio, solicitud) produce una copia con solo esa parte recalculada.
+ */
+@Getter
+@AllArgsConstructor
+public class PerfilProveedorDTO {
+    private final Long idProveedor;
+    private final String nombre;
+    private final String ciudad;
+    private final Double promedio;                 // null sin reseñas
+    private final long totalResenas;
+    private final List<Long> histograma;           // posición 0 = 1★ … posición 4 = 5★
+    private final List<ServicioCardView> servicios;
+    private final List<ResenaDTO> resenasRecientes;
+    private final long trabajosFinalizados;
+
+    public PerfilProveedorDTO conCalificaciones(Double promedio, long totalResenas, List<Long> histograma,
+                                                List<ResenaDTO> resenasRecientes) {
+        return new PerfilProveedorDTO(idProveedor, nombre, ciudad, promedio, totalResenas, histograma,
+                servicios, resenasRecientes, trabajosFinalizados);
+    }
+
+    public PerfilProveedorDTO conServicios(List<ServicioCardView> servicios) {
+        return new PerfilProveedorDTO(idProveedor, nombre, ciudad, promedio, totalResenas, histograma,
+                servicios, resenasRecientes, trabajosFinalizados);
+    }
+
+    public PerfilProveedorDTO conTrabajosFinalizados(long trabajosFinalizados) {
+        return new PerfilProveedorDTO(idProveedor, nombre, ciudad, promedio, totalResenas, histograma,
+                servicios, resenasRecientes, trabajosFinalizados);
+    }
+
+    // Porcentaje (0..100) de reseñas con 'estrellas' estrellas, para las barras del histograma
+    public int porcentaje(int estrellas) {
+        if (totalResenas <= 0 || estrellas < 1 || estrellas > 5) return 0;
+        return (int) Math.round(histograma.get(estrellas - 1) * 100.0 / totalResenas);
+    }
+}
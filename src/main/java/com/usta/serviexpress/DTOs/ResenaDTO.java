@@ -0,0 +1,24 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Repository.CalificacionFeedView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/** Reseña del perfil de proveedor, desacoplada de la proyección JPA para poder cachearla. */
+@Getter
+@AllArgsConstructor
+public class ResenaDTO {
+    private final Long idCalificacion;
+    private final Integer puntuacion;
+    private final String comentario;
+    private final LocalDateTime fecha;
+    private final String nombreCliente;
+    private final String nombreServicio;
+
+    public static ResenaDTO de(CalificacionFeedView v) {
+        return new ResenaDTO(v.getIdCalificacion(), v.getPuntuacion(), v.getComentario(), v.getFecha(),
+                v.getNombreCliente(), v.getNombreServicio());
+    }
+}
@@ -0,0 +1,27 @@
+package com.usta.serviexpress.DTOs;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/** Implementación concreta de ServicioCardView para consultas Criteria (constructor expression). */
+@Getter
+@AllArgsConstructor
+public class ServicioCardDTO implements ServicioCardView {
+    private final Long idServicio;
+    private final String nombre;
+    private final String descripcion;
+    private final BigDecimal precio;
+    private final ServicioEntity.EstadoServicio estado;
+    private final Long idProveedor;
+    private final String nombreProveedor;
+
+    // Copia desacoplada de una proyección (p. ej. para mantenerla en memoria fuera de la sesión JPA)
+    public static ServicioCardDTO de(ServicioCardView v) {
+        return new ServicioCardDTO(v.getIdServicio(), v.getNombre(), v.getDescripcion(), v.getPrecio(),
+                v.getEstado(), v.getIdProveedor(), v.getNombreProveedor());
+    }
+}
@@ -0,0 +1,23 @@
+package com.usta.serviexpress.DTOs;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Filtros del historial de solicitudes; los campos null no filtran. Fechas inclusivas sobre fechaSolicitud. */
+@Data
+public class SolicitudFiltroDTO {
+    /** Valor de estado que agrupa los estados en curso (EstadoSolicitud.activo()). */
+    public static final String ACTIVAS = "ACTIVAS";
+
+    private String estado;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate desde;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate hasta;
+
+    public boolean soloActivas() {
+        return ACTIVAS.equalsIgnoreCase(estado);
+    }
+}
@@ -0,0 +1,13 @@
+package com.usta.serviexpress.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Elemento del autocompletado: texto a mostrar, tipo (SERVICIO | PROVEEDOR) y peso de popularidad. */
+@Getter
+@AllArgsConstructor
+public class SugerenciaDTO {
+    private final String texto;
+    private final String tipo;
+    private final long peso;
+}
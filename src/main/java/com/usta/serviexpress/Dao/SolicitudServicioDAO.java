@@ -23,10 +23,17 @@ public interface SolicitudServicioDAO extends JpaRepository<SolicitudServicioEnt
     @Query("SELECT SS FROM SolicitudServicioEntity SS WHERE SS.estado = ?1")
     List<SolicitudServicioEntity> listByEstado(String estado);
 
+    // Igualdad sobre la clave de partición: solo se abre la partición del mes de la fecha
     @Transactional(readOnly = true)
     @Query("SELECT SS FROM SolicitudServicioEntity SS WHERE SS.fechaSolicitud = ?1")
     List<SolicitudServicioEntity> listByFecha(LocalDate fecha);
 
+    // Rango semiabierto [desde, hasta): solo se abren las particiones mensuales que lo cubren
+    @Transactional(readOnly = true)
+    @Query("SELECT SS FROM SolicitudServicioEntity SS WHERE SS.fechaSolicitud >= ?1 AND SS.fechaSolicitud < ?2 "
+            + "ORDER BY SS.fechaSolicitud DESC, SS.idSolicitud DESC")
+    List<SolicitudServicioEntity> listByRangoFechas(LocalDate desde, LocalDate hasta);
+
     @Transactional
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("UPDATE SolicitudServicioEntity SS SET SS.estado = ?2 WHERE SS.idSolicitud = ?1")
@@ -0,0 +1,43 @@
+package com.usta.serviexpress.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Franja de la agenda de un proveedor ocupada por una solicitud [inicio, fin); a lo sumo una por solicitud.
+ * La escribe AgendaServiceImplement al aceptar o reprogramar un trabajo y se borra cuando la solicitud
+ * deja de estar activa. Las franjas de un mismo proveedor no se cruzan: lo garantiza la restricción de
+ * exclusión ex_agenda_solape (db/postgres/12_agenda.sql), no solo la comprobación en memoria.
+ * Sin FK física a solicitud_servicio: está particionada y su clave primaria es (id_solicitud, fecha_solicitud).
+ */
+@Getter @Setter
+@Entity
+@Table(name = "agenda_reservas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_agenda_solicitud", columnNames = "id_solicitud"))
+public class AgendaReservaEntity implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    @Column(name = "id_proveedor", nullable = false)
+    private Long idProveedor;
+
+    @Column(name = "id_solicitud", nullable = false)
+    private Long idSolicitud;
+
+    @Column(name = "inicio", nullable = false)
+    private LocalDateTime inicio;
+
+    // Exclusivo: una franja que empieza justo cuando termina otra no se cruza con ella
+    @Column(name = "fin", nullable = false)
+    private LocalDateTime fin;
+
+    @Column(name = "creado", nullable = false)
+    private LocalDateTime creado;
+}
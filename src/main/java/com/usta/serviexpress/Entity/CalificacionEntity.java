@@ -39,6 +39,10 @@ public class CalificacionEntity implements Serializable {
     @Column(name = "comentario", length = 500)
     private String comentario;
 
+    // Puntuación reemplazada por el último upsert (null si nunca se editó); la usa el delta del agregado
+    @Column(name = "puntuacion_anterior")
+    private Integer puntuacionAnterior;
+
     @Column(name = "fecha", nullable = false)
     private LocalDateTime fecha;
 
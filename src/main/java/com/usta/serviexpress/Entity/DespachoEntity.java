@@ -0,0 +1,58 @@
+package com.usta.serviexpress.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado del despacho automático de una solicitud nueva (una fila por solicitud).
+ * Lo escribe DespachoServiceImplement después del commit que creó la solicitud; la toma de una
+ * oferta es un UPDATE condicional OFERTADA → TOMADA (DespachoRepository.tomar).
+ * Sin FK física a solicitud_servicio: está particionada y su clave primaria es (id_solicitud, fecha_solicitud).
+ */
+@Getter @Setter
+@Entity
+@Table(name = "despacho")
+public class DespachoEntity implements Serializable {
+
+    // El dueño del servicio tiene cupo: la solicitud queda con él
+    public static final String ASIGNADA = "ASIGNADA";
+    // El dueño no está disponible o está lleno: se ofrece a los mejores proveedores de la ciudad
+    public static final String OFERTADA = "OFERTADA";
+    // Otro proveedor la tomó (solicitud_servicio.id_proveedor pasa a él)
+    public static final String TOMADA = "TOMADA";
+    // Nadie con cupo en la ciudad: queda con el dueño del servicio
+    public static final String SIN_CANDIDATOS = "SIN_CANDIDATOS";
+
+    @Id
+    @Column(name = "id_solicitud")
+    private Long idSolicitud;
+
+    // Dueño del servicio al crear la solicitud
+    @Column(name = "id_dueno", nullable = false)
+    private Long idDueno;
+
+    // Proveedor asignado o que la tomó; null mientras está ofertada
+    @Column(name = "id_proveedor")
+    private Long idProveedor;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado;
+
+    // Ciudad donde se ofertó (la del cliente; si no tiene, la del servicio)
+    @Column(name = "ciudad_clave", length = 80)
+    private String ciudadClave;
+
+    // Puntaje del mejor candidato (calificación, carga y distancia), para revisar el despacho
+    @Column(name = "puntaje")
+    private Double puntaje;
+
+    @Column(name = "creado", nullable = false)
+    private LocalDateTime creado;
+
+    @Column(name = "actualizado", nullable = false)
+    private LocalDateTime actualizado;
+}
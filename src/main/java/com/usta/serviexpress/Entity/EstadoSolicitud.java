@@ -0,0 +1,103 @@
+package com.usta.serviexpress.Entity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Estados de solicitud_servicio.estado (el valor en BD conserva el formato histórico, p. ej. "EN PROCESO")
+ * y, por actor, desde qué estados se llega a cada uno. Esa lista es el "estado IN (...)" del UPDATE
+ * condicional, así validar y escribir son la misma sentencia. activo() debe coincidir con los índices
+ * parciales de db/postgres/09_solicitud_estados.sql.
+ */
+public enum EstadoSolicitud {
+
+    PENDIENTE("PENDIENTE", true),
+    PAGO_EN_PROCESO("PAGO_EN_PROCESO", true),
+    PAGO_ACEPTADO("PAGO_ACEPTADO", true),
+    PAGO_RECHAZADO("PAGO_RECHAZADO", false),
+    EN_PROCESO("EN PROCESO", true),
+    FINALIZADO("FINALIZADO", false);
+
+    /** Quién pide la transición; cada endpoint actúa con uno solo. */
+    public enum Actor { CLIENTE, PROVEEDOR, ADMIN }
+
+    private final String valor;
+    private final boolean activo;
+
+    EstadoSolicitud(String valor, boolean activo) {
+        this.valor = valor;
+        this.activo = activo;
+    }
+
+    // ===================== Tabla de transiciones =====================
+    // ORIGENES[actor][destino] = estados desde los que ese actor puede pasar la solicitud a destino
+
+    private static final Map<Actor, Map<EstadoSolicitud, Set<EstadoSolicitud>>> ORIGENES = new EnumMap<>(Actor.class);
+
+    static {
+        // Cliente: pagar (o reintentar tras un rechazo / volver al checkout)
+        permitir(Actor.CLIENTE, PAGO_EN_PROCESO, PENDIENTE, PAGO_RECHAZADO, PAGO_EN_PROCESO);
+        // Administrador: revisar el pago
+        permitir(Actor.ADMIN, PAGO_ACEPTADO, PAGO_EN_PROCESO);
+        permitir(Actor.ADMIN, PAGO_RECHAZADO, PAGO_EN_PROCESO);
+        // Proveedor y cliente: ejecución del servicio ya pagado
+        for (Actor a : List.of(Actor.PROVEEDOR, Actor.CLIENTE)) {
+            permitir(a, EN_PROCESO, PAGO_ACEPTADO, EN_PROCESO);
+            permitir(a, FINALIZADO, PAGO_ACEPTADO, EN_PROCESO);
+        }
+    }
+
+    private static void permitir(Actor actor, EstadoSolicitud destino, EstadoSolicitud... desde) {
+        ORIGENES.computeIfAbsent(actor, k -> new EnumMap<>(EstadoSolicitud.class))
+                .computeIfAbsent(destino, k -> EnumSet.noneOf(EstadoSolicitud.class))
+                .addAll(Arrays.asList(desde));
+    }
+
+    /** Estados desde los que actor puede llevar una solicitud a este estado (vacío = no permitido). */
+    public Set<EstadoSolicitud> origenes(Actor actor) {
+        Set<EstadoSolicitud> s = ORIGENES.getOrDefault(actor, Map.of()).get(this);
+        return s == null ? Set.of() : Collections.unmodifiableSet(s);
+    }
+
+    /** Valores en BD de origenes(actor), listos para el "estado IN (...)" del UPDATE condicional. */
+    public List<String> valoresOrigen(Actor actor) {
+        return origenes(actor).stream().map(EstadoSolicitud::valor).toList();
+    }
+
+    public boolean permiteDesde(EstadoSolicitud actual, Actor actor) {
+        return actual != null && origenes(actor).contains(actual);
+    }
+
+    // ===================== Valores =====================
+
+    /** Texto guardado en solicitud_servicio.estado. */
+    public String valor() {
+        return valor;
+    }
+
+    /** Estados "en curso" que cubren los índices parciales del tablero. */
+    public boolean activo() {
+        return activo;
+    }
+
+    /** Acepta el valor en BD o el nombre del enum, sin distinguir mayúsculas ("EN PROCESO" / "en_proceso"). */
+    public static Optional<EstadoSolicitud> de(String texto) {
+        if (texto == null || texto.isBlank()) return Optional.empty();
+        String t = texto.trim().toUpperCase(Locale.ROOT);
+        for (EstadoSolicitud e : values()) {
+            if (e.valor.equals(t) || e.name().equals(t)) return Optional.of(e);
+        }
+        return Optional.empty();
+    }
+
+    public static List<String> valores() {
+        return Arrays.stream(values()).map(EstadoSolicitud::valor).toList();
+    }
+}
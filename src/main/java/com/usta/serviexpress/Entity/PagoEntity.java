@@ -10,16 +10,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(
-        name = "PAGOS",
-        uniqueConstraints = {
-                @UniqueConstraint(name = "uk_pago_solicitud", columnNames = {"id_solicitud"}),
-                // opcional pero recomendado para idempotencia del webhook:
-                @UniqueConstraint(name = "uk_pago_referencia_ext", columnNames = {"referencia_ext"}),
-                // si quieres que el token no se repita:
-                @UniqueConstraint(name = "uk_pago_token", columnNames = {"payment_token"})
-        }
-)
+// Sin uniqueConstraints: en pagos particionada no caben (no incluyen fecha_pago) y ddl-auto=update las
+// reintentaría en cada arranque. Sin particionar las crea db/postgres/14_pagos_unicos.sql; particionada, la
+// unicidad de id_solicitud / referencia_ext / payment_token la da pagos_claves (TablaParticionada.PAGOS)
+@Table(name = "PAGOS")
 public class PagoEntity implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -47,6 +41,7 @@ public class PagoEntity implements Serializable {
     @Column(name = "estado", nullable = false, length = 20)
     private EstadoPago estado;
 
+    // Clave de partición (pagos está particionada por mes, ver ParticionesPostgres)
     @NotNull
     @Column(name = "fecha_pago", nullable = false)
     private LocalDateTime fechaPago;
@@ -92,9 +87,11 @@ public class PagoEntity implements Serializable {
 
     // ---- RELACIONES ----
         @NotNull
-        @OneToOne(optional = false, fetch = FetchType.LAZY)
+        // @ManyToOne y no @OneToOne: este implica un UNIQUE sobre id_solicitud (ver arriba).
+        // Sin FK física: solicitud_servicio está particionada y su clave primaria es (id_solicitud, fecha_solicitud)
+        @ManyToOne(optional = false, fetch = FetchType.LAZY)
         @JoinColumn(name = "id_solicitud", nullable = false,
-                foreignKey = @ForeignKey(name = "fk_pago_solicitud"))
+                foreignKey = @ForeignKey(name = "fk_pago_solicitud", value = ConstraintMode.NO_CONSTRAINT))
     private SolicitudServicioEntity solicitud;
 
     // ---- HOOKS ----
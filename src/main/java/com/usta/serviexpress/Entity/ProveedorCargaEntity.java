@@ -0,0 +1,55 @@
+package com.usta.serviexpress.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Contador de carga de un proveedor: cuántas solicitudes / servicios suyos hay en cada estado.
+ * Una fila por (proveedor, tipo, estado). Lo mantiene CargaProveedorServiceImplement con deltas en la
+ * misma transacción que el cambio de estado y lo reconcilia CargaProveedorReconciliacionJob.
+ */
+@Getter @Setter
+@Entity
+@IdClass(ProveedorCargaEntity.Clave.class)
+@Table(name = "provider_workload")
+public class ProveedorCargaEntity implements Serializable {
+
+    public static final String SOLICITUD = "SOLICITUD";
+    public static final String SERVICIO = "SERVICIO";
+
+    @Id
+    @Column(name = "id_proveedor")
+    private Long idProveedor;
+
+    // SOLICITUD (estado de solicitud_servicio) | SERVICIO (estado de servicio)
+    @Id
+    @Column(name = "tipo", length = 16)
+    private String tipo;
+
+    @Id
+    @Column(name = "estado", length = 40)
+    private String estado;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "actualizado", nullable = false)
+    private LocalDateTime actualizado;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Clave implements Serializable {
+        private Long idProveedor;
+        private String tipo;
+        private String estado;
+    }
+}
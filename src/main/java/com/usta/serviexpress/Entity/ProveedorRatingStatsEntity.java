@@ -0,0 +1,55 @@
+package com.usta.serviexpress.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Agregado de calificaciones por proveedor (suma, total e histograma 1..5).
+ * Lo mantiene CalificacionServiceImplement con deltas en la misma transacción que la calificación;
+ * promedio = suma / total se guarda para poder ordenar el ranking por índice.
+ */
+@Getter @Setter
+@Entity
+@Table(name = "provider_rating_stats")
+public class ProveedorRatingStatsEntity implements Serializable {
+
+    @Id
+    @Column(name = "id_proveedor")
+    private Long idProveedor;
+
+    @Column(name = "suma", nullable = false)
+    private long suma;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "estrellas_1", nullable = false)
+    private long estrellas1;
+
+    @Column(name = "estrellas_2", nullable = false)
+    private long estrellas2;
+
+    @Column(name = "estrellas_3", nullable = false)
+    private long estrellas3;
+
+    @Column(name = "estrellas_4", nullable = false)
+    private long estrellas4;
+
+    @Column(name = "estrellas_5", nullable = false)
+    private long estrellas5;
+
+    @Column(name = "promedio")
+    private Double promedio;
+
+    @Column(name = "actualizado", nullable = false)
+    private LocalDateTime actualizado;
+
+    // Histograma indexado por estrellas - 1
+    public long[] histograma() {
+        return new long[]{estrellas1, estrellas2, estrellas3, estrellas4, estrellas5};
+    }
+}
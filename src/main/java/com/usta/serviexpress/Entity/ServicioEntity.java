@@ -1,6 +1,7 @@
 package com.usta.serviexpress.Entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.usta.serviexpress.util.CiudadUtils;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
@@ -12,7 +13,14 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "SERVICIO")
+@Table(name = "SERVICIO",
+        indexes = {
+                // Soportan los listados keyset (WHERE ... AND id_servicio < :cursor ORDER BY id_servicio DESC)
+                @Index(name = "ix_servicio_estado_id", columnList = "estado, id_servicio"),
+                @Index(name = "ix_servicio_proveedor_id", columnList = "id_proveedor, id_servicio"),
+                // Catálogo por ciudad: WHERE ciudad_clave = ? AND estado = ? AND id_servicio < :cursor
+                @Index(name = "ix_servicio_ciudad_estado_id", columnList = "ciudad_clave, estado, id_servicio")
+        })
 public class ServicioEntity implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -56,13 +64,22 @@ public class ServicioEntity implements Serializable {
     @JsonManagedReference
     private List<SolicitudServicioEntity> solicitudes = new ArrayList<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_proveedor")
     private UsuarioEntity proveedor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_cliente")
     private UsuarioEntity cliente;
 
+    // Copia de usuarios.ciudad_clave del proveedor: permite filtrar por ciudad sin join
+    @Column(name = "ciudad_clave", length = 80)
+    private String ciudadClave;
+
+    @PrePersist
+    @PreUpdate
+    void copiarCiudadProveedor() {
+        this.ciudadClave = proveedor != null ? CiudadUtils.clave(proveedor.getCiudad()) : null;
+    }
 
 }
\ No newline at end of file
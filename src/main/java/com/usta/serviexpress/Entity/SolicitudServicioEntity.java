@@ -17,7 +17,8 @@ public class SolicitudServicioEntity implements Serializable {
     @Column(name = "id_solicitud")
     private Long idSolicitud;
 
-    @Column(name = "fecha_solicitud")
+    // Clave de partición (solicitud_servicio está particionada por mes, ver ParticionesPostgres)
+    @Column(name = "fecha_solicitud", nullable = false)
     private LocalDate fechaSolicitud;
 
     @Column(name = "estado", length = 40)
@@ -45,10 +46,36 @@ public class SolicitudServicioEntity implements Serializable {
     @JoinColumn(name = "id_cliente")
     private UsuarioEntity cliente;
 
-    @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "id_pago")
+    // Sin FK física: pagos está particionada y su clave primaria es (id_pago, fecha_pago).
+    // @ManyToOne: un @OneToOne implica un UNIQUE sobre id_pago que la tabla particionada no admite
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_pago", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private PagoEntity pago;
 
+    // Proveedor asignado: al crearla, el dueño del servicio; el despacho puede pasarla a otro proveedor
+    // (despacho.estado = TOMADA). Las consultas del proveedor filtran por aquí sin join a SERVICIO.
+    @Column(name = "id_proveedor")
+    private Long idProveedor;
+
+    // Ubicación del cliente al pedir (opcional, la manda el navegador); distancia en el despacho
+    @Column(name = "latitud")
+    private Double latitud;
+
+    @Column(name = "longitud")
+    private Double longitud;
+
+    @PrePersist
+    @PreUpdate
+    void antesDeGuardar() {
+        if (fechaSolicitud == null) fechaSolicitud = LocalDate.now();
+        if (idProveedor == null) copiarProveedorServicio();
+    }
+
+    private void copiarProveedorServicio() {
+        this.idProveedor = (servicio != null && servicio.getProveedor() != null)
+                ? servicio.getProveedor().getIdUsuario() : null;
+    }
+
     // ===== GETTERS/SETTERS =====
     public Long getIdSolicitud() { return idSolicitud; }
     public void setIdSolicitud(Long idSolicitud) { this.idSolicitud = idSolicitud; }
@@ -76,4 +103,12 @@ public class SolicitudServicioEntity implements Serializable {
 
     public PagoEntity getPago() { return pago; }
     public void setPago(PagoEntity pago) { this.pago = pago; }
+
+    public Long getIdProveedor() { return idProveedor; }
+
+    public Double getLatitud() { return latitud; }
+    public void setLatitud(Double latitud) { this.latitud = latitud; }
+
+    public Double getLongitud() { return longitud; }
+    public void setLongitud(Double longitud) { this.longitud = longitud; }
 }
\ No newline at end of file
@@ -1,16 +1,22 @@
 package com.usta.serviexpress.Entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.usta.serviexpress.util.CiudadUtils;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 
 @Data
 @Entity
 @Table(
         name = "usuarios",
-        uniqueConstraints = @UniqueConstraint(name = "uk_usuarios_correo", columnNames = "correo")
+        uniqueConstraints = @UniqueConstraint(name = "uk_usuarios_correo", columnNames = "correo"),
+        indexes = {
+                // Proveedores de una ciudad sin recorrer la tabla (findByRol_RolAndCiudadClave)
+                @Index(name = "ix_usuarios_ciudad_rol_id", columnList = "ciudad_clave, id_rol, id_usuario")
+        }
 )
 @JsonIgnoreProperties({"hibernateLazyInitializer","handler"})
 public class UsuarioEntity implements Serializable {
@@ -45,11 +51,40 @@ public class UsuarioEntity implements Serializable {
     @Column(name = "ciudad", length = 80)
     private String ciudad;
 
+    // Derivada de ciudad (CiudadUtils.clave); se recalcula al guardar
+    @Column(name = "ciudad_clave", length = 80)
+    private String ciudadClave;
+
+    // ===== Despacho (solo proveedores; null = valor por defecto) =====
+    // Disponible para recibir solicitudes nuevas; null cuenta como disponible
+    @Column(name = "disponible")
+    private Boolean disponibilidad;
+
+    // Solicitudes activas simultáneas; null = despacho.capacidad-por-defecto
+    @Column(name = "capacidad")
+    private Integer capacidad;
+
+    @Column(name = "tarifa", precision = 12, scale = 2)
+    private BigDecimal tarifa;
+
+    // Ubicación de referencia del proveedor (distancia en el despacho)
+    @Column(name = "latitud")
+    private Double latitud;
+
+    @Column(name = "longitud")
+    private Double longitud;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_rol", nullable = false)  // <- sin insertable/updatable en false
     private RolEntity rol;
 
-    // (si algún día necesitas setters para proveedor, reemplázalos por campos reales)
-    public void setDisponibilidad(boolean disponibilidad) { }
-    public void setTarifa(double tarifa) { }
+    @PrePersist
+    @PreUpdate
+    void normalizarCiudad() {
+        this.ciudadClave = CiudadUtils.clave(ciudad);
+    }
+
+    public boolean estaDisponible() {
+        return disponibilidad == null || disponibilidad;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Entity.AgendaReservaEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface AgendaRepository extends JpaRepository<AgendaReservaEntity, Long> {
+
+    /**
+     * Reserva [inicio, fin) para la solicitud. 0 filas = se cruza con otra franja del proveedor
+     * (ex_agenda_solape) o la solicitud ya tiene franja: se borra antes con borrarDeSolicitud.
+     * Dos reservas simultáneas que se cruzan: la segunda espera a la primera y no inserta.
+     */
+    @Modifying
+    @Query(value = """
+           insert into agenda_reservas (id_proveedor, id_solicitud, inicio, fin, creado)
+           values (:idProveedor, :idSolicitud, :inicio, :fin, now())
+           on conflict do nothing
+           """, nativeQuery = true)
+    int reservar(@Param("idProveedor") Long idProveedor,
+                 @Param("idSolicitud") Long idSolicitud,
+                 @Param("inicio") LocalDateTime inicio,
+                 @Param("fin") LocalDateTime fin);
+
+    // Borra la franja de la solicitud y devuelve de qué proveedor era (vacío = no tenía). Sin @Modifying:
+    // con él Spring Data usa executeUpdate y descarta la columna de RETURNING
+    @Query(value = """
+           delete from agenda_reservas
+           where id_solicitud = :idSolicitud
+           returning id_proveedor
+           """, nativeQuery = true)
+    Optional<Long> borrarDeSolicitud(@Param("idSolicitud") Long idSolicitud);
+
+    // Franjas que aún no terminan; con ellas se arma el árbol en memoria (índice ix_agenda_proveedor_fin)
+    @Query("""
+           select a from AgendaReservaEntity a
+           where a.idProveedor = :idProveedor and a.fin > :desde
+           """)
+    List<AgendaReservaEntity> findVigentes(@Param("idProveedor") Long idProveedor,
+                                           @Param("desde") LocalDateTime desde);
+}
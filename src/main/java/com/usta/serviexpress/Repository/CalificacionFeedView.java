@@ -0,0 +1,15 @@
+package com.usta.serviexpress.Repository;
+
+import java.time.LocalDateTime;
+
+/** Fila del listado de calificaciones: datos de la reseña y nombres ya resueltos (una sola consulta). */
+public interface CalificacionFeedView {
+    Long   getIdCalificacion();
+    Integer getPuntuacion();
+    String getComentario();
+    LocalDateTime getFecha();
+    String getNombreCliente();
+    Long   getIdProveedor();
+    String getNombreProveedor();
+    String getNombreServicio();
+}
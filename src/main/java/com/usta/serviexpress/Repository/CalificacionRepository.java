@@ -1,33 +1,201 @@
 package com.usta.serviexpress.Repository;
 
 import com.usta.serviexpress.Entity.CalificacionEntity;
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CalificacionRepository extends JpaRepository<CalificacionEntity, Long> {
 
     @Query("SELECT c FROM CalificacionEntity c WHERE c.cliente.idUsuario = :idCliente")
     List<CalificacionEntity> listByCliente(@Param("idCliente") Long idCliente);
 
-    List<CalificacionEntity> findByPuntuacionOrderByFechaDesc(Integer puntuacion);
+    // ===== Listado keyset (id descendente, cursor = último idCalificacion visto) =====
+    // Una consulta por forma de filtro (la elige CalificacionServiceImplement.listar), sin predicados
+    // "(:x IS NULL OR ...)": así el plan genérico del driver sigue usando el índice de cada forma
+    // (06_calificaciones_listado.sql). Nombres de cliente, proveedor y servicio en la misma consulta.
 
+    // Sin filtros: recorrido inverso de la PK
     @Query("""
-           SELECT p.idUsuario      AS idProveedor,
-                  p.nombreUsuario  AS nombreProveedor,
-                  AVG(c.puntuacion) AS promedio,
-                  COUNT(c.idCalificacion) AS total
+           SELECT c.idCalificacion  AS idCalificacion,
+                  c.puntuacion      AS puntuacion,
+                  c.comentario      AS comentario,
+                  c.fecha           AS fecha,
+                  cl.nombreUsuario  AS nombreCliente,
+                  p.idUsuario       AS idProveedor,
+                  p.nombreUsuario   AS nombreProveedor,
+                  s.nombre          AS nombreServicio
            FROM CalificacionEntity c
+           JOIN c.cliente cl
            JOIN c.proveedor p
-           GROUP BY p.idUsuario, p.nombreUsuario
-           HAVING COUNT(c.idCalificacion) >= :minResenas
+           LEFT JOIN c.servicio s
+           WHERE c.idCalificacion < :cursor
+           ORDER BY c.idCalificacion DESC
            """)
-    Page<TopProveedorView> findTopProveedores(@Param("minResenas") long minResenas, Pageable pageable);
+    Slice<CalificacionFeedView> findFeed(@Param("cursor") Long cursor, Pageable pageable);
 
+    // Reseñas de un proveedor (ix_calificaciones_proveedor_id); estrellas y fechas filtran sobre ese recorrido
+    @Query("""
+           SELECT c.idCalificacion  AS idCalificacion,
+                  c.puntuacion      AS puntuacion,
+                  c.comentario      AS comentario,
+                  c.fecha           AS fecha,
+                  cl.nombreUsuario  AS nombreCliente,
+                  p.idUsuario       AS idProveedor,
+                  p.nombreUsuario   AS nombreProveedor,
+                  s.nombre          AS nombreServicio
+           FROM CalificacionEntity c
+           JOIN c.cliente cl
+           JOIN c.proveedor p
+           LEFT JOIN c.servicio s
+           WHERE c.proveedor.idUsuario = :idProveedor
+             AND c.idCalificacion < :cursor
+             AND c.puntuacion BETWEEN :puntuacionMin AND :puntuacionMax
+             AND c.fecha >= :desde AND c.fecha < :hasta
+           ORDER BY c.idCalificacion DESC
+           """)
+    Slice<CalificacionFeedView> findFeedPorProveedor(@Param("cursor") Long cursor,
+                                                     @Param("idProveedor") Long idProveedor,
+                                                     @Param("puntuacionMin") Integer puntuacionMin,
+                                                     @Param("puntuacionMax") Integer puntuacionMax,
+                                                     @Param("desde") LocalDateTime desde,
+                                                     @Param("hasta") LocalDateTime hasta,
+                                                     Pageable pageable);
+
+    // Por estrellas (ix_calificaciones_puntuacion_id); las fechas filtran sobre ese recorrido
+    @Query("""
+           SELECT c.idCalificacion  AS idCalificacion,
+                  c.puntuacion      AS puntuacion,
+                  c.comentario      AS comentario,
+                  c.fecha           AS fecha,
+                  cl.nombreUsuario  AS nombreCliente,
+                  p.idUsuario       AS idProveedor,
+                  p.nombreUsuario   AS nombreProveedor,
+                  s.nombre          AS nombreServicio
+           FROM CalificacionEntity c
+           JOIN c.cliente cl
+           JOIN c.proveedor p
+           LEFT JOIN c.servicio s
+           WHERE c.puntuacion = :puntuacion
+             AND c.idCalificacion < :cursor
+             AND c.fecha >= :desde AND c.fecha < :hasta
+           ORDER BY c.idCalificacion DESC
+           """)
+    Slice<CalificacionFeedView> findFeedPorPuntuacion(@Param("cursor") Long cursor,
+                                                      @Param("puntuacion") Integer puntuacion,
+                                                      @Param("desde") LocalDateTime desde,
+                                                      @Param("hasta") LocalDateTime hasta,
+                                                      Pageable pageable);
+
+    // Solo rango de fechas [desde, hasta): el orden es por id, no por fecha, así que el planner elige entre
+    // la PK en reversa filtrando fecha (rango reciente) o ix_calificaciones_fecha_id + top-N (rango corto)
+    @Query("""
+           SELECT c.idCalificacion  AS idCalificacion,
+                  c.puntuacion      AS puntuacion,
+                  c.comentario      AS comentario,
+                  c.fecha           AS fecha,
+                  cl.nombreUsuario  AS nombreCliente,
+                  p.idUsuario       AS idProveedor,
+                  p.nombreUsuario   AS nombreProveedor,
+                  s.nombre          AS nombreServicio
+           FROM CalificacionEntity c
+           JOIN c.cliente cl
+           JOIN c.proveedor p
+           LEFT JOIN c.servicio s
+           WHERE c.fecha >= :desde AND c.fecha < :hasta
+             AND c.idCalificacion < :cursor
+           ORDER BY c.idCalificacion DESC
+           """)
+    Slice<CalificacionFeedView> findFeedEnRango(@Param("cursor") Long cursor,
+                                                @Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta,
+                                                Pageable pageable);
+
+    /**
+     * Todas las calificaciones (proveedor, puntuación, fecha) en streaming para el job de ranking con
+     * decaimiento; debe consumirse dentro de una transacción y cerrarse (try-with-resources).
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "5000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("""
+           SELECT c.proveedor.idUsuario AS idProveedor,
+                  c.puntuacion          AS puntuacion,
+                  c.fecha               AS fecha
+           FROM CalificacionEntity c
+           """)
+    Stream<CalificacionPesoView> streamParaRanking();
+
+    // Mismas columnas para un solo proveedor (refresco incremental del ranking con decaimiento)
+    @Query("""
+           SELECT c.proveedor.idUsuario AS idProveedor,
+                  c.puntuacion          AS puntuacion,
+                  c.fecha               AS fecha
+           FROM CalificacionEntity c
+           WHERE c.proveedor.idUsuario = :idProveedor
+           """)
+    List<CalificacionPesoView> findPesosDeProveedor(@Param("idProveedor") Long idProveedor);
+
+    interface CalificacionPesoView {
+        Long          getIdProveedor();
+        Integer       getPuntuacion();
+        LocalDateTime getFecha();
+    }
+
+    /**
+     * Exportación (ExportacionServiceImplement): calificaciones en orden cronológico con los nombres de
+     * cliente, proveedor y servicio, en streaming. Filtros opcionales por puntuación y proveedor; fechas
+     * [desde, hasta). Debe consumirse dentro de una transacción y cerrarse (try-with-resources).
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("""
+           SELECT c.idCalificacion  AS idCalificacion,
+                  c.fecha           AS fecha,
+                  c.puntuacion      AS puntuacion,
+                  c.comentario      AS comentario,
+                  cl.idUsuario      AS idCliente,
+                  cl.nombreUsuario  AS nombreCliente,
+                  p.idUsuario       AS idProveedor,
+                  p.nombreUsuario   AS nombreProveedor,
+                  sv.nombre         AS nombreServicio
+           FROM CalificacionEntity c
+           JOIN c.cliente cl
+           JOIN c.proveedor p
+           LEFT JOIN c.servicio sv
+           WHERE (:puntuacion IS NULL OR c.puntuacion = :puntuacion)
+             AND (:idProveedor IS NULL OR p.idUsuario = :idProveedor)
+             AND c.fecha >= :desde AND c.fecha < :hasta
+           ORDER BY c.fecha, c.idCalificacion
+           """)
+    Stream<CalificacionExportView> streamExportacion(@Param("puntuacion") Integer puntuacion,
+                                                     @Param("idProveedor") Long idProveedor,
+                                                     @Param("desde") LocalDateTime desde,
+                                                     @Param("hasta") LocalDateTime hasta);
+
+    interface CalificacionExportView {
+        Long          getIdCalificacion();
+        LocalDateTime getFecha();
+        Integer       getPuntuacion();
+        String        getComentario();
+        Long          getIdCliente();
+        String        getNombreCliente();
+        Long          getIdProveedor();
+        String        getNombreProveedor();
+        String        getNombreServicio();
+    }
+
+    // Proyección del ranking; los agregados salen de provider_rating_stats (ProveedorRatingStatsRepository)
     interface TopProveedorView {
         Long   getIdProveedor();
         String getNombreProveedor();
@@ -35,15 +203,62 @@ public interface CalificacionRepository extends JpaRepository<CalificacionEntity
         Long   getTotal();
     }
 
-    Optional<CalificacionEntity> findByCliente_IdUsuarioAndProveedor_IdUsuarioAndServicio_IdServicio(
-            Long idCliente, Long idProveedor, Long idServicio);
+    // ===== Upsert en una sola sentencia (índices únicos parciales, ver db/postgres/07_calificaciones_unicas.sql) =====
+    // El proveedor se toma del servicio / se valida en la misma sentencia: sin filas = servicio o proveedor inexistente.
+    // En conflicto se guarda la puntuación reemplazada en puntuacion_anterior (fila bloqueada), así el delta del
+    // agregado es exacto aun con envíos concurrentes.
+    // Sin @Modifying (la fila de RETURNING se lee como resultado) y con alias entre comillas: PostgreSQL pasa
+    // a minúsculas los que no las llevan. CalificacionRepositoryTest comprueba el mapeo.
 
-    Optional<CalificacionEntity> findByCliente_IdUsuarioAndProveedor_IdUsuarioAndServicioIsNull(
-            Long idCliente, Long idProveedor);
+    @Query(value = """
+           insert into calificaciones as c (id_cliente, id_proveedor, id_servicio, puntuacion, comentario, fecha)
+           select cast(:idCliente as bigint), s.id_proveedor, s.id_servicio,
+                  cast(:puntuacion as integer), cast(:comentario as varchar), cast(:fecha as timestamp)
+           from servicio s
+           where s.id_servicio = cast(:idServicio as bigint)
+             and s.id_proveedor is not null
+           on conflict (id_cliente, id_proveedor, id_servicio) where id_servicio is not null
+           do update set puntuacion_anterior = c.puntuacion,
+                         puntuacion          = excluded.puntuacion,
+                         comentario          = excluded.comentario,
+                         fecha               = excluded.fecha
+           returning c.id_calificacion as "idCalificacion", c.id_proveedor as "idProveedor",
+                     c.id_servicio as "idServicio", c.puntuacion as "puntuacion",
+                     c.puntuacion_anterior as "puntuacionAnterior"
+           """, nativeQuery = true)
+    Optional<CalificacionUpsertView> upsertDeServicio(@Param("idCliente") Long idCliente,
+                                                      @Param("idServicio") Long idServicio,
+                                                      @Param("puntuacion") int puntuacion,
+                                                      @Param("comentario") String comentario,
+                                                      @Param("fecha") LocalDateTime fecha);
 
-    boolean existsByCliente_IdUsuarioAndProveedor_IdUsuarioAndServicio_IdServicio(
-            Long idCliente, Long idProveedor, Long idServicio);
+    @Query(value = """
+           insert into calificaciones as c (id_cliente, id_proveedor, id_servicio, puntuacion, comentario, fecha)
+           select cast(:idCliente as bigint), u.id_usuario, null,
+                  cast(:puntuacion as integer), cast(:comentario as varchar), cast(:fecha as timestamp)
+           from usuarios u
+           where u.id_usuario = cast(:idProveedor as bigint)
+           on conflict (id_cliente, id_proveedor) where id_servicio is null
+           do update set puntuacion_anterior = c.puntuacion,
+                         puntuacion          = excluded.puntuacion,
+                         comentario          = excluded.comentario,
+                         fecha               = excluded.fecha
+           returning c.id_calificacion as "idCalificacion", c.id_proveedor as "idProveedor",
+                     c.id_servicio as "idServicio", c.puntuacion as "puntuacion",
+                     c.puntuacion_anterior as "puntuacionAnterior"
+           """, nativeQuery = true)
+    Optional<CalificacionUpsertView> upsertDeProveedor(@Param("idCliente") Long idCliente,
+                                                       @Param("idProveedor") Long idProveedor,
+                                                       @Param("puntuacion") int puntuacion,
+                                                       @Param("comentario") String comentario,
+                                                       @Param("fecha") LocalDateTime fecha);
 
-    boolean existsByCliente_IdUsuarioAndProveedor_IdUsuarioAndServicioIsNull(
-            Long idCliente, Long idProveedor);
+    // puntuacionAnterior es null si la fila se insertó (si no, el valor reemplazado)
+    interface CalificacionUpsertView {
+        Long    getIdCalificacion();
+        Long    getIdProveedor();
+        Long    getIdServicio();
+        Integer getPuntuacion();
+        Integer getPuntuacionAnterior();
+    }
 }
\ No newline at end of file
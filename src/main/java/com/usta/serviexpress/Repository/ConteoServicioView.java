@@ -0,0 +1,6 @@
+package com.usta.serviexpress.Repository;
+
+public interface ConteoServicioView {
+    Long getIdServicio();
+    Long getTotal();
+}
@@ -0,0 +1,74 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Entity.DespachoEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface DespachoRepository extends JpaRepository<DespachoEntity, Long> {
+
+    /**
+     * Toma una oferta vigente (compare-and-set OFERTADA → TOMADA) y devuelve el dueño del servicio.
+     * Dos proveedores que toman a la vez: el segundo espera el bloqueo de la fila, vuelve a evaluar el
+     * WHERE y no encuentra filas. Vacío = ya tomada, vencida, inexistente, de otra ciudad o el dueño
+     * intentando tomarla. Sin @Modifying: con él Spring Data usa executeUpdate y descarta la columna de RETURNING.
+     */
+    @Query(value = """
+           update despacho
+           set estado = 'TOMADA', id_proveedor = :idProveedor, actualizado = now()
+           where id_solicitud = :idSolicitud
+             and estado = 'OFERTADA'
+             and creado >= :vigenteDesde
+             and id_dueno <> :idProveedor
+             and ciudad_clave = :ciudadClave
+           returning id_dueno
+           """, nativeQuery = true)
+    Optional<Long> tomar(@Param("idSolicitud") Long idSolicitud,
+                         @Param("idProveedor") Long idProveedor,
+                         @Param("ciudadClave") String ciudadClave,
+                         @Param("vigenteDesde") LocalDateTime vigenteDesde);
+
+    // Ofertas abiertas de la ciudad que el proveedor puede tomar (índice parcial ix_despacho_ofertas)
+    @Query("""
+           select d.idSolicitud       as idSolicitud,
+                  sv.nombre           as nombreServicio,
+                  s.detalles          as detalles,
+                  s.direccionEntrega  as direccionEntrega,
+                  s.fechaSolicitud    as fechaSolicitud,
+                  d.creado            as ofertadaEn
+           from DespachoEntity d
+           join SolicitudServicioEntity s on s.idSolicitud = d.idSolicitud
+           join s.servicio sv
+           where d.estado = 'OFERTADA'
+             and d.ciudadClave = :ciudadClave
+             and d.idDueno <> :idProveedor
+             and d.creado >= :vigenteDesde
+             and s.estado = :estado
+           order by d.creado desc, d.idSolicitud desc
+           """)
+    List<OfertaView> findOfertas(@Param("ciudadClave") String ciudadClave,
+                                 @Param("idProveedor") Long idProveedor,
+                                 @Param("vigenteDesde") LocalDateTime vigenteDesde,
+                                 @Param("estado") String estado,
+                                 Pageable pageable);
+
+    interface OfertaView {
+        Long          getIdSolicitud();
+        String        getNombreServicio();
+        String        getDetalles();
+        String        getDireccionEntrega();
+        LocalDate     getFechaSolicitud();
+        LocalDateTime getOfertadaEn();
+    }
+
+    @Modifying
+    @Query("delete from DespachoEntity d where d.idSolicitud = :idSolicitud")
+    int borrarDeSolicitud(@Param("idSolicitud") Long idSolicitud);
+}
@@ -1,11 +1,18 @@
 package com.usta.serviexpress.Repository;
 
 import com.usta.serviexpress.Entity.PagoEntity;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PagoRepository extends JpaRepository<PagoEntity, Long> {
@@ -21,4 +28,46 @@ public interface PagoRepository extends JpaRepository<PagoEntity, Long> {
 
     // Buscar todos los pagos por estado (ej: PENDIENTE, APROBADO)
     List<PagoEntity> findByEstado(PagoEntity.EstadoPago estado);
-}
\ No newline at end of file
+
+    // Exportación (ExportacionServiceImplement): pagos en orden cronológico, en streaming, sin el payload de
+    // la pasarela ni el token. fechaPago en [desde, hasta), siempre acotado para podar particiones.
+    // Debe consumirse dentro de una transacción y cerrarse (try-with-resources).
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("""
+           select p.idPago                as idPago,
+                  p.fechaPago             as fechaPago,
+                  p.estado                as estado,
+                  p.metodo                as metodo,
+                  p.monto                 as monto,
+                  p.moneda                as moneda,
+                  p.solicitud.idSolicitud as idSolicitud,
+                  p.emailCliente          as emailCliente,
+                  p.referenciaExterna     as referenciaExterna,
+                  p.descripcion           as descripcion,
+                  p.confirmadoEn          as confirmadoEn
+           from PagoEntity p
+           where (:estado is null or p.estado = :estado)
+             and p.fechaPago >= :desde and p.fechaPago < :hasta
+           order by p.fechaPago, p.idPago
+           """)
+    Stream<PagoExportView> streamExportacion(@Param("estado") PagoEntity.EstadoPago estado,
+                                             @Param("desde") LocalDateTime desde,
+                                             @Param("hasta") LocalDateTime hasta);
+
+    interface PagoExportView {
+        Long                   getIdPago();
+        LocalDateTime          getFechaPago();
+        PagoEntity.EstadoPago  getEstado();
+        PagoEntity.MetodoPago  getMetodo();
+        BigDecimal             getMonto();
+        String                 getMoneda();
+        Long                   getIdSolicitud();
+        String                 getEmailCliente();
+        String                 getReferenciaExterna();
+        String                 getDescripcion();
+        LocalDateTime          getConfirmadoEn();
+    }
+}
@@ -0,0 +1,121 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Entity.ProveedorCargaEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProveedorCargaRepository extends JpaRepository<ProveedorCargaEntity, ProveedorCargaEntity.Clave> {
+
+    /**
+     * Suma un delta al contador (proveedor, tipo, estado), creando la fila si no existe, en una sola
+     * sentencia: el ON CONFLICT bloquea la fila, así dos cambios concurrentes no se pisan.
+     * Transición a → b: (a, -1) y (b, +1) dentro de la misma transacción que el UPDATE de la solicitud.
+     */
+    @Modifying
+    @Query(value = """
+           INSERT INTO provider_workload AS w (id_proveedor, tipo, estado, total, actualizado)
+           VALUES (:idProveedor, :tipo, :estado, :delta, now())
+           ON CONFLICT (id_proveedor, tipo, estado) DO UPDATE SET
+                  total       = w.total + EXCLUDED.total,
+                  actualizado = now()
+           """, nativeQuery = true)
+    int aplicarDelta(@Param("idProveedor") Long idProveedor,
+                     @Param("tipo") String tipo,
+                     @Param("estado") String estado,
+                     @Param("delta") long delta);
+
+    // ====== Recuento de un proveedor (solicitudes movidas por una reasignación, sin estado anterior) ======
+    // Una sentencia: borra los estados que ya no tiene y reescribe solo los contadores que no cuadran.
+
+    @Modifying
+    @Query(value = """
+           WITH actual AS (
+                  SELECT s.estado, COUNT(*) AS total
+                  FROM solicitud_servicio s
+                  WHERE s.id_proveedor = :idProveedor AND s.estado IS NOT NULL
+                  GROUP BY s.estado),
+                sobrantes AS (
+                  DELETE FROM provider_workload w
+                  WHERE w.id_proveedor = :idProveedor AND w.tipo = 'SOLICITUD'
+                    AND NOT EXISTS (SELECT 1 FROM actual a WHERE a.estado = w.estado))
+           INSERT INTO provider_workload AS w (id_proveedor, tipo, estado, total, actualizado)
+           SELECT :idProveedor, 'SOLICITUD', a.estado, a.total, now() FROM actual a
+           ON CONFLICT (id_proveedor, tipo, estado) DO UPDATE SET
+                  total       = EXCLUDED.total,
+                  actualizado = now()
+           WHERE w.total <> EXCLUDED.total
+           """, nativeQuery = true)
+    int recontarSolicitudesDe(@Param("idProveedor") Long idProveedor);
+
+    // ====== Reconciliación completa (backfill al arrancar y job periódico) ======
+    // Idempotente; solo reescribe las filas que no cuadran y devuelve cuántas corrigió.
+
+    @Modifying
+    @Query(value = """
+           INSERT INTO provider_workload AS w (id_proveedor, tipo, estado, total, actualizado)
+           SELECT s.id_proveedor, 'SOLICITUD', s.estado, COUNT(*), now()
+           FROM solicitud_servicio s
+           WHERE s.id_proveedor IS NOT NULL AND s.estado IS NOT NULL
+           GROUP BY s.id_proveedor, s.estado
+           ON CONFLICT (id_proveedor, tipo, estado) DO UPDATE SET
+                  total       = EXCLUDED.total,
+                  actualizado = now()
+           WHERE w.total <> EXCLUDED.total
+           """, nativeQuery = true)
+    int recalcularSolicitudes();
+
+    @Modifying
+    @Query(value = """
+           INSERT INTO provider_workload AS w (id_proveedor, tipo, estado, total, actualizado)
+           SELECT s.id_proveedor, 'SERVICIO', s.estado, COUNT(*), now()
+           FROM servicio s
+           WHERE s.id_proveedor IS NOT NULL
+           GROUP BY s.id_proveedor, s.estado
+           ON CONFLICT (id_proveedor, tipo, estado) DO UPDATE SET
+                  total       = EXCLUDED.total,
+                  actualizado = now()
+           WHERE w.total <> EXCLUDED.total
+           """, nativeQuery = true)
+    int recalcularServicios();
+
+    // Contadores sin filas en la tabla fuente (estado abandonado, borrados a mano, deriva)
+    @Modifying
+    @Query(value = """
+           DELETE FROM provider_workload w
+           WHERE (w.tipo = 'SOLICITUD' AND NOT EXISTS (
+                      SELECT 1 FROM solicitud_servicio s
+                      WHERE s.id_proveedor = w.id_proveedor AND s.estado = w.estado))
+              OR (w.tipo = 'SERVICIO' AND NOT EXISTS (
+                      SELECT 1 FROM servicio s
+                      WHERE s.id_proveedor = w.id_proveedor AND s.estado = w.estado))
+           """, nativeQuery = true)
+    int borrarSobrantes();
+
+    // ====== Lectura: index-only sobre ix_provider_workload_lectura (db/postgres/10_provider_workload.sql) ======
+
+    @Query("""
+           SELECT w.idProveedor AS idProveedor, w.tipo AS tipo, w.estado AS estado, w.total AS total
+           FROM ProveedorCargaEntity w
+           WHERE w.idProveedor = :idProveedor
+           """)
+    List<ContadorView> findContadores(@Param("idProveedor") Long idProveedor);
+
+    @Query("""
+           SELECT w.idProveedor AS idProveedor, w.tipo AS tipo, w.estado AS estado, w.total AS total
+           FROM ProveedorCargaEntity w
+           WHERE w.idProveedor IN :ids
+           """)
+    List<ContadorView> findContadores(@Param("ids") Collection<Long> ids);
+
+    interface ContadorView {
+        Long   getIdProveedor();
+        String getTipo();
+        String getEstado();
+        Long   getTotal();
+    }
+}
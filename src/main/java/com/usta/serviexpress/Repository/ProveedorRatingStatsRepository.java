@@ -0,0 +1,152 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Entity.ProveedorRatingStatsEntity;
+import com.usta.serviexpress.Repository.CalificacionRepository.TopProveedorView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProveedorRatingStatsRepository extends JpaRepository<ProveedorRatingStatsEntity, Long> {
+
+    /**
+     * Suma un delta al agregado del proveedor (crea la fila si no existe) en una sola sentencia:
+     * el ON CONFLICT bloquea la fila, así dos calificaciones concurrentes no se pisan.
+     * Calificación nueva: (p, +1, +1 en p). Cambio a → b: (b - a, 0, -1 en a, +1 en b).
+     */
+    @Modifying
+    @Query(value = """
+           INSERT INTO provider_rating_stats AS s
+                  (id_proveedor, suma, total, estrellas_1, estrellas_2, estrellas_3, estrellas_4, estrellas_5,
+                   promedio, actualizado)
+           VALUES (:idProveedor, :dSuma, :dTotal, :d1, :d2, :d3, :d4, :d5,
+                   CAST(:dSuma AS double precision) / NULLIF(:dTotal, 0), now())
+           ON CONFLICT (id_proveedor) DO UPDATE SET
+                  suma        = s.suma + EXCLUDED.suma,
+                  total       = s.total + EXCLUDED.total,
+                  estrellas_1 = s.estrellas_1 + EXCLUDED.estrellas_1,
+                  estrellas_2 = s.estrellas_2 + EXCLUDED.estrellas_2,
+                  estrellas_3 = s.estrellas_3 + EXCLUDED.estrellas_3,
+                  estrellas_4 = s.estrellas_4 + EXCLUDED.estrellas_4,
+                  estrellas_5 = s.estrellas_5 + EXCLUDED.estrellas_5,
+                  promedio    = CAST(s.suma + EXCLUDED.suma AS double precision) / NULLIF(s.total + EXCLUDED.total, 0),
+                  actualizado = now()
+           """, nativeQuery = true)
+    int aplicarDelta(@Param("idProveedor") Long idProveedor,
+                     @Param("dSuma") long dSuma, @Param("dTotal") long dTotal,
+                     @Param("d1") long d1, @Param("d2") long d2, @Param("d3") long d3,
+                     @Param("d4") long d4, @Param("d5") long d5);
+
+    /**
+     * Backfill / reconciliación: recalcula el agregado de todos los proveedores desde calificaciones.
+     * Idempotente; solo reescribe las filas que no cuadran.
+     */
+    @Modifying
+    @Query(value = """
+           INSERT INTO provider_rating_stats AS s
+                  (id_proveedor, suma, total, estrellas_1, estrellas_2, estrellas_3, estrellas_4, estrellas_5,
+                   promedio, actualizado)
+           SELECT c.id_proveedor,
+                  SUM(c.puntuacion), COUNT(*),
+                  COUNT(*) FILTER (WHERE c.puntuacion = 1),
+                  COUNT(*) FILTER (WHERE c.puntuacion = 2),
+                  COUNT(*) FILTER (WHERE c.puntuacion = 3),
+                  COUNT(*) FILTER (WHERE c.puntuacion = 4),
+                  COUNT(*) FILTER (WHERE c.puntuacion = 5),
+                  CAST(SUM(c.puntuacion) AS double precision) / COUNT(*),
+                  now()
+           FROM calificaciones c
+           GROUP BY c.id_proveedor
+           ON CONFLICT (id_proveedor) DO UPDATE SET
+                  suma        = EXCLUDED.suma,
+                  total       = EXCLUDED.total,
+                  estrellas_1 = EXCLUDED.estrellas_1,
+                  estrellas_2 = EXCLUDED.estrellas_2,
+                  estrellas_3 = EXCLUDED.estrellas_3,
+                  estrellas_4 = EXCLUDED.estrellas_4,
+                  estrellas_5 = EXCLUDED.estrellas_5,
+                  promedio    = EXCLUDED.promedio,
+                  actualizado = now()
+           WHERE (s.suma, s.total, s.estrellas_1, s.estrellas_2, s.estrellas_3, s.estrellas_4, s.estrellas_5)
+                 IS DISTINCT FROM
+                 (EXCLUDED.suma, EXCLUDED.total, EXCLUDED.estrellas_1, EXCLUDED.estrellas_2,
+                  EXCLUDED.estrellas_3, EXCLUDED.estrellas_4, EXCLUDED.estrellas_5)
+           """, nativeQuery = true)
+    int recalcularTodos();
+
+    // Proveedores que ya no tienen calificaciones (borradas a mano) quedan fuera del ranking
+    @Modifying
+    @Query(value = """
+           DELETE FROM provider_rating_stats s
+           WHERE NOT EXISTS (SELECT 1 FROM calificaciones c WHERE c.id_proveedor = s.id_proveedor)
+           """, nativeQuery = true)
+    int borrarHuerfanos();
+
+    /**
+     * Ranking: recorre ix_provider_rating_stats_ranking (promedio desc, total desc) y se detiene
+     * al llenar la página; no agrega calificaciones.
+     */
+    @Query("""
+           SELECT s.idProveedor     AS idProveedor,
+                  u.nombreUsuario   AS nombreProveedor,
+                  s.promedio        AS promedio,
+                  s.total           AS total
+           FROM ProveedorRatingStatsEntity s
+           JOIN UsuarioEntity u ON u.idUsuario = s.idProveedor
+           WHERE s.total >= :minResenas
+           ORDER BY s.promedio DESC NULLS LAST, s.total DESC, s.idProveedor
+           """)
+    List<TopProveedorView> findTop(@Param("minResenas") long minResenas, Pageable pageable);
+
+    // Promedio y total de todos los proveedores calificados (carga del catálogo facetado)
+    @Query("""
+           SELECT s.idProveedor     AS idProveedor,
+                  u.nombreUsuario   AS nombreProveedor,
+                  s.promedio        AS promedio,
+                  s.total           AS total
+           FROM ProveedorRatingStatsEntity s
+           JOIN UsuarioEntity u ON u.idUsuario = s.idProveedor
+           WHERE s.total > 0
+           """)
+    List<TopProveedorView> findPromedios();
+
+    @Query("SELECT s.promedio FROM ProveedorRatingStatsEntity s WHERE s.idProveedor = :idProveedor")
+    Double promedioDe(@Param("idProveedor") Long idProveedor);
+
+    // Filas del motor de ranking en memoria (RankingServiceImpl): agregado + nombre y ciudad del proveedor
+    @Query("""
+           SELECT s.idProveedor     AS idProveedor,
+                  u.nombreUsuario   AS nombreProveedor,
+                  u.ciudadClave     AS ciudadClave,
+                  s.suma            AS suma,
+                  s.total           AS total
+           FROM ProveedorRatingStatsEntity s
+           JOIN UsuarioEntity u ON u.idUsuario = s.idProveedor
+           WHERE s.total > 0
+           """)
+    List<RankingFilaView> findFilasRanking();
+
+    @Query("""
+           SELECT s.idProveedor     AS idProveedor,
+                  u.nombreUsuario   AS nombreProveedor,
+                  u.ciudadClave     AS ciudadClave,
+                  s.suma            AS suma,
+                  s.total           AS total
+           FROM ProveedorRatingStatsEntity s
+           JOIN UsuarioEntity u ON u.idUsuario = s.idProveedor
+           WHERE s.idProveedor = :idProveedor
+           """)
+    Optional<RankingFilaView> findFilaRanking(@Param("idProveedor") Long idProveedor);
+
+    interface RankingFilaView {
+        Long   getIdProveedor();
+        String getNombreProveedor();
+        String getCiudadClave();
+        Long   getSuma();
+        Long   getTotal();
+    }
+}
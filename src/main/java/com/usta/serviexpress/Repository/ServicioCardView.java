@@ -0,0 +1,16 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+
+import java.math.BigDecimal;
+
+/** Vista estrecha de un servicio para tarjetas y tablas del catálogo (sin grafo de entidades). */
+public interface ServicioCardView {
+    Long   getIdServicio();
+    String getNombre();
+    String getDescripcion();
+    BigDecimal getPrecio();
+    ServicioEntity.EstadoServicio getEstado();
+    Long   getIdProveedor();
+    String getNombreProveedor();
+}
@@ -0,0 +1,11 @@
+package com.usta.serviexpress.Repository;
+
+/**
+ * Tarjeta del servicio + ciudad: fila del catálogo facetado y de los catálogos en memoria.
+ * ciudadClave es la copia en servicio (la misma columna que filtra el camino SQL); ciudadProveedor es el
+ * texto libre del proveedor, solo para mostrar.
+ */
+public interface ServicioFilaView extends ServicioCardView {
+    String getCiudadProveedor();
+    String getCiudadClave();
+}
@@ -1,13 +1,23 @@
 package com.usta.serviexpress.Repository;
 
 import com.usta.serviexpress.Entity.ServicioEntity;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
-public interface ServicioRepository extends JpaRepository<ServicioEntity, Long> {
+public interface ServicioRepository extends JpaRepository<ServicioEntity, Long>,
+        JpaSpecificationExecutor<ServicioEntity> {
 
     // PENDIENTES por proveedor (nota: estado es un enum)
     List<ServicioEntity> findByProveedor_IdUsuarioAndEstado(Long idProveedor,
@@ -19,23 +29,216 @@ public interface ServicioRepository extends JpaRepository<ServicioEntity, Long>
     // Servicios solicitados por un cliente (relación directa en ServicioEntity)
     List<ServicioEntity> findByCliente(com.usta.serviexpress.Entity.UsuarioEntity cliente);
 
-    // Buscar por nombre (no paginado)
-    List<ServicioEntity> findByNombreContainingIgnoreCase(String nombre);
-
     // ===== NUEVO: disponibles (no paginado) =====
     List<ServicioEntity> findByEstado(ServicioEntity.EstadoServicio estado);
 
     // ===== NUEVO: disponibles (paginado) =====
     Page<ServicioEntity> findByEstado(ServicioEntity.EstadoServicio estado, Pageable pageable);
 
-    // ===== NUEVO: disponibles + nombre (no paginado) =====
-    List<ServicioEntity> findByEstadoAndNombreContainingIgnoreCase(ServicioEntity.EstadoServicio estado, String nombre);
-
     // Contar servicios de un proveedor
     long countByProveedor_IdUsuario(Long idProveedor);
 
+    // ===== Keyset (seek) sobre proyecciones: el cursor es el último idServicio visto; sin OFFSET ni count(*) =====
+    // Una sola consulta estrecha con LEFT JOIN al proveedor: no hidrata usuarios ni dispara selects por fila.
+    // Usar siempre con PageRequest.of(0, size) para que la página N cueste lo mismo que la primera;
+    // en la primera página el cursor es Long.MAX_VALUE para conservar un predicado indexable.
+    @Query("""
+           select s.idServicio as idServicio, s.nombre as nombre, s.descripcion as descripcion,
+                  s.precio as precio, s.estado as estado,
+                  p.idUsuario as idProveedor, p.nombreUsuario as nombreProveedor
+           from ServicioEntity s
+           left join s.proveedor p
+           where s.idServicio < :cursor
+           order by s.idServicio desc
+           """)
+    Slice<ServicioCardView> findTarjetas(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("""
+           select s.idServicio as idServicio, s.nombre as nombre, s.descripcion as descripcion,
+                  s.precio as precio, s.estado as estado,
+                  p.idUsuario as idProveedor, p.nombreUsuario as nombreProveedor
+           from ServicioEntity s
+           left join s.proveedor p
+           where s.estado = :estado
+             and s.idServicio < :cursor
+           order by s.idServicio desc
+           """)
+    Slice<ServicioCardView> findTarjetasByEstado(@Param("estado") ServicioEntity.EstadoServicio estado,
+                                                 @Param("cursor") Long cursor,
+                                                 Pageable pageable);
+
+    @Query("""
+           select s.idServicio as idServicio, s.nombre as nombre, s.descripcion as descripcion,
+                  s.precio as precio, s.estado as estado,
+                  p.idUsuario as idProveedor, p.nombreUsuario as nombreProveedor
+           from ServicioEntity s
+           join s.proveedor p
+           where p.idUsuario = :idProveedor
+             and s.idServicio < :cursor
+           order by s.idServicio desc
+           """)
+    Slice<ServicioCardView> findTarjetasByProveedor(@Param("idProveedor") Long idProveedor,
+                                                    @Param("cursor") Long cursor,
+                                                    Pageable pageable);
+
+    @Query("""
+           select s.idServicio as idServicio, s.nombre as nombre, s.descripcion as descripcion,
+                  s.precio as precio, s.estado as estado,
+                  p.idUsuario as idProveedor, p.nombreUsuario as nombreProveedor
+           from ServicioEntity s
+           left join s.proveedor p
+           where s.idServicio = :idServicio
+           """)
+    Optional<ServicioCardView> findTarjetaById(@Param("idServicio") Long idServicio);
+
+    // ===== Búsqueda de texto completo (PostgreSQL): search_vector + índice GIN, ver db/postgres/01_servicio_fulltext.sql =====
+    // Resultados ordenados por relevancia (ts_rank); los filtros null no aplican. Alias entre comillas:
+    // PostgreSQL pasa a minúsculas los que no las llevan y la proyección no los encontraría.
+    @Query(value = """
+           select s.id_servicio as "idServicio", s.nombre as "nombre", s.descripcion as "descripcion",
+                  s.precio as "precio", s.estado as "estado",
+                  u.id_usuario as "idProveedor", u.nombre_usuario as "nombreProveedor"
+           from servicio s
+           left join usuarios u on u.id_usuario = s.id_proveedor
+           cross join websearch_to_tsquery('spanish', :termino) q
+           where s.search_vector @@ q
+             and (cast(:estado as varchar) is null or s.estado = cast(:estado as varchar))
+             and (cast(:idProveedor as bigint) is null or s.id_proveedor = cast(:idProveedor as bigint))
+             and (cast(:precioMin as numeric) is null or s.precio >= cast(:precioMin as numeric))
+             and (cast(:precioMax as numeric) is null or s.precio <= cast(:precioMax as numeric))
+             and (cast(:ciudad as varchar) is null or s.ciudad_clave = cast(:ciudad as varchar))
+           order by ts_rank(s.search_vector, q) desc, s.id_servicio desc
+           """, nativeQuery = true)
+    Slice<ServicioCardView> buscarTexto(@Param("termino") String termino,
+                                        @Param("estado") String estado,
+                                        @Param("idProveedor") Long idProveedor,
+                                        @Param("precioMin") BigDecimal precioMin,
+                                        @Param("precioMax") BigDecimal precioMax,
+                                        @Param("ciudad") String ciudad,
+                                        Pageable pageable);
+
+    // ===== Búsqueda aproximada (pg_trgm), ver db/postgres/02_trigram_fuzzy.sql =====
+    // Los umbrales de <% y % son locales a la transacción actual (set_config(..., true)).
+    @Query(value = """
+           select set_config('pg_trgm.word_similarity_threshold', cast(:umbralPalabra as text), true)
+               || set_config('pg_trgm.similarity_threshold', cast(:umbralSugerencia as text), true)
+           """, nativeQuery = true)
+    String fijarUmbralesTrigrama(@Param("umbralPalabra") double umbralPalabra,
+                                 @Param("umbralSugerencia") double umbralSugerencia);
+
+    // Coincidencia por trigramas en el nombre del servicio o del proveedor, ordenada por similitud.
+    // Una rama por tabla, cada una con su índice GIN (un OR entre las dos tablas no puede usar ninguno);
+    // el servicio que coincide por ambos nombres queda una vez, con la mayor similitud. Alias entre comillas,
+    // como en buscarTexto.
+    @Query(value = """
+           select s.id_servicio as "idServicio", s.nombre as "nombre", s.descripcion as "descripcion",
+                  s.precio as "precio", s.estado as "estado",
+                  u.id_usuario as "idProveedor", u.nombre_usuario as "nombreProveedor"
+           from (
+               select m.id_servicio, max(m.sim) as sim
+               from (
+                   select sn.id_servicio, word_similarity(:termino, sn.nombre) as sim
+                   from servicio sn
+                   where :termino <% sn.nombre
+                   union all
+                   select sp.id_servicio, word_similarity(:termino, up.nombre_usuario)
+                   from usuarios up
+                   join servicio sp on sp.id_proveedor = up.id_usuario
+                   where :termino <% up.nombre_usuario
+               ) m
+               group by m.id_servicio
+           ) c
+           join servicio s on s.id_servicio = c.id_servicio
+           left join usuarios u on u.id_usuario = s.id_proveedor
+           where (cast(:estado as varchar) is null or s.estado = cast(:estado as varchar))
+             and (cast(:idProveedor as bigint) is null or s.id_proveedor = cast(:idProveedor as bigint))
+             and (cast(:precioMin as numeric) is null or s.precio >= cast(:precioMin as numeric))
+             and (cast(:precioMax as numeric) is null or s.precio <= cast(:precioMax as numeric))
+             and (cast(:ciudad as varchar) is null or s.ciudad_clave = cast(:ciudad as varchar))
+           order by c.sim desc, s.id_servicio desc
+           """, nativeQuery = true)
+    Slice<ServicioCardView> buscarAproximado(@Param("termino") String termino,
+                                             @Param("estado") String estado,
+                                             @Param("idProveedor") Long idProveedor,
+                                             @Param("precioMin") BigDecimal precioMin,
+                                             @Param("precioMax") BigDecimal precioMax,
+                                             @Param("ciudad") String ciudad,
+                                             Pageable pageable);
+
+    // "¿Quisiste decir...?": nombre de servicio o de proveedor más parecido al término
+    @Query(value = """
+           select t.nombre from (
+               select s.nombre as nombre, similarity(s.nombre, :termino) as sim
+               from servicio s
+               where s.nombre % :termino
+               union all
+               select u.nombre_usuario, similarity(u.nombre_usuario, :termino)
+               from usuarios u
+               where u.nombre_usuario % :termino
+                 and exists (select 1 from servicio s2 where s2.id_proveedor = u.id_usuario)
+           ) t
+           order by t.sim desc
+           limit 1
+           """, nativeQuery = true)
+    Optional<String> sugerirTermino(@Param("termino") String termino);
+
+    // ===== Filas del catálogo facetado (tarjeta + ciudad del proveedor), keyset por id =====
+    @Query("""
+           select s.idServicio as idServicio, s.nombre as nombre, s.descripcion as descripcion,
+                  s.precio as precio, s.estado as estado,
+                  p.idUsuario as idProveedor, p.nombreUsuario as nombreProveedor, p.ciudad as ciudadProveedor,
+                  s.ciudadClave as ciudadClave
+           from ServicioEntity s
+           left join s.proveedor p
+           where s.idServicio < :cursor
+           order by s.idServicio desc
+           """)
+    Slice<ServicioFilaView> findFilas(@Param("cursor") Long cursor, Pageable pageable);
+
+    @Query("""
+           select s.idServicio as idServicio, s.nombre as nombre, s.descripcion as descripcion,
+                  s.precio as precio, s.estado as estado,
+                  p.idUsuario as idProveedor, p.nombreUsuario as nombreProveedor, p.ciudad as ciudadProveedor,
+                  s.ciudadClave as ciudadClave
+           from ServicioEntity s
+           left join s.proveedor p
+           where s.idServicio = :idServicio
+           """)
+    Optional<ServicioFilaView> findFilaById(@Param("idServicio") Long idServicio);
+
+    // Proveedor y estado guardados, antes de guardar: reasignaciones y deltas de provider_workload.
+    // Sin flush previo: con open-in-view la entidad puede llegar ya modificada en la sesión.
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("""
+           select p.idUsuario as idProveedor, s.estado as estado
+           from ServicioEntity s
+           left join s.proveedor p
+           where s.idServicio = :idServicio
+           """)
+    Optional<ServicioGuardadoView> findGuardadoById(@Param("idServicio") Long idServicio);
+
+    interface ServicioGuardadoView {
+        Long getIdProveedor();
+        ServicioEntity.EstadoServicio getEstado();
+    }
+
+    // ===== Ciudad del proveedor copiada en servicio.ciudad_clave (índice ciudad_clave, estado, id_servicio) =====
+    @Query("select s.idServicio from ServicioEntity s where s.proveedor.idUsuario = :idProveedor")
+    List<Long> findIdsByProveedor(@Param("idProveedor") Long idProveedor);
 
-    // Buscar por id del proveedor y nombre (ignorar mayúsculas/minúsculas)
-    List<ServicioEntity> findByProveedor_IdUsuarioAndNombreContainingIgnoreCase(Long idUsuario, String nombre);
+    @Modifying
+    @Query("update ServicioEntity s set s.ciudadClave = :ciudadClave where s.proveedor.idUsuario = :idProveedor")
+    int actualizarCiudadDeProveedor(@Param("idProveedor") Long idProveedor,
+                                    @Param("ciudadClave") String ciudadClave);
 
-}
\ No newline at end of file
+    // Copia la ciudad_clave del proveedor en los servicios que no la tienen igual (CiudadClaveBackfill)
+    @Modifying
+    @Query(value = """
+           update servicio s
+           set ciudad_clave = u.ciudad_clave
+           from usuarios u
+           where u.id_usuario = s.id_proveedor
+             and s.ciudad_clave is distinct from u.ciudad_clave
+           """, nativeQuery = true)
+    int alinearCiudadConProveedor();
+}
@@ -0,0 +1,49 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.util.CiudadUtils;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+/**
+ * Predicados reutilizables del catálogo. Se combinan con and() y terminan
+ * en una única consulta SQL; un valor null no agrega condición.
+ */
+public final class ServicioSpecifications {
+
+    private ServicioSpecifications() { }
+
+    public static Specification<ServicioEntity> conEstado(ServicioEntity.EstadoServicio estado) {
+        return (root, query, cb) -> estado == null ? null : cb.equal(root.get("estado"), estado);
+    }
+
+    public static Specification<ServicioEntity> deProveedor(Long idProveedor) {
+        return (root, query, cb) -> idProveedor == null
+                ? null
+                : cb.equal(root.get("proveedor").get("idUsuario"), idProveedor);
+    }
+
+    public static Specification<ServicioEntity> conProveedor(boolean requerido) {
+        return (root, query, cb) -> requerido ? cb.isNotNull(root.get("proveedor")) : null;
+    }
+
+    public static Specification<ServicioEntity> precioDesde(BigDecimal min) {
+        return (root, query, cb) -> min == null ? null : cb.greaterThanOrEqualTo(root.get("precio"), min);
+    }
+
+    public static Specification<ServicioEntity> precioHasta(BigDecimal max) {
+        return (root, query, cb) -> max == null ? null : cb.lessThanOrEqualTo(root.get("precio"), max);
+    }
+
+    /** Ciudad del proveedor, por la copia normalizada servicio.ciudad_clave (índice ciudad_clave, estado, id). */
+    public static Specification<ServicioEntity> enCiudad(String ciudad) {
+        String clave = CiudadUtils.clave(ciudad);
+        return (root, query, cb) -> clave == null ? null : cb.equal(root.get("ciudadClave"), clave);
+    }
+
+    /** Keyset: solo filas anteriores al cursor (orden id_servicio DESC). */
+    public static Specification<ServicioEntity> antesDe(Long cursor) {
+        return (root, query, cb) -> cursor == null ? null : cb.lessThan(root.get("idServicio"), cursor);
+    }
+}
@@ -2,50 +2,129 @@ package com.usta.serviexpress.Repository;
 
 import com.usta.serviexpress.Entity.SolicitudServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface SolicitudRepository extends JpaRepository<SolicitudServicioEntity, Long> {
 
-    // ====== EXISTENTES (puedes dejarlos) ======
-    List<SolicitudServicioEntity> findByServicio_Proveedor_IdUsuario(Long idProveedor);
-    long countByServicio_Proveedor_IdUsuario(Long idProveedor);
+    // ====== Por proveedor: columna copiada id_proveedor (índice id_proveedor, estado, fecha_solicitud) ======
+    List<SolicitudServicioEntity> findByIdProveedor(Long idProveedor);
+    long countByIdProveedor(Long idProveedor);
+    long countByIdProveedorAndEstado(Long idProveedor, String estado);
     List<SolicitudServicioEntity> findByEstado(String estado);
     List<SolicitudServicioEntity> findByCliente(UsuarioEntity cliente);
 
     @Query("""
            SELECT s
            FROM SolicitudServicioEntity s
-           WHERE s.servicio.proveedor.idUsuario = :idProveedor
+           WHERE s.idProveedor = :idProveedor
+           ORDER BY s.fechaSolicitud DESC, s.idSolicitud DESC
            """)
     List<SolicitudServicioEntity> listarPorProveedor(@Param("idProveedor") Long idProveedor);
 
-    List<SolicitudServicioEntity> findByServicio_Proveedor(UsuarioEntity proveedor);
+    // Re-alinea el proveedor cuando el servicio cambia de dueño (índice id_servicio; no toca filas ya
+    // alineadas). Las que otro proveedor tomó por despacho conservan a quien las tomó.
+    @Modifying
+    @Query("""
+           update SolicitudServicioEntity s
+           set s.idProveedor = :idProveedor
+           where s.servicio.idServicio = :idServicio
+             and (s.idProveedor is null or s.idProveedor <> :idProveedor)
+             and not exists (select 1 from DespachoEntity d
+                             where d.idSolicitud = s.idSolicitud and d.estado = 'TOMADA')
+           """)
+    int sincronizarProveedor(@Param("idServicio") Long idServicio, @Param("idProveedor") Long idProveedor);
+
+    // Proveedores que sincronizarProveedor va a cambiar (sus contadores de carga se recuentan)
+    @Query("""
+           select distinct s.idProveedor
+           from SolicitudServicioEntity s
+           where s.servicio.idServicio = :idServicio
+             and s.idProveedor is not null and s.idProveedor <> :idProveedor
+             and not exists (select 1 from DespachoEntity d
+                             where d.idSolicitud = s.idSolicitud and d.estado = 'TOMADA')
+           """)
+    List<Long> findProveedoresDesalineados(@Param("idServicio") Long idServicio,
+                                           @Param("idProveedor") Long idProveedor);
+
+    // ====== HISTORIAL keyset (con relaciones cargadas) ======
+    // Orden (fechaSolicitud DESC, idSolicitud DESC); el cursor es la pareja del último elemento visto.
+    // Estado: null no filtra. desde / hasta son obligatorios e inclusivos; el servicio ya recorta hasta al
+    // cursor. Un rango simple (sin "is null or") deja que PostgreSQL descarte las particiones mensuales de
+    // solicitud_servicio fuera de [desde, hasta] (ParticionesPostgres).
+
+    @Query("""
+           select s
+           from SolicitudServicioEntity s
+           left join fetch s.servicio sv
+           left join fetch sv.proveedor p
+           left join fetch s.cliente c
+           where (s.fechaSolicitud < :cursorFecha
+                  or (s.fechaSolicitud = :cursorFecha and s.idSolicitud < :cursorId))
+             and (:estado is null or s.estado = :estado)
+             and s.fechaSolicitud between :desde and :hasta
+           order by s.fechaSolicitud desc, s.idSolicitud desc
+           """)
+    Slice<SolicitudServicioEntity> findAllDeep(@Param("cursorFecha") LocalDate cursorFecha,
+                                               @Param("cursorId") Long cursorId,
+                                               @Param("estado") String estado,
+                                               @Param("desde") LocalDate desde,
+                                               @Param("hasta") LocalDate hasta,
+                                               Pageable pageable);
 
-    // ====== NUEVOS (con relaciones cargadas) ======
     @Query("""
            select s
            from SolicitudServicioEntity s
            left join fetch s.servicio sv
            left join fetch sv.proveedor p
            left join fetch s.cliente c
+           where s.idProveedor = :idProveedor
+             and (s.fechaSolicitud < :cursorFecha
+                  or (s.fechaSolicitud = :cursorFecha and s.idSolicitud < :cursorId))
+             and s.fechaSolicitud between :desde and :hasta
            order by s.fechaSolicitud desc, s.idSolicitud desc
            """)
-    List<SolicitudServicioEntity> findAllDeep();
+    Slice<SolicitudServicioEntity> findByProveedorDeep(@Param("idProveedor") Long idProveedor,
+                                                       @Param("cursorFecha") LocalDate cursorFecha,
+                                                       @Param("cursorId") Long cursorId,
+                                                       @Param("desde") LocalDate desde,
+                                                       @Param("hasta") LocalDate hasta,
+                                                       Pageable pageable);
 
+    // Con estado fijo: igualdad en las dos primeras columnas del índice y recorrido en orden de la tercera
     @Query("""
            select s
            from SolicitudServicioEntity s
            left join fetch s.servicio sv
            left join fetch sv.proveedor p
            left join fetch s.cliente c
-           where sv.proveedor = :proveedor
+           where s.idProveedor = :idProveedor
+             and s.estado = :estado
+             and (s.fechaSolicitud < :cursorFecha
+                  or (s.fechaSolicitud = :cursorFecha and s.idSolicitud < :cursorId))
+             and s.fechaSolicitud between :desde and :hasta
            order by s.fechaSolicitud desc, s.idSolicitud desc
            """)
-    List<SolicitudServicioEntity> findByProveedorDeep(@Param("proveedor") UsuarioEntity proveedor);
+    Slice<SolicitudServicioEntity> findByProveedorYEstadoDeep(@Param("idProveedor") Long idProveedor,
+                                                              @Param("estado") String estado,
+                                                              @Param("cursorFecha") LocalDate cursorFecha,
+                                                              @Param("cursorId") Long cursorId,
+                                                              @Param("desde") LocalDate desde,
+                                                              @Param("hasta") LocalDate hasta,
+                                                              Pageable pageable);
 
     @Query("""
            select s
@@ -53,8 +132,218 @@ public interface SolicitudRepository extends JpaRepository<SolicitudServicioEnti
            left join fetch s.servicio sv
            left join fetch sv.proveedor p
            left join fetch s.cliente c
-           where s.cliente = :cliente
+           where s.cliente.idUsuario = :idCliente
+             and (s.fechaSolicitud < :cursorFecha
+                  or (s.fechaSolicitud = :cursorFecha and s.idSolicitud < :cursorId))
+             and (:estado is null or s.estado = :estado)
+             and s.fechaSolicitud between :desde and :hasta
            order by s.fechaSolicitud desc, s.idSolicitud desc
            """)
-    List<SolicitudServicioEntity> findByClienteDeep(@Param("cliente") UsuarioEntity cliente);
-}
\ No newline at end of file
+    Slice<SolicitudServicioEntity> findByClienteDeep(@Param("idCliente") Long idCliente,
+                                                     @Param("cursorFecha") LocalDate cursorFecha,
+                                                     @Param("cursorId") Long cursorId,
+                                                     @Param("estado") String estado,
+                                                     @Param("desde") LocalDate desde,
+                                                     @Param("hasta") LocalDate hasta,
+                                                     Pageable pageable);
+
+    // ====== Activas (PENDIENTE, PAGO_EN_PROCESO, PAGO_ACEPTADO, EN PROCESO) ======
+    // La lista va literal para que coincida con el predicado de los índices parciales
+    // (db/postgres/09_solicitud_estados.sql); mantener en sincronía con EstadoSolicitud.activo().
+
+    @Query("""
+           select s
+           from SolicitudServicioEntity s
+           left join fetch s.servicio sv
+           left join fetch sv.proveedor p
+           left join fetch s.cliente c
+           where s.estado in ('PENDIENTE', 'PAGO_EN_PROCESO', 'PAGO_ACEPTADO', 'EN PROCESO')
+             and (s.fechaSolicitud < :cursorFecha
+                  or (s.fechaSolicitud = :cursorFecha and s.idSolicitud < :cursorId))
+             and s.fechaSolicitud between :desde and :hasta
+           order by s.fechaSolicitud desc, s.idSolicitud desc
+           """)
+    Slice<SolicitudServicioEntity> findActivasDeep(@Param("cursorFecha") LocalDate cursorFecha,
+                                                   @Param("cursorId") Long cursorId,
+                                                   @Param("desde") LocalDate desde,
+                                                   @Param("hasta") LocalDate hasta,
+                                                   Pageable pageable);
+
+    @Query("""
+           select s
+           from SolicitudServicioEntity s
+           left join fetch s.servicio sv
+           left join fetch sv.proveedor p
+           left join fetch s.cliente c
+           where s.idProveedor = :idProveedor
+             and s.estado in ('PENDIENTE', 'PAGO_EN_PROCESO', 'PAGO_ACEPTADO', 'EN PROCESO')
+             and (s.fechaSolicitud < :cursorFecha
+                  or (s.fechaSolicitud = :cursorFecha and s.idSolicitud < :cursorId))
+             and s.fechaSolicitud between :desde and :hasta
+           order by s.fechaSolicitud desc, s.idSolicitud desc
+           """)
+    Slice<SolicitudServicioEntity> findActivasDeProveedorDeep(@Param("idProveedor") Long idProveedor,
+                                                              @Param("cursorFecha") LocalDate cursorFecha,
+                                                              @Param("cursorId") Long cursorId,
+                                                              @Param("desde") LocalDate desde,
+                                                              @Param("hasta") LocalDate hasta,
+                                                              Pageable pageable);
+
+    // ====== Transición de estado en una sola sentencia (compare-and-set) ======
+    // Solo actualiza si el estado actual está en :desde y, cuando se indican, si la solicitud es del
+    // cliente / proveedor dado. Sin filas = no existe, no es suya o el estado actual no lo permite.
+    // fecha_estimada: se reemplaza solo si :fijarFecha (null la borra).
+    // estadoAnterior sale de la fila bloqueada (FOR UPDATE) para aplicar los deltas de provider_workload.
+    // Sin @Modifying: con él Spring Data usa executeUpdate y descarta la fila de RETURNING. Hibernate vacía
+    // la sesión antes de la consulta nativa; los alias van entre comillas porque PostgreSQL pasa a
+    // minúsculas los que no las llevan (SolicitudRepositoryTest comprueba el mapeo a la proyección).
+
+    @Query(value = """
+           update solicitud_servicio s
+           set estado = cast(:hacia as varchar),
+               fecha_estimada = case when cast(:fijarFecha as boolean)
+                                     then cast(:fechaEstimada as date)
+                                     else s.fecha_estimada end
+           from (select id_solicitud, estado
+                 from solicitud_servicio
+                 where id_solicitud = cast(:idSolicitud as bigint)
+                 for update) anterior
+           where s.id_solicitud = anterior.id_solicitud
+             and anterior.estado in (:desde)
+             and (cast(:idCliente as bigint) is null or s.id_cliente = cast(:idCliente as bigint))
+             and (cast(:idProveedor as bigint) is null or s.id_proveedor = cast(:idProveedor as bigint))
+           returning s.id_solicitud as "idSolicitud", s.id_servicio as "idServicio", s.id_cliente as "idCliente",
+                     s.id_proveedor as "idProveedor", s.estado as "estado", anterior.estado as "estadoAnterior"
+           """, nativeQuery = true)
+    Optional<SolicitudTransicionView> transicionar(@Param("idSolicitud") Long idSolicitud,
+                                                   @Param("desde") Collection<String> desde,
+                                                   @Param("hacia") String hacia,
+                                                   @Param("idCliente") Long idCliente,
+                                                   @Param("idProveedor") Long idProveedor,
+                                                   @Param("fijarFecha") boolean fijarFecha,
+                                                   @Param("fechaEstimada") LocalDate fechaEstimada);
+
+    interface SolicitudTransicionView {
+        Long   getIdSolicitud();
+        Long   getIdServicio();
+        Long   getIdCliente();
+        Long   getIdProveedor();
+        String getEstado();
+        String getEstadoAnterior();
+    }
+
+    // Camino de error de una transición (explicar por qué no se aplicó) y borrado (descontar su estado)
+    @Query("""
+           select s.estado as estado, s.cliente.idUsuario as idCliente, s.idProveedor as idProveedor
+           from SolicitudServicioEntity s
+           where s.idSolicitud = :idSolicitud
+           """)
+    Optional<SolicitudDuenoView> findDuenoById(@Param("idSolicitud") Long idSolicitud);
+
+    interface SolicitudDuenoView {
+        String getEstado();
+        Long   getIdCliente();
+        Long   getIdProveedor();
+    }
+
+    // ====== Despacho ======
+
+    // Lo que el motor necesita de una solicitud recién creada; ciudad del cliente, si no, la del servicio
+    @Query("""
+           select s.idSolicitud as idSolicitud, sv.idServicio as idServicio, c.idUsuario as idCliente,
+                  s.idProveedor as idProveedor, s.estado as estado,
+                  coalesce(c.ciudadClave, sv.ciudadClave) as ciudadClave,
+                  s.latitud as latitud, s.longitud as longitud
+           from SolicitudServicioEntity s
+           join s.servicio sv
+           left join s.cliente c
+           where s.idSolicitud = :idSolicitud
+           """)
+    Optional<SolicitudDespachoView> findParaDespacho(@Param("idSolicitud") Long idSolicitud);
+
+    interface SolicitudDespachoView {
+        Long   getIdSolicitud();
+        Long   getIdServicio();
+        Long   getIdCliente();
+        Long   getIdProveedor();
+        String getEstado();
+        String getCiudadClave();
+        Double getLatitud();
+        Double getLongitud();
+    }
+
+    // Otro proveedor toma una solicitud ofertada (compare-and-set): solo si sigue en :estado y sigue
+    // asignada a :anterior. 0 filas = ya la tomó alguien, el dueño la avanzó o se borró.
+    @Modifying
+    @Query("""
+           update SolicitudServicioEntity s
+           set s.idProveedor = :nuevo
+           where s.idSolicitud = :idSolicitud
+             and s.idProveedor = :anterior
+             and s.estado = :estado
+           """)
+    int reasignarProveedor(@Param("idSolicitud") Long idSolicitud,
+                           @Param("anterior") Long anterior,
+                           @Param("nuevo") Long nuevo,
+                           @Param("estado") String estado);
+
+    // ====== Exportación (ExportacionServiceImplement): streaming en orden cronológico ======
+    // Proyección, no entidades: nada se acumula en el contexto de persistencia. Debe consumirse dentro de
+    // una transacción (el fetch size usa un cursor del driver) y cerrarse (try-with-resources).
+    // El rango de fechas siempre va acotado para podar particiones; soloActivas = mismo predicado que findActivas*Deep.
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("""
+           select s.idSolicitud      as idSolicitud,
+                  s.fechaSolicitud   as fechaSolicitud,
+                  s.estado           as estado,
+                  s.fechaEstimada    as fechaEstimada,
+                  sv.nombre          as nombreServicio,
+                  sv.precio          as precio,
+                  c.idUsuario        as idCliente,
+                  c.nombreUsuario    as nombreCliente,
+                  s.idProveedor      as idProveedor,
+                  p.nombreUsuario    as nombreProveedor,
+                  s.direccionEntrega as direccionEntrega,
+                  s.detalles         as detalles
+           from SolicitudServicioEntity s
+           left join s.servicio sv
+           left join s.cliente c
+           left join UsuarioEntity p on p.idUsuario = s.idProveedor
+           where (:estado is null or s.estado = :estado)
+             and (:soloActivas = false
+                  or s.estado in ('PENDIENTE', 'PAGO_EN_PROCESO', 'PAGO_ACEPTADO', 'EN PROCESO'))
+             and s.fechaSolicitud between :desde and :hasta
+           order by s.fechaSolicitud, s.idSolicitud
+           """)
+    Stream<SolicitudExportView> streamExportacion(@Param("estado") String estado,
+                                                  @Param("soloActivas") boolean soloActivas,
+                                                  @Param("desde") LocalDate desde,
+                                                  @Param("hasta") LocalDate hasta);
+
+    interface SolicitudExportView {
+        Long       getIdSolicitud();
+        LocalDate  getFechaSolicitud();
+        String     getEstado();
+        LocalDate  getFechaEstimada();
+        String     getNombreServicio();
+        BigDecimal getPrecio();
+        Long       getIdCliente();
+        String     getNombreCliente();
+        Long       getIdProveedor();
+        String     getNombreProveedor();
+        String     getDireccionEntrega();
+        String     getDetalles();
+    }
+
+    // ====== Popularidad: número de solicitudes por servicio ======
+    @Query("""
+           select s.servicio.idServicio as idServicio, count(s) as total
+           from SolicitudServicioEntity s
+           where s.servicio is not null
+           group by s.servicio.idServicio
+           """)
+    List<ConteoServicioView> contarPorServicio();
+}
@@ -2,6 +2,7 @@ package com.usta.serviexpress.Repository;
 
 import com.usta.serviexpress.Entity.UsuarioEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,4 +30,53 @@ public interface UsuarioRepository extends JpaRepository<UsuarioEntity, Long> {
     Optional<UsuarioEntity> findByCorreoIgnoreCaseFetchRol(@Param("correo") String correo);
 
     List<UsuarioEntity> findByRol_Rol(String rol);
+
+    // Proveedores de una ciudad (índice ciudad_clave, id_rol, id_usuario)
+    List<UsuarioEntity> findByRol_RolAndCiudadClave(String rol, String ciudadClave);
+
+    @Query("select u.ciudadClave from UsuarioEntity u where u.idUsuario = :idUsuario")
+    Optional<String> findCiudadClaveById(@Param("idUsuario") Long idUsuario);
+
+    // ====== Backfill de ciudad_clave (CiudadClaveBackfill) ======
+
+    @Query("select u.idUsuario as idUsuario, u.ciudad as ciudad, u.ciudadClave as ciudadClave from UsuarioEntity u")
+    List<CiudadUsuarioView> findCiudades();
+
+    @Modifying
+    @Query("update UsuarioEntity u set u.ciudadClave = :ciudadClave where u.idUsuario = :idUsuario")
+    int actualizarCiudadClave(@Param("idUsuario") Long idUsuario, @Param("ciudadClave") String ciudadClave);
+
+    interface CiudadUsuarioView {
+        Long   getIdUsuario();
+        String getCiudad();
+        String getCiudadClave();
+    }
+
+    // ====== Despacho: datos del motor en memoria (DespachoServiceImplement) ======
+
+    @Query("""
+       select u.idUsuario as idProveedor, u.ciudadClave as ciudadClave, u.disponibilidad as disponibilidad,
+              u.capacidad as capacidad, u.latitud as latitud, u.longitud as longitud
+       from UsuarioEntity u
+       where u.rol.rol = 'PROVEEDOR'
+       """)
+    List<ProveedorDespachoView> findProveedoresDespacho();
+
+    // Vacío si no existe o ya no es proveedor
+    @Query("""
+       select u.idUsuario as idProveedor, u.ciudadClave as ciudadClave, u.disponibilidad as disponibilidad,
+              u.capacidad as capacidad, u.latitud as latitud, u.longitud as longitud
+       from UsuarioEntity u
+       where u.idUsuario = :idUsuario and u.rol.rol = 'PROVEEDOR'
+       """)
+    Optional<ProveedorDespachoView> findProveedorDespacho(@Param("idUsuario") Long idUsuario);
+
+    interface ProveedorDespachoView {
+        Long    getIdProveedor();
+        String  getCiudadClave();
+        Boolean getDisponibilidad();
+        Integer getCapacidad();
+        Double  getLatitud();
+        Double  getLongitud();
+    }
 }
@@ -0,0 +1,11 @@
+package com.usta.serviexpress.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Se publica al reservar, mover o liberar la franja de una solicitud; el árbol en memoria se actualiza
+ * después del commit. idProveedorAnterior es el dueño de la franja que se borró (null si no había);
+ * idProveedor, inicio y fin describen la nueva (null = solo se liberó).
+ */
+public record AgendaCambiadaEvent(Long idSolicitud, Long idProveedorAnterior,
+                                  Long idProveedor, LocalDateTime inicio, LocalDateTime fin) { }
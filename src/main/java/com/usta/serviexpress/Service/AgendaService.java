@@ -0,0 +1,26 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.AgendaDisponibilidadDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public interface AgendaService {
+
+    /** Resultado de agendar: AGENDADA o por qué no (los tres últimos vienen de la transición de estado). */
+    enum ResultadoAgenda { AGENDADA, CONFLICTO, EN_EL_PASADO, NO_ENCONTRADA, NO_AUTORIZADO, NO_PERMITIDA }
+
+    /**
+     * ¿[inicio, inicio + duracion) está libre para el proveedor? La franja actual de idSolicitud (si la
+     * tiene) no cuenta como conflicto: es la que se reprograma. Si no está libre, sugiere el siguiente hueco.
+     */
+    AgendaDisponibilidadDTO disponibilidad(Long idProveedor, Long idSolicitud, LocalDateTime inicio, Duration duracion);
+
+    /**
+     * El proveedor acepta o reprograma la solicitud: la lleva a 'hacia' con fechaEstimada = día de inicio y
+     * reserva la franja, todo en una transacción. Si la franja se cruza con otra, no cambia nada.
+     */
+    ResultadoAgenda agendar(Long idSolicitud, Long idProveedor, EstadoSolicitud hacia,
+                            LocalDateTime inicio, Duration duracion);
+}
@@ -0,0 +1,227 @@
+package com.usta.serviexpress.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.usta.serviexpress.DTOs.AgendaDisponibilidadDTO;
+import com.usta.serviexpress.Entity.AgendaReservaEntity;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Repository.AgendaRepository;
+import com.usta.serviexpress.agenda.ArbolIntervalos;
+import com.usta.serviexpress.agenda.ArbolIntervalos.Intervalo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Agenda de los proveedores: las franjas viven en agenda_reservas y un ArbolIntervalos por proveedor (caché
+ * Caffeine de las que aún no terminan, actualizada después del commit con AgendaCambiadaEvent) responde en
+ * O(log n). La comprobación en memoria es solo un atajo: si dos reservas la pasan a la vez, ex_agenda_solape
+ * rechaza el INSERT y la transacción se revierte entera. Los minutos del árbol son hora local, como el
+ * timestamp sin zona de la BD.
+ */
+@Service
+public class AgendaServiceImplement implements AgendaService {
+
+    private final AgendaRepository agendaRepository;
+    private final SolicitudServicioService solicitudServicioService;
+    private final ApplicationEventPublisher eventos;
+    private final MeterRegistry meterRegistry;
+
+    private final LocalTime jornadaInicio;
+    private final LocalTime jornadaFin;
+    private final int diasBusqueda;
+
+    private final Cache<Long, ArbolIntervalos> arboles;
+
+    public AgendaServiceImplement(AgendaRepository agendaRepository,
+                                  SolicitudServicioService solicitudServicioService,
+                                  ApplicationEventPublisher eventos,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${agenda.jornada.inicio:08:00}") String jornadaInicio,
+                                  @Value("${agenda.jornada.fin:18:00}") String jornadaFin,
+                                  @Value("${agenda.busqueda.dias:60}") int diasBusqueda,
+                                  @Value("${agenda.cache.max:5000}") long cacheMax,
+                                  @Value("${agenda.cache.ttl:30m}") Duration cacheTtl) {
+        this.agendaRepository = agendaRepository;
+        this.solicitudServicioService = solicitudServicioService;
+        this.eventos = eventos;
+        this.meterRegistry = meterRegistry;
+        this.jornadaInicio = LocalTime.parse(jornadaInicio);
+        this.jornadaFin = LocalTime.parse(jornadaFin);
+        this.diasBusqueda = Math.max(diasBusqueda, 1);
+        this.arboles = Caffeine.newBuilder()
+                .maximumSize(cacheMax)
+                .expireAfterAccess(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, arboles, "agenda");
+    }
+
+    // ===================== Consulta =====================
+
+    @Override
+    @Transactional(readOnly = true)
+    public AgendaDisponibilidadDTO disponibilidad(Long idProveedor, Long idSolicitud,
+                                                  LocalDateTime inicio, Duration duracion) {
+        LocalDateTime fin = inicio.plus(duracion);
+        ArbolIntervalos arbol = arbol(idProveedor);
+        synchronized (arbol) {
+            // La franja actual de la solicitud no cuenta: es la que se está moviendo
+            Intervalo propia = idSolicitud != null ? arbol.quitar(idSolicitud) : null;
+            try {
+                Intervalo cruce = arbol.solapado(minutos(inicio), minutos(fin));
+                if (cruce == null) return new AgendaDisponibilidadDTO(true, inicio, fin, null, null);
+                LocalDateTime ahora = ahora();
+                LocalDateTime desde = inicio.isAfter(ahora) ? inicio : ahora;
+                return new AgendaDisponibilidadDTO(false, inicio, fin, cruce.id(),
+                        siguienteEnJornada(arbol, desde, duracion));
+            } finally {
+                if (propia != null) arbol.poner(propia);
+            }
+        }
+    }
+
+    // ===================== Reserva =====================
+
+    @Override
+    @Transactional
+    public ResultadoAgenda agendar(Long idSolicitud, Long idProveedor, EstadoSolicitud hacia,
+                                   LocalDateTime inicio, Duration duracion) {
+        if (inicio.isBefore(ahora())) return contar(ResultadoAgenda.EN_EL_PASADO);
+        LocalDateTime fin = inicio.plus(duracion);
+
+        // Descarte rápido en memoria; la restricción de exclusión decide al insertar
+        if (conflicto(idProveedor, idSolicitud, inicio, fin)) return contar(ResultadoAgenda.CONFLICTO);
+
+        var transicion = solicitudServicioService.transicionar(idSolicitud, hacia, EstadoSolicitud.Actor.PROVEEDOR,
+                idProveedor, true, inicio.toLocalDate());
+        switch (transicion) {
+            case APLICADA -> { }
+            case NO_ENCONTRADA -> { return contar(ResultadoAgenda.NO_ENCONTRADA); }
+            case NO_AUTORIZADO -> { return contar(ResultadoAgenda.NO_AUTORIZADO); }
+            case NO_PERMITIDA -> { return contar(ResultadoAgenda.NO_PERMITIDA); }
+        }
+
+        Long anterior = agendaRepository.borrarDeSolicitud(idSolicitud).orElse(null);
+        if (agendaRepository.reservar(idProveedor, idSolicitud, inicio, fin) == 0) {
+            // Otra reserva del proveedor ganó la franja: se revierten también la transición y el borrado
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return contar(ResultadoAgenda.CONFLICTO);
+        }
+        eventos.publishEvent(new AgendaCambiadaEvent(idSolicitud, anterior, idProveedor, inicio, fin));
+        return contar(ResultadoAgenda.AGENDADA);
+    }
+
+    // ===================== Sincronización =====================
+
+    // Libera la franja de las solicitudes que dejan de estar activas; transacción propia (after commit)
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSolicitudCambiada(SolicitudCambiadaEvent e) {
+        if (e.nueva() || e.idSolicitud() == null) return;
+        boolean activa = EstadoSolicitud.de(e.estado()).map(EstadoSolicitud::activo).orElse(true);
+        if (activa) return;
+        agendaRepository.borrarDeSolicitud(e.idSolicitud()).ifPresent(p ->
+                eventos.publishEvent(new AgendaCambiadaEvent(e.idSolicitud(), p, null, null, null)));
+    }
+
+    // Solo se actualizan los árboles ya cargados; los demás se arman desde la BD en su primer uso
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAgendaCambiada(AgendaCambiadaEvent e) {
+        if (e.idProveedorAnterior() != null) {
+            arboles.asMap().computeIfPresent(e.idProveedorAnterior(), (id, arbol) -> {
+                synchronized (arbol) {
+                    arbol.quitar(e.idSolicitud());
+                }
+                return arbol;
+            });
+        }
+        if (e.idProveedor() != null && e.inicio() != null && e.fin() != null) {
+            Intervalo nueva = new Intervalo(e.idSolicitud(), minutos(e.inicio()), minutos(e.fin()));
+            arboles.asMap().computeIfPresent(e.idProveedor(), (id, arbol) -> {
+                synchronized (arbol) {
+                    arbol.poner(nueva);
+                }
+                return arbol;
+            });
+        }
+    }
+
+    // ===================== Internos =====================
+
+    private ArbolIntervalos arbol(Long idProveedor) {
+        return arboles.get(idProveedor, id -> {
+            ArbolIntervalos arbol = new ArbolIntervalos();
+            for (AgendaReservaEntity r : agendaRepository.findVigentes(id, ahora())) {
+                arbol.poner(new Intervalo(r.getIdSolicitud(), minutos(r.getInicio()), minutos(r.getFin())));
+            }
+            return arbol;
+        });
+    }
+
+    private boolean conflicto(Long idProveedor, Long idSolicitud, LocalDateTime inicio, LocalDateTime fin) {
+        ArbolIntervalos arbol = arbol(idProveedor);
+        synchronized (arbol) {
+            Intervalo propia = arbol.quitar(idSolicitud);
+            try {
+                return arbol.solapado(minutos(inicio), minutos(fin)) != null;
+            } finally {
+                if (propia != null) arbol.poner(propia);
+            }
+        }
+    }
+
+    // Primer hueco >= desde que cabe entero en una jornada; null si no hay uno en agenda.busqueda.dias.
+    // Cada vuelta avanza al final de un compromiso o al día siguiente. Llamar con el monitor del árbol.
+    private LocalDateTime siguienteEnJornada(ArbolIntervalos arbol, LocalDateTime desde, Duration duracion) {
+        if (duracion.compareTo(Duration.between(jornadaInicio, jornadaFin)) > 0) return null;
+        LocalDateTime limite = desde.toLocalDate().plusDays(diasBusqueda).atTime(jornadaFin);
+        LocalDateTime t = desde;
+        while (t.isBefore(limite)) {
+            LocalDate dia = t.toLocalDate();
+            if (t.toLocalTime().isBefore(jornadaInicio)) t = dia.atTime(jornadaInicio);
+            if (t.plus(duracion).isAfter(dia.atTime(jornadaFin))) {
+                t = dia.plusDays(1).atTime(jornadaInicio);
+                continue;
+            }
+            LocalDateTime libre = deMinutos(arbol.siguienteLibre(minutos(t), duracion.toMinutes()));
+            LocalDate diaLibre = libre.toLocalDate();
+            if (!libre.toLocalTime().isBefore(jornadaInicio) && !libre.plus(duracion).isAfter(diaLibre.atTime(jornadaFin))) {
+                return libre;
+            }
+            t = libre;
+        }
+        return null;
+    }
+
+    private ResultadoAgenda contar(ResultadoAgenda resultado) {
+        Counter.builder("agenda.resultado").tag("resultado", resultado.name()).register(meterRegistry).increment();
+        return resultado;
+    }
+
+    private static LocalDateTime ahora() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private static long minutos(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime deMinutos(long minutos) {
+        return LocalDateTime.ofEpochSecond(minutos * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,8 @@
+package com.usta.serviexpress.Service;
+
+/**
+ * Se publica cuando un cliente crea o actualiza una calificación.
+ * puntuacionAnterior es null si la calificación es nueva (si no, es el valor reemplazado).
+ */
+public record CalificacionRegistradaEvent(Long idCalificacion, Long idProveedor, Long idServicio,
+                                          int puntuacion, Integer puntuacionAnterior) { }
@@ -1,12 +1,15 @@
 package com.usta.serviexpress.Service;
 
 import com.usta.serviexpress.DTOs.CalificacionCreateDTO;
-import com.usta.serviexpress.Entity.CalificacionEntity;
-
-import java.util.List;
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.Repository.CalificacionFeedView;
+import org.springframework.data.domain.Slice;
 
 public interface CalificacionService {
     void crear(Long idCliente, CalificacionCreateDTO dto);
-    List<CalificacionEntity> listarTodas();
-    List<CalificacionEntity> listarPorPuntuacion(int puntuacion);
-}
\ No newline at end of file
+
+    // Listados keyset (más recientes primero); cursor = último idCalificacion recibido, null = primera página
+    Slice<CalificacionFeedView> listar(CalificacionFiltroDTO filtro, Long cursor, int size);
+    Slice<CalificacionFeedView> listarTodas(Long cursor, int size);
+    Slice<CalificacionFeedView> listarPorPuntuacion(int puntuacion, Long cursor, int size);
+}
@@ -1,27 +1,34 @@
 package com.usta.serviexpress.Service;
 
 import com.usta.serviexpress.DTOs.CalificacionCreateDTO;
-import com.usta.serviexpress.Entity.CalificacionEntity;
-import com.usta.serviexpress.Entity.ServicioEntity;
-import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.Repository.CalificacionFeedView;
 import com.usta.serviexpress.Repository.CalificacionRepository;
-import com.usta.serviexpress.Repository.ServicioRepository;
-import com.usta.serviexpress.Repository.UsuarioRepository;
+import com.usta.serviexpress.Repository.CalificacionRepository.CalificacionUpsertView;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CalificacionServiceImplement implements CalificacionService {
 
+    private static final int MAX_SIZE = 100;
+    private static final int PUNTUACION_MIN = 1;
+    private static final int PUNTUACION_MAX = 5;
+    // Topes de un rango de fechas abierto (LocalDateTime.MIN/MAX no caben en timestamp de PostgreSQL)
+    private static final LocalDateTime SIN_DESDE = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime SIN_HASTA = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final CalificacionRepository calificacionRepo;
-    private final UsuarioRepository usuarioRepo;
-    private final ServicioRepository servicioRepo;
+    private final ProveedorRatingStatsRepository statsRepo;
+    private final ApplicationEventPublisher eventos;
 
     @Override
     @Transactional
@@ -35,42 +42,66 @@ public class CalificacionServiceImplement implements CalificacionService {
             throw new IllegalArgumentException("Debes indicar un proveedor o un servicio.");
         }
 
-        UsuarioEntity cliente = usuarioRepo.getReferenceById(idCliente);
-
-        ServicioEntity servicio = null;
-        UsuarioEntity proveedor;
+        // Una sola sentencia INSERT .. ON CONFLICT DO UPDATE .. RETURNING; los índices únicos parciales
+        // garantizan una calificación por (cliente, proveedor, servicio) aun con envíos simultáneos
+        LocalDateTime ahora = LocalDateTime.now();
+        CalificacionUpsertView c = (dto.getServicioId() != null
+                ? calificacionRepo.upsertDeServicio(idCliente, dto.getServicioId(), dto.getPuntuacion(),
+                        dto.getComentario(), ahora)
+                : calificacionRepo.upsertDeProveedor(idCliente, dto.getProveedorId(), dto.getPuntuacion(),
+                        dto.getComentario(), ahora))
+                .orElseThrow(() -> new IllegalArgumentException(dto.getServicioId() != null
+                        ? "Servicio no encontrado o sin proveedor asignado."
+                        : "Proveedor no encontrado."));
 
-        if (dto.getServicioId() != null) {
-            servicio = servicioRepo.getReferenceById(dto.getServicioId());
-            proveedor = servicio.getProveedor();
-        } else {
-            proveedor = usuarioRepo.getReferenceById(dto.getProveedorId());
-        }
+        actualizarAgregado(c.getIdProveedor(), c.getPuntuacionAnterior(), c.getPuntuacion());
+        eventos.publishEvent(new CalificacionRegistradaEvent(c.getIdCalificacion(), c.getIdProveedor(),
+                c.getIdServicio(), c.getPuntuacion(), c.getPuntuacionAnterior()));
+    }
 
-        Optional<CalificacionEntity> existente = (servicio != null)
-                ? calificacionRepo.findByCliente_IdUsuarioAndProveedor_IdUsuarioAndServicio_IdServicio(
-                cliente.getIdUsuario(), proveedor.getIdUsuario(), servicio.getIdServicio())
-                : calificacionRepo.findByCliente_IdUsuarioAndProveedor_IdUsuarioAndServicioIsNull(
-                cliente.getIdUsuario(), proveedor.getIdUsuario());
+    // Delta sobre provider_rating_stats dentro de la misma transacción que la calificación
+    private void actualizarAgregado(Long idProveedor, Integer anterior, int nueva) {
+        if (anterior != null && anterior == nueva) return;
+        long[] d = new long[5];
+        d[nueva - 1]++;
+        if (anterior != null) d[anterior - 1]--;
+        long dSuma = nueva - (anterior != null ? anterior : 0);
+        long dTotal = anterior == null ? 1 : 0;
+        statsRepo.aplicarDelta(idProveedor, dSuma, dTotal, d[0], d[1], d[2], d[3], d[4]);
+    }
 
-        CalificacionEntity c = existente.orElseGet(CalificacionEntity::new);
-        c.setCliente(cliente);
-        c.setProveedor(proveedor);
-        c.setServicio(servicio);
-        c.setPuntuacion(dto.getPuntuacion());
-        c.setComentario(dto.getComentario());
-        c.setFecha(LocalDateTime.now());
+    // Elige la consulta por el filtro más selectivo con índice: proveedor > estrellas > fechas
+    @Override
+    public Slice<CalificacionFeedView> listar(CalificacionFiltroDTO filtro, Long cursor, int size) {
+        CalificacionFiltroDTO f = filtro != null ? filtro : new CalificacionFiltroDTO();
+        long c = cursor != null ? cursor : Long.MAX_VALUE;
+        PageRequest pagina = PageRequest.of(0, Math.min(Math.max(size, 1), MAX_SIZE));
+        LocalDateTime desde = f.getDesde() != null ? f.getDesde().atStartOfDay() : SIN_DESDE;
+        LocalDateTime hasta = f.getHasta() != null ? f.getHasta().plusDays(1).atStartOfDay() : SIN_HASTA;   // hasta inclusivo
 
-        calificacionRepo.save(c);
+        if (f.getProveedorId() != null) {
+            int min = f.getPuntuacion() != null ? f.getPuntuacion() : PUNTUACION_MIN;
+            int max = f.getPuntuacion() != null ? f.getPuntuacion() : PUNTUACION_MAX;
+            return calificacionRepo.findFeedPorProveedor(c, f.getProveedorId(), min, max, desde, hasta, pagina);
+        }
+        if (f.getPuntuacion() != null) {
+            return calificacionRepo.findFeedPorPuntuacion(c, f.getPuntuacion(), desde, hasta, pagina);
+        }
+        if (f.getDesde() != null || f.getHasta() != null) {
+            return calificacionRepo.findFeedEnRango(c, desde, hasta, pagina);
+        }
+        return calificacionRepo.findFeed(c, pagina);
     }
 
     @Override
-    public List<CalificacionEntity> listarTodas() {
-        return calificacionRepo.findAll();
+    public Slice<CalificacionFeedView> listarTodas(Long cursor, int size) {
+        return listar(null, cursor, size);
     }
 
     @Override
-    public List<CalificacionEntity> listarPorPuntuacion(int puntuacion) {
-        return calificacionRepo.findByPuntuacionOrderByFechaDesc(puntuacion);
+    public Slice<CalificacionFeedView> listarPorPuntuacion(int puntuacion, Long cursor, int size) {
+        CalificacionFiltroDTO f = new CalificacionFiltroDTO();
+        f.setPuntuacion(puntuacion);
+        return listar(f, cursor, size);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.usta.serviexpress.Service;
+
+/**
+ * Se publica cuando cambia algún contador de provider_workload de un proveedor.
+ * idProveedor null = cambiaron varios (reconciliación): se descarta todo el mapa en memoria.
+ */
+public record CargaProveedorCambiadaEvent(Long idProveedor) { }
@@ -0,0 +1,68 @@
+package com.usta.serviexpress.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconciliación de provider_workload contra solicitud_servicio y servicio.
+ * Corre al arrancar (backfill de los contadores anteriores a la tabla) y luego cada
+ * carga.reconciliacion.intervalo; solo reescribe las filas que no cuadran, así que una corrida sin
+ * deriva no invalida el mapa en memoria.
+ *
+ * Métricas: timer carga.reconciliacion y contador carga.reconciliacion.corregidas (filas con deriva).
+ * Se desactiva con carga.reconciliacion.habilitado=false (quedan solo los deltas transaccionales).
+ */
+@Component
+@ConditionalOnProperty(name = "carga.reconciliacion.habilitado", havingValue = "true", matchIfMissing = true)
+public class CargaProveedorReconciliacionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaProveedorReconciliacionJob.class);
+
+    private final CargaProveedorService cargaService;
+    private final AtomicBoolean corriendo = new AtomicBoolean(false);
+    private final Timer timer;
+    private final Counter corregidas;
+
+    public CargaProveedorReconciliacionJob(CargaProveedorService cargaService, MeterRegistry meterRegistry) {
+        this.cargaService = cargaService;
+        this.timer = Timer.builder("carga.reconciliacion").register(meterRegistry);
+        this.corregidas = Counter.builder("carga.reconciliacion.corregidas").register(meterRegistry);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        ejecutar();
+    }
+
+    @Scheduled(initialDelayString = "${carga.reconciliacion.intervalo:PT15M}",
+               fixedDelayString = "${carga.reconciliacion.intervalo:PT15M}")
+    public void ejecutar() {
+        if (!corriendo.compareAndSet(false, true)) return;
+        long inicio = System.nanoTime();
+        try {
+            int n = timer.recordCallable(cargaService::reconciliar);
+            corregidas.increment(n);
+            if (n > 0) {
+                log.info("provider_workload: {} contadores corregidos en {} ms", n,
+                        (System.nanoTime() - inicio) / 1_000_000);
+            }
+        } catch (Exception ex) {
+            log.error("provider_workload: la reconciliación falló, se mantienen los contadores actuales", ex);
+        } finally {
+            corriendo.set(false);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CargaProveedorDTO;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface CargaProveedorService {
+
+    // ===== Lectura (mapa en memoria; un fallo lee solo el índice de provider_workload) =====
+    CargaProveedorDTO carga(Long idProveedor);
+    Map<Long, CargaProveedorDTO> cargas(Collection<Long> idsProveedor);
+
+    // ===== Deltas: se llaman dentro de la transacción que cambia la solicitud / el servicio =====
+    void solicitudCreada(Long idProveedor, String estado);
+    void solicitudMovida(Long idProveedor, String estadoAnterior, String estadoNuevo);
+    void solicitudEliminada(Long idProveedor, String estado);
+    void servicioCreado(Long idProveedor, String estado);
+    void servicioMovido(Long idProveedor, String estadoAnterior, String estadoNuevo);
+    void servicioEliminado(Long idProveedor, String estado);
+
+    // Cuando no se conoce el estado anterior (solicitudes movidas por una reasignación de servicio)
+    void recontarSolicitudes(Long idProveedor);
+
+    // Recalcula todos los contadores desde las tablas fuente; devuelve cuántas filas corrigió
+    int reconciliar();
+}
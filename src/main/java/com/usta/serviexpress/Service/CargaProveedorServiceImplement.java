@@ -0,0 +1,195 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CargaProveedorDTO;
+import com.usta.serviexpress.Entity.ProveedorCargaEntity;
+import com.usta.serviexpress.Repository.ProveedorCargaRepository;
+import com.usta.serviexpress.Repository.ProveedorCargaRepository.ContadorView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de solicitudes y servicios por estado y proveedor (provider_workload), en lugar de COUNT(*).
+ * Se escriben con deltas en la misma transacción que el cambio, así que un rollback también los revierte.
+ * El mapa en memoria se invalida por proveedor después del commit; una lectura que empezó antes de una
+ * invalidación no se queda en el mapa (compara la generación). La deriva la corrige
+ * CargaProveedorReconciliacionJob.
+ */
+@Service
+public class CargaProveedorServiceImplement implements CargaProveedorService {
+
+    private final ProveedorCargaRepository cargaRepository;
+    private final ApplicationEventPublisher eventos;
+    private final Map<Long, CargaProveedorDTO> cargas = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong();
+
+    public CargaProveedorServiceImplement(ProveedorCargaRepository cargaRepository,
+                                          ApplicationEventPublisher eventos,
+                                          MeterRegistry meterRegistry) {
+        this.cargaRepository = cargaRepository;
+        this.eventos = eventos;
+        Gauge.builder("carga.proveedores.memoria", cargas, Map::size).register(meterRegistry);
+    }
+
+    // ===================== Lectura =====================
+
+    @Override
+    @Transactional(readOnly = true)
+    public CargaProveedorDTO carga(Long idProveedor) {
+        if (idProveedor == null) return null;
+        CargaProveedorDTO enMemoria = cargas.get(idProveedor);
+        if (enMemoria != null) return enMemoria;
+
+        long antes = generacion.get();
+        CargaProveedorDTO leida = armar(idProveedor, cargaRepository.findContadores(idProveedor));
+        guardar(idProveedor, leida, antes);
+        return leida;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, CargaProveedorDTO> cargas(Collection<Long> idsProveedor) {
+        Map<Long, CargaProveedorDTO> salida = new LinkedHashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : idsProveedor) {
+            if (id == null || salida.containsKey(id)) continue;
+            CargaProveedorDTO c = cargas.get(id);
+            salida.put(id, c);
+            if (c == null) faltantes.add(id);
+        }
+        if (faltantes.isEmpty()) return salida;
+
+        // Una sola lectura para todos los que no estaban en memoria
+        long antes = generacion.get();
+        Map<Long, List<ContadorView>> porProveedor = new HashMap<>();
+        for (ContadorView c : cargaRepository.findContadores(faltantes)) {
+            porProveedor.computeIfAbsent(c.getIdProveedor(), k -> new ArrayList<>()).add(c);
+        }
+        for (Long id : faltantes) {
+            CargaProveedorDTO leida = armar(id, porProveedor.getOrDefault(id, List.of()));
+            salida.put(id, leida);
+            guardar(id, leida, antes);
+        }
+        return salida;
+    }
+
+    // ===================== Deltas transaccionales =====================
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void solicitudCreada(Long idProveedor, String estado) {
+        mover(ProveedorCargaEntity.SOLICITUD, idProveedor, null, estado);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void solicitudMovida(Long idProveedor, String estadoAnterior, String estadoNuevo) {
+        mover(ProveedorCargaEntity.SOLICITUD, idProveedor, estadoAnterior, estadoNuevo);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void solicitudEliminada(Long idProveedor, String estado) {
+        mover(ProveedorCargaEntity.SOLICITUD, idProveedor, estado, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void servicioCreado(Long idProveedor, String estado) {
+        mover(ProveedorCargaEntity.SERVICIO, idProveedor, null, estado);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void servicioMovido(Long idProveedor, String estadoAnterior, String estadoNuevo) {
+        mover(ProveedorCargaEntity.SERVICIO, idProveedor, estadoAnterior, estadoNuevo);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void servicioEliminado(Long idProveedor, String estado) {
+        mover(ProveedorCargaEntity.SERVICIO, idProveedor, estado, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recontarSolicitudes(Long idProveedor) {
+        if (idProveedor == null) return;
+        cargaRepository.recontarSolicitudesDe(idProveedor);
+        cambiado(idProveedor);
+    }
+
+    @Override
+    @Transactional
+    public int reconciliar() {
+        int corregidas = cargaRepository.recalcularSolicitudes()
+                + cargaRepository.recalcularServicios()
+                + cargaRepository.borrarSobrantes();
+        if (corregidas > 0) eventos.publishEvent(new CargaProveedorCambiadaEvent(null));
+        return corregidas;
+    }
+
+    // ===================== Invalidación después del commit =====================
+
+    // Primero que los demás listeners del evento (el motor de despacho relee la carga a continuación)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCargaCambiada(CargaProveedorCambiadaEvent e) {
+        generacion.incrementAndGet();
+        if (e.idProveedor() == null) {
+            cargas.clear();
+        } else {
+            cargas.remove(e.idProveedor());
+        }
+    }
+
+    // ===================== Internos =====================
+
+    // Se guarda y luego se revisa la generación: si hubo una invalidación desde que empezó la lectura,
+    // el valor puede ser anterior al commit y se retira (solo si sigue siendo el que puso esta lectura)
+    private void guardar(Long idProveedor, CargaProveedorDTO leida, long generacionLectura) {
+        if (cargas.putIfAbsent(idProveedor, leida) == null && generacion.get() != generacionLectura) {
+            cargas.remove(idProveedor, leida);
+        }
+    }
+
+    // Estado anterior null = alta, estado nuevo null = baja
+    private void mover(String tipo, Long idProveedor, String estadoAnterior, String estadoNuevo) {
+        if (idProveedor == null || Objects.equals(estadoAnterior, estadoNuevo)) return;
+        if (estadoAnterior != null) cargaRepository.aplicarDelta(idProveedor, tipo, estadoAnterior, -1);
+        if (estadoNuevo != null) cargaRepository.aplicarDelta(idProveedor, tipo, estadoNuevo, 1);
+        cambiado(idProveedor);
+    }
+
+    private void cambiado(Long idProveedor) {
+        eventos.publishEvent(new CargaProveedorCambiadaEvent(idProveedor));
+    }
+
+    private static CargaProveedorDTO armar(Long idProveedor, List<ContadorView> contadores) {
+        if (contadores.isEmpty()) return CargaProveedorDTO.vacia(idProveedor);
+        Map<String, Long> solicitudes = new HashMap<>();
+        Map<String, Long> servicios = new HashMap<>();
+        for (ContadorView c : contadores) {
+            if (c.getTotal() == null || c.getTotal() <= 0) continue;
+            Map<String, Long> destino = ProveedorCargaEntity.SERVICIO.equals(c.getTipo()) ? servicios : solicitudes;
+            destino.put(c.getEstado(), c.getTotal());
+        }
+        return new CargaProveedorDTO(idProveedor, solicitudes, servicios);
+    }
+}
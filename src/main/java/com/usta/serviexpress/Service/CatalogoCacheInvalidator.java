@@ -0,0 +1,50 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalida las cachés del catálogo cuando cambia un servicio (después del commit).
+ * - servicioPorId: solo la clave del servicio.
+ * - serviciosPorProveedor: solo las páginas del proveedor vigente o que contenían el servicio
+ *   (cubre reasignaciones de proveedor sin conocer el anterior).
+ * - serviciosDisponibles: completa; cualquier alta/baja desplaza las páginas por cursor.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogoCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        Cache porId = cacheManager.getCache(CacheConfig.SERVICIO_POR_ID);
+        if (porId != null && e.idServicio() != null) porId.evict(e.idServicio());
+
+        Cache disponibles = cacheManager.getCache(CacheConfig.SERVICIOS_DISPONIBLES);
+        if (disponibles != null) disponibles.clear();
+
+        Cache porProveedor = cacheManager.getCache(CacheConfig.SERVICIOS_POR_PROVEEDOR);
+        if (porProveedor != null && porProveedor.getNativeCache()
+                instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativo) {
+            String prefijo = (e.idProveedor() != null) ? e.idProveedor() + ":" : null;
+            nativo.asMap().entrySet().removeIf(en ->
+                    (prefijo != null && String.valueOf(en.getKey()).startsWith(prefijo))
+                            || contiene(en.getValue(), e.idServicio()));
+        }
+    }
+
+    private static boolean contiene(Object valor, Long idServicio) {
+        if (idServicio == null || !(valor instanceof Slice<?> slice)) return false;
+        for (Object o : slice.getContent()) {
+            if (o instanceof ServicioCardView v && idServicio.equals(v.getIdServicio())) return true;
+        }
+        return false;
+    }
+}
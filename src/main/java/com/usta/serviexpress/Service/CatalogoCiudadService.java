@@ -0,0 +1,16 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Repository.ServicioCardView;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+public interface CatalogoCiudadService {
+    // Servicios DISPONIBLES de una ciudad (keyset por idServicio desc), leídos solo de su partición en memoria
+    Slice<ServicioCardView> disponiblesEnCiudad(String ciudad, BigDecimal precioMin, BigDecimal precioMax,
+                                                Long cursor, int size);
+
+    // Claves de ciudad con al menos un servicio disponible
+    Set<String> ciudades();
+}
@@ -0,0 +1,129 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.ServicioCardDTO;
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Repository.ServicioFilaView;
+import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.util.CiudadUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Catálogo particionado por ciudad: una partición en memoria por ciudad_clave con los servicios
+ * DISPONIBLES ordenados por id descendente. Una consulta solo recorre la partición de su ciudad.
+ * Se carga al arrancar y se mantiene con ServicioCambiadoEvent (después del commit).
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogoCiudadServiceImplement implements CatalogoCiudadService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoCiudadServiceImplement.class);
+    private static final int LOTE_CARGA = 1000;
+
+    private final ServicioRepository servicioRepository;
+
+    private final Map<String, ConcurrentSkipListMap<Long, ServicioCardView>> particiones = new ConcurrentHashMap<>();
+    private final Map<Long, String> ciudadPorServicio = new ConcurrentHashMap<>();
+
+    @Override
+    public Slice<ServicioCardView> disponiblesEnCiudad(String ciudad, BigDecimal precioMin, BigDecimal precioMax,
+                                                       Long cursor, int size) {
+        PageRequest pagina = PageRequest.of(0, Math.max(size, 1));
+        String clave = CiudadUtils.clave(ciudad);
+        ConcurrentSkipListMap<Long, ServicioCardView> particion = clave == null ? null : particiones.get(clave);
+        if (particion == null) {
+            return new SliceImpl<>(List.of(), pagina, false);
+        }
+        // Ids descendentes estrictamente menores que el cursor
+        NavigableMap<Long, ServicioCardView> vista = cursor == null ? particion : particion.tailMap(cursor, false);
+        List<ServicioCardView> contenido = new ArrayList<>(pagina.getPageSize());
+        boolean hayMas = false;
+        for (ServicioCardView v : vista.values()) {
+            if (precioMin != null && (v.getPrecio() == null || v.getPrecio().compareTo(precioMin) < 0)) continue;
+            if (precioMax != null && (v.getPrecio() == null || v.getPrecio().compareTo(precioMax) > 0)) continue;
+            if (contenido.size() == pagina.getPageSize()) { hayMas = true; break; }
+            contenido.add(v);
+        }
+        return new SliceImpl<>(contenido, pagina, hayMas);
+    }
+
+    @Override
+    public Set<String> ciudades() {
+        Set<String> salida = new TreeSet<>();
+        particiones.forEach((clave, p) -> { if (!p.isEmpty()) salida.add(clave); });
+        return salida;
+    }
+
+    // ===================== Carga / mantenimiento =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long cursor = Long.MAX_VALUE;
+        int total = 0;
+        Slice<ServicioFilaView> lote;
+        do {
+            lote = servicioRepository.findFilas(cursor, PageRequest.of(0, LOTE_CARGA));
+            for (ServicioFilaView v : lote.getContent()) {
+                if (aplicar(v)) total++;
+                cursor = v.getIdServicio();
+            }
+        } while (lote.hasNext());
+        log.info("Catálogo por ciudad: {} servicios disponibles en {} ciudades", total, ciudades().size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        if (e.idServicio() == null) return;
+        if (e.eliminado()) {
+            quitar(e.idServicio());
+            return;
+        }
+        servicioRepository.findFilaById(e.idServicio())
+                .ifPresentOrElse(this::aplicar, () -> quitar(e.idServicio()));
+    }
+
+    // Ubica el servicio en la partición de su ciudad (o lo saca si ya no está disponible); true si quedó dentro
+    private synchronized boolean aplicar(ServicioFilaView v) {
+        String clave = v.getCiudadClave();
+        boolean disponible = v.getEstado() == ServicioEntity.EstadoServicio.DISPONIBLE;
+        if (!disponible || clave == null) {
+            quitar(v.getIdServicio());
+            return false;
+        }
+        String anterior = ciudadPorServicio.put(v.getIdServicio(), clave);
+        if (anterior != null && !anterior.equals(clave)) {
+            ConcurrentSkipListMap<Long, ServicioCardView> vieja = particiones.get(anterior);
+            if (vieja != null) vieja.remove(v.getIdServicio());
+        }
+        particiones.computeIfAbsent(clave, k -> new ConcurrentSkipListMap<>(Comparator.reverseOrder()))
+                .put(v.getIdServicio(), ServicioCardDTO.de(v));
+        return true;
+    }
+
+    private synchronized void quitar(Long idServicio) {
+        String anterior = ciudadPorServicio.remove(idServicio);
+        if (anterior == null) return;
+        ConcurrentSkipListMap<Long, ServicioCardView> particion = particiones.get(anterior);
+        if (particion != null) particion.remove(idServicio);
+    }
+}
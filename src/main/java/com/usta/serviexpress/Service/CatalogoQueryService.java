@@ -0,0 +1,11 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import org.springframework.data.domain.Slice;
+
+public interface CatalogoQueryService {
+    // Una sola consulta paginada (keyset, sin count) con todos los filtros resueltos en la BD.
+    // El término de texto (filtro.nombre) lo resuelve ServicioSearchService.
+    Slice<ServicioCardView> buscar(CatalogoFiltroDTO filtro, Long cursor, int size);
+}
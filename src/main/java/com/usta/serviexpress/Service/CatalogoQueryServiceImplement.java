@@ -0,0 +1,72 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
+import com.usta.serviexpress.DTOs.ServicioCardDTO;
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.usta.serviexpress.Repository.ServicioSpecifications.*;
+
+@Service
+public class CatalogoQueryServiceImplement implements CatalogoQueryService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ServicioCardView> buscar(CatalogoFiltroDTO filtro, Long cursor, int size) {
+        CatalogoFiltroDTO f = (filtro != null) ? filtro : new CatalogoFiltroDTO();
+
+        Specification<ServicioEntity> spec = Specification.allOf(
+                conEstado(f.getEstado()),
+                deProveedor(f.getProveedorId()),
+                conProveedor(f.isSoloConProveedor()),
+                precioDesde(f.getPrecioMin()),
+                precioHasta(f.getPrecioMax()),
+                enCiudad(f.getCiudad()),
+                antesDe(cursor)
+        );
+
+        // Proyección directa a la tarjeta: un único SELECT de columnas, sin hidratar entidades
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<ServicioCardDTO> cq = cb.createQuery(ServicioCardDTO.class);
+        Root<ServicioEntity> s = cq.from(ServicioEntity.class);
+        Join<ServicioEntity, UsuarioEntity> p = s.join("proveedor", JoinType.LEFT);
+
+        cq.select(cb.construct(ServicioCardDTO.class,
+                s.get("idServicio"), s.get("nombre"), s.get("descripcion"),
+                s.get("precio"), s.get("estado"),
+                p.get("idUsuario"), p.get("nombreUsuario")));
+        Predicate where = spec.toPredicate(s, cq, cb);
+        if (where != null) cq.where(where);
+        cq.orderBy(cb.desc(s.get("idServicio")));
+
+        // Se pide una fila extra para saber si hay siguiente página sin ejecutar count(*)
+        List<ServicioCardDTO> filas = em.createQuery(cq)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hayMas = filas.size() > size;
+        List<ServicioCardView> contenido = new ArrayList<>(hayMas ? filas.subList(0, size) : filas);
+        return new SliceImpl<>(contenido, PageRequest.of(0, size), hayMas);
+    }
+}
@@ -0,0 +1,53 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.Repository.UsuarioRepository;
+import com.usta.serviexpress.Repository.UsuarioRepository.CiudadUsuarioView;
+import com.usta.serviexpress.util.CiudadUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Objects;
+
+/**
+ * Backfill de ciudad_clave (usuarios y su copia en servicio) con la misma normalización de la aplicación
+ * (CiudadUtils.clave), para que las filas previas y las que guarda la app den la misma clave.
+ * Corre una vez al arrancar, antes de los catálogos en memoria; recalcula todas las filas y solo escribe
+ * las que no cuadran, así que también corrige claves viejas mal calculadas.
+ * Se desactiva con catalogo.ciudad.backfill=false.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "catalogo.ciudad.backfill", havingValue = "true", matchIfMissing = true)
+public class CiudadClaveBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CiudadClaveBackfill.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final ServicioRepository servicioRepository;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void ejecutar() {
+        long inicio = System.nanoTime();
+        int usuarios = 0;
+        for (CiudadUsuarioView u : usuarioRepository.findCiudades()) {
+            String clave = CiudadUtils.clave(u.getCiudad());
+            if (!Objects.equals(clave, u.getCiudadClave())) {
+                usuarios += usuarioRepository.actualizarCiudadClave(u.getIdUsuario(), clave);
+            }
+        }
+        int servicios = servicioRepository.alinearCiudadConProveedor();
+        log.info("ciudad_clave: {} usuarios y {} servicios corregidos en {} ms",
+                usuarios, servicios, (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -0,0 +1,10 @@
+package com.usta.serviexpress.Service;
+
+import java.util.List;
+
+/**
+ * Se publica al despachar una solicitud nueva y cuando otro proveedor la toma.
+ * estado es el de despacho (ASIGNADA, OFERTADA, TOMADA, SIN_CANDIDATOS); destinatarios son los proveedores
+ * a avisar: el asignado, los candidatos de la oferta o, al tomarla, el dueño del servicio.
+ */
+public record DespachoRealizadoEvent(Long idSolicitud, Long idServicio, String estado, List<Long> destinatarios) { }
@@ -0,0 +1,20 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Repository.DespachoRepository.OfertaView;
+
+import java.util.List;
+
+public interface DespachoService {
+
+    /** Resultado de tomar una solicitud ofertada. */
+    enum ResultadoToma { TOMADA, SIN_CUPO, NO_VIGENTE }
+
+    // Compare-and-set sobre la oferta y la solicitud; reserva cupo en el motor antes de escribir
+    ResultadoToma tomar(Long idSolicitud, Long idProveedor);
+
+    // Ofertas abiertas de la ciudad del proveedor (las que no son de sus propios servicios)
+    List<OfertaView> ofertasPara(Long idProveedor, int max);
+
+    // Recarga perfiles, calificaciones y cargas de todos los proveedores
+    void recargar();
+}
@@ -0,0 +1,323 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CargaProveedorDTO;
+import com.usta.serviexpress.Entity.DespachoEntity;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Repository.DespachoRepository;
+import com.usta.serviexpress.Repository.DespachoRepository.OfertaView;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository.RankingFilaView;
+import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.Repository.SolicitudRepository.SolicitudDespachoView;
+import com.usta.serviexpress.Repository.UsuarioRepository;
+import com.usta.serviexpress.Repository.UsuarioRepository.ProveedorDespachoView;
+import com.usta.serviexpress.despacho.MotorDespacho;
+import com.usta.serviexpress.despacho.MotorDespacho.Candidato;
+import com.usta.serviexpress.search.RankingProveedores;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Despacho de solicitudes nuevas después del commit: si el dueño del servicio está disponible y con cupo
+ * queda asignada a él; si no, se oferta por SSE a los mejores de la ciudad (MotorDespacho) y el primero que
+ * la toma se la queda. Perfiles, calificaciones y cargas se refrescan por eventos y se recargan enteros cada
+ * despacho.recarga.intervalo por si alguno se perdió. Tomar reserva cupo en memoria antes del UPDATE y lo
+ * devuelve si la toma no se aplica; la ciudad y la vigencia se comprueban en el mismo UPDATE.
+ */
+@Service
+public class DespachoServiceImplement implements DespachoService {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachoServiceImplement.class);
+
+    private final SolicitudRepository solicitudRepository;
+    private final DespachoRepository despachoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final ProveedorRatingStatsRepository statsRepository;
+    private final CargaProveedorService cargaProveedorService;
+    private final ApplicationEventPublisher eventos;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean habilitado;
+    private final int capacidadPorDefecto;
+    private final int ofertas;
+    private final Duration vigencia;
+    private final double z;
+
+    private final MotorDespacho motor;
+    private final AtomicBoolean recargando = new AtomicBoolean(false);
+    private final Timer latencia;
+
+    public DespachoServiceImplement(SolicitudRepository solicitudRepository,
+                                    DespachoRepository despachoRepository,
+                                    UsuarioRepository usuarioRepository,
+                                    ProveedorRatingStatsRepository statsRepository,
+                                    CargaProveedorService cargaProveedorService,
+                                    ApplicationEventPublisher eventos,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${despacho.habilitado:true}") boolean habilitado,
+                                    @Value("${despacho.capacidad-por-defecto:3}") int capacidadPorDefecto,
+                                    @Value("${despacho.ofertas:3}") int ofertas,
+                                    @Value("${despacho.ventana:32}") int ventana,
+                                    @Value("${despacho.oferta-vigencia:PT30M}") Duration vigencia,
+                                    @Value("${despacho.peso.calificacion:1.0}") double pesoCalificacion,
+                                    @Value("${despacho.peso.carga:0.6}") double pesoCarga,
+                                    @Value("${despacho.peso.distancia:0.4}") double pesoDistancia,
+                                    @Value("${despacho.radio-km:25}") double radioKm,
+                                    @Value("${ranking.wilson-z:1.96}") double z) {
+        this.solicitudRepository = solicitudRepository;
+        this.despachoRepository = despachoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.statsRepository = statsRepository;
+        this.cargaProveedorService = cargaProveedorService;
+        this.eventos = eventos;
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.capacidadPorDefecto = Math.max(capacidadPorDefecto, 0);
+        this.ofertas = Math.max(ofertas, 1);
+        this.vigencia = vigencia;
+        this.z = z;
+        this.motor = new MotorDespacho(
+                new MotorDespacho.Pesos(pesoCalificacion, pesoCarga, pesoDistancia, radioKm), ventana);
+        this.latencia = Timer.builder("despacho.latencia").register(meterRegistry);
+        Gauge.builder("despacho.proveedores", motor, MotorDespacho::proveedores).register(meterRegistry);
+    }
+
+    // ===================== Despacho de solicitudes nuevas =====================
+
+    // Transacción propia: la de la solicitud ya está confirmada cuando corre este listener
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSolicitudCambiada(SolicitudCambiadaEvent e) {
+        if (!habilitado || !e.nueva() || e.idSolicitud() == null) return;
+        long inicio = System.nanoTime();
+        SolicitudDespachoView s = solicitudRepository.findParaDespacho(e.idSolicitud()).orElse(null);
+        if (s == null || s.getIdProveedor() == null
+                || !EstadoSolicitud.PENDIENTE.valor().equals(s.getEstado())) return;
+
+        Long dueno = s.getIdProveedor();
+        sincronizarCarga(dueno);
+
+        DespachoEntity d = new DespachoEntity();
+        d.setIdSolicitud(s.getIdSolicitud());
+        d.setIdDueno(dueno);
+        d.setCiudadClave(s.getCiudadClave());
+        LocalDateTime ahora = LocalDateTime.now();
+        d.setCreado(ahora);
+        d.setActualizado(ahora);
+
+        List<Long> destinatarios;
+        if (motor.admite(dueno)) {
+            d.setEstado(DespachoEntity.ASIGNADA);
+            d.setIdProveedor(dueno);
+            destinatarios = List.of(dueno);
+        } else {
+            List<Candidato> candidatos = motor.candidatos(s.getCiudadClave(), s.getLatitud(), s.getLongitud(),
+                    Set.of(dueno), ofertas);
+            if (candidatos.isEmpty()) {
+                d.setEstado(DespachoEntity.SIN_CANDIDATOS);
+                d.setIdProveedor(dueno);
+                destinatarios = List.of(dueno);
+            } else {
+                d.setEstado(DespachoEntity.OFERTADA);
+                d.setPuntaje(candidatos.get(0).puntaje());
+                destinatarios = candidatos.stream().map(Candidato::idProveedor).toList();
+            }
+        }
+        despachoRepository.save(d);
+        eventos.publishEvent(new DespachoRealizadoEvent(s.getIdSolicitud(), s.getIdServicio(), d.getEstado(),
+                destinatarios));
+
+        latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        contar(d.getEstado());
+        log.debug("Despacho solicitud {}: {} → {}", s.getIdSolicitud(), d.getEstado(), destinatarios);
+    }
+
+    // ===================== Toma de ofertas =====================
+
+    @Override
+    @Transactional
+    public ResultadoToma tomar(Long idSolicitud, Long idProveedor) {
+        if (idSolicitud == null || idProveedor == null) return ResultadoToma.NO_VIGENTE;
+        if (!motor.contiene(idProveedor)) refrescarProveedor(idProveedor);
+        // Solo se toman ofertas de la propia ciudad (la misma regla que ofertasPara)
+        String ciudad = ciudadDe(idProveedor);
+        if (ciudad == null) return ResultadoToma.NO_VIGENTE;
+        if (!motor.reservar(idProveedor)) return ResultadoToma.SIN_CUPO;
+
+        boolean aplicada = false;
+        try {
+            Optional<Long> dueno = despachoRepository.tomar(idSolicitud, idProveedor, ciudad,
+                    LocalDateTime.now().minus(vigencia));
+            if (dueno.isEmpty()) return ResultadoToma.NO_VIGENTE;
+
+            int filas = solicitudRepository.reasignarProveedor(idSolicitud, dueno.get(), idProveedor,
+                    EstadoSolicitud.PENDIENTE.valor());
+            if (filas == 0) {
+                // El dueño la avanzó (o se borró) mientras estaba ofertada: se deshace la toma
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return ResultadoToma.NO_VIGENTE;
+            }
+
+            cargaProveedorService.recontarSolicitudes(dueno.get());
+            cargaProveedorService.recontarSolicitudes(idProveedor);
+            solicitudRepository.findParaDespacho(idSolicitud).ifPresent(s -> {
+                eventos.publishEvent(new SolicitudCambiadaEvent(s.getIdSolicitud(), s.getIdServicio(),
+                        s.getIdCliente(), idProveedor, s.getEstado(), false));
+                eventos.publishEvent(new DespachoRealizadoEvent(s.getIdSolicitud(), s.getIdServicio(),
+                        DespachoEntity.TOMADA, List.of(dueno.get())));
+            });
+            aplicada = true;
+            contar(DespachoEntity.TOMADA);
+            return ResultadoToma.TOMADA;
+        } finally {
+            if (!aplicada) motor.liberar(idProveedor);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OfertaView> ofertasPara(Long idProveedor, int max) {
+        if (idProveedor == null || max <= 0) return List.of();
+        String ciudad = ciudadDe(idProveedor);
+        if (ciudad == null) return List.of();
+        return despachoRepository.findOfertas(ciudad, idProveedor, LocalDateTime.now().minus(vigencia),
+                EstadoSolicitud.PENDIENTE.valor(), PageRequest.of(0, max));
+    }
+
+    // ===================== Carga / mantenimiento del motor =====================
+
+    // Después de CargaProveedorReconciliacionJob (HIGHEST_PRECEDENCE): los contadores ya están al día
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        recargar();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${despacho.recarga.intervalo:PT10M}",
+               fixedDelayString = "${despacho.recarga.intervalo:PT10M}")
+    public void recargar() {
+        if (!recargando.compareAndSet(false, true)) return;
+        long inicio = System.nanoTime();
+        try {
+            Map<Long, Double> calificaciones = new HashMap<>();
+            for (RankingFilaView f : statsRepository.findFilasRanking()) {
+                calificaciones.put(f.getIdProveedor(), calificacion(f));
+            }
+            Set<Long> vigentes = new HashSet<>();
+            for (ProveedorDespachoView v : usuarioRepository.findProveedoresDespacho()) {
+                motor.poner(perfil(v, calificaciones.getOrDefault(v.getIdProveedor(), 0d)));
+                vigentes.add(v.getIdProveedor());
+            }
+            // Los que ya no son proveedores
+            for (Long id : motor.ids()) {
+                if (!vigentes.contains(id)) motor.quitar(id);
+            }
+            cargaProveedorService.cargas(vigentes)
+                    .forEach((id, c) -> motor.fijarCarga(id, activas(c)));
+            log.info("Despacho: {} proveedores en memoria ({} ms)", vigentes.size(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (Exception ex) {
+            log.error("Despacho: la recarga del motor falló, se mantiene el estado actual", ex);
+        } finally {
+            recargando.set(false);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCargaCambiada(CargaProveedorCambiadaEvent e) {
+        if (e.idProveedor() == null) {
+            cargaProveedorService.cargas(motor.ids())
+                    .forEach((id, c) -> motor.fijarCarga(id, activas(c)));
+        } else if (motor.contiene(e.idProveedor())) {
+            motor.fijarCarga(e.idProveedor(), activas(cargaProveedorService.carga(e.idProveedor())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioActualizado(UsuarioActualizadoEvent e) {
+        if (e.idUsuario() == null) return;
+        refrescarProveedor(e.idUsuario());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalificacionRegistrada(CalificacionRegistradaEvent e) {
+        if (e.idProveedor() == null) return;
+        MotorDespacho.Perfil actual = motor.perfil(e.idProveedor());
+        if (actual != null) motor.poner(actual.conCalificacion(calificacionDe(e.idProveedor())));
+    }
+
+    // ===================== Internos =====================
+
+    private void sincronizarCarga(Long idProveedor) {
+        if (motor.contiene(idProveedor)) {
+            motor.fijarCarga(idProveedor, activas(cargaProveedorService.carga(idProveedor)));
+        } else {
+            refrescarProveedor(idProveedor);
+        }
+    }
+
+    private void refrescarProveedor(Long idProveedor) {
+        usuarioRepository.findProveedorDespacho(idProveedor).ifPresentOrElse(v -> {
+            motor.poner(perfil(v, calificacionDe(idProveedor)));
+            motor.fijarCarga(idProveedor, activas(cargaProveedorService.carga(idProveedor)));
+        }, () -> motor.quitar(idProveedor));
+    }
+
+    // Ciudad del perfil en memoria; si el proveedor no está en el motor, la de la BD
+    private String ciudadDe(Long idProveedor) {
+        MotorDespacho.Perfil p = motor.perfil(idProveedor);
+        return p != null ? p.ciudad() : usuarioRepository.findCiudadClaveById(idProveedor).orElse(null);
+    }
+
+    private MotorDespacho.Perfil perfil(ProveedorDespachoView v, double calificacion) {
+        int capacidad = v.getCapacidad() != null ? Math.max(v.getCapacidad(), 0) : capacidadPorDefecto;
+        boolean disponible = v.getDisponibilidad() == null || v.getDisponibilidad();
+        return new MotorDespacho.Perfil(v.getIdProveedor(), v.getCiudadClave(), disponible, capacidad,
+                calificacion, v.getLatitud(), v.getLongitud());
+    }
+
+    // Mismo puntaje que el ranking (límite inferior de Wilson en estrellas); sin reseñas = 0
+    private double calificacionDe(Long idProveedor) {
+        return statsRepository.findFilaRanking(idProveedor).map(this::calificacion).orElse(0d);
+    }
+
+    private double calificacion(RankingFilaView f) {
+        long total = f.getTotal() != null ? f.getTotal() : 0L;
+        double suma = f.getSuma() != null ? f.getSuma() : 0d;
+        return RankingProveedores.wilson(suma, total, z);
+    }
+
+    private static int activas(CargaProveedorDTO c) {
+        return c != null ? (int) Math.min(c.getActivas(), Integer.MAX_VALUE) : 0;
+    }
+
+    private void contar(String estado) {
+        Counter.builder("despacho.resultado").tag("estado", estado).register(meterRegistry).increment();
+    }
+}
@@ -0,0 +1,22 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.DTOs.PagoFiltroDTO;
+import com.usta.serviexpress.DTOs.SolicitudFiltroDTO;
+import com.usta.serviexpress.exportacion.FormatoExportacion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exportaciones del administrador: escriben la tabla filtrada en destino, fila a fila, y devuelven cuántas
+ * filas escribieron. No cierran destino (la compresión la decide quien lo abrió).
+ */
+public interface ExportacionService {
+
+    long exportarSolicitudes(SolicitudFiltroDTO filtro, FormatoExportacion formato, OutputStream destino) throws IOException;
+
+    long exportarPagos(PagoFiltroDTO filtro, FormatoExportacion formato, OutputStream destino) throws IOException;
+
+    long exportarCalificaciones(CalificacionFiltroDTO filtro, FormatoExportacion formato, OutputStream destino) throws IOException;
+}
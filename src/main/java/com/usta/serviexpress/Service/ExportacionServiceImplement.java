@@ -0,0 +1,147 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.DTOs.PagoFiltroDTO;
+import com.usta.serviexpress.DTOs.SolicitudFiltroDTO;
+import com.usta.serviexpress.Repository.CalificacionRepository;
+import com.usta.serviexpress.Repository.PagoRepository;
+import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.exportacion.EscritorFilas;
+import com.usta.serviexpress.exportacion.FormatoExportacion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exportación a CSV / XLSX con memoria constante: cada fila sale de un Stream de proyecciones (cursor del
+ * driver, fetch size en el repositorio) y se escribe enseguida. El cursor de PostgreSQL solo existe dentro de
+ * una transacción, así que cada exportación abre una de solo lectura en el hilo que escribe la respuesta
+ * (StreamingResponseBody). Los rangos de fechas siempre van acotados para que las particiones se poden.
+ */
+@Service
+public class ExportacionServiceImplement implements ExportacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionServiceImplement.class);
+
+    // Mismos topes que el historial: LocalDate.MAX no cabe en el tipo date de PostgreSQL
+    private static final LocalDate SIN_DESDE = LocalDate.of(1, 1, 1);
+    private static final LocalDate SIN_HASTA = LocalDate.of(9999, 12, 30);
+
+    private static final List<String> COLUMNAS_SOLICITUDES = List.of(
+            "id_solicitud", "fecha_solicitud", "estado", "fecha_estimada", "servicio", "precio",
+            "id_cliente", "cliente", "id_proveedor", "proveedor", "direccion_entrega", "detalles");
+    private static final List<String> COLUMNAS_PAGOS = List.of(
+            "id_pago", "fecha_pago", "estado", "metodo", "monto", "moneda", "id_solicitud",
+            "email_cliente", "referencia_externa", "descripcion", "confirmado_en");
+    private static final List<String> COLUMNAS_CALIFICACIONES = List.of(
+            "id_calificacion", "fecha", "puntuacion", "comentario", "id_cliente", "cliente",
+            "id_proveedor", "proveedor", "servicio");
+
+    private final SolicitudRepository solicitudRepository;
+    private final PagoRepository pagoRepository;
+    private final CalificacionRepository calificacionRepository;
+    private final MeterRegistry meterRegistry;
+
+    public ExportacionServiceImplement(SolicitudRepository solicitudRepository,
+                                       PagoRepository pagoRepository,
+                                       CalificacionRepository calificacionRepository,
+                                       MeterRegistry meterRegistry) {
+        this.solicitudRepository = solicitudRepository;
+        this.pagoRepository = pagoRepository;
+        this.calificacionRepository = calificacionRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarSolicitudes(SolicitudFiltroDTO filtro, FormatoExportacion formato,
+                                    OutputStream destino) throws IOException {
+        SolicitudFiltroDTO f = filtro != null ? filtro : new SolicitudFiltroDTO();
+        return exportar("solicitudes", formato, destino, COLUMNAS_SOLICITUDES,
+                solicitudRepository.streamExportacion(f.soloActivas() ? null : f.getEstado(), f.soloActivas(),
+                        desde(f.getDesde()), hasta(f.getHasta())),
+                s -> new Object[]{
+                        s.getIdSolicitud(), s.getFechaSolicitud(), s.getEstado(), s.getFechaEstimada(),
+                        s.getNombreServicio(), s.getPrecio(), s.getIdCliente(), s.getNombreCliente(),
+                        s.getIdProveedor(), s.getNombreProveedor(), s.getDireccionEntrega(), s.getDetalles()});
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarPagos(PagoFiltroDTO filtro, FormatoExportacion formato,
+                              OutputStream destino) throws IOException {
+        PagoFiltroDTO f = filtro != null ? filtro : new PagoFiltroDTO();
+        return exportar("pagos", formato, destino, COLUMNAS_PAGOS,
+                pagoRepository.streamExportacion(f.getEstado(), inicio(f.getDesde()), finExclusivo(f.getHasta())),
+                p -> new Object[]{
+                        p.getIdPago(), p.getFechaPago(), p.getEstado(), p.getMetodo(), p.getMonto(), p.getMoneda(),
+                        p.getIdSolicitud(), p.getEmailCliente(), p.getReferenciaExterna(), p.getDescripcion(),
+                        p.getConfirmadoEn()});
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarCalificaciones(CalificacionFiltroDTO filtro, FormatoExportacion formato,
+                                       OutputStream destino) throws IOException {
+        CalificacionFiltroDTO f = filtro != null ? filtro : new CalificacionFiltroDTO();
+        return exportar("calificaciones", formato, destino, COLUMNAS_CALIFICACIONES,
+                calificacionRepository.streamExportacion(f.getPuntuacion(), f.getProveedorId(),
+                        inicio(f.getDesde()), finExclusivo(f.getHasta())),
+                c -> new Object[]{
+                        c.getIdCalificacion(), c.getFecha(), c.getPuntuacion(), c.getComentario(),
+                        c.getIdCliente(), c.getNombreCliente(), c.getIdProveedor(), c.getNombreProveedor(),
+                        c.getNombreServicio()});
+    }
+
+    // ===================== Internos =====================
+
+    // Cierra el Stream (libera el cursor) y termina el formato aunque el cliente corte la descarga
+    private <T> long exportar(String tipo, FormatoExportacion formato, OutputStream destino, List<String> columnas,
+                              Stream<T> filas, Function<T, Object[]> valores) throws IOException {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        long escritas;
+        try (filas; EscritorFilas escritor = EscritorFilas.abrir(formato, destino, tipo, columnas)) {
+            Iterator<T> it = filas.iterator();
+            while (it.hasNext()) escritor.fila(valores.apply(it.next()));
+            escritas = escritor.filas();
+        } finally {
+            muestra.stop(Timer.builder("exportacion")
+                    .tag("tipo", tipo)
+                    .tag("formato", formato.extension())
+                    .register(meterRegistry));
+        }
+        Counter.builder("exportacion.filas").tag("tipo", tipo).register(meterRegistry).increment(escritas);
+        log.info("Exportación de {} ({}): {} filas", tipo, formato.extension(), escritas);
+        return escritas;
+    }
+
+    private static LocalDate desde(LocalDate d) {
+        return d != null ? d : SIN_DESDE;
+    }
+
+    private static LocalDate hasta(LocalDate h) {
+        return h != null ? h : SIN_HASTA;
+    }
+
+    // Fechas inclusivas del filtro → [inicio del día desde, inicio del día siguiente a hasta)
+    private static LocalDateTime inicio(LocalDate d) {
+        return desde(d).atStartOfDay();
+    }
+
+    private static LocalDateTime finExclusivo(LocalDate h) {
+        return hasta(h).plusDays(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,9 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFacetadoDTO;
+import com.usta.serviexpress.DTOs.FacetaFiltroDTO;
+
+public interface FacetaService {
+    // Filtra, ordena y cuenta facetas (precio, estado, ciudad, rating) en una pasada sobre memoria
+    CatalogoFacetadoDTO buscar(FacetaFiltroDTO filtro);
+}
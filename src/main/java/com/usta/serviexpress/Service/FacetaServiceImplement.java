@@ -0,0 +1,148 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFacetadoDTO;
+import com.usta.serviexpress.DTOs.FacetaFiltroDTO;
+import com.usta.serviexpress.DTOs.FacetaValorDTO;
+import com.usta.serviexpress.DTOs.ServicioCardDTO;
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import com.usta.serviexpress.Repository.ServicioFilaView;
+import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.search.CatalogoFacetado;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Catálogo facetado en memoria (CatalogoFacetado): se carga al arrancar y se mantiene con
+ * ServicioCambiadoEvent (filas) y CalificacionRegistradaEvent (rating del proveedor).
+ * Las consultas no tocan la BD.
+ */
+@Service
+@RequiredArgsConstructor
+public class FacetaServiceImplement implements FacetaService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetaServiceImplement.class);
+    private static final int LOTE_CARGA = 1000;
+    private static final int MAX_SIZE = 100;
+
+    private final ServicioRepository servicioRepository;
+    private final ProveedorRatingStatsRepository statsRepository;
+    private final CatalogoFacetado catalogo = new CatalogoFacetado();
+
+    @Override
+    public CatalogoFacetadoDTO buscar(FacetaFiltroDTO f) {
+        CatalogoFacetado.Orden orden = orden(f.getOrden());
+        int size = Math.min(Math.max(f.getSize(), 1), MAX_SIZE);
+        int page = Math.max(f.getPage(), 0);
+        Integer rango = (f.getRangoPrecio() != null
+                && f.getRangoPrecio() >= 0 && f.getRangoPrecio() <= CatalogoFacetado.LIMITES_PRECIO.length)
+                ? f.getRangoPrecio() : null;
+        String ciudad = (f.getCiudad() == null || f.getCiudad().isBlank()) ? null : f.getCiudad();
+
+        CatalogoFacetado.Resultado r = catalogo.consultar(new CatalogoFacetado.Consulta(
+                f.getEstado(), rango, ciudad, f.getRatingMin(), orden, page * size, size));
+
+        List<FacetaValorDTO> estados = new ArrayList<>();
+        for (ServicioEntity.EstadoServicio e : ServicioEntity.EstadoServicio.values()) {
+            estados.add(new FacetaValorDTO(e.name(), e.name(), r.porEstado()[e.ordinal()], e == f.getEstado()));
+        }
+
+        List<FacetaValorDTO> precios = new ArrayList<>();
+        for (int i = 0; i < r.porRangoPrecio().length; i++) {
+            precios.add(new FacetaValorDTO(String.valueOf(i), etiquetaPrecio(i), r.porRangoPrecio()[i],
+                    rango != null && rango == i));
+        }
+
+        String claveSeleccionada = ciudad == null ? null : CatalogoFacetado.claveCiudad(ciudad);
+        List<FacetaValorDTO> ciudades = new ArrayList<>();
+        r.porCiudad().forEach((clave, etiquetaConteo) -> ciudades.add(new FacetaValorDTO(
+                clave, etiquetaConteo.getKey(), etiquetaConteo.getValue(), clave.equals(claveSeleccionada))));
+        ciudades.sort((a, b) -> Integer.compare(b.getConteo(), a.getConteo()));
+
+        List<FacetaValorDTO> ratings = new ArrayList<>();
+        for (int i = 0; i < CatalogoFacetado.RATING_MINIMOS.length; i++) {
+            int minimo = CatalogoFacetado.RATING_MINIMOS[i];
+            ratings.add(new FacetaValorDTO(String.valueOf(minimo), minimo + "★ o más", r.porRatingMinimo()[i],
+                    f.getRatingMin() != null && f.getRatingMin() == minimo));
+        }
+
+        return new CatalogoFacetadoDTO(r.total(), page, r.hayMas(), orden.name().toLowerCase(Locale.ROOT),
+                estados, precios, ciudades, ratings, r.pagina(), r.ratingPorProveedor());
+    }
+
+    // ===================== Carga / mantenimiento =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        List<CatalogoFacetado.Fila> filas = new ArrayList<>();
+        long cursor = Long.MAX_VALUE;
+        Slice<ServicioFilaView> lote;
+        do {
+            lote = servicioRepository.findFilas(cursor, PageRequest.of(0, LOTE_CARGA));
+            for (ServicioFilaView v : lote.getContent()) {
+                filas.add(new CatalogoFacetado.Fila(ServicioCardDTO.de(v), v.getCiudadClave(), v.getCiudadProveedor()));
+                cursor = v.getIdServicio();
+            }
+        } while (lote.hasNext());
+
+        Map<Long, Double> ratings = new HashMap<>();
+        statsRepository.findPromedios()
+                .forEach(p -> ratings.put(p.getIdProveedor(), p.getPromedio()));
+
+        catalogo.reconstruir(filas, ratings);
+        log.info("Catálogo facetado: {} servicios, {} proveedores calificados en {} ms",
+                filas.size(), ratings.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        if (e.idServicio() == null) return;
+        if (e.eliminado()) {
+            catalogo.quitar(e.idServicio());
+            return;
+        }
+        servicioRepository.findFilaById(e.idServicio()).ifPresentOrElse(
+                v -> catalogo.poner(new CatalogoFacetado.Fila(ServicioCardDTO.de(v), v.getCiudadClave(), v.getCiudadProveedor())),
+                () -> catalogo.quitar(e.idServicio()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalificacionRegistrada(CalificacionRegistradaEvent e) {
+        if (e.idProveedor() == null) return;
+        catalogo.fijarRating(e.idProveedor(), statsRepository.promedioDe(e.idProveedor()));
+    }
+
+    // ===================== Internos =====================
+
+    private static CatalogoFacetado.Orden orden(String valor) {
+        if (valor == null) return CatalogoFacetado.Orden.RECIENTES;
+        try {
+            return CatalogoFacetado.Orden.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return CatalogoFacetado.Orden.RECIENTES;
+        }
+    }
+
+    private static String etiquetaPrecio(int rango) {
+        NumberFormat cop = NumberFormat.getIntegerInstance(Locale.forLanguageTag("es-CO"));
+        long[] limites = CatalogoFacetado.LIMITES_PRECIO;
+        if (rango == 0) return "Menos de $" + cop.format(limites[0]);
+        if (rango == limites.length) return "$" + cop.format(limites[limites.length - 1]) + " o más";
+        return "$" + cop.format(limites[rango - 1]) + " – $" + cop.format(limites[rango]);
+    }
+}
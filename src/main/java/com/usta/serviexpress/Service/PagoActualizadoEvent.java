@@ -0,0 +1,8 @@
+package com.usta.serviexpress.Service;
+
+/**
+ * Se publica cuando la pasarela (webhook) cambia el estado de un pago.
+ * idCliente / idProveedor son los de la solicitud pagada (pueden ser null).
+ */
+public record PagoActualizadoEvent(Long idPago, Long idSolicitud, Long idCliente, Long idProveedor,
+                                   String estado) { }
@@ -4,8 +4,8 @@ import com.usta.serviexpress.DTOs.PagoCheckoutInitDTO;
 import com.usta.serviexpress.Entity.PagoEntity;
 import com.usta.serviexpress.Repository.PagoRepository;
 import com.usta.serviexpress.Repository.SolicitudRepository;
-import com.usta.serviexpress.Repository.SolicitudRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +22,7 @@ public class PagoServiceImplement implements PagoService {
 
     private final PagoRepository pagoRepo;
     private final SolicitudRepository solicitudRepo;
+    private final ApplicationEventPublisher eventos;
 
     // Si ya tienes un provider real, descomenta e inyecta
     // private final PaymentProvider provider;
@@ -76,7 +77,17 @@ public class PagoServiceImplement implements PagoService {
                 .orElseThrow(() -> new IllegalArgumentException("Pago no encontrado por referencia: " + ref));
         pago.setEstado(estado);
         pago.setGatewayPayload(payload);
-        return pagoRepo.save(pago);
+        PagoEntity guardado = pagoRepo.save(pago);
+
+        // Aviso en tiempo real (SSE) a cliente / proveedor tras el commit
+        var solicitud = guardado.getSolicitud();
+        eventos.publishEvent(new PagoActualizadoEvent(
+                guardado.getIdPago(),
+                solicitud != null ? solicitud.getIdSolicitud() : null,
+                solicitud != null && solicitud.getCliente() != null ? solicitud.getCliente().getIdUsuario() : null,
+                solicitud != null ? solicitud.getIdProveedor() : null,
+                estado.name()));
+        return guardado;
     }
 
     @Override
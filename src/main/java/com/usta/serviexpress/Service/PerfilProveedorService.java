@@ -0,0 +1,10 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.PerfilProveedorDTO;
+
+import java.util.Optional;
+
+public interface PerfilProveedorService {
+    // Perfil público (servicios, histograma, reseñas recientes, trabajos finalizados); vacío si no es proveedor
+    Optional<PerfilProveedorDTO> perfil(Long idProveedor);
+}
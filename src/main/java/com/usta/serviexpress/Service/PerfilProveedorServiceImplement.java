@@ -0,0 +1,182 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CalificacionFiltroDTO;
+import com.usta.serviexpress.DTOs.PerfilProveedorDTO;
+import com.usta.serviexpress.DTOs.ResenaDTO;
+import com.usta.serviexpress.DTOs.ServicioCardDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Entity.ProveedorRatingStatsEntity;
+import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.Repository.UsuarioRepository;
+import com.usta.serviexpress.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Perfil público del proveedor servido desde la caché perfilProveedor (vista compuesta).
+ * - Un acierto no toca la BD; un fallo arma el perfil con consultas indexadas por id_proveedor.
+ * - Después de cada commit se recalcula solo la parte afectada del perfil cacheado:
+ *   calificación → histograma + reseñas; servicio → lista de servicios; solicitud → trabajos finalizados.
+ */
+@Service
+@RequiredArgsConstructor
+public class PerfilProveedorServiceImplement implements PerfilProveedorService {
+
+    private static final int MAX_SERVICIOS = 50;
+    private static final int RESENAS_RECIENTES = 5;
+    private static final String ESTADO_FINALIZADO = EstadoSolicitud.FINALIZADO.valor();
+
+    private final UsuarioRepository usuarioRepository;
+    private final ServicioRepository servicioRepository;
+    private final CalificacionService calificacionService;
+    private final ProveedorRatingStatsRepository statsRepository;
+    private final SolicitudRepository solicitudRepository;
+    private final CacheManager cacheManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PerfilProveedorDTO> perfil(Long idProveedor) {
+        if (idProveedor == null) return Optional.empty();
+        Cache cache = cache();
+        PerfilProveedorDTO cacheado = cache != null ? cache.get(idProveedor, PerfilProveedorDTO.class) : null;
+        if (cacheado != null) return Optional.of(cacheado);
+
+        Optional<PerfilProveedorDTO> armado = usuarioRepository.findById(idProveedor)
+                .filter(PerfilProveedorServiceImplement::esProveedor)
+                .map(this::armar);
+        armado.ifPresent(p -> { if (cache != null) cache.put(idProveedor, p); });
+        return armado;
+    }
+
+    // ===================== Mantenimiento incremental =====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalificacionRegistrada(CalificacionRegistradaEvent e) {
+        if (e.idProveedor() == null || !enCache(e.idProveedor())) return;
+        ProveedorRatingStatsEntity stats = statsRepository.findById(e.idProveedor()).orElse(null);
+        List<ResenaDTO> resenas = resenasRecientes(e.idProveedor());
+        actualizar(e.idProveedor(), p -> p.conCalificaciones(promedio(stats), total(stats), histograma(stats), resenas));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        // Proveedor actual y anterior (reasignación) por clave; solo sin proveedor se buscan los perfiles
+        // cacheados que listaban el servicio (recorre la caché)
+        List<Long> afectados = new ArrayList<>(2);
+        if (e.idProveedor() != null) {
+            if (enCache(e.idProveedor())) afectados.add(e.idProveedor());
+            if (e.idProveedorAnterior() != null && enCache(e.idProveedorAnterior())) afectados.add(e.idProveedorAnterior());
+        } else {
+            mapa().forEach((clave, valor) -> {
+                if (valor instanceof PerfilProveedorDTO p
+                        && p.getServicios().stream().anyMatch(s -> s.getIdServicio().equals(e.idServicio()))) {
+                    afectados.add(p.getIdProveedor());
+                }
+            });
+        }
+        for (Long idProveedor : afectados) {
+            List<ServicioCardView> servicios = servicios(idProveedor);
+            actualizar(idProveedor, p -> p.conServicios(servicios));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSolicitudCambiada(SolicitudCambiadaEvent e) {
+        if (e.idProveedor() == null || !enCache(e.idProveedor())) return;
+        // Solo importan los cambios que pueden entrar o salir de FINALIZADO
+        if (e.nueva() && !ESTADO_FINALIZADO.equalsIgnoreCase(e.estado())) return;
+        long finalizados = solicitudRepository.countByIdProveedorAndEstado(
+                e.idProveedor(), ESTADO_FINALIZADO);
+        actualizar(e.idProveedor(), p -> p.conTrabajosFinalizados(finalizados));
+    }
+
+    // ===================== Construcción =====================
+
+    private PerfilProveedorDTO armar(UsuarioEntity u) {
+        Long id = u.getIdUsuario();
+        ProveedorRatingStatsEntity stats = statsRepository.findById(id).orElse(null);
+        return new PerfilProveedorDTO(
+                id,
+                u.getNombreUsuario(),
+                u.getCiudad(),
+                promedio(stats),
+                total(stats),
+                histograma(stats),
+                servicios(id),
+                resenasRecientes(id),
+                solicitudRepository.countByIdProveedorAndEstado(id, ESTADO_FINALIZADO));
+    }
+
+    private List<ServicioCardView> servicios(Long idProveedor) {
+        return servicioRepository.findTarjetasByProveedor(idProveedor, Long.MAX_VALUE, PageRequest.of(0, MAX_SERVICIOS))
+                .getContent().stream()
+                .<ServicioCardView>map(ServicioCardDTO::de)
+                .toList();
+    }
+
+    private List<ResenaDTO> resenasRecientes(Long idProveedor) {
+        CalificacionFiltroDTO filtro = new CalificacionFiltroDTO();
+        filtro.setProveedorId(idProveedor);
+        return calificacionService.listar(filtro, null, RESENAS_RECIENTES)
+                .getContent().stream()
+                .map(ResenaDTO::de)
+                .toList();
+    }
+
+    private static Double promedio(ProveedorRatingStatsEntity s) {
+        return s != null ? s.getPromedio() : null;
+    }
+
+    private static long total(ProveedorRatingStatsEntity s) {
+        return s != null ? s.getTotal() : 0L;
+    }
+
+    private static List<Long> histograma(ProveedorRatingStatsEntity s) {
+        if (s == null) return List.of(0L, 0L, 0L, 0L, 0L);
+        return List.of(s.getEstrellas1(), s.getEstrellas2(), s.getEstrellas3(), s.getEstrellas4(), s.getEstrellas5());
+    }
+
+    private static boolean esProveedor(UsuarioEntity u) {
+        return u.getRol() != null && "PROVEEDOR".equalsIgnoreCase(u.getRol().getRol());
+    }
+
+    // ===================== Caché =====================
+
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.PERFIL_PROVEEDOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> mapa() {
+        Cache cache = cache();
+        if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativo) {
+            return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativo).asMap();
+        }
+        return new ConcurrentHashMap<>();
+    }
+
+    private boolean enCache(Long idProveedor) {
+        return mapa().containsKey(idProveedor);
+    }
+
+    // Reemplazo atómico de la entrada (si sigue en caché) con la parte recalculada
+    private void actualizar(Long idProveedor, UnaryOperator<PerfilProveedorDTO> cambio) {
+        mapa().computeIfPresent(idProveedor, (k, v) -> v instanceof PerfilProveedorDTO p ? cambio.apply(p) : v);
+    }
+}
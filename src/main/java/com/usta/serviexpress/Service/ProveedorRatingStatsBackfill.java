@@ -0,0 +1,40 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Backfill de provider_rating_stats para las calificaciones anteriores al agregado.
+ * Corre una vez al arrancar (antes de las cargas en memoria que leen el agregado: ranking, facetas) y solo
+ * reescribe las filas que no cuadran, así que también sirve como reconciliación.
+ * Se desactiva con ranking.stats.backfill=false.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ranking.stats.backfill", havingValue = "true", matchIfMissing = true)
+public class ProveedorRatingStatsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ProveedorRatingStatsBackfill.class);
+
+    private final ProveedorRatingStatsRepository statsRepository;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void ejecutar() {
+        long inicio = System.nanoTime();
+        int actualizados = statsRepository.recalcularTodos();
+        int borrados = statsRepository.borrarHuerfanos();
+        log.info("provider_rating_stats: {} proveedores recalculados, {} sin calificaciones eliminados en {} ms",
+                actualizados, borrados, (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
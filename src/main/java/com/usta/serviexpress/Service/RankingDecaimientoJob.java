@@ -0,0 +1,244 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Repository.CalificacionRepository;
+import com.usta.serviexpress.Repository.CalificacionRepository.CalificacionPesoView;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository.RankingFilaView;
+import com.usta.serviexpress.search.DecaimientoTemporal;
+import com.usta.serviexpress.search.RankingProveedores;
+import com.usta.serviexpress.search.RankingSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Job programado del ranking con decaimiento temporal:
+ * 1) lee todas las calificaciones en streaming (fetch size) y las agrupa por proveedor,
+ * 2) calcula suma/peso con decaimiento exponencial en un ForkJoinPool (un hilo por núcleo),
+ * 3) publica un RankingSnapshot inmutable que RankingServiceImpl reemplaza de forma atómica.
+ *
+ * Métricas: timer ranking.decaimiento (fase = lectura | calculo | publicacion | total) y los gauges
+ * ranking.decaimiento.calificaciones / ranking.decaimiento.proveedores de la última corrida.
+ * Se desactiva con ranking.decaimiento.habilitado=false (queda el ranking sin decaimiento).
+ */
+@Component
+@ConditionalOnProperty(name = "ranking.decaimiento.habilitado", havingValue = "true", matchIfMissing = true)
+public class RankingDecaimientoJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RankingDecaimientoJob.class);
+    // Proveedores por tarea hoja del fork/join
+    private static final int UMBRAL = 256;
+
+    private final CalificacionRepository calificacionRepository;
+    private final ProveedorRatingStatsRepository statsRepository;
+    private final RankingServiceImpl rankingService;
+    private final TransactionTemplate lectura;
+    private final DecaimientoTemporal decaimiento;
+    private final double z;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean corriendo = new AtomicBoolean(false);
+
+    private final Timer timerLectura;
+    private final Timer timerCalculo;
+    private final Timer timerPublicacion;
+    private final Timer timerTotal;
+    private final AtomicLong ultimasCalificaciones = new AtomicLong();
+    private final AtomicLong ultimosProveedores = new AtomicLong();
+
+    public RankingDecaimientoJob(CalificacionRepository calificacionRepository,
+                                 ProveedorRatingStatsRepository statsRepository,
+                                 RankingServiceImpl rankingService,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ranking.decaimiento.vida-media:180d}") Duration vidaMedia,
+                                 @Value("${ranking.decaimiento.paralelismo:0}") int paralelismo,
+                                 @Value("${ranking.wilson-z:1.96}") double z) {
+        this.calificacionRepository = calificacionRepository;
+        this.statsRepository = statsRepository;
+        this.rankingService = rankingService;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.decaimiento = new DecaimientoTemporal(vidaMedia);
+        this.z = z;
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+
+        this.timerLectura = timer(meterRegistry, "lectura");
+        this.timerCalculo = timer(meterRegistry, "calculo");
+        this.timerPublicacion = timer(meterRegistry, "publicacion");
+        this.timerTotal = timer(meterRegistry, "total");
+        Gauge.builder("ranking.decaimiento.calificaciones", ultimasCalificaciones, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("ranking.decaimiento.proveedores", ultimosProveedores, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("ranking.decaimiento.paralelismo", pool, ForkJoinPool::getParallelism)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${ranking.decaimiento.retraso-inicial:PT1M}",
+               fixedDelayString = "${ranking.decaimiento.intervalo:PT1H}")
+    public void ejecutar() {
+        if (!corriendo.compareAndSet(false, true)) return;
+        try {
+            timerTotal.record(this::correr);
+        } catch (RuntimeException ex) {
+            log.error("Ranking con decaimiento: la corrida falló, se mantiene el snapshot anterior", ex);
+        } finally {
+            corriendo.set(false);
+        }
+    }
+
+    private void correr() {
+        long inicio = System.nanoTime();
+        Instant calculadoEn = Instant.now();
+        long ahora = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+
+        Lectura datos = timerLectura.record(() -> lectura.execute(st -> leer()));
+        RankingProveedores.Puntaje[] resultados = timerCalculo.record(() -> calcular(Objects.requireNonNull(datos), ahora));
+
+        List<RankingProveedores.Puntaje> entradas = new ArrayList<>(resultados.length);
+        for (RankingProveedores.Puntaje p : resultados) {
+            if (p != null) entradas.add(p);
+        }
+        RankingSnapshot snapshot = new RankingSnapshot(calculadoEn, entradas, datos.calificaciones(),
+                Duration.ofNanos(System.nanoTime() - inicio));
+        timerPublicacion.record(() -> rankingService.publicar(snapshot));
+
+        ultimasCalificaciones.set(datos.calificaciones());
+        ultimosProveedores.set(entradas.size());
+        log.info("Ranking con decaimiento: {} calificaciones, {} proveedores, {} hilos, {} ms",
+                datos.calificaciones(), entradas.size(), pool.getParallelism(),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ===================== Fase 1: lectura en streaming =====================
+
+    private Lectura leer() {
+        Map<Long, RankingFilaView> filas = new HashMap<>();
+        for (RankingFilaView f : statsRepository.findFilasRanking()) {
+            filas.put(f.getIdProveedor(), f);
+        }
+        Map<Long, Acumulado> porProveedor = new HashMap<>(Math.max(16, filas.size() * 2));
+        long total = 0;
+        try (Stream<CalificacionPesoView> stream = calificacionRepository.streamParaRanking()) {
+            for (CalificacionPesoView c : (Iterable<CalificacionPesoView>) stream::iterator) {
+                if (c.getIdProveedor() == null || c.getPuntuacion() == null || c.getFecha() == null) continue;
+                porProveedor.computeIfAbsent(c.getIdProveedor(), k -> new Acumulado())
+                        .agregar(c.getPuntuacion(), c.getFecha().toEpochSecond(ZoneOffset.UTC));
+                total++;
+            }
+        }
+        long[] ids = new long[porProveedor.size()];
+        Acumulado[] acumulados = new Acumulado[porProveedor.size()];
+        int i = 0;
+        for (Map.Entry<Long, Acumulado> e : porProveedor.entrySet()) {
+            ids[i] = e.getKey();
+            acumulados[i] = e.getValue();
+            i++;
+        }
+        return new Lectura(ids, acumulados, filas, total);
+    }
+
+    // ===================== Fase 2: cálculo en paralelo =====================
+
+    private RankingProveedores.Puntaje[] calcular(Lectura datos, long ahora) {
+        RankingProveedores.Puntaje[] salida = new RankingProveedores.Puntaje[datos.ids().length];
+        pool.invoke(new Tramo(datos, ahora, salida, 0, salida.length));
+        return salida;
+    }
+
+    /** Divide el arreglo de proveedores hasta UMBRAL; cada hoja escribe solo sus posiciones. */
+    private final class Tramo extends RecursiveAction {
+        private final Lectura datos;
+        private final long ahora;
+        private final RankingProveedores.Puntaje[] salida;
+        private final int desde;
+        private final int hasta;
+
+        Tramo(Lectura datos, long ahora, RankingProveedores.Puntaje[] salida, int desde, int hasta) {
+            this.datos = datos;
+            this.ahora = ahora;
+            this.salida = salida;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= UMBRAL) {
+                for (int i = desde; i < hasta; i++) {
+                    salida[i] = puntuar(datos, i, ahora);
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new Tramo(datos, ahora, salida, desde, medio),
+                      new Tramo(datos, ahora, salida, medio, hasta));
+        }
+    }
+
+    private RankingProveedores.Puntaje puntuar(Lectura datos, int i, long ahora) {
+        RankingFilaView fila = datos.filas().get(datos.ids()[i]);
+        // Sin fila en provider_rating_stats (calificación recién creada): la trae el refresco incremental
+        if (fila == null) return null;
+        Acumulado a = datos.acumulados()[i];
+        double[] sumaPeso = decaimiento.acumular(a.puntuaciones, a.fechas, a.n, ahora);
+        return RankingProveedores.crear(datos.ids()[i], fila.getNombreProveedor(), fila.getCiudadClave(),
+                sumaPeso[0], sumaPeso[1], a.n, z);
+    }
+
+    // ===================== Internos =====================
+
+    private record Lectura(long[] ids, Acumulado[] acumulados, Map<Long, RankingFilaView> filas,
+                           long calificaciones) { }
+
+    /** Puntuaciones y fechas (epoch s) de un proveedor en arreglos primitivos que crecen al doble. */
+    private static final class Acumulado {
+        int[] puntuaciones = new int[4];
+        long[] fechas = new long[4];
+        int n;
+
+        void agregar(int puntuacion, long fecha) {
+            if (n == puntuaciones.length) {
+                puntuaciones = Arrays.copyOf(puntuaciones, n * 2);
+                fechas = Arrays.copyOf(fechas, n * 2);
+            }
+            puntuaciones[n] = puntuacion;
+            fechas[n] = fecha;
+            n++;
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String fase) {
+        return Timer.builder("ranking.decaimiento").tag("fase", fase).register(registry);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdownNow();
+    }
+}
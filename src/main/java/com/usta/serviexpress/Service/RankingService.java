@@ -5,4 +5,7 @@ import java.util.List;
 
 public interface RankingService {
     List<TopProveedorView> topProveedores(int n, long minResenas);
-}
\ No newline at end of file
+
+    // Top dentro de una ciudad (nombre libre; se normaliza con CiudadUtils)
+    List<TopProveedorView> topProveedoresEnCiudad(String ciudad, int n, long minResenas);
+}
@@ -1,23 +1,209 @@
 package com.usta.serviexpress.Service;
 
 import com.usta.serviexpress.Repository.CalificacionRepository;
+import com.usta.serviexpress.Repository.CalificacionRepository.CalificacionPesoView;
 import com.usta.serviexpress.Repository.CalificacionRepository.TopProveedorView;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository.RankingFilaView;
+import com.usta.serviexpress.search.DecaimientoTemporal;
+import com.usta.serviexpress.search.RankingProveedores;
+import com.usta.serviexpress.search.RankingSnapshot;
+import com.usta.serviexpress.util.CiudadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Ranking de proveedores servido desde memoria (RankingProveedores): puntaje Wilson, top-K por alcance
+ * (global y ciudad). Se carga desde provider_rating_stats al arrancar y se mantiene con
+ * CalificacionRegistradaEvent (puntaje) y UsuarioActualizadoEvent (nombre, ciudad); topProveedores no
+ * consulta la BD.
+ *
+ * Con ranking.decaimiento.habilitado (por defecto) RankingDecaimientoJob publica periódicamente un
+ * RankingSnapshot con pesos por antigüedad: se arma un motor nuevo y se reemplaza de una vez
+ * (AtomicReference), sin bloquear a los lectores. La carga inicial ya es una corrida del job, así que
+ * todo el motor usa siempre la misma escala; entre corridas, los refrescos por proveedor usan el mismo
+ * decaimiento.
+ */
 @Service
-@RequiredArgsConstructor
 public class RankingServiceImpl implements RankingService {
 
+    private static final Logger log = LoggerFactory.getLogger(RankingServiceImpl.class);
+
+    private final ProveedorRatingStatsRepository statsRepository;
     private final CalificacionRepository calificacionRepository;
+    // Perezoso: el job depende de este servicio (publicar)
+    private final ObjectProvider<RankingDecaimientoJob> decaimientoJob;
+    private final int topK;
+    private final double z;
+    // null si el ranking no usa decaimiento
+    private final DecaimientoTemporal decaimiento;
+
+    private final RankingProveedores inicial;
+    private final AtomicReference<RankingProveedores> motor;
+    // Proveedores refrescados y cuándo: al publicar un snapshot se reaplican los posteriores a su lectura
+    private final Map<Long, Instant> refrescados = new ConcurrentHashMap<>();
+
+    public RankingServiceImpl(ProveedorRatingStatsRepository statsRepository,
+                              CalificacionRepository calificacionRepository,
+                              ObjectProvider<RankingDecaimientoJob> decaimientoJob,
+                              @Value("${ranking.top-k:50}") int topK,
+                              @Value("${ranking.wilson-z:1.96}") double z,
+                              @Value("${ranking.decaimiento.habilitado:true}") boolean conDecaimiento,
+                              @Value("${ranking.decaimiento.vida-media:180d}") Duration vidaMedia) {
+        this.statsRepository = statsRepository;
+        this.calificacionRepository = calificacionRepository;
+        this.decaimientoJob = decaimientoJob;
+        this.topK = topK;
+        this.z = z;
+        this.decaimiento = conDecaimiento ? new DecaimientoTemporal(vidaMedia) : null;
+        this.inicial = new RankingProveedores(topK, z);
+        this.motor = new AtomicReference<>(inicial);
+    }
 
     @Override
     public List<TopProveedorView> topProveedores(int n, long minResenas) {
-        return calificacionRepository
-                .findTopProveedores(minResenas, PageRequest.of(0, n))
-                .getContent(); // <-- convertir Page a List
+        return vistas(motor.get().top(RankingProveedores.GLOBAL, n, minResenas));
+    }
+
+    @Override
+    public List<TopProveedorView> topProveedoresEnCiudad(String ciudad, int n, long minResenas) {
+        String clave = CiudadUtils.clave(ciudad);
+        if (clave == null) return topProveedores(n, minResenas);
+        return vistas(motor.get().top(clave, n, minResenas));
+    }
+
+    // ===================== Carga / mantenimiento =====================
+
+    // Con decaimiento, la carga es una corrida del job (publica el snapshot); sin él, o si la corrida falló,
+    // desde el agregado. Mezclar ambas escalas dejaría refrescos con decaimiento entre puntajes sin él.
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        RankingDecaimientoJob job = decaimiento != null ? decaimientoJob.getIfAvailable() : null;
+        if (job != null) {
+            job.ejecutar();
+            if (motor.get() != inicial) return;
+            log.warn("Ranking de proveedores: sin snapshot con decaimiento al arrancar, se carga el agregado");
+        }
+        cargarAgregado();
+    }
+
+    private void cargarAgregado() {
+        long inicio = System.nanoTime();
+        List<RankingProveedores.Puntaje> entradas = new ArrayList<>();
+        for (RankingFilaView f : statsRepository.findFilasRanking()) {
+            long total = f.getTotal() != null ? f.getTotal() : 0L;
+            double suma = f.getSuma() != null ? f.getSuma() : 0d;
+            entradas.add(RankingProveedores.crear(f.getIdProveedor(), f.getNombreProveedor(), f.getCiudadClave(),
+                    suma, total, total, z));
+        }
+        RankingProveedores cargado = new RankingProveedores(topK, z);
+        cargado.reconstruir(entradas);
+        if (motor.compareAndSet(inicial, cargado)) {
+            log.info("Ranking de proveedores: {} proveedores en {} ms",
+                    entradas.size(), (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    /** Reemplaza el motor por uno armado con el snapshot; los lectores ven el anterior o el nuevo, completos. */
+    public void publicar(RankingSnapshot snapshot) {
+        RankingProveedores nuevo = new RankingProveedores(topK, z);
+        nuevo.reconstruir(snapshot.entradas());
+        motor.set(nuevo);
+        // Lo refrescado después de que el job empezó a leer pudo quedar fuera del snapshot
+        refrescados.forEach((id, cuando) -> {
+            if (cuando.isBefore(snapshot.calculadoEn())) refrescados.remove(id, cuando);
+            else refrescar(id);
+        });
+        log.info("Ranking de proveedores: snapshot del {} publicado ({} proveedores, {} calificaciones, {} ms)",
+                snapshot.calculadoEn(), snapshot.entradas().size(), snapshot.calificaciones(),
+                snapshot.duracion().toMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCalificacionRegistrada(CalificacionRegistradaEvent e) {
+        if (e.idProveedor() == null) return;
+        refrescar(e.idProveedor());
+    }
+
+    // Un cambio de servicio puede venir de un cambio de ciudad del proveedor
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        if (e.idProveedor() == null) return;
+        RankingProveedores.Puntaje actual = motor.get().get(e.idProveedor());
+        if (actual != null) refrescar(e.idProveedor());
+    }
+
+    // Cambio de nombre o de ciudad del proveedor (aunque no tenga servicios que disparen ServicioCambiadoEvent)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioActualizado(UsuarioActualizadoEvent e) {
+        if (e.idUsuario() == null) return;
+        if (motor.get().get(e.idUsuario()) != null) refrescar(e.idUsuario());
+    }
+
+    private void refrescar(Long idProveedor) {
+        if (decaimiento != null) refrescados.put(idProveedor, Instant.now());
+        RankingProveedores actual = motor.get();
+        statsRepository.findFilaRanking(idProveedor)
+                .filter(f -> f.getTotal() != null && f.getTotal() > 0)
+                .ifPresentOrElse(f -> actual.poner(puntuar(f)), () -> actual.quitar(idProveedor));
+    }
+
+    // ===================== Internos =====================
+
+    private RankingProveedores.Puntaje puntuar(RankingFilaView f) {
+        long total = f.getTotal() != null ? f.getTotal() : 0L;
+        double suma = f.getSuma() != null ? f.getSuma() : 0d;
+        double peso = total;
+        if (decaimiento != null) {
+            // Mismo cálculo que el job, solo con las calificaciones de este proveedor
+            List<CalificacionPesoView> pesos = calificacionRepository.findPesosDeProveedor(f.getIdProveedor());
+            int[] puntuaciones = new int[pesos.size()];
+            long[] fechas = new long[pesos.size()];
+            int n = 0;
+            for (CalificacionPesoView c : pesos) {
+                if (c.getPuntuacion() == null || c.getFecha() == null) continue;
+                puntuaciones[n] = c.getPuntuacion();
+                fechas[n] = c.getFecha().toEpochSecond(ZoneOffset.UTC);
+                n++;
+            }
+            double[] sumaPeso = decaimiento.acumular(puntuaciones, fechas, n,
+                    LocalDateTime.now().toEpochSecond(ZoneOffset.UTC));
+            suma = sumaPeso[0];
+            peso = sumaPeso[1];
+        }
+        return RankingProveedores.crear(f.getIdProveedor(), f.getNombreProveedor(), f.getCiudadClave(),
+                suma, peso, total, z);
+    }
+
+    private static List<TopProveedorView> vistas(List<RankingProveedores.Puntaje> top) {
+        List<TopProveedorView> salida = new ArrayList<>(top.size());
+        for (RankingProveedores.Puntaje p : top) {
+            salida.add(new ProveedorRankeado(p.idProveedor(), p.nombre(), p.promedio(), p.total()));
+        }
+        return salida;
+    }
+
+    public record ProveedorRankeado(Long idProveedor, String nombreProveedor, Double promedio, Long total)
+            implements TopProveedorView {
+        @Override public Long getIdProveedor() { return idProveedor; }
+        @Override public String getNombreProveedor() { return nombreProveedor; }
+        @Override public Double getPromedio() { return promedio; }
+        @Override public Long getTotal() { return total; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package com.usta.serviexpress.Service;
+
+/**
+ * Se publica cuando un servicio se crea, edita, cambia de estado o se elimina.
+ * idProveedor es el proveedor vigente (puede ser null); idProveedorAnterior, el que tenía antes de una
+ * reasignación (null si no cambió o no se conoce).
+ */
+public record ServicioCambiadoEvent(Long idServicio, Long idProveedor, Long idProveedorAnterior, boolean eliminado) {
+
+    public ServicioCambiadoEvent(Long idServicio, Long idProveedor, boolean eliminado) {
+        this(idServicio, idProveedor, null, eliminado);
+    }
+}
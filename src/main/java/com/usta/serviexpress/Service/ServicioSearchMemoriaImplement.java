@@ -0,0 +1,187 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
+import com.usta.serviexpress.DTOs.ServicioCardDTO;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Repository.ServicioFilaView;
+import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.search.IndiceServicios;
+import com.usta.serviexpress.util.CiudadUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Motor de búsqueda embebido: índice invertido en memoria (BM25 + trigramas), sin ir a la BD.
+ * Se activa con catalogo.busqueda.motor=memoria (por defecto se usa la implementación SQL);
+ * ambas publican el timer catalogo.busqueda con la etiqueta "motor" para compararlas.
+ *
+ * Se construye al arrancar y se mantiene con ServicioCambiadoEvent (después del commit).
+ */
+@Service
+@ConditionalOnProperty(name = "catalogo.busqueda.motor", havingValue = "memoria")
+public class ServicioSearchMemoriaImplement implements ServicioSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioSearchMemoriaImplement.class);
+    private static final int LOTE_CARGA = 1000;
+
+    private final ServicioRepository servicioRepository;
+    private final IndiceServicios indice = new IndiceServicios();
+    private final double umbralPalabra;
+    private final double umbralSugerencia;
+    private final Timer timerTexto;
+    private final Timer timerAproximado;
+
+    // Cambios recibidos mientras se hace la carga inicial; se vuelven a aplicar al terminar
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    // Ciudad (clave normalizada) del proveedor de cada servicio indexado, para el filtro por ciudad
+    private final Map<Long, String> ciudadPorServicio = new ConcurrentHashMap<>();
+    private volatile boolean cargando = true;
+
+    public ServicioSearchMemoriaImplement(ServicioRepository servicioRepository,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${catalogo.busqueda.umbral-similitud:0.4}") double umbralPalabra,
+                                          @Value("${catalogo.busqueda.umbral-sugerencia:0.3}") double umbralSugerencia) {
+        this.servicioRepository = servicioRepository;
+        this.umbralPalabra = umbralPalabra;
+        this.umbralSugerencia = umbralSugerencia;
+        this.timerTexto = Timer.builder("catalogo.busqueda").tag("motor", "memoria").tag("modo", "texto")
+                .register(meterRegistry);
+        this.timerAproximado = Timer.builder("catalogo.busqueda").tag("motor", "memoria").tag("modo", "aproximado")
+                .register(meterRegistry);
+    }
+
+    // ===================== Construcción / mantenimiento =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        List<ServicioCardView> todos = new ArrayList<>();
+        long cursor = Long.MAX_VALUE;
+        Slice<ServicioFilaView> lote;
+        do {
+            lote = servicioRepository.findFilas(cursor, PageRequest.of(0, LOTE_CARGA));
+            for (ServicioFilaView v : lote.getContent()) {
+                todos.add(ServicioCardDTO.de(v));
+                recordarCiudad(v);
+                cursor = v.getIdServicio();
+            }
+        } while (lote.hasNext());
+
+        indice.reconstruir(todos);
+        cargando = false;
+        for (Long id : pendientes) {
+            refrescar(id);
+        }
+        pendientes.clear();
+        log.info("Índice de búsqueda en memoria: {} servicios en {} ms",
+                indice.tamano(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        if (e.idServicio() == null) return;
+        if (cargando) pendientes.add(e.idServicio());
+        if (e.eliminado()) {
+            indice.quitar(e.idServicio());
+            ciudadPorServicio.remove(e.idServicio());
+        } else {
+            refrescar(e.idServicio());
+        }
+    }
+
+    private void refrescar(Long idServicio) {
+        servicioRepository.findFilaById(idServicio).ifPresentOrElse(v -> {
+            recordarCiudad(v);
+            indice.indexar(ServicioCardDTO.de(v));
+        }, () -> {
+            indice.quitar(idServicio);
+            ciudadPorServicio.remove(idServicio);
+        });
+    }
+
+    private void recordarCiudad(ServicioFilaView v) {
+        String clave = v.getCiudadClave();
+        if (clave == null) ciudadPorServicio.remove(v.getIdServicio());
+        else ciudadPorServicio.put(v.getIdServicio(), clave);
+    }
+
+    // ===================== Búsqueda =====================
+
+    @Override
+    public Slice<ServicioCardView> buscar(CatalogoFiltroDTO filtro, Pageable pageable) {
+        if (sinTermino(filtro)) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        return timerTexto.record(() -> paginar(
+                indice.buscar(filtro.getNombre(), coincide(filtro), limite(pageable)), pageable));
+    }
+
+    @Override
+    public Slice<ServicioCardView> buscarAproximado(CatalogoFiltroDTO filtro, Pageable pageable) {
+        if (sinTermino(filtro)) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        return timerAproximado.record(() -> paginar(
+                indice.buscarAproximado(filtro.getNombre(), umbralPalabra, coincide(filtro), limite(pageable)), pageable));
+    }
+
+    @Override
+    public Optional<String> sugerir(String termino) {
+        if (termino == null || termino.isBlank()) {
+            return Optional.empty();
+        }
+        String limpio = termino.trim();
+        return indice.sugerir(limpio, umbralSugerencia)
+                .filter(s -> !s.equalsIgnoreCase(limpio));
+    }
+
+    // Filtros del catálogo evaluados sobre la tarjeta indexada
+    private Predicate<ServicioCardView> coincide(CatalogoFiltroDTO f) {
+        String ciudad = CiudadUtils.clave(f.getCiudad());
+        return t -> (f.getEstado() == null || f.getEstado() == t.getEstado())
+                && (f.getProveedorId() == null || f.getProveedorId().equals(t.getIdProveedor()))
+                && (f.getPrecioMin() == null || (t.getPrecio() != null && t.getPrecio().compareTo(f.getPrecioMin()) >= 0))
+                && (f.getPrecioMax() == null || (t.getPrecio() != null && t.getPrecio().compareTo(f.getPrecioMax()) <= 0))
+                && (!f.isSoloConProveedor() || t.getIdProveedor() != null)
+                && (ciudad == null || ciudad.equals(ciudadPorServicio.get(t.getIdServicio())));
+    }
+
+    // Se piden offset + size + 1 resultados para saber si hay página siguiente
+    private static int limite(Pageable pageable) {
+        return (int) Math.min(Integer.MAX_VALUE - 1L, pageable.getOffset() + pageable.getPageSize()) + 1;
+    }
+
+    private static Slice<ServicioCardView> paginar(List<IndiceServicios.Puntuado> resultados, Pageable pageable) {
+        int desde = (int) Math.min(pageable.getOffset(), resultados.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), resultados.size());
+        List<ServicioCardView> pagina = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            pagina.add(resultados.get(i).tarjeta());
+        }
+        return new SliceImpl<>(pagina, pageable, resultados.size() > hasta);
+    }
+
+    private static boolean sinTermino(CatalogoFiltroDTO filtro) {
+        return filtro == null || filtro.getNombre() == null || filtro.getNombre().isBlank();
+    }
+}
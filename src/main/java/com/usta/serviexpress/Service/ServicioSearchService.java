@@ -0,0 +1,19 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Optional;
+
+public interface ServicioSearchService {
+    // Búsqueda por texto (filtro.nombre) sobre nombre + descripción, ordenada por relevancia
+    Slice<ServicioCardView> buscar(CatalogoFiltroDTO filtro, Pageable pageable);
+
+    // Búsqueda tolerante a errores de escritura sobre nombre del servicio / proveedor, ordenada por similitud
+    Slice<ServicioCardView> buscarAproximado(CatalogoFiltroDTO filtro, Pageable pageable);
+
+    // "¿Quisiste decir...?": término conocido más parecido (vacío si ninguno supera el umbral)
+    Optional<String> sugerir(String termino);
+}
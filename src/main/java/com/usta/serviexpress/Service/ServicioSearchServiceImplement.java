@@ -0,0 +1,99 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CatalogoFiltroDTO;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Repository.ServicioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.usta.serviexpress.util.CiudadUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Búsqueda de texto completo de PostgreSQL (tsvector + GIN, configuración 'spanish', ts_rank)
+ * y búsqueda aproximada por trigramas (pg_trgm) para términos mal escritos.
+ * Implementación por defecto (catalogo.busqueda.motor=sql); ver ServicioSearchMemoriaImplement.
+ */
+@Service
+@ConditionalOnProperty(name = "catalogo.busqueda.motor", havingValue = "sql", matchIfMissing = true)
+public class ServicioSearchServiceImplement implements ServicioSearchService {
+
+    private final ServicioRepository servicioRepository;
+    private final double umbralPalabra;
+    private final double umbralSugerencia;
+    private final Timer timerTexto;
+    private final Timer timerAproximado;
+
+    public ServicioSearchServiceImplement(ServicioRepository servicioRepository,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${catalogo.busqueda.umbral-similitud:0.4}") double umbralPalabra,
+                                          @Value("${catalogo.busqueda.umbral-sugerencia:0.3}") double umbralSugerencia) {
+        this.servicioRepository = servicioRepository;
+        this.umbralPalabra = umbralPalabra;
+        this.umbralSugerencia = umbralSugerencia;
+        this.timerTexto = Timer.builder("catalogo.busqueda").tag("motor", "sql").tag("modo", "texto")
+                .register(meterRegistry);
+        this.timerAproximado = Timer.builder("catalogo.busqueda").tag("motor", "sql").tag("modo", "aproximado")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ServicioCardView> buscar(CatalogoFiltroDTO filtro, Pageable pageable) {
+        if (sinTermino(filtro)) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        return timerTexto.record(() -> servicioRepository.buscarTexto(
+                filtro.getNombre().trim(),
+                filtro.getEstado() != null ? filtro.getEstado().name() : null,
+                filtro.getProveedorId(),
+                filtro.getPrecioMin(),
+                filtro.getPrecioMax(),
+                CiudadUtils.clave(filtro.getCiudad()),
+                pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ServicioCardView> buscarAproximado(CatalogoFiltroDTO filtro, Pageable pageable) {
+        if (sinTermino(filtro)) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        // Misma transacción: los umbrales aplican a la consulta siguiente y se descartan al terminar
+        return timerAproximado.record(() -> {
+            servicioRepository.fijarUmbralesTrigrama(umbralPalabra, umbralSugerencia);
+            return servicioRepository.buscarAproximado(
+                    filtro.getNombre().trim(),
+                    filtro.getEstado() != null ? filtro.getEstado().name() : null,
+                    filtro.getProveedorId(),
+                    filtro.getPrecioMin(),
+                    filtro.getPrecioMax(),
+                    CiudadUtils.clave(filtro.getCiudad()),
+                    pageable);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> sugerir(String termino) {
+        if (termino == null || termino.isBlank()) {
+            return Optional.empty();
+        }
+        String limpio = termino.trim();
+        servicioRepository.fijarUmbralesTrigrama(umbralPalabra, umbralSugerencia);
+        return servicioRepository.sugerirTermino(limpio)
+                .filter(s -> !s.equalsIgnoreCase(limpio));
+    }
+
+    private static boolean sinTermino(CatalogoFiltroDTO filtro) {
+        return filtro == null || filtro.getNombre() == null || filtro.getNombre().isBlank();
+    }
+}
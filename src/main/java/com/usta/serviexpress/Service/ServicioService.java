@@ -2,8 +2,10 @@ package com.usta.serviexpress.Service;
 
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -15,17 +17,21 @@ public interface ServicioService {
     List<ServicioEntity> findByCliente(UsuarioEntity cliente);
     List<ServicioEntity> findAll();
     void deleteById(Long id);
-    List<ServicioEntity> findByNombreContainingIgnoreCase(String nombre);
+    ServicioCardView findTarjetaById(Long idServicio);   // cacheado (solo lectura)
 
     // Solo disponibles (no paginado)
     List<ServicioEntity> findDisponibles();
-    List<ServicioEntity> findDisponiblesPorNombre(String nombre);
 
     // ===== NUEVO: paginados =====
     Page<ServicioEntity> listar(Pageable pageable);                         // todos
     Page<ServicioEntity> listarDisponibles(Pageable pageable);              // solo DISPONIBLES
 
+    // ===== Keyset (cursor = último idServicio de la página anterior, null = primera página) =====
+    // Devuelven proyecciones de tarjeta: una consulta estrecha, sin entidades ni usuarios completos
+    Slice<ServicioCardView> listarDesde(Long cursor, int size);                           // todos
+    Slice<ServicioCardView> listarDisponiblesDesde(Long cursor, int size);                // solo DISPONIBLES
+    Slice<ServicioCardView> listarPorProveedorDesde(Long idUsuario, Long cursor, int size);
+
     // ===== NUEVO: para PROVEEDOR =====
     List<ServicioEntity> findByProveedor(Long idUsuario);
-    List<ServicioEntity> findByProveedorAndNombreContainingIgnoreCase(Long idUsuario, String nombre);
 }
\ No newline at end of file
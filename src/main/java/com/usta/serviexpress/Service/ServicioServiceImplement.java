@@ -2,23 +2,62 @@ package com.usta.serviexpress.Service;
 
 import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
 import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.Repository.ServicioRepository.ServicioGuardadoView;
+import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.config.CacheConfig;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ServicioServiceImplement implements ServicioService {
 
     private final ServicioRepository servicioRepository;
+    private final SolicitudRepository solicitudRepository;
+    private final CargaProveedorService cargaProveedorService;
+    private final ApplicationEventPublisher eventos;
 
     @Override
+    @Transactional
     public ServicioEntity save(ServicioEntity servicio) {
-        servicioRepository.save(servicio);
+        ServicioGuardadoView antes = servicio.getIdServicio() != null
+                ? servicioRepository.findGuardadoById(servicio.getIdServicio()).orElse(null)
+                : null;
+        Long proveedorAntes = antes != null ? antes.getIdProveedor() : null;
+        String estadoAntes = antes != null ? nombre(antes.getEstado()) : null;
+        servicioRepository.saveAndFlush(servicio);
+        Long idProveedor = servicio.getProveedor() != null ? servicio.getProveedor().getIdUsuario() : null;
+        Long idProveedorAnterior = Objects.equals(proveedorAntes, idProveedor) ? null : proveedorAntes;
+        // Mantiene solicitud_servicio.id_proveedor si el servicio se reasignó a otro proveedor
+        if (servicio.getIdServicio() != null && idProveedor != null) {
+            List<Long> anteriores = solicitudRepository.findProveedoresDesalineados(servicio.getIdServicio(), idProveedor);
+            if (!anteriores.isEmpty()) {
+                solicitudRepository.sincronizarProveedor(servicio.getIdServicio(), idProveedor);
+                cargaProveedorService.recontarSolicitudes(idProveedor);
+                for (Long anterior : anteriores) cargaProveedorService.recontarSolicitudes(anterior);
+            }
+        }
+        // Deltas desde el estado guardado; reasignado: sale del contador de uno y entra en el del otro
+        String estado = nombre(servicio.getEstado());
+        if (idProveedorAnterior == null) {
+            cargaProveedorService.servicioMovido(idProveedor, estadoAntes, estado);
+        } else {
+            cargaProveedorService.servicioEliminado(idProveedorAnterior, estadoAntes);
+            cargaProveedorService.servicioCreado(idProveedor, estado);
+        }
+        eventos.publishEvent(new ServicioCambiadoEvent(servicio.getIdServicio(), idProveedor, idProveedorAnterior, false));
         return servicio;
     }
 
@@ -51,13 +90,21 @@ public class ServicioServiceImplement implements ServicioService {
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
+        ServicioGuardadoView antes = servicioRepository.findGuardadoById(id).orElse(null);
+        Long idProveedor = antes != null ? antes.getIdProveedor() : null;
         servicioRepository.deleteById(id);
+        servicioRepository.flush();
+        if (antes != null) cargaProveedorService.servicioEliminado(idProveedor, nombre(antes.getEstado()));
+        eventos.publishEvent(new ServicioCambiadoEvent(id, idProveedor, true));
     }
 
     @Override
-    public List<ServicioEntity> findByNombreContainingIgnoreCase(String nombre) {
-        return servicioRepository.findByNombreContainingIgnoreCase(nombre);
+    // La caché no admite null (CacheConfig): los ids inexistentes no se cachean
+    @Cacheable(cacheNames = CacheConfig.SERVICIO_POR_ID, unless = "#result == null")
+    public ServicioCardView findTarjetaById(Long idServicio) {
+        return servicioRepository.findTarjetaById(idServicio).orElse(null);
     }
 
     // ===== Solo DISPONIBLES (no paginados) =====
@@ -66,13 +113,6 @@ public class ServicioServiceImplement implements ServicioService {
         return servicioRepository.findByEstado(ServicioEntity.EstadoServicio.DISPONIBLE);
     }
 
-    @Override
-    public List<ServicioEntity> findDisponiblesPorNombre(String nombre) {
-        return servicioRepository.findByEstadoAndNombreContainingIgnoreCase(
-                ServicioEntity.EstadoServicio.DISPONIBLE, nombre
-        );
-    }
-
     // ===== Paginados =====
     @Override
     public Page<ServicioEntity> listar(Pageable pageable) {
@@ -84,15 +124,38 @@ public class ServicioServiceImplement implements ServicioService {
         return servicioRepository.findByEstado(ServicioEntity.EstadoServicio.DISPONIBLE, pageable);
     }
 
-    // ===== Nuevos métodos para proveedor =====
+    // ===== Keyset: siempre página 0, el filtro idServicio < cursor reemplaza al OFFSET =====
     @Override
-    public List<ServicioEntity> findByProveedor(Long idUsuario) {
-        return servicioRepository.findByProveedor_IdUsuario(idUsuario);
+    public Slice<ServicioCardView> listarDesde(Long cursor, int size) {
+        return servicioRepository.findTarjetas(seek(cursor), PageRequest.of(0, size));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.SERVICIOS_DISPONIBLES, key = "#cursor + ':' + #size")
+    public Slice<ServicioCardView> listarDisponiblesDesde(Long cursor, int size) {
+        return servicioRepository.findTarjetasByEstado(
+                ServicioEntity.EstadoServicio.DISPONIBLE, seek(cursor), PageRequest.of(0, size));
     }
 
     @Override
-    public List<ServicioEntity> findByProveedorAndNombreContainingIgnoreCase(Long idUsuario, String nombre) {
-        return servicioRepository.findByProveedor_IdUsuarioAndNombreContainingIgnoreCase(idUsuario, nombre);
+    // La clave empieza por el id del proveedor: CatalogoCacheInvalidator la invalida por prefijo
+    @Cacheable(cacheNames = CacheConfig.SERVICIOS_POR_PROVEEDOR, key = "#idUsuario + ':' + #cursor + ':' + #size")
+    public Slice<ServicioCardView> listarPorProveedorDesde(Long idUsuario, Long cursor, int size) {
+        return servicioRepository.findTarjetasByProveedor(idUsuario, seek(cursor), PageRequest.of(0, size));
+    }
+
+    private static String nombre(ServicioEntity.EstadoServicio estado) {
+        return estado != null ? estado.name() : null;
+    }
+
+    private static Long seek(Long cursor) {
+        return (cursor == null) ? Long.MAX_VALUE : cursor;
+    }
+
+    // ===== Nuevos métodos para proveedor =====
+    @Override
+    public List<ServicioEntity> findByProveedor(Long idUsuario) {
+        return servicioRepository.findByProveedor_IdUsuario(idUsuario);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.usta.serviexpress.Service;
+
+/**
+ * Se publica cuando una solicitud se crea (nueva = true) o cambia de estado.
+ * idProveedor es el proveedor asignado a la solicitud: el dueño del servicio o quien la tomó por
+ * despacho (puede ser null).
+ */
+public record SolicitudCambiadaEvent(Long idSolicitud, Long idServicio, Long idCliente, Long idProveedor,
+                                     String estado, boolean nueva) { }
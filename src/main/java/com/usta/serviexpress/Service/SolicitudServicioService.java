@@ -1,21 +1,35 @@
 package com.usta.serviexpress.Service;
 
+import com.usta.serviexpress.DTOs.SolicitudFiltroDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
 import com.usta.serviexpress.Entity.SolicitudServicioEntity;
-import com.usta.serviexpress.Entity.UsuarioEntity;
+import org.springframework.data.domain.Slice;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface SolicitudServicioService {
-    List<SolicitudServicioEntity> findAll();
     SolicitudServicioEntity findById(Long id);
     void save(SolicitudServicioEntity solicitud);
     void deleteById(Long id);
-    List<SolicitudServicioEntity> findByCliente(UsuarioEntity cliente);
     void actualizarSolicitudServicio(SolicitudServicioEntity solicitud);
     List<SolicitudServicioEntity> findByProveedorId(Long idProveedor);
     List<SolicitudServicioEntity> obtenerSolicitudesPendientes();
-    List<SolicitudServicioEntity> obtenerSolicitudesPorUsuario(UsuarioEntity usuario);
 
-    // 🔹 Solo la firma (sin implementación aquí)
-    List<SolicitudServicioEntity> findByProveedor(UsuarioEntity proveedor);
+    // ===== Historial keyset: cursor = (fechaSolicitud, idSolicitud) del último elemento; null = primera página =====
+    Slice<SolicitudServicioEntity> historial(SolicitudFiltroDTO filtro, LocalDate cursorFecha, Long cursor, int size);
+    Slice<SolicitudServicioEntity> historialProveedor(Long idProveedor, SolicitudFiltroDTO filtro,
+                                                      LocalDate cursorFecha, Long cursor, int size);
+    Slice<SolicitudServicioEntity> historialCliente(Long idCliente, SolicitudFiltroDTO filtro,
+                                                    LocalDate cursorFecha, Long cursor, int size);
+
+    // ===== Transiciones de estado: un UPDATE condicional según la tabla de EstadoSolicitud =====
+    enum ResultadoTransicion { APLICADA, NO_ENCONTRADA, NO_AUTORIZADO, NO_PERMITIDA }
+
+    /**
+     * Lleva la solicitud a 'hacia' si el estado actual lo permite para 'actor' y, para CLIENTE / PROVEEDOR,
+     * si la solicitud es de idUsuario. fechaEstimada se escribe solo cuando fijarFecha es true.
+     */
+    ResultadoTransicion transicionar(Long idSolicitud, EstadoSolicitud hacia, EstadoSolicitud.Actor actor,
+                                     Long idUsuario, boolean fijarFecha, LocalDate fechaEstimada);
 }
\ No newline at end of file
@@ -1,25 +1,46 @@
 package com.usta.serviexpress.Service;
 
+import com.usta.serviexpress.DTOs.SolicitudFiltroDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Entity.ServicioEntity;
 import com.usta.serviexpress.Entity.SolicitudServicioEntity;
-import com.usta.serviexpress.Entity.UsuarioEntity;
+import com.usta.serviexpress.Repository.AgendaRepository;
+import com.usta.serviexpress.Repository.DespachoRepository;
 import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.Repository.SolicitudRepository.SolicitudDuenoView;
+import com.usta.serviexpress.Repository.SolicitudRepository.SolicitudTransicionView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class SolicitudServicioServiceImplement implements SolicitudServicioService {
 
+    private static final int MAX_SIZE = 100;
+    private static final LocalDate SIN_CURSOR_FECHA = LocalDate.of(9999, 12, 31);
+    private static final LocalDate SIN_DESDE = LocalDate.of(1, 1, 1);
+
     @Autowired
     private SolicitudRepository solicitudRepository;
 
-    @Override
-    @Transactional(readOnly = true)
-    public List<SolicitudServicioEntity> findAll() {
-        return solicitudRepository.findAllDeep(); // ← importante
-    }
+    @Autowired
+    private DespachoRepository despachoRepository;
+
+    @Autowired
+    private AgendaRepository agendaRepository;
+
+    @Autowired
+    private CargaProveedorService cargaProveedorService;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
 
     @Override
     @Transactional(readOnly = true)
@@ -30,50 +51,167 @@ public class SolicitudServicioServiceImplement implements SolicitudServicioServi
     @Override
     @Transactional
     public void save(SolicitudServicioEntity solicitud) {
-        solicitudRepository.save(solicitud);
+        boolean nueva = solicitud.getIdSolicitud() == null;
+        SolicitudServicioEntity guardada = solicitudRepository.saveAndFlush(solicitud);
+        if (nueva) {
+            cargaProveedorService.solicitudCreada(proveedorDe(guardada), guardada.getEstado());
+        } else {
+            // Un merge no trae el estado anterior: se recuenta solo ese proveedor
+            cargaProveedorService.recontarSolicitudes(proveedorDe(guardada));
+        }
+        publicar(guardada, nueva);
     }
 
     @Override
     @Transactional
     public void deleteById(Long id) {
+        Optional<SolicitudDuenoView> dueno = solicitudRepository.findDuenoById(id);
         solicitudRepository.deleteById(id);
-    }
-
-    @Override
-    @Transactional(readOnly = true)
-    public List<SolicitudServicioEntity> findByCliente(UsuarioEntity cliente) {
-        return solicitudRepository.findByClienteDeep(cliente); // ← importante
+        despachoRepository.borrarDeSolicitud(id);
+        agendaRepository.borrarDeSolicitud(id).ifPresent(p ->
+                eventos.publishEvent(new AgendaCambiadaEvent(id, p, null, null, null)));
+        dueno.ifPresent(d -> cargaProveedorService.solicitudEliminada(d.getIdProveedor(), d.getEstado()));
     }
 
     @Override
     @Transactional
     public void actualizarSolicitudServicio(SolicitudServicioEntity solicitud) {
         if (solicitud.getIdSolicitud() != null && solicitudRepository.existsById(solicitud.getIdSolicitud())) {
-            solicitudRepository.save(solicitud);
+            SolicitudServicioEntity guardada = solicitudRepository.saveAndFlush(solicitud);
+            cargaProveedorService.recontarSolicitudes(proveedorDe(guardada));
+            publicar(guardada, false);
         }
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SolicitudServicioEntity> findByProveedorId(Long idProveedor) {
-        return solicitudRepository.findByServicio_Proveedor_IdUsuario(idProveedor);
+        return solicitudRepository.findByIdProveedor(idProveedor);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<SolicitudServicioEntity> obtenerSolicitudesPendientes() {
-        return solicitudRepository.findByEstado("PENDIENTE");
+        return solicitudRepository.findByEstado(EstadoSolicitud.PENDIENTE.valor());
     }
 
+    // ===================== Historial keyset =====================
+
     @Override
     @Transactional(readOnly = true)
-    public List<SolicitudServicioEntity> obtenerSolicitudesPorUsuario(UsuarioEntity usuario) {
-        return solicitudRepository.findByClienteDeep(usuario); // ← importante
+    public Slice<SolicitudServicioEntity> historial(SolicitudFiltroDTO filtro, LocalDate cursorFecha,
+                                                    Long cursor, int size) {
+        SolicitudFiltroDTO f = filtro != null ? filtro : new SolicitudFiltroDTO();
+        if (f.soloActivas()) {
+            return solicitudRepository.findActivasDeep(fechaCursor(cursorFecha, cursor), idCursor(cursorFecha, cursor),
+                    desde(f), hasta(f, cursorFecha, cursor), pagina(size));
+        }
+        return solicitudRepository.findAllDeep(fechaCursor(cursorFecha, cursor), idCursor(cursorFecha, cursor),
+                f.getEstado(), desde(f), hasta(f, cursorFecha, cursor), pagina(size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<SolicitudServicioEntity> historialProveedor(Long idProveedor, SolicitudFiltroDTO filtro,
+                                                             LocalDate cursorFecha, Long cursor, int size) {
+        SolicitudFiltroDTO f = filtro != null ? filtro : new SolicitudFiltroDTO();
+        if (f.soloActivas()) {
+            return solicitudRepository.findActivasDeProveedorDeep(idProveedor,
+                    fechaCursor(cursorFecha, cursor), idCursor(cursorFecha, cursor),
+                    desde(f), hasta(f, cursorFecha, cursor), pagina(size));
+        }
+        if (f.getEstado() != null) {
+            return solicitudRepository.findByProveedorYEstadoDeep(idProveedor, f.getEstado(),
+                    fechaCursor(cursorFecha, cursor), idCursor(cursorFecha, cursor),
+                    desde(f), hasta(f, cursorFecha, cursor), pagina(size));
+        }
+        return solicitudRepository.findByProveedorDeep(idProveedor,
+                fechaCursor(cursorFecha, cursor), idCursor(cursorFecha, cursor),
+                desde(f), hasta(f, cursorFecha, cursor), pagina(size));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<SolicitudServicioEntity> findByProveedor(UsuarioEntity proveedor) {
-        return solicitudRepository.findByProveedorDeep(proveedor); // ← importante
+    public Slice<SolicitudServicioEntity> historialCliente(Long idCliente, SolicitudFiltroDTO filtro,
+                                                           LocalDate cursorFecha, Long cursor, int size) {
+        SolicitudFiltroDTO f = filtro != null ? filtro : new SolicitudFiltroDTO();
+        return solicitudRepository.findByClienteDeep(idCliente,
+                fechaCursor(cursorFecha, cursor), idCursor(cursorFecha, cursor),
+                f.soloActivas() ? null : f.getEstado(), desde(f), hasta(f, cursorFecha, cursor), pagina(size));
+    }
+
+    // ===================== Transiciones de estado =====================
+
+    @Override
+    @Transactional
+    public ResultadoTransicion transicionar(Long idSolicitud, EstadoSolicitud hacia, EstadoSolicitud.Actor actor,
+                                            Long idUsuario, boolean fijarFecha, LocalDate fechaEstimada) {
+        List<String> desde = hacia.valoresOrigen(actor);
+        if (idSolicitud == null || desde.isEmpty()) return ResultadoTransicion.NO_PERMITIDA;
+
+        Long idCliente = actor == EstadoSolicitud.Actor.CLIENTE ? idUsuario : null;
+        Long idProveedor = actor == EstadoSolicitud.Actor.PROVEEDOR ? idUsuario : null;
+        if (actor != EstadoSolicitud.Actor.ADMIN && idUsuario == null) return ResultadoTransicion.NO_AUTORIZADO;
+
+        Optional<SolicitudTransicionView> aplicada = solicitudRepository.transicionar(
+                idSolicitud, desde, hacia.valor(), idCliente, idProveedor, fijarFecha, fechaEstimada);
+        if (aplicada.isPresent()) {
+            SolicitudTransicionView t = aplicada.get();
+            cargaProveedorService.solicitudMovida(t.getIdProveedor(), t.getEstadoAnterior(), t.getEstado());
+            eventos.publishEvent(new SolicitudCambiadaEvent(t.getIdSolicitud(), t.getIdServicio(),
+                    t.getIdCliente(), t.getIdProveedor(), t.getEstado(), false));
+            return ResultadoTransicion.APLICADA;
+        }
+        // Sin filas: una lectura más, solo para elegir el mensaje
+        return solicitudRepository.findDuenoById(idSolicitud)
+                .map(d -> (idCliente != null && !idCliente.equals(d.getIdCliente()))
+                        || (idProveedor != null && !idProveedor.equals(d.getIdProveedor()))
+                        ? ResultadoTransicion.NO_AUTORIZADO
+                        : ResultadoTransicion.NO_PERMITIDA)
+                .orElse(ResultadoTransicion.NO_ENCONTRADA);
+    }
+
+    // Cursor incompleto = primera página: (fecha tope, id máximo) deja pasar todo.
+    // LocalDate.MAX no cabe en el tipo date de PostgreSQL, por eso el tope explícito.
+    private static LocalDate fechaCursor(LocalDate cursorFecha, Long cursor) {
+        return cursorFecha != null && cursor != null ? cursorFecha : SIN_CURSOR_FECHA;
+    }
+
+    private static long idCursor(LocalDate cursorFecha, Long cursor) {
+        return cursorFecha != null && cursor != null ? cursor : Long.MAX_VALUE;
+    }
+
+    // Rango de fechas siempre acotado (las consultas usan "between" para que el planner pode particiones).
+    // hasta nunca pasa del cursor: las páginas siguientes solo abren las particiones anteriores a él.
+    private static LocalDate desde(SolicitudFiltroDTO f) {
+        return f.getDesde() != null ? f.getDesde() : SIN_DESDE;
+    }
+
+    private static LocalDate hasta(SolicitudFiltroDTO f, LocalDate cursorFecha, Long cursor) {
+        LocalDate tope = fechaCursor(cursorFecha, cursor);
+        return f.getHasta() != null && f.getHasta().isBefore(tope) ? f.getHasta() : tope;
+    }
+
+    private static PageRequest pagina(int size) {
+        return PageRequest.of(0, Math.min(Math.max(size, 1), MAX_SIZE));
+    }
+
+    // Los oyentes reciben el evento después del commit (@TransactionalEventListener)
+    private void publicar(SolicitudServicioEntity s, boolean nueva) {
+        ServicioEntity servicio = s.getServicio();
+        eventos.publishEvent(new SolicitudCambiadaEvent(
+                s.getIdSolicitud(),
+                servicio != null ? servicio.getIdServicio() : null,
+                s.getCliente() != null ? s.getCliente().getIdUsuario() : null,
+                proveedorDe(s),
+                s.getEstado(),
+                nueva));
+    }
+
+    // Proveedor asignado (ya fijado por el flush: @PrePersist / @PreUpdate); si falta, el dueño del servicio
+    private static Long proveedorDe(SolicitudServicioEntity s) {
+        if (s.getIdProveedor() != null) return s.getIdProveedor();
+        ServicioEntity servicio = s.getServicio();
+        return (servicio != null && servicio.getProveedor() != null) ? servicio.getProveedor().getIdUsuario() : null;
     }
-}
\ No newline at end of file
+}
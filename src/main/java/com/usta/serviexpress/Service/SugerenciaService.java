@@ -0,0 +1,10 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.SugerenciaDTO;
+
+import java.util.List;
+
+public interface SugerenciaService {
+    // Autocompletado por prefijo (nombres de servicio y de proveedor), sin acceso a la BD
+    List<SugerenciaDTO> sugerir(String prefijo, int limite);
+}
@@ -0,0 +1,186 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.ServicioCardDTO;
+import com.usta.serviexpress.DTOs.SugerenciaDTO;
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ConteoServicioView;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.Repository.ServicioRepository;
+import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.search.AnalizadorTexto;
+import com.usta.serviexpress.search.TriePrefijos;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Autocompletado del catálogo desde un trie en memoria (TriePrefijos).
+ * - Entradas: nombres de servicios DISPONIBLES (agrupados por nombre) y nombres de sus proveedores.
+ * - Peso: servicios que la componen + solicitudes recibidas.
+ * - Se carga al arrancar y se mantiene con ServicioCambiadoEvent / SolicitudCambiadaEvent;
+ *   la lectura (sugerir) nunca consulta la BD.
+ */
+@Service
+@RequiredArgsConstructor
+public class SugerenciaServiceImplement implements SugerenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(SugerenciaServiceImplement.class);
+    private static final int LOTE_CARGA = 1000;
+    private static final String TIPO_SERVICIO = "SERVICIO";
+    private static final String TIPO_PROVEEDOR = "PROVEEDOR";
+
+    private final ServicioRepository servicioRepository;
+    private final SolicitudRepository solicitudRepository;
+    private final TriePrefijos trie = new TriePrefijos();
+
+    // Estado de apoyo para recalcular pesos; solo se toca dentro de bloques synchronized
+    private final Map<Long, ServicioCardView> disponibles = new HashMap<>();
+    private final Map<Long, Long> solicitudes = new HashMap<>();
+    private final Map<String, Set<Long>> idsPorNombre = new HashMap<>();
+    private final Map<Long, Set<Long>> idsPorProveedor = new HashMap<>();
+
+    @Override
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        int n = Math.min(Math.max(limite, 1), TriePrefijos.TOP_NODO);
+        return trie.buscar(prefijo, n).stream()
+                .map(e -> new SugerenciaDTO(e.texto(), e.tipo(), e.peso()))
+                .toList();
+    }
+
+    // ===================== Carga inicial =====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void construir() {
+        long inicio = System.nanoTime();
+        trie.limpiar();
+        disponibles.clear();
+        solicitudes.clear();
+        idsPorNombre.clear();
+        idsPorProveedor.clear();
+
+        for (ConteoServicioView c : solicitudRepository.contarPorServicio()) {
+            solicitudes.put(c.getIdServicio(), c.getTotal());
+        }
+        long cursor = Long.MAX_VALUE;
+        Slice<ServicioCardView> lote;
+        do {
+            lote = servicioRepository.findTarjetasByEstado(ServicioEntity.EstadoServicio.DISPONIBLE,
+                    cursor, PageRequest.of(0, LOTE_CARGA));
+            for (ServicioCardView v : lote.getContent()) {
+                registrar(ServicioCardDTO.de(v));
+                cursor = v.getIdServicio();
+            }
+        } while (lote.hasNext());
+
+        idsPorNombre.keySet().forEach(this::publicarNombre);
+        idsPorProveedor.keySet().forEach(this::publicarProveedor);
+        log.info("Autocompletado: {} servicios disponibles indexados en {} ms",
+                disponibles.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ===================== Mantenimiento incremental =====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServicioCambiado(ServicioCambiadoEvent e) {
+        if (e.idServicio() == null) return;
+        Optional<ServicioCardView> actual = e.eliminado()
+                ? Optional.empty()
+                : servicioRepository.findTarjetaById(e.idServicio())
+                        .filter(v -> v.getEstado() == ServicioEntity.EstadoServicio.DISPONIBLE)
+                        .map(ServicioCardDTO::de);
+        aplicar(e.idServicio(), actual.orElse(null));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onSolicitudCambiada(SolicitudCambiadaEvent e) {
+        if (!e.nueva() || e.idServicio() == null) return;
+        solicitudes.merge(e.idServicio(), 1L, Long::sum);
+        ServicioCardView v = disponibles.get(e.idServicio());
+        if (v != null) {
+            publicarNombre(clave(v.getNombre()));
+            if (v.getIdProveedor() != null) publicarProveedor(v.getIdProveedor());
+        }
+    }
+
+    private synchronized void aplicar(Long idServicio, ServicioCardView nuevo) {
+        ServicioCardView anterior = disponibles.remove(idServicio);
+        if (anterior != null) {
+            Set<Long> ids = idsPorNombre.get(clave(anterior.getNombre()));
+            if (ids != null) ids.remove(idServicio);
+            if (anterior.getIdProveedor() != null) {
+                Set<Long> delProveedor = idsPorProveedor.get(anterior.getIdProveedor());
+                if (delProveedor != null) delProveedor.remove(idServicio);
+            }
+        }
+        if (nuevo != null) registrar(nuevo);
+
+        // Solo se recalculan las entradas afectadas (nombre/proveedor anterior y nuevo)
+        if (anterior != null) {
+            publicarNombre(clave(anterior.getNombre()));
+            if (anterior.getIdProveedor() != null) publicarProveedor(anterior.getIdProveedor());
+        }
+        if (nuevo != null) {
+            publicarNombre(clave(nuevo.getNombre()));
+            if (nuevo.getIdProveedor() != null) publicarProveedor(nuevo.getIdProveedor());
+        }
+    }
+
+    // ===================== Internos =====================
+
+    private void registrar(ServicioCardView v) {
+        disponibles.put(v.getIdServicio(), v);
+        idsPorNombre.computeIfAbsent(clave(v.getNombre()), k -> new HashSet<>()).add(v.getIdServicio());
+        if (v.getIdProveedor() != null) {
+            idsPorProveedor.computeIfAbsent(v.getIdProveedor(), k -> new HashSet<>()).add(v.getIdServicio());
+        }
+    }
+
+    private void publicarNombre(String clave) {
+        Set<Long> ids = idsPorNombre.get(clave);
+        if (ids == null || ids.isEmpty()) {
+            idsPorNombre.remove(clave);
+            trie.quitar("S:" + clave);
+            return;
+        }
+        String texto = disponibles.get(ids.iterator().next()).getNombre();
+        trie.poner(new TriePrefijos.Entrada("S:" + clave, texto, TIPO_SERVICIO, peso(ids)));
+    }
+
+    private void publicarProveedor(Long idProveedor) {
+        Set<Long> ids = idsPorProveedor.get(idProveedor);
+        if (ids == null || ids.isEmpty()) {
+            idsPorProveedor.remove(idProveedor);
+            trie.quitar("P:" + idProveedor);
+            return;
+        }
+        String texto = disponibles.get(ids.iterator().next()).getNombreProveedor();
+        if (texto == null || texto.isBlank()) {
+            trie.quitar("P:" + idProveedor);
+            return;
+        }
+        trie.poner(new TriePrefijos.Entrada("P:" + idProveedor, texto, TIPO_PROVEEDOR, peso(ids)));
+    }
+
+    private long peso(Set<Long> ids) {
+        long total = 0;
+        for (Long id : ids) total += 1 + solicitudes.getOrDefault(id, 0L);
+        return total;
+    }
+
+    private static String clave(String nombre) {
+        return AnalizadorTexto.plegar(nombre).trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,6 @@
+package com.usta.serviexpress.Service;
+
+/**
+ * Se publica al guardar o borrar un usuario (perfil, ciudad, disponibilidad, capacidad, ubicación).
+ */
+public record UsuarioActualizadoEvent(Long idUsuario) { }
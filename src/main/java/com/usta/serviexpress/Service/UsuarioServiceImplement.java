@@ -3,13 +3,19 @@ package com.usta.serviexpress.Service;
 import com.usta.serviexpress.Entity.RolEntity;
 import com.usta.serviexpress.Entity.UsuarioEntity;
 import com.usta.serviexpress.Repository.RolRepository;
+import com.usta.serviexpress.Repository.ServicioRepository;
 import com.usta.serviexpress.Repository.UsuarioRepository;
+import com.usta.serviexpress.config.CacheConfig;
+import com.usta.serviexpress.util.CiudadUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +24,8 @@ public class UsuarioServiceImplement implements UsuarioService {
     private final UsuarioRepository usuarioRepository;
     private final RolRepository rolRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ServicioRepository servicioRepository;
+    private final ApplicationEventPublisher eventos;
 
     @Override
     public List<UsuarioEntity> findAll() {
@@ -64,6 +72,7 @@ public class UsuarioServiceImplement implements UsuarioService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PERFIL_PROVEEDOR, key = "#usuario.idUsuario", condition = "#usuario.idUsuario != null")
     public UsuarioEntity save(UsuarioEntity usuario) {
         // Si la clave viene en texto plano, se hashea
         String p = usuario.getClave();
@@ -71,13 +80,31 @@ public class UsuarioServiceImplement implements UsuarioService {
                 && !p.startsWith("$2a$") && !p.startsWith("$2b$") && !p.startsWith("$2y$")) {
             usuario.setClave(passwordEncoder.encode(p));
         }
-        return usuarioRepository.save(usuario);
+        String ciudadAnterior = usuario.getIdUsuario() != null
+                ? usuarioRepository.findCiudadClaveById(usuario.getIdUsuario()).orElse(null)
+                : null;
+        UsuarioEntity guardado = usuarioRepository.save(usuario);
+        sincronizarCiudadServicios(guardado, ciudadAnterior);
+        eventos.publishEvent(new UsuarioActualizadoEvent(guardado.getIdUsuario()));
+        return guardado;
+    }
+
+    // Si el proveedor cambió de ciudad, se actualiza la copia en sus servicios (catálogo por ciudad)
+    private void sincronizarCiudadServicios(UsuarioEntity usuario, String ciudadAnterior) {
+        String ciudadNueva = CiudadUtils.clave(usuario.getCiudad());
+        if (usuario.getIdUsuario() == null || Objects.equals(ciudadAnterior, ciudadNueva)) return;
+        List<Long> ids = servicioRepository.findIdsByProveedor(usuario.getIdUsuario());
+        if (ids.isEmpty()) return;
+        servicioRepository.actualizarCiudadDeProveedor(usuario.getIdUsuario(), ciudadNueva);
+        ids.forEach(id -> eventos.publishEvent(new ServicioCambiadoEvent(id, usuario.getIdUsuario(), false)));
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PERFIL_PROVEEDOR, key = "#id")
     public void deleteById(Long id) {
         usuarioRepository.deleteById(id);
+        eventos.publishEvent(new UsuarioActualizadoEvent(id));
     }
 
     @Override
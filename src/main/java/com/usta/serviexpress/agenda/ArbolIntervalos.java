@@ -0,0 +1,226 @@
+package com.usta.serviexpress.agenda;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agenda de un proveedor como árbol de intervalos [inicio, fin) en minutos (AVL aumentado). Cada nodo guarda
+ * el mayor fin, el menor inicio y el mayor hueco de su subárbol, así solapado y siguienteLibre descartan
+ * subárboles enteros en O(log n). siguienteLibre supone intervalos disjuntos (la agenda y ex_agenda_solape lo
+ * garantizan). No es thread-safe: AgendaServiceImplement sincroniza sobre el árbol de cada proveedor.
+ */
+public final class ArbolIntervalos {
+
+    public record Intervalo(long id, long inicio, long fin) { }
+
+    private static final long SIN_HUECO = Long.MIN_VALUE;
+    // Después del último intervalo el hueco no tiene fin
+    private static final long SIN_SIGUIENTE = Long.MAX_VALUE;
+
+    private static final class Nodo {
+        final Intervalo intervalo;
+        Nodo izq;
+        Nodo der;
+        int altura = 1;
+        long minInicio;
+        long maxFin;
+        long maxHueco;
+
+        Nodo(Intervalo intervalo) {
+            this.intervalo = intervalo;
+            actualizar(this);
+        }
+    }
+
+    private Nodo raiz;
+    private final Map<Long, Intervalo> porId = new HashMap<>();
+
+    // ===================== Escritura =====================
+
+    public void poner(Intervalo intervalo) {
+        quitar(intervalo.id());
+        raiz = insertar(raiz, intervalo);
+        porId.put(intervalo.id(), intervalo);
+    }
+
+    /** Quita el intervalo con ese id y lo devuelve (null si no estaba). */
+    public Intervalo quitar(long id) {
+        Intervalo i = porId.remove(id);
+        if (i != null) raiz = borrar(raiz, i);
+        return i;
+    }
+
+    // ===================== Lectura =====================
+
+    public int tamano() {
+        return porId.size();
+    }
+
+    public Intervalo get(long id) {
+        return porId.get(id);
+    }
+
+    /** Algún intervalo que se cruza con [inicio, fin); null si el rango está libre. */
+    public Intervalo solapado(long inicio, long fin) {
+        Nodo n = raiz;
+        while (n != null) {
+            Intervalo i = n.intervalo;
+            if (i.inicio() < fin && inicio < i.fin()) return i;
+            // Si algo a la izquierda termina después de inicio, un cruce (si existe) está a la izquierda
+            n = (n.izq != null && n.izq.maxFin > inicio) ? n.izq : n.der;
+        }
+        return null;
+    }
+
+    /** Primer minuto m >= desde tal que [m, m + duracion) no se cruza con ningún intervalo. */
+    public long siguienteLibre(long desde, long duracion) {
+        long s = desde;
+        // Disjuntos: a lo sumo un intervalo contiene a desde; se empieza en su fin
+        Intervalo contiene = solapado(s, s + 1);
+        if (contiene != null) s = contiene.fin();
+
+        Nodo siguiente = primeroDesde(s);
+        if (siguiente == null || siguiente.intervalo.inicio() - s >= duracion) return s;
+        // El hueco antes del siguiente no alcanza: el primer intervalo (desde ese) seguido de un hueco suficiente
+        return buscar(raiz, siguiente.intervalo.inicio(), duracion, SIN_SIGUIENTE);
+    }
+
+    // ===================== Búsquedas internas =====================
+
+    // Nodo con el menor inicio >= k
+    private Nodo primeroDesde(long k) {
+        Nodo n = raiz;
+        Nodo mejor = null;
+        while (n != null) {
+            if (n.intervalo.inicio() >= k) {
+                mejor = n;
+                n = n.izq;
+            } else {
+                n = n.der;
+            }
+        }
+        return mejor;
+    }
+
+    // Fin del primer intervalo con inicio >= k seguido de un hueco >= d. sig es el inicio del intervalo
+    // que sigue a este subárbol en orden. El último intervalo tiene hueco infinito, así que desde la raíz
+    // siempre hay respuesta.
+    private static Long buscar(Nodo n, long k, long d, long sig) {
+        if (n == null) return null;
+        if (n.intervalo.inicio() < k) return buscar(n.der, k, d, sig);
+        Long enIzq = buscar(n.izq, k, d, n.intervalo.inicio());
+        if (enIzq != null) return enIzq;
+        if (hueco(n.intervalo.fin(), n.der != null ? n.der.minInicio : sig) >= d) return n.intervalo.fin();
+        return primero(n.der, d, sig);
+    }
+
+    // Igual que buscar, sin cota por inicio; poda con los agregados: solo baja si la respuesta está ahí
+    private static Long primero(Nodo n, long d, long sig) {
+        if (n == null || !tieneHueco(n, d, sig)) return null;
+        Long enIzq = primero(n.izq, d, n.intervalo.inicio());
+        if (enIzq != null) return enIzq;
+        if (hueco(n.intervalo.fin(), n.der != null ? n.der.minInicio : sig) >= d) return n.intervalo.fin();
+        return primero(n.der, d, sig);
+    }
+
+    // ¿Algún intervalo del subárbol va seguido de un hueco >= d? (uno interno o el del último hasta sig)
+    private static boolean tieneHueco(Nodo n, long d, long sig) {
+        return n.maxHueco >= d || hueco(n.maxFin, sig) >= d;
+    }
+
+    private static long hueco(long fin, long siguienteInicio) {
+        return siguienteInicio == SIN_SIGUIENTE ? SIN_SIGUIENTE : siguienteInicio - fin;
+    }
+
+    // ===================== AVL =====================
+
+    private static int comparar(Intervalo a, Intervalo b) {
+        int c = Long.compare(a.inicio(), b.inicio());
+        return c != 0 ? c : Long.compare(a.id(), b.id());
+    }
+
+    private static Nodo insertar(Nodo n, Intervalo i) {
+        if (n == null) return new Nodo(i);
+        if (comparar(i, n.intervalo) < 0) n.izq = insertar(n.izq, i);
+        else n.der = insertar(n.der, i);
+        return balancear(n);
+    }
+
+    private static Nodo borrar(Nodo n, Intervalo i) {
+        if (n == null) return null;
+        int c = comparar(i, n.intervalo);
+        if (c < 0) {
+            n.izq = borrar(n.izq, i);
+        } else if (c > 0) {
+            n.der = borrar(n.der, i);
+        } else {
+            if (n.izq == null) return n.der;
+            if (n.der == null) return n.izq;
+            Nodo sucesor = n.der;
+            while (sucesor.izq != null) sucesor = sucesor.izq;
+            Nodo reemplazo = new Nodo(sucesor.intervalo);
+            reemplazo.der = borrar(n.der, sucesor.intervalo);
+            reemplazo.izq = n.izq;
+            n = reemplazo;
+        }
+        return balancear(n);
+    }
+
+    private static Nodo balancear(Nodo n) {
+        actualizar(n);
+        int factor = altura(n.izq) - altura(n.der);
+        if (factor > 1) {
+            if (altura(n.izq.izq) < altura(n.izq.der)) n.izq = rotarIzq(n.izq);
+            return rotarDer(n);
+        }
+        if (factor < -1) {
+            if (altura(n.der.der) < altura(n.der.izq)) n.der = rotarDer(n.der);
+            return rotarIzq(n);
+        }
+        return n;
+    }
+
+    private static Nodo rotarDer(Nodo n) {
+        Nodo l = n.izq;
+        n.izq = l.der;
+        l.der = n;
+        actualizar(n);
+        actualizar(l);
+        return l;
+    }
+
+    private static Nodo rotarIzq(Nodo n) {
+        Nodo r = n.der;
+        n.der = r.izq;
+        r.izq = n;
+        actualizar(n);
+        actualizar(r);
+        return r;
+    }
+
+    private static int altura(Nodo n) {
+        return n != null ? n.altura : 0;
+    }
+
+    // Recalcula altura y agregados a partir de los hijos (que ya están al día)
+    private static void actualizar(Nodo n) {
+        Nodo l = n.izq;
+        Nodo r = n.der;
+        Intervalo i = n.intervalo;
+        n.altura = 1 + Math.max(altura(l), altura(r));
+        n.minInicio = l != null ? l.minInicio : i.inicio();
+
+        long maxFin = i.fin();
+        long maxHueco = SIN_HUECO;
+        if (l != null) {
+            maxFin = Math.max(maxFin, l.maxFin);
+            maxHueco = Math.max(maxHueco, Math.max(l.maxHueco, i.inicio() - l.maxFin));
+        }
+        if (r != null) {
+            maxFin = Math.max(maxFin, r.maxFin);
+            maxHueco = Math.max(maxHueco, Math.max(r.maxHueco, r.minInicio - i.fin()));
+        }
+        n.maxFin = maxFin;
+        n.maxHueco = maxHueco;
+    }
+}
@@ -0,0 +1,53 @@
+package com.usta.serviexpress.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cachés en memoria del catálogo (Caffeine): acotadas por tamaño y con expiración por TTL.
+ * Las estadísticas (hits/misses/evictions) se publican en /actuator/metrics/cache.*
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String SERVICIO_POR_ID = "servicioPorId";
+    public static final String SERVICIOS_DISPONIBLES = "serviciosDisponibles";
+    public static final String SERVICIOS_POR_PROVEEDOR = "serviciosPorProveedor";
+    public static final String PERFIL_PROVEEDOR = "perfilProveedor";
+
+    @Value("${catalogo.cache.por-id.max:10000}")          private long porIdMax;
+    @Value("${catalogo.cache.por-id.ttl:10m}")            private Duration porIdTtl;
+    @Value("${catalogo.cache.disponibles.max:500}")       private long disponiblesMax;
+    @Value("${catalogo.cache.disponibles.ttl:2m}")        private Duration disponiblesTtl;
+    @Value("${catalogo.cache.por-proveedor.max:2000}")    private long porProveedorMax;
+    @Value("${catalogo.cache.por-proveedor.ttl:5m}")      private Duration porProveedorTtl;
+    @Value("${catalogo.cache.perfil.max:5000}")           private long perfilMax;
+    @Value("${catalogo.cache.perfil.ttl:30m}")            private Duration perfilTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setAllowNullValues(false);
+        manager.registerCustomCache(SERVICIO_POR_ID, spec(porIdMax, porIdTtl));
+        manager.registerCustomCache(SERVICIOS_DISPONIBLES, spec(disponiblesMax, disponiblesTtl));
+        manager.registerCustomCache(SERVICIOS_POR_PROVEEDOR, spec(porProveedorMax, porProveedorTtl));
+        manager.registerCustomCache(PERFIL_PROVEEDOR, spec(perfilMax, perfilTtl));
+        return manager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> spec(long max, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(max)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -92,6 +92,10 @@ public class SecurityConfig {
 
                         // zonas con rol
                         .requestMatchers("/Admins/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        // Perfil público del proveedor (el resto de /proveedor es privado)
+                        .requestMatchers("/proveedor/*/perfil").permitAll()
                         .requestMatchers("/proveedor/**").hasAnyRole("PROVEEDOR", "ADMIN")
 
                         .anyRequest().authenticated()
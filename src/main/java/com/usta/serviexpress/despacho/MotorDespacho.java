@@ -0,0 +1,231 @@
+package com.usta.serviexpress.despacho;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor de despacho en memoria: una cola por ciudad con los proveedores disponibles y con cupo, ordenada
+ * por calificación (Wilson) y ocupación. Reservar cupo es un compare-and-set sobre la carga del proveedor,
+ * así dos tomas simultáneas no lo sobrepasan. Reubicar a un proveedor en su cola se serializa con su propio
+ * monitor; mientras tanto un lector puede no verlo un instante. La distancia depende de la solicitud y solo
+ * re-ordena los primeros `ventana` de la cola: un proveedor cercano fuera de esa ventana no se considera.
+ */
+public final class MotorDespacho {
+
+    /** Datos del proveedor que no dependen de la solicitud; calificacion en estrellas (1..5). */
+    public record Perfil(long idProveedor, String ciudad, boolean disponible, int capacidad,
+                         double calificacion, Double latitud, Double longitud) {
+
+        public Perfil conCalificacion(double nueva) {
+            return new Perfil(idProveedor, ciudad, disponible, capacidad, nueva, latitud, longitud);
+        }
+    }
+
+    /** Proveedor elegido para una solicitud; distanciaKm es null si falta alguna de las dos ubicaciones. */
+    public record Candidato(long idProveedor, double puntaje, Double distanciaKm) { }
+
+    /** Pesos del puntaje; la penalización por distancia satura en radioKm. */
+    public record Pesos(double calificacion, double carga, double distancia, double radioKm) { }
+
+    // Clave de la cola; la prioridad se fija al entrar y se re-inserta cuando cambia
+    private record Entrada(long idProveedor, double prioridad) { }
+
+    // Mayor prioridad primero; el id desempata para que el orden sea total
+    private static final Comparator<Entrada> ORDEN = Comparator
+            .comparingDouble(Entrada::prioridad).reversed()
+            .thenComparingLong(Entrada::idProveedor);
+
+    private static final Comparator<Candidato> POR_PUNTAJE = Comparator
+            .comparingDouble(Candidato::puntaje).reversed()
+            .thenComparingLong(Candidato::idProveedor);
+
+    private static final double RADIO_TIERRA_KM = 6371.0088;
+    // Sin ubicación no se premia ni se castiga del todo: mitad de la penalización máxima
+    private static final double PENALIZACION_SIN_UBICACION = 0.5;
+
+    private final Pesos pesos;
+    private final int ventana;
+    private final ConcurrentHashMap<Long, Estado> proveedores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Entrada>> colas = new ConcurrentHashMap<>();
+
+    // Estado vivo de un proveedor; su monitor serializa sus reubicaciones
+    private static final class Estado {
+        final AtomicInteger carga = new AtomicInteger();
+        volatile Perfil perfil;
+        // Dónde está ahora en las colas (null = fuera); solo se toca con el monitor tomado
+        String ciudadEnCola;
+        Entrada entrada;
+
+        Estado(Perfil perfil) {
+            this.perfil = perfil;
+        }
+    }
+
+    public MotorDespacho(Pesos pesos, int ventana) {
+        this.pesos = pesos;
+        this.ventana = Math.max(ventana, 1);
+    }
+
+    // ===================== Escritura =====================
+
+    public void poner(Perfil perfil) {
+        Estado e = proveedores.computeIfAbsent(perfil.idProveedor(), id -> new Estado(perfil));
+        e.perfil = perfil;
+        reubicar(e);
+    }
+
+    public void quitar(long idProveedor) {
+        Estado e = proveedores.remove(idProveedor);
+        if (e == null) return;
+        synchronized (e) {
+            salir(e);
+        }
+    }
+
+    /** Fija la carga (solicitudes activas) leída de los contadores de provider_workload. */
+    public void fijarCarga(long idProveedor, int carga) {
+        Estado e = proveedores.get(idProveedor);
+        if (e == null) return;
+        e.carga.set(Math.max(carga, 0));
+        reubicar(e);
+    }
+
+    /** Reserva un cupo (compare-and-set contra la capacidad); false si no está, no está disponible o está lleno. */
+    public boolean reservar(long idProveedor) {
+        Estado e = proveedores.get(idProveedor);
+        if (e == null) return false;
+        Perfil p = e.perfil;
+        if (!p.disponible()) return false;
+        int actual;
+        do {
+            actual = e.carga.get();
+            if (actual >= p.capacidad()) return false;
+        } while (!e.carga.compareAndSet(actual, actual + 1));
+        reubicar(e);
+        return true;
+    }
+
+    /** Devuelve un cupo reservado que no se usó. */
+    public void liberar(long idProveedor) {
+        Estado e = proveedores.get(idProveedor);
+        if (e == null) return;
+        e.carga.updateAndGet(c -> Math.max(c - 1, 0));
+        reubicar(e);
+    }
+
+    // ===================== Lectura =====================
+
+    public boolean contiene(long idProveedor) {
+        return proveedores.containsKey(idProveedor);
+    }
+
+    public Perfil perfil(long idProveedor) {
+        Estado e = proveedores.get(idProveedor);
+        return e != null ? e.perfil : null;
+    }
+
+    public int carga(long idProveedor) {
+        Estado e = proveedores.get(idProveedor);
+        return e != null ? e.carga.get() : 0;
+    }
+
+    public int proveedores() {
+        return proveedores.size();
+    }
+
+    public Set<Long> ids() {
+        return Set.copyOf(proveedores.keySet());
+    }
+
+    /**
+     * ¿El proveedor puede quedarse con una solicitud que ya cuenta en su carga? (el dueño del servicio
+     * al crearla: los contadores ya la incluyen, por eso el límite es inclusivo).
+     */
+    public boolean admite(long idProveedor) {
+        Estado e = proveedores.get(idProveedor);
+        if (e == null) return false;
+        Perfil p = e.perfil;
+        return p.disponible() && e.carga.get() <= p.capacidad();
+    }
+
+    /**
+     * Los n mejores de la ciudad para una solicitud en (latitud, longitud), sin reservar cupo.
+     * Recorre solo los primeros `ventana` de la cola y los re-ordena con la distancia.
+     */
+    public List<Candidato> candidatos(String ciudad, Double latitud, Double longitud, Set<Long> excluir, int n) {
+        if (ciudad == null || n <= 0) return List.of();
+        ConcurrentSkipListSet<Entrada> cola = colas.get(ciudad);
+        if (cola == null) return List.of();
+
+        List<Candidato> vistos = new ArrayList<>();
+        int recorridos = 0;
+        for (Entrada en : cola) {
+            if (recorridos++ >= ventana) break;
+            if (excluir.contains(en.idProveedor())) continue;
+            Perfil p = perfil(en.idProveedor());
+            if (p == null) continue;
+            Double km = distanciaKm(p.latitud(), p.longitud(), latitud, longitud);
+            vistos.add(new Candidato(p.idProveedor(), en.prioridad() - pesos.distancia() * penalizacion(km), km));
+        }
+        vistos.sort(POR_PUNTAJE);
+        return vistos.size() > n ? List.copyOf(vistos.subList(0, n)) : vistos;
+    }
+
+    /** Distancia de gran círculo (haversine); null si falta alguna coordenada. */
+    public static Double distanciaKm(Double lat1, Double lon1, Double lat2, Double lon2) {
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) return null;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1d, Math.sqrt(a)));
+    }
+
+    // ===================== Internos =====================
+
+    // Saca al proveedor de su cola y lo vuelve a poner con la prioridad actual (o lo deja fuera)
+    private void reubicar(Estado e) {
+        synchronized (e) {
+            Perfil p = e.perfil;
+            int carga = e.carga.get();
+            // Un quitar() concurrente ya lo sacó del mapa: no debe volver a una cola
+            boolean vigente = proveedores.get(p.idProveedor()) == e;
+            if (!vigente || !p.disponible() || p.ciudad() == null || carga >= p.capacidad()) {
+                salir(e);
+                return;
+            }
+            Entrada nueva = new Entrada(p.idProveedor(), prioridad(p, carga));
+            if (nueva.equals(e.entrada) && p.ciudad().equals(e.ciudadEnCola)) return;
+            salir(e);
+            colas.computeIfAbsent(p.ciudad(), c -> new ConcurrentSkipListSet<>(ORDEN)).add(nueva);
+            e.entrada = nueva;
+            e.ciudadEnCola = p.ciudad();
+        }
+    }
+
+    private void salir(Estado e) {
+        if (e.entrada == null) return;
+        ConcurrentSkipListSet<Entrada> cola = colas.get(e.ciudadEnCola);
+        if (cola != null) cola.remove(e.entrada);
+        e.entrada = null;
+        e.ciudadEnCola = null;
+    }
+
+    // Calificación llevada a 0..1 menos ocupación 0..1, cada una con su peso
+    private double prioridad(Perfil p, int carga) {
+        double calificacion = (Math.min(Math.max(p.calificacion(), 1d), 5d) - 1d) / 4d;
+        double ocupacion = (double) carga / p.capacidad();
+        return pesos.calificacion() * calificacion - pesos.carga() * ocupacion;
+    }
+
+    private double penalizacion(Double km) {
+        if (km == null) return PENALIZACION_SIN_UBICACION;
+        return pesos.radioKm() > 0 ? Math.min(km / pesos.radioKm(), 1d) : 0d;
+    }
+}
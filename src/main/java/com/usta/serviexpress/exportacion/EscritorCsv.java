@@ -0,0 +1,83 @@
+package com.usta.serviexpress.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+
+/**
+ * CSV RFC 4180 en UTF-8 con BOM (Excel lo necesita para leer las tildes).
+ * Los textos que empiezan como una fórmula (=, +, -, @) se escapan con un apóstrofo: el archivo se
+ * abre en hojas de cálculo y esos campos vienen de texto libre de los usuarios.
+ */
+final class EscritorCsv implements EscritorFilas {
+
+    private static final int BUFFER = 64 * 1024;
+    private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+    private long filas;
+
+    EscritorCsv(OutputStream destino, List<String> columnas) throws IOException {
+        // close() del Writer no debe cerrar el destino
+        OutputStream sinCerrar = new FilterOutputStream(destino) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        this.writer = new BufferedWriter(new OutputStreamWriter(sinCerrar, StandardCharsets.UTF_8), BUFFER);
+        writer.write('\uFEFF');
+        escribir(columnas.toArray());
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        escribir(valores);
+        filas++;
+    }
+
+    @Override
+    public long filas() {
+        return filas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void escribir(Object[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(campo(valores[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String campo(Object valor) {
+        if (valor == null) return "";
+        if (valor instanceof BigDecimal d) return d.toPlainString();
+        if (valor instanceof Number n) return n.toString();
+        if (valor instanceof LocalDateTime t) return FECHA_HORA.format(t);
+        if (valor instanceof TemporalAccessor t) return t.toString();
+        String texto = valor instanceof Enum<?> e ? e.name() : valor.toString();
+        if (!texto.isEmpty() && "=+-@\t\r".indexOf(texto.charAt(0)) >= 0) texto = "'" + texto;
+        boolean comillas = texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0;
+        return comillas ? '"' + texto.replace("\"", "\"\"") + '"' : texto;
+    }
+}
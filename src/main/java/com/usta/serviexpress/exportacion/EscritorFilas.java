@@ -0,0 +1,28 @@
+package com.usta.serviexpress.exportacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Escribe una tabla fila a fila sobre un OutputStream, sin acumular filas en memoria.
+ * Valores admitidos: null (celda vacía), String, Number, enums y fechas de java.time.
+ * close() termina el formato y vacía los buffers, pero no cierra el stream de destino
+ * (el que lo abrió lo cierra, p. ej. después de terminar el gzip).
+ */
+public interface EscritorFilas extends Closeable {
+
+    void fila(Object... valores) throws IOException;
+
+    /** Filas de datos escritas hasta ahora (sin contar cabeceras). */
+    long filas();
+
+    static EscritorFilas abrir(FormatoExportacion formato, OutputStream destino,
+                               String nombre, List<String> columnas) throws IOException {
+        return switch (formato) {
+            case CSV -> new EscritorCsv(destino, columnas);
+            case XLSX -> new EscritorXlsx(destino, nombre, columnas);
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package com.usta.serviexpress.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX escrito a mano en streaming: cada fila va directo a la entrada comprimida de su hoja. Los textos van
+ * como inlineStr porque una tabla de cadenas compartidas obligaría a guardarlas todas. Al llegar a 1.048.576
+ * filas se abre otra hoja; workbook.xml se escribe al final, cuando ya se sabe cuántas hay.
+ */
+final class EscritorXlsx implements EscritorFilas {
+
+    private static final int BUFFER = 64 * 1024;
+    // Filas por hoja, cabecera incluida (límite de Excel)
+    private static final int MAX_FILAS_HOJA = 1_048_576;
+    private static final int MAX_NOMBRE_HOJA = 31;
+    private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PKG_REL = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final String nombre;
+    private final List<String> columnas;
+    private int hojas;
+    private int filasHoja;
+    private long filas;
+
+    EscritorXlsx(OutputStream destino, String nombre, List<String> columnas) throws IOException {
+        this.zip = new ZipOutputStream(destino, StandardCharsets.UTF_8);
+        // Writer único sobre el zip: se vacía antes de cerrar cada entrada y nunca se cierra (cerraría el destino)
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER);
+        this.nombre = nombreHoja(nombre);
+        this.columnas = columnas;
+
+        entrada("[Content_Types].xml", XML
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "</Types>");
+        entrada("_rels/.rels", XML
+                + "<Relationships xmlns=\"" + NS_PKG_REL + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        abrirHoja();
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        if (filasHoja >= MAX_FILAS_HOJA) {
+            cerrarHoja();
+            abrirHoja();
+        }
+        escribir(valores);
+        filas++;
+    }
+
+    @Override
+    public long filas() {
+        return filas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        cerrarHoja();
+
+        StringBuilder libro = new StringBuilder(XML)
+                .append("<workbook xmlns=\"").append(NS_MAIN).append("\" xmlns:r=\"").append(NS_REL).append("\"><sheets>");
+        StringBuilder relaciones = new StringBuilder(XML)
+                .append("<Relationships xmlns=\"").append(NS_PKG_REL).append("\">");
+        for (int i = 1; i <= hojas; i++) {
+            libro.append("<sheet name=\"").append(escapar(tituloHoja(i))).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+            relaciones.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(NS_REL)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        entrada("xl/workbook.xml", libro.append("</sheets></workbook>").toString());
+        entrada("xl/_rels/workbook.xml.rels", relaciones.append("</Relationships>").toString());
+        zip.finish();
+    }
+
+    // ===================== Hojas =====================
+
+    private void abrirHoja() throws IOException {
+        hojas++;
+        filasHoja = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + hojas + ".xml"));
+        writer.write(XML);
+        writer.write("<worksheet xmlns=\"" + NS_MAIN + "\"><sheetData>");
+        escribir(columnas.toArray());
+    }
+
+    private void cerrarHoja() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void entrada(String ruta, String contenido) throws IOException {
+        zip.putNextEntry(new ZipEntry(ruta));
+        writer.write(contenido);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private String tituloHoja(int i) {
+        if (i == 1) return nombre;
+        String sufijo = " " + i;
+        return nombre.substring(0, Math.min(nombre.length(), MAX_NOMBRE_HOJA - sufijo.length())) + sufijo;
+    }
+
+    // ===================== Celdas =====================
+
+    private void escribir(Object[] valores) throws IOException {
+        writer.write("<row>");
+        for (Object valor : valores) {
+            if (valor == null) {
+                writer.write("<c/>");
+            } else if (valor instanceof Number n && esFinito(n)) {
+                writer.write("<c><v>");
+                writer.write(n instanceof BigDecimal d ? d.toPlainString() : n.toString());
+                writer.write("</v></c>");
+            } else {
+                writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writer.write(escapar(texto(valor)));
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+        filasHoja++;
+    }
+
+    private static boolean esFinito(Number n) {
+        return !(n instanceof Double d && !Double.isFinite(d)) && !(n instanceof Float f && !Float.isFinite(f));
+    }
+
+    private static String texto(Object valor) {
+        if (valor instanceof LocalDateTime t) return FECHA_HORA.format(t);
+        if (valor instanceof TemporalAccessor t) return t.toString();
+        if (valor instanceof Enum<?> e) return e.name();
+        return valor.toString();
+    }
+
+    // Escapa XML y descarta los caracteres de control que XML 1.0 no admite
+    private static String escapar(String texto) {
+        StringBuilder sb = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            String reemplazo = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> (c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF ? "" : null;
+            };
+            if (reemplazo != null && sb == null) sb = new StringBuilder(texto.length() + 16).append(texto, 0, i);
+            if (sb != null) {
+                if (reemplazo != null) sb.append(reemplazo);
+                else sb.append(c);
+            }
+        }
+        return sb != null ? sb.toString() : texto;
+    }
+
+    // Excel no admite [ ] : * ? / \ en el nombre de una hoja y lo corta a 31 caracteres
+    private static String nombreHoja(String nombre) {
+        String limpio = nombre == null ? "" : nombre.replaceAll("[\\[\\]:*?/\\\\]", " ").trim();
+        if (limpio.isEmpty()) limpio = "Hoja";
+        return limpio.length() > MAX_NOMBRE_HOJA ? limpio.substring(0, MAX_NOMBRE_HOJA) : limpio;
+    }
+}
@@ -0,0 +1,37 @@
+package com.usta.serviexpress.exportacion;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/** Formatos de las exportaciones del administrador: tipo de contenido y extensión del archivo. */
+public enum FormatoExportacion {
+
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /** Formato por nombre o extensión, sin distinguir mayúsculas; vacío si no se reconoce. */
+    public static Optional<FormatoExportacion> de(String texto) {
+        if (texto == null || texto.isBlank()) return Optional.empty();
+        try {
+            return Optional.of(valueOf(texto.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+}
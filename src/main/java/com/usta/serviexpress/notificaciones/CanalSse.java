@@ -0,0 +1,87 @@
+package com.usta.serviexpress.notificaciones;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Una conexión SSE abierta: emisor + buffer acotado. Encolar nunca bloquea; un hilo del pool de
+ * NotificacionesSse drena. Si el buffer se llena se descarta el mensaje más antiguo y, al reanudar, se envía
+ * un "resync" para que la página se recargue. Un solo drenador a la vez (flag drenando), que re-verifica el
+ * buffer al soltar el flag para no perder lo encolado durante el envío. Un mensaje sin nombre es un latido.
+ */
+final class CanalSse {
+
+    /** Mensaje pendiente; se arma el SseEventBuilder al enviar (el builder no es reutilizable). */
+    record Mensaje(String nombre, Object datos) {
+        static final Mensaje LATIDO = new Mensaje(null, null);
+    }
+
+    private final long idUsuario;
+    private final boolean admin;
+    private final SseEmitter emitter;
+    private final ArrayBlockingQueue<Mensaje> buffer;
+    private final AtomicBoolean drenando = new AtomicBoolean(false);
+    private final AtomicBoolean desbordado = new AtomicBoolean(false);
+    private volatile boolean cerrado;
+
+    CanalSse(long idUsuario, boolean admin, SseEmitter emitter, int capacidad) {
+        this.idUsuario = idUsuario;
+        this.admin = admin;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(capacidad, 1));
+    }
+
+    long idUsuario() { return idUsuario; }
+    boolean admin() { return admin; }
+    SseEmitter emitter() { return emitter; }
+    boolean cerrado() { return cerrado; }
+
+    /** No bloquea: con el buffer lleno descarta el más antiguo y marca el canal para resync. */
+    boolean encolar(Mensaje m) {
+        if (cerrado) return false;
+        while (!buffer.offer(m)) {
+            if (buffer.poll() != null) desbordado.set(true);
+        }
+        return true;
+    }
+
+    /** Envía todo lo pendiente; si otro hilo ya está drenando, él se encarga. */
+    void drenar() {
+        while (!cerrado && (!buffer.isEmpty() || desbordado.get())) {
+            if (!drenando.compareAndSet(false, true)) return;
+            try {
+                if (desbordado.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().name("resync").data(Map.of("motivo", "buffer"), MediaType.APPLICATION_JSON));
+                }
+                Mensaje m;
+                while (!cerrado && (m = buffer.poll()) != null) {
+                    emitter.send(m.nombre() == null
+                            ? SseEmitter.event().comment("latido")
+                            : SseEmitter.event().name(m.nombre()).data(m.datos(), MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // Cliente desconectado o emisor ya completado
+                cerrar();
+                return;
+            } finally {
+                drenando.set(false);
+            }
+        }
+    }
+
+    void cerrar() {
+        if (cerrado) return;
+        cerrado = true;
+        buffer.clear();
+        try {
+            emitter.complete();
+        } catch (IllegalStateException ignored) {
+            // ya completado
+        }
+    }
+}
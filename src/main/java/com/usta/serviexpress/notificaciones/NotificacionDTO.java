@@ -0,0 +1,7 @@
+package com.usta.serviexpress.notificaciones;
+
+/**
+ * Cuerpo JSON de los eventos SSE; solo identificadores y estado, la página pide el resto si lo necesita.
+ * tipo: SOLICITUD_CREADA | SOLICITUD_ESTADO | PAGO_ESTADO | DESPACHO_{ASIGNADA, OFERTADA, TOMADA, SIN_CANDIDATOS}.
+ */
+public record NotificacionDTO(String tipo, Long idSolicitud, Long idServicio, Long idPago, String estado) { }
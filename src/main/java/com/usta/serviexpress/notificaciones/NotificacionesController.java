@@ -0,0 +1,38 @@
+package com.usta.serviexpress.notificaciones;
+
+import com.usta.serviexpress.Entity.UsuarioEntity;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/notificaciones")
+public class NotificacionesController {
+
+    private final NotificacionesSse sse;
+
+    /**
+     * Canal SSE del usuario en sesión. Eventos: "conectado", "solicitud" y "pago" (JSON NotificacionDTO)
+     * y "resync" si se perdieron mensajes por buffer lleno. Los latidos llegan como comentarios.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(HttpSession session, HttpServletResponse response) {
+        UsuarioEntity usuario = (UsuarioEntity) session.getAttribute("usuarioSesion");
+        if (usuario == null || usuario.getIdUsuario() == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        boolean admin = usuario.getRol() != null && "ADMIN".equalsIgnoreCase(usuario.getRol().getRol());
+        // Evita que un proxy (nginx) acumule el flujo antes de entregarlo
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-cache");
+        return sse.abrir(usuario.getIdUsuario(), admin);
+    }
+}
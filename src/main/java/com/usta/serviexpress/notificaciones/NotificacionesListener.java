@@ -0,0 +1,47 @@
+package com.usta.serviexpress.notificaciones;
+
+import com.usta.serviexpress.Service.DespachoRealizadoEvent;
+import com.usta.serviexpress.Service.PagoActualizadoEvent;
+import com.usta.serviexpress.Service.SolicitudCambiadaEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+
+/**
+ * Traduce los eventos de dominio a notificaciones SSE, solo después del commit (nunca se avisa
+ * de un cambio que luego se revierte). Destinatarios: cliente y proveedor de la solicitud y los
+ * administradores conectados. Despacho: solo los proveedores del evento (asignado, candidatos de la
+ * oferta o el dueño cuando otro la toma).
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificacionesListener {
+
+    static final String EVENTO_SOLICITUD = "solicitud";
+    static final String EVENTO_PAGO = "pago";
+    static final String EVENTO_DESPACHO = "despacho";
+
+    private final NotificacionesSse sse;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarSolicitud(SolicitudCambiadaEvent e) {
+        NotificacionDTO n = new NotificacionDTO(e.nueva() ? "SOLICITUD_CREADA" : "SOLICITUD_ESTADO",
+                e.idSolicitud(), e.idServicio(), null, e.estado());
+        sse.enviar(Arrays.asList(e.idCliente(), e.idProveedor()), true, EVENTO_SOLICITUD, n);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alActualizarPago(PagoActualizadoEvent e) {
+        NotificacionDTO n = new NotificacionDTO("PAGO_ESTADO", e.idSolicitud(), null, e.idPago(), e.estado());
+        sse.enviar(Arrays.asList(e.idCliente(), e.idProveedor()), true, EVENTO_PAGO, n);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alDespachar(DespachoRealizadoEvent e) {
+        NotificacionDTO n = new NotificacionDTO("DESPACHO_" + e.estado(), e.idSolicitud(), e.idServicio(), null,
+                e.estado());
+        sse.enviar(e.destinatarios(), false, EVENTO_DESPACHO, n);
+    }
+}
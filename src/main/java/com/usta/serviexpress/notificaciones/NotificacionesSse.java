@@ -0,0 +1,161 @@
+package com.usta.serviexpress.notificaciones;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro de conexiones SSE por usuario y envío de notificaciones.
+ *
+ * - abrir(): crea el SseEmitter de una pestaña (máximo max-por-usuario; la más vieja se cierra).
+ * - enviar(): encola el mensaje en cada canal destino (no bloquea) y agenda su drenado en el pool.
+ * - latido(): comentario periódico para que proxies / navegador no corten la conexión inactiva
+ *   y para detectar clientes caídos (el envío falla y el canal se retira).
+ *
+ * Métricas: notificaciones.sse.conexiones (gauge) y notificaciones.sse.enviadas (contador).
+ */
+@Component
+public class NotificacionesSse {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificacionesSse.class);
+
+    private final Map<Long, Deque<CanalSse>> porUsuario = new ConcurrentHashMap<>();
+    private final Set<CanalSse> admins = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final ExecutorService escritores;
+    private final Counter enviadas;
+
+    private final long timeoutMs;
+    private final int capacidadBuffer;
+    private final int maxPorUsuario;
+
+    public NotificacionesSse(MeterRegistry meterRegistry,
+                             @Value("${notificaciones.sse.timeout:PT30M}") Duration timeout,
+                             @Value("${notificaciones.sse.buffer:64}") int capacidadBuffer,
+                             @Value("${notificaciones.sse.max-por-usuario:5}") int maxPorUsuario,
+                             @Value("${notificaciones.sse.hilos:2}") int hilos) {
+        this.timeoutMs = timeout.toMillis();
+        this.capacidadBuffer = capacidadBuffer;
+        this.maxPorUsuario = Math.max(maxPorUsuario, 1);
+        AtomicInteger n = new AtomicInteger();
+        this.escritores = Executors.newFixedThreadPool(Math.max(hilos, 1), r -> {
+            Thread t = new Thread(r, "sse-escritor-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.enviadas = Counter.builder("notificaciones.sse.enviadas").register(meterRegistry);
+        Gauge.builder("notificaciones.sse.conexiones", conexiones, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // ===================== Conexiones =====================
+
+    public SseEmitter abrir(long idUsuario, boolean admin) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        CanalSse canal = new CanalSse(idUsuario, admin, emitter, capacidadBuffer);
+
+        emitter.onCompletion(() -> quitar(canal));
+        emitter.onTimeout(() -> { canal.cerrar(); quitar(canal); });
+        emitter.onError(ex -> { canal.cerrar(); quitar(canal); });
+
+        Deque<CanalSse> canales = porUsuario.computeIfAbsent(idUsuario, k -> new ConcurrentLinkedDeque<>());
+        canales.addLast(canal);
+        if (admin) admins.add(canal);
+        conexiones.incrementAndGet();
+        while (canales.size() > maxPorUsuario) {
+            CanalSse viejo = canales.pollFirst();
+            if (viejo == null) break;
+            // Ya fuera de la cola: su onCompletion no lo encontrará, se descuenta aquí
+            conexiones.decrementAndGet();
+            admins.remove(viejo);
+            viejo.cerrar();
+        }
+
+        // Primer evento: confirma la suscripción (y fija el reintento del EventSource)
+        try {
+            emitter.send(SseEmitter.event().name("conectado").reconnectTime(5_000).data("ok"));
+        } catch (Exception ex) {
+            canal.cerrar();
+        }
+        return emitter;
+    }
+
+    private void quitar(CanalSse canal) {
+        Deque<CanalSse> canales = porUsuario.get(canal.idUsuario());
+        if (canales != null && canales.remove(canal)) {
+            conexiones.decrementAndGet();
+            if (canales.isEmpty()) porUsuario.remove(canal.idUsuario(), canales);
+        }
+        admins.remove(canal);
+    }
+
+    // ===================== Envío =====================
+
+    /** Envía a todas las conexiones de los usuarios dados (ids null se ignoran) y, si se pide, a los admins. */
+    public void enviar(Collection<Long> usuarios, boolean incluirAdmins, String nombre, Object datos) {
+        Set<CanalSse> destino = new LinkedHashSet<>();
+        for (Long id : usuarios) {
+            if (id == null) continue;
+            Deque<CanalSse> canales = porUsuario.get(id);
+            if (canales != null) destino.addAll(canales);
+        }
+        if (incluirAdmins) destino.addAll(admins);
+        if (destino.isEmpty()) return;
+
+        CanalSse.Mensaje mensaje = new CanalSse.Mensaje(Objects.requireNonNull(nombre), datos);
+        for (CanalSse canal : destino) {
+            if (canal.encolar(mensaje)) {
+                agendar(canal);
+                enviadas.increment();
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${notificaciones.sse.latido:PT20S}",
+               fixedDelayString = "${notificaciones.sse.latido:PT20S}")
+    public void latido() {
+        for (Deque<CanalSse> canales : porUsuario.values()) {
+            for (CanalSse canal : canales) {
+                if (canal.encolar(CanalSse.Mensaje.LATIDO)) agendar(canal);
+            }
+        }
+    }
+
+    public int conexiones() {
+        return conexiones.get();
+    }
+
+    private void agendar(CanalSse canal) {
+        try {
+            escritores.execute(canal::drenar);
+        } catch (RejectedExecutionException ex) {
+            log.debug("SSE: pool de escritura detenido, se descarta el envío");
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        escritores.shutdownNow();
+        porUsuario.values().forEach(canales -> canales.forEach(CanalSse::cerrar));
+    }
+}
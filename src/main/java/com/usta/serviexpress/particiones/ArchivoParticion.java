@@ -0,0 +1,90 @@
+package com.usta.serviexpress.particiones;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Volcado de una partición separada a CSV comprimido (gzip), leído en streaming.
+ * Columnas large object (oid, p. ej. gateway_payload) se exportan con su contenido, no con el número de oid.
+ */
+final class ArchivoParticion {
+
+    private static final int BUFFER = 64 * 1024;
+
+    private ArchivoParticion() { }
+
+    /**
+     * Escribe la tabla en destino (cabecera + una línea por fila) y devuelve cuántas filas escribió.
+     * Debe llamarse dentro de una transacción para que el fetch size del JdbcTemplate use cursor.
+     */
+    static long volcar(JdbcTemplate lectura, String tabla, List<Map<String, Object>> columnas, Path destino) {
+        String sql = "SELECT " + String.join(", ", columnas.stream().map(ArchivoParticion::expresion).toList())
+                + " FROM " + tabla;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(destino), BUFFER), StandardCharsets.UTF_8), BUFFER)) {
+            ResultSetExtractor<Long> extractor = rs -> {
+                try {
+                    ResultSetMetaData md = rs.getMetaData();
+                    int n = md.getColumnCount();
+                    for (int i = 1; i <= n; i++) {
+                        if (i > 1) out.write(',');
+                        out.write(csv(md.getColumnLabel(i)));
+                    }
+                    out.write('\n');
+                    long filas = 0;
+                    while (rs.next()) {
+                        for (int i = 1; i <= n; i++) {
+                            if (i > 1) out.write(',');
+                            out.write(csv(rs.getString(i)));
+                        }
+                        out.write('\n');
+                        filas++;
+                    }
+                    return filas;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            };
+            Long filas = lectura.query(sql, extractor);
+            return filas != null ? filas : 0L;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Columnas oid de la tabla (large objects que hay que liberar antes de borrarla). */
+    static List<String> columnasLargeObject(List<Map<String, Object>> columnas) {
+        return columnas.stream()
+                .filter(c -> "oid".equals(c.get("tipo")))
+                .map(c -> (String) c.get("nombre"))
+                .toList();
+    }
+
+    private static String expresion(Map<String, Object> columna) {
+        String nombre = '"' + ((String) columna.get("nombre")).replace("\"", "\"\"") + '"';
+        return "oid".equals(columna.get("tipo"))
+                ? "convert_from(lo_get(" + nombre + "), 'UTF8') AS " + nombre
+                : nombre;
+    }
+
+    // RFC 4180: comillas solo si hace falta; null = campo vacío
+    private static String csv(String valor) {
+        if (valor == null) return "";
+        boolean comillas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        return comillas ? '"' + valor.replace("\"", "\"\"") + '"' : valor;
+    }
+}
@@ -0,0 +1,299 @@
+package com.usta.serviexpress.particiones;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Particionado mensual de solicitud_servicio y pagos. La conversión es un paso manual (particiones.migrar=true,
+ * en ventana de mantenimiento): bloquea la tabla, la copia a la particionada y reejecuta los scripts de
+ * db/postgres para recrear los índices. El mantenimiento (al arrancar y con particiones.cron) crea los meses
+ * siguientes, mueve a su mes las filas que hubieran caído en default y, si está habilitado, archiva a .csv.gz
+ * y borra las particiones viejas. La PK pasa a (id, fecha): las búsquedas solo por id revisan cada partición.
+ */
+@Component
+@ConditionalOnProperty(name = "particiones.habilitado", havingValue = "true", matchIfMissing = true)
+public class ParticionesPostgres {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionesPostgres.class);
+    private static final int FETCH_ARCHIVO = 1_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate lectura;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate txLectura;
+    private final boolean migrar;
+    private final int mesesAdelante;
+    private final boolean archivar;
+    private final int retencionMeses;
+    private final Path directorio;
+    private final AtomicBoolean corriendo = new AtomicBoolean(false);
+
+    private final Timer timer;
+    private final Counter creadas;
+    private final Counter archivadas;
+
+    public ParticionesPostgres(DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${particiones.migrar:false}") boolean migrar,
+                               @Value("${particiones.meses-adelante:3}") int mesesAdelante,
+                               @Value("${particiones.archivo.habilitado:false}") boolean archivar,
+                               @Value("${particiones.archivo.retencion-meses:24}") int retencionMeses,
+                               @Value("${particiones.archivo.directorio:archivo/particiones}") String directorio) {
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.lectura = new JdbcTemplate(dataSource);
+        this.lectura.setFetchSize(FETCH_ARCHIVO);
+        this.tx = new TransactionTemplate(transactionManager);
+        this.txLectura = new TransactionTemplate(transactionManager);
+        this.txLectura.setReadOnly(true);
+        this.migrar = migrar;
+        this.mesesAdelante = Math.max(mesesAdelante, 1);
+        this.archivar = archivar;
+        this.retencionMeses = Math.max(retencionMeses, 1);
+        this.directorio = Path.of(directorio);
+
+        this.timer = Timer.builder("particiones.mantenimiento").register(meterRegistry);
+        this.creadas = Counter.builder("particiones.creadas").register(meterRegistry);
+        this.archivadas = Counter.builder("particiones.archivadas").register(meterRegistry);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        mantener();
+    }
+
+    @Scheduled(cron = "${particiones.cron:0 15 3 * * *}")
+    public void mantener() {
+        if (!corriendo.compareAndSet(false, true)) return;
+        try {
+            timer.record(() -> {
+                for (TablaParticionada t : TablaParticionada.values()) {
+                    mantener(t);
+                }
+            });
+        } finally {
+            corriendo.set(false);
+        }
+    }
+
+    private void mantener(TablaParticionada t) {
+        try {
+            if (!particionada(t)) {
+                if (!migrar || !existe(t.nombre())) {
+                    log.info("Particiones: {} no está particionada (particiones.migrar={})", t.nombre(), migrar);
+                    return;
+                }
+                convertir(t);
+            }
+            YearMonth actual = YearMonth.now();
+            for (int i = 0; i <= mesesAdelante; i++) {
+                crearMes(t, actual.plusMonths(i));
+            }
+            if (archivar) archivarAntiguas(t, actual.minusMonths(retencionMeses));
+        } catch (RuntimeException ex) {
+            log.error("Particiones: el mantenimiento de {} falló, se reintenta en la próxima corrida", t.nombre(), ex);
+        }
+    }
+
+    // ===================== Conversión =====================
+
+    private void convertir(TablaParticionada t) {
+        long inicio = System.nanoTime();
+        String n = t.nombre();
+        String anterior = n + "_sin_particionar";
+        tx.executeWithoutResult(st -> {
+            jdbc.execute("LOCK TABLE " + n + " IN ACCESS EXCLUSIVE MODE");
+            jdbc.update("UPDATE " + n + " SET " + t.columna() + " = " + t.ahora() + " WHERE " + t.columna() + " IS NULL");
+            jdbc.execute("ALTER TABLE " + n + " RENAME TO " + anterior);
+            // Sin IDENTITY (no se admite en tablas particionadas antes de PG 17): el id pasa a una secuencia
+            jdbc.execute("CREATE TABLE " + n + " (LIKE " + anterior + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)"
+                    + " PARTITION BY RANGE (" + t.columna() + ")");
+            jdbc.execute("ALTER TABLE " + n + " ALTER COLUMN " + t.id() + " DROP DEFAULT");
+
+            YearMonth primero = jdbc.queryForList(
+                            "SELECT min(" + t.columna() + ")::date FROM " + anterior, LocalDate.class)
+                    .stream().filter(Objects::nonNull).findFirst()
+                    .map(YearMonth::from).orElse(YearMonth.now());
+            YearMonth ultimo = YearMonth.now().plusMonths(mesesAdelante);
+            for (YearMonth m = primero; !m.isAfter(ultimo); m = m.plusMonths(1)) {
+                jdbc.execute(crearParticionSql(t, m));
+            }
+            jdbc.execute("CREATE TABLE " + t.porDefecto() + " PARTITION OF " + n + " DEFAULT");
+
+            int filas = jdbc.update("INSERT INTO " + n + " SELECT * FROM " + anterior);
+            // CASCADE: se lleva las FK que apuntaban a la tabla original y su secuencia / identity
+            jdbc.execute("DROP TABLE " + anterior + " CASCADE");
+
+            jdbc.execute("ALTER TABLE " + n + " ADD CONSTRAINT " + n + "_pkey PRIMARY KEY (" + t.id() + ", " + t.columna() + ")");
+            jdbc.execute("CREATE SEQUENCE IF NOT EXISTS " + t.secuencia());
+            jdbc.queryForList("SELECT setval('" + t.secuencia() + "', coalesce((SELECT max(" + t.id() + ") FROM " + n
+                    + "), 0) + 1, false)");
+            jdbc.execute("ALTER TABLE " + n + " ALTER COLUMN " + t.id() + " SET DEFAULT nextval('" + t.secuencia() + "')");
+            jdbc.execute("ALTER SEQUENCE " + t.secuencia() + " OWNED BY " + n + "." + t.id());
+            t.despuesDeConvertir().forEach(jdbc::execute);
+
+            log.info("Particiones: {} convertida ({} filas, meses {} a {}) en {} ms",
+                    n, filas, primero, ultimo, (System.nanoTime() - inicio) / 1_000_000);
+        });
+        recrearIndices();
+    }
+
+    // Los scripts de db/postgres son idempotentes: recrean sobre la tabla nueva los índices que se fueron
+    // con la original (un índice creado en la tabla particionada se propaga a cada partición)
+    private void recrearIndices() {
+        try {
+            Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath:db/postgres/*.sql");
+            Arrays.sort(scripts, Comparator.comparing(r -> Objects.requireNonNullElse(r.getFilename(), "")));
+            new ResourceDatabasePopulator(scripts).execute(dataSource);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // ===================== Particiones futuras =====================
+
+    private void crearMes(TablaParticionada t, YearMonth mes) {
+        String p = t.particion(mes);
+        if (existe(p)) return;
+        tx.executeWithoutResult(st -> {
+            Long enDefault = existe(t.porDefecto())
+                    ? jdbc.queryForObject("SELECT count(*) FROM " + t.porDefecto() + " WHERE " + rango(t, mes), Long.class)
+                    : Long.valueOf(0L);
+            if (enDefault == null || enDefault == 0) {
+                jdbc.execute(crearParticionSql(t, mes));
+                return;
+            }
+            // La default tiene filas de ese mes: se crea suelta, se mueven y se adjunta
+            jdbc.execute("CREATE TABLE " + p + " (LIKE " + t.nombre() + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            jdbc.update("WITH movidas AS (DELETE FROM " + t.porDefecto() + " WHERE " + rango(t, mes) + " RETURNING *)"
+                    + " INSERT INTO " + p + " SELECT * FROM movidas");
+            jdbc.execute("ALTER TABLE " + t.nombre() + " ATTACH PARTITION " + p + " " + limites(mes));
+            t.despuesDeMover(p).forEach(jdbc::execute);
+            log.info("Particiones: {} creada con {} filas movidas desde {}", p, enDefault, t.porDefecto());
+        });
+        creadas.increment();
+    }
+
+    // ===================== Archivo de particiones antiguas =====================
+
+    private void archivarAntiguas(TablaParticionada t, YearMonth limite) {
+        List<String> candidatas = new ArrayList<>();
+        for (String p : jdbc.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, String.class, t.nombre())) {
+            if (t.mesDe(p).filter(m -> m.isBefore(limite)).isPresent()) candidatas.add(p);
+        }
+        // Separadas en una corrida anterior que falló antes de borrarlas
+        List<String> sueltas = jdbc.queryForList("""
+                SELECT c.relname FROM pg_class c
+                WHERE c.relkind = 'r' AND NOT c.relispartition AND c.relname ~ ?
+                  AND c.relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = current_schema())
+                """, String.class, t.patronParticion());
+        for (String p : sueltas) {
+            if (!candidatas.contains(p) && t.mesDe(p).filter(m -> m.isBefore(limite)).isPresent()) candidatas.add(p);
+        }
+        candidatas.sort(Comparator.naturalOrder());
+        for (String p : candidatas) {
+            archivar(t, p, !sueltas.contains(p));
+        }
+    }
+
+    private void archivar(TablaParticionada t, String p, boolean adjunta) {
+        long inicio = System.nanoTime();
+        if (adjunta) {
+            tx.executeWithoutResult(st -> jdbc.execute("ALTER TABLE " + t.nombre() + " DETACH PARTITION " + p));
+        }
+        List<Map<String, Object>> columnas = jdbc.queryForList("""
+                SELECT a.attname AS nombre, format_type(a.atttypid, a.atttypmod) AS tipo
+                FROM pg_attribute a
+                WHERE a.attrelid = to_regclass(?) AND a.attnum > 0 AND NOT a.attisdropped
+                ORDER BY a.attnum
+                """, p);
+
+        Path destino = directorio.resolve(p + ".csv.gz");
+        Path temporal = directorio.resolve(p + ".csv.gz.tmp");
+        long escritas;
+        try {
+            Files.createDirectories(directorio);
+            escritas = Objects.requireNonNull(txLectura.execute(st -> ArchivoParticion.volcar(lectura, p, columnas, temporal)));
+            Long total = jdbc.queryForObject("SELECT count(*) FROM " + p, Long.class);
+            if (total == null || total != escritas) {
+                throw new IllegalStateException("Archivo de " + p + " incompleto: " + escritas + " de " + total + " filas");
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        tx.executeWithoutResult(st -> {
+            t.antesDeBorrar(p).forEach(jdbc::execute);
+            for (String lo : ArchivoParticion.columnasLargeObject(columnas)) {
+                jdbc.queryForList("SELECT lo_unlink(" + lo + ") FROM " + p + " WHERE " + lo + " IS NOT NULL");
+            }
+            jdbc.execute("DROP TABLE " + p);
+        });
+        archivadas.increment();
+        log.info("Particiones: {} archivada en {} ({} filas) en {} ms",
+                p, destino, escritas, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ===================== Internos =====================
+
+    private boolean particionada(TablaParticionada t) {
+        return jdbc.queryForList("SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, t.nombre())
+                .stream().anyMatch("p"::equals);
+    }
+
+    private boolean existe(String relacion) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, relacion));
+    }
+
+    private static String crearParticionSql(TablaParticionada t, YearMonth mes) {
+        return "CREATE TABLE IF NOT EXISTS " + t.particion(mes) + " PARTITION OF " + t.nombre() + " " + limites(mes);
+    }
+
+    private static String limites(YearMonth mes) {
+        return "FOR VALUES FROM ('" + mes.atDay(1) + "') TO ('" + mes.plusMonths(1).atDay(1) + "')";
+    }
+
+    private static String rango(TablaParticionada t, YearMonth mes) {
+        return t.columna() + " >= '" + mes.atDay(1) + "' AND " + t.columna() + " < '" + mes.plusMonths(1).atDay(1) + "'";
+    }
+}
@@ -0,0 +1,162 @@
+package com.usta.serviexpress.particiones;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tablas particionadas por mes ({tabla}_pAAAA_MM más {tabla}_default) y el DDL propio de cada una. Los
+ * nombres solo salen de este enum y de fechas formateadas aquí, nunca de entrada del usuario.
+ */
+public enum TablaParticionada {
+
+    SOLICITUD_SERVICIO("solicitud_servicio", "fecha_solicitud", "id_solicitud", "current_date"),
+
+    PAGOS("pagos", "fecha_pago", "id_pago", "now()") {
+        @Override
+        List<String> despuesDeConvertir() {
+            // pagos_claves + trigger reemplazan uk_pago_solicitud / uk_pago_referencia_ext / uk_pago_token, que
+            // se van con la tabla original. PagoEntity no declara esas restricciones (ddl-auto=update las
+            // reintentaría en cada arranque); sin particionar las crea db/postgres/14_pagos_unicos.sql
+            return List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS pagos_claves (
+                        id_pago        bigint PRIMARY KEY,
+                        id_solicitud   bigint,
+                        referencia_ext varchar(120),
+                        payment_token  varchar(64))
+                    """,
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_pagos_claves_solicitud ON pagos_claves (id_solicitud)",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_pagos_claves_referencia ON pagos_claves (referencia_ext)",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_pagos_claves_token ON pagos_claves (payment_token)",
+                    """
+                    INSERT INTO pagos_claves (id_pago, id_solicitud, referencia_ext, payment_token)
+                    SELECT id_pago, id_solicitud, referencia_ext, payment_token FROM pagos
+                    ON CONFLICT (id_pago) DO NOTHING
+                    """,
+                    // Un UPDATE que mueve la fila de partición llega como DELETE + INSERT: el upsert lo cubre
+                    """
+                    CREATE OR REPLACE FUNCTION pagos_claves_sync() RETURNS trigger LANGUAGE plpgsql AS $$
+                    BEGIN
+                        IF TG_OP IN ('DELETE', 'UPDATE') THEN
+                            DELETE FROM pagos_claves WHERE id_pago = OLD.id_pago;
+                        END IF;
+                        IF TG_OP = 'DELETE' THEN
+                            RETURN OLD;
+                        END IF;
+                        INSERT INTO pagos_claves (id_pago, id_solicitud, referencia_ext, payment_token)
+                        VALUES (NEW.id_pago, NEW.id_solicitud, NEW.referencia_ext, NEW.payment_token)
+                        ON CONFLICT (id_pago) DO UPDATE SET
+                            id_solicitud   = EXCLUDED.id_solicitud,
+                            referencia_ext = EXCLUDED.referencia_ext,
+                            payment_token  = EXCLUDED.payment_token;
+                        RETURN NEW;
+                    END
+                    $$
+                    """,
+                    "DROP TRIGGER IF EXISTS trg_pagos_claves ON pagos",
+                    """
+                    CREATE TRIGGER trg_pagos_claves
+                    AFTER INSERT OR DELETE OR UPDATE OF id_pago, id_solicitud, referencia_ext, payment_token ON pagos
+                    FOR EACH ROW EXECUTE FUNCTION pagos_claves_sync()
+                    """,
+                    // Búsquedas del webhook / checkout: ya no hay índice único en pagos que las resuelva
+                    "CREATE INDEX IF NOT EXISTS ix_pagos_referencia_ext ON pagos (referencia_ext)",
+                    "CREATE INDEX IF NOT EXISTS ix_pagos_payment_token ON pagos (payment_token)",
+                    "CREATE INDEX IF NOT EXISTS ix_pagos_solicitud ON pagos (id_solicitud)");
+        }
+
+        // Las filas movidas desde pagos_default pasaron por el DELETE del trigger; se restauran sus claves
+        @Override
+        List<String> despuesDeMover(String particion) {
+            return List.of("""
+                    INSERT INTO pagos_claves (id_pago, id_solicitud, referencia_ext, payment_token)
+                    SELECT id_pago, id_solicitud, referencia_ext, payment_token FROM %s
+                    ON CONFLICT (id_pago) DO NOTHING
+                    """.formatted(particion));
+        }
+
+        @Override
+        List<String> antesDeBorrar(String particion) {
+            return List.of("DELETE FROM pagos_claves k USING %s p WHERE k.id_pago = p.id_pago".formatted(particion));
+        }
+    };
+
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final String nombre;
+    private final String columna;
+    private final String id;
+    private final String ahora;
+
+    TablaParticionada(String nombre, String columna, String id, String ahora) {
+        this.nombre = nombre;
+        this.columna = columna;
+        this.id = id;
+        this.ahora = ahora;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    /** Clave de partición. */
+    public String columna() {
+        return columna;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /** Valor para las filas antiguas sin fecha (la clave de partición pasa a ser NOT NULL). */
+    String ahora() {
+        return ahora;
+    }
+
+    public String particion(YearMonth mes) {
+        return nombre + "_p" + mes.format(SUFIJO);
+    }
+
+    public String porDefecto() {
+        return nombre + "_default";
+    }
+
+    public String secuencia() {
+        return nombre + "_" + id + "_seq";
+    }
+
+    /** Expresión regular de los nombres de partición mensual (adjuntas o ya separadas). */
+    String patronParticion() {
+        return "^" + nombre + "_p[0-9]{4}_[0-9]{2}$";
+    }
+
+    public Optional<YearMonth> mesDe(String particion) {
+        String prefijo = nombre + "_p";
+        if (particion == null || !particion.startsWith(prefijo)) return Optional.empty();
+        try {
+            return Optional.of(YearMonth.parse(particion.substring(prefijo.length()), SUFIJO));
+        } catch (DateTimeParseException ex) {
+            return Optional.empty();
+        }
+    }
+
+    // ===================== DDL propio de cada tabla =====================
+
+    /** Se ejecuta una vez, en la misma transacción que convierte la tabla. */
+    List<String> despuesDeConvertir() {
+        return List.of();
+    }
+
+    /** Tras pasar a una partición nueva las filas que estaban en la partición por defecto. */
+    List<String> despuesDeMover(String particion) {
+        return List.of();
+    }
+
+    /** Antes de borrar una partición ya archivada. */
+    List<String> antesDeBorrar(String particion) {
+        return List.of();
+    }
+}
@@ -0,0 +1,65 @@
+package com.usta.serviexpress.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza texto para el índice en memoria (minúsculas, sin tildes). Los trigramas siguen a pg_trgm (dos
+ * espacios antes, uno después) para que la búsqueda aproximada en memoria se comporte como la de PostgreSQL.
+ */
+public final class AnalizadorTexto {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9ñ]+");
+    private static final Set<String> VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "su", "un", "una", "y");
+
+    private AnalizadorTexto() { }
+
+    public static String plegar(String texto) {
+        if (texto == null) return "";
+        // Se conserva la ñ: se protege antes de quitar las marcas diacríticas
+        String base = texto.toLowerCase(Locale.ROOT).replace('ñ', '\u0000');
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(base, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.replace('\u0000', 'ñ');
+    }
+
+    /** Palabras plegadas, sin vacías y con el plural simple recortado ("tuberias" -> "tuberia"). */
+    public static List<String> palabras(String texto) {
+        List<String> salida = new ArrayList<>();
+        for (String p : partes(texto)) {
+            if (p.length() < 2 || VACIAS.contains(p)) continue;
+            salida.add(raiz(p));
+        }
+        return salida;
+    }
+
+    /** Trigramas de todas las palabras del texto (incluye las vacías, igual que pg_trgm). */
+    public static Set<String> trigramas(String texto) {
+        Set<String> salida = new LinkedHashSet<>();
+        for (String p : partes(texto)) {
+            String relleno = "  " + p + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                salida.add(relleno.substring(i, i + 3));
+            }
+        }
+        return salida;
+    }
+
+    private static String[] partes(String texto) {
+        String plegado = plegar(texto).trim();
+        return plegado.isEmpty() ? new String[0] : SEPARADORES.split(plegado);
+    }
+
+    private static String raiz(String p) {
+        if (p.length() > 5 && p.endsWith("es")) return p.substring(0, p.length() - 2);
+        if (p.length() > 3 && p.endsWith("s")) return p.substring(0, p.length() - 1);
+        return p;
+    }
+}
@@ -0,0 +1,276 @@
+package com.usta.serviexpress.search;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import com.usta.serviexpress.util.CiudadUtils;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Catálogo en memoria por columnas (arreglos primitivos) que filtra, cuenta facetas y ordena en una pasada.
+ * Cada faceta se cuenta con todos los filtros menos el suyo (conteos de multi-selección). La baja intercambia
+ * la fila con la última, así que el índice por id se actualiza también para la fila movida.
+ */
+public class CatalogoFacetado {
+
+    public enum Orden { RECIENTES, PRECIO_ASC, PRECIO_DESC, RATING }
+
+    /** Límites superiores (exclusivos, en pesos) de los rangos de precio; el último rango es abierto. */
+    public static final long[] LIMITES_PRECIO = {50_000, 100_000, 200_000, 500_000};
+    /** Umbrales de la faceta de rating ("4 o más", "3 o más", ...). */
+    public static final int[] RATING_MINIMOS = {4, 3, 2, 1};
+
+    private static final int ESTADOS = ServicioEntity.EstadoServicio.values().length;
+    private static final int SIN_CIUDAD = -1;
+
+    /** Fila de entrada: tarjeta del servicio + servicio.ciudad_clave + ciudad del proveedor (texto libre, etiqueta). */
+    public record Fila(ServicioCardView tarjeta, String ciudadClave, String ciudad) { }
+
+    /** Filtros (null = sin filtro) y página solicitada. */
+    public record Consulta(ServicioEntity.EstadoServicio estado, Integer rangoPrecio, String ciudad,
+                           Integer ratingMinimo, Orden orden, int desde, int limite) { }
+
+    /** Conteos por faceta + página de resultados. ciudades: clave normalizada -> [etiqueta, conteo]. */
+    public record Resultado(int total,
+                            int[] porEstado,
+                            int[] porRangoPrecio,
+                            int[] porRatingMinimo,
+                            Map<String, Map.Entry<String, Integer>> porCiudad,
+                            List<ServicioCardView> pagina,
+                            Map<Long, Double> ratingPorProveedor,
+                            boolean hayMas) { }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ----- columnas (índice = fila) -----
+    private long[] ids = new long[64];
+    private long[] precios = new long[64];
+    private byte[] estados = new byte[64];
+    private int[] ciudades = new int[64];
+    private int[] proveedores = new int[64];
+    private ServicioCardView[] tarjetas = new ServicioCardView[64];
+    private int filas;
+    private final Map<Long, Integer> filaPorId = new HashMap<>();
+
+    // ----- diccionarios -----
+    private final Map<String, Integer> codigoCiudad = new HashMap<>();
+    private final List<String> claveCiudad = new ArrayList<>();
+    private final List<String> etiquetaCiudad = new ArrayList<>();
+    private final Map<Long, Integer> codigoProveedor = new HashMap<>();
+    private final List<Long> idProveedor = new ArrayList<>();
+    private double[] ratingProveedor = new double[16];   // NaN = sin calificaciones
+
+    // ===================== Escritura =====================
+
+    public void reconstruir(Collection<Fila> nuevas, Map<Long, Double> ratings) {
+        lock.writeLock().lock();
+        try {
+            filas = 0;
+            filaPorId.clear();
+            nuevas.forEach(this::ponerSinBloqueo);
+            ratings.forEach(this::fijarRatingSinBloqueo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void poner(Fila fila) {
+        lock.writeLock().lock();
+        try {
+            ponerSinBloqueo(fila);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(Long idServicio) {
+        lock.writeLock().lock();
+        try {
+            Integer fila = filaPorId.remove(idServicio);
+            if (fila == null) return;
+            int ultima = --filas;
+            if (fila != ultima) {
+                ids[fila] = ids[ultima];
+                precios[fila] = precios[ultima];
+                estados[fila] = estados[ultima];
+                ciudades[fila] = ciudades[ultima];
+                proveedores[fila] = proveedores[ultima];
+                tarjetas[fila] = tarjetas[ultima];
+                filaPorId.put(ids[fila], fila);
+            }
+            tarjetas[ultima] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void fijarRating(Long idProveedor, Double promedio) {
+        lock.writeLock().lock();
+        try {
+            fijarRatingSinBloqueo(idProveedor, promedio);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===================== Lectura =====================
+
+    public Resultado consultar(Consulta q) {
+        lock.readLock().lock();
+        try {
+            int ciudadFiltro = SIN_CIUDAD;
+            if (q.ciudad() != null) {
+                Integer c = codigoCiudad.get(claveCiudad(q.ciudad()));
+                if (c == null) ciudadFiltro = Integer.MIN_VALUE;   // ciudad desconocida: nada coincide
+                else ciudadFiltro = c;
+            }
+
+            int[] porEstado = new int[ESTADOS];
+            int[] porPrecio = new int[LIMITES_PRECIO.length + 1];
+            int[] porRating = new int[RATING_MINIMOS.length];
+            int[] porCiudad = new int[claveCiudad.size()];
+            int[] coincidencias = new int[filas];
+            int total = 0;
+
+            for (int r = 0; r < filas; r++) {
+                int rango = rangoPrecio(precios[r]);
+                double rating = proveedores[r] < 0 ? Double.NaN : ratingProveedor[proveedores[r]];
+
+                boolean okEstado = q.estado() == null || estados[r] == q.estado().ordinal();
+                boolean okPrecio = q.rangoPrecio() == null || rango == q.rangoPrecio();
+                boolean okCiudad = ciudadFiltro == SIN_CIUDAD || ciudades[r] == ciudadFiltro;
+                boolean okRating = q.ratingMinimo() == null || (!Double.isNaN(rating) && rating >= q.ratingMinimo());
+                int fallos = (okEstado ? 0 : 1) + (okPrecio ? 0 : 1) + (okCiudad ? 0 : 1) + (okRating ? 0 : 1);
+                if (fallos > 1) continue;
+
+                // Cada faceta se cuenta si la fila pasa todos los demás filtros
+                if (okPrecio && okCiudad && okRating) porEstado[estados[r]]++;
+                if (okEstado && okCiudad && okRating) porPrecio[rango]++;
+                if (okEstado && okPrecio && okRating && ciudades[r] >= 0) porCiudad[ciudades[r]]++;
+                if (okEstado && okPrecio && okCiudad && !Double.isNaN(rating)) {
+                    for (int i = 0; i < RATING_MINIMOS.length; i++) {
+                        if (rating >= RATING_MINIMOS[i]) porRating[i]++;
+                    }
+                }
+                if (fallos == 0) coincidencias[total++] = r;
+            }
+
+            Integer[] orden = new Integer[total];
+            for (int i = 0; i < total; i++) orden[i] = coincidencias[i];
+            Arrays.sort(orden, comparador(q.orden()));
+
+            int desde = Math.min(Math.max(q.desde(), 0), total);
+            int hasta = Math.min(desde + Math.max(q.limite(), 0), total);
+            List<ServicioCardView> pagina = new ArrayList<>(hasta - desde);
+            Map<Long, Double> ratings = new HashMap<>();
+            for (int i = desde; i < hasta; i++) {
+                int r = orden[i];
+                pagina.add(tarjetas[r]);
+                if (proveedores[r] >= 0 && !Double.isNaN(ratingProveedor[proveedores[r]])) {
+                    ratings.put(idProveedor.get(proveedores[r]), ratingProveedor[proveedores[r]]);
+                }
+            }
+
+            Map<String, Map.Entry<String, Integer>> ciudadesConteo = new LinkedHashMap<>();
+            for (int c = 0; c < porCiudad.length; c++) {
+                if (porCiudad[c] > 0) ciudadesConteo.put(claveCiudad.get(c), Map.entry(etiquetaCiudad.get(c), porCiudad[c]));
+            }
+            return new Resultado(total, porEstado, porPrecio, porRating, ciudadesConteo, pagina, ratings, hasta < total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static String claveCiudad(String ciudad) {
+        return CiudadUtils.clave(ciudad);
+    }
+
+    public static int rangoPrecio(long pesos) {
+        for (int i = 0; i < LIMITES_PRECIO.length; i++) {
+            if (pesos < LIMITES_PRECIO[i]) return i;
+        }
+        return LIMITES_PRECIO.length;
+    }
+
+    // ===================== Internos =====================
+
+    private Comparator<Integer> comparador(Orden orden) {
+        Comparator<Integer> recientes = (a, b) -> Long.compare(ids[b], ids[a]);
+        if (orden == null) return recientes;
+        return switch (orden) {
+            case PRECIO_ASC -> Comparator.<Integer>comparingLong(r -> precios[r]).thenComparing(recientes);
+            case PRECIO_DESC -> Comparator.<Integer>comparingLong(r -> -precios[r]).thenComparing(recientes);
+            case RATING -> Comparator.<Integer>comparingDouble(r -> {
+                        double v = proveedores[r] < 0 ? Double.NaN : ratingProveedor[proveedores[r]];
+                        return Double.isNaN(v) ? 1 : -v;   // sin calificaciones al final
+                    }).thenComparing(recientes);
+            case RECIENTES -> recientes;
+        };
+    }
+
+    private void ponerSinBloqueo(Fila f) {
+        ServicioCardView t = f.tarjeta();
+        if (t == null || t.getIdServicio() == null) return;
+        Integer fila = filaPorId.get(t.getIdServicio());
+        if (fila == null) {
+            asegurarCapacidad(filas + 1);
+            fila = filas++;
+            filaPorId.put(t.getIdServicio(), fila);
+        }
+        ids[fila] = t.getIdServicio();
+        precios[fila] = t.getPrecio() == null ? 0 : t.getPrecio().setScale(0, RoundingMode.HALF_UP).longValue();
+        estados[fila] = (byte) (t.getEstado() == null ? 0 : t.getEstado().ordinal());
+        ciudades[fila] = codigoCiudad(f.ciudadClave(), f.ciudad());
+        proveedores[fila] = t.getIdProveedor() == null ? -1 : codigoProveedor(t.getIdProveedor());
+        tarjetas[fila] = t;
+    }
+
+    private void fijarRatingSinBloqueo(Long idProv, Double promedio) {
+        if (idProv == null) return;
+        ratingProveedor[codigoProveedor(idProv)] = promedio == null ? Double.NaN : promedio;
+    }
+
+    // La clave agrupa; la etiqueta es el primer texto visto para esa clave
+    private int codigoCiudad(String clave, String ciudad) {
+        if (clave == null || clave.isBlank()) return SIN_CIUDAD;
+        return codigoCiudad.computeIfAbsent(clave, k -> {
+            claveCiudad.add(k);
+            etiquetaCiudad.add(ciudad != null && !ciudad.isBlank() ? ciudad.trim() : k);
+            return claveCiudad.size() - 1;
+        });
+    }
+
+    private int codigoProveedor(Long id) {
+        return codigoProveedor.computeIfAbsent(id, k -> {
+            idProveedor.add(k);
+            int codigo = idProveedor.size() - 1;
+            if (codigo >= ratingProveedor.length) {
+                int anterior = ratingProveedor.length;
+                ratingProveedor = Arrays.copyOf(ratingProveedor, anterior * 2);
+                Arrays.fill(ratingProveedor, anterior, ratingProveedor.length, Double.NaN);
+            }
+            ratingProveedor[codigo] = Double.NaN;
+            return codigo;
+        });
+    }
+
+    private void asegurarCapacidad(int n) {
+        if (n <= ids.length) return;
+        int capacidad = Math.max(n, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacidad);
+        precios = Arrays.copyOf(precios, capacidad);
+        estados = Arrays.copyOf(estados, capacidad);
+        ciudades = Arrays.copyOf(ciudades, capacidad);
+        proveedores = Arrays.copyOf(proveedores, capacidad);
+        tarjetas = Arrays.copyOf(tarjetas, capacidad);
+    }
+}
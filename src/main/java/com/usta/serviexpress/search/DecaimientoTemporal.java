@@ -0,0 +1,37 @@
+package com.usta.serviexpress.search;
+
+import java.time.Duration;
+
+/**
+ * Peso por antigüedad de una calificación: 2^(-edad / vidaMedia). Si todas envejecen igual el promedio
+ * ponderado no cambia; baja el peso efectivo y con él la confianza de Wilson. Fechas futuras cuentan como
+ * edad 0.
+ */
+public final class DecaimientoTemporal {
+
+    private final double lambdaPorSegundo;
+
+    public DecaimientoTemporal(Duration vidaMedia) {
+        if (vidaMedia == null || vidaMedia.isZero() || vidaMedia.isNegative()) {
+            throw new IllegalArgumentException("La vida media del decaimiento debe ser positiva");
+        }
+        this.lambdaPorSegundo = Math.log(2) / vidaMedia.toSeconds();
+    }
+
+    public double peso(long epochSegundos, long ahoraSegundos) {
+        long edad = Math.max(ahoraSegundos - epochSegundos, 0L);
+        return Math.exp(-lambdaPorSegundo * edad);
+    }
+
+    /** Acumula {suma ponderada, peso total} de las primeras n calificaciones. */
+    public double[] acumular(int[] puntuaciones, long[] epochSegundos, int n, long ahoraSegundos) {
+        double suma = 0d;
+        double peso = 0d;
+        for (int i = 0; i < n; i++) {
+            double w = peso(epochSegundos[i], ahoraSegundos);
+            suma += w * puntuaciones[i];
+            peso += w;
+        }
+        return new double[]{suma, peso};
+    }
+}
@@ -0,0 +1,261 @@
+package com.usta.serviexpress.search;
+
+import com.usta.serviexpress.Repository.ServicioCardView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice invertido en memoria del catálogo: palabras (BM25, el nombre pesa el doble) y trigramas para la
+ * búsqueda aproximada. Lecturas concurrentes y escrituras exclusivas (ReentrantReadWriteLock); las altas y
+ * bajas son incrementales.
+ */
+public class IndiceServicios {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int PESO_NOMBRE = 2;
+
+    // Orden final: puntaje desc, y a igualdad el servicio más reciente primero (como en SQL)
+    private static final Comparator<Puntuado> ORDEN = Comparator
+            .comparingDouble(Puntuado::puntaje)
+            .thenComparing(p -> p.tarjeta().getIdServicio());
+
+    public record Puntuado(ServicioCardView tarjeta, double puntaje) { }
+
+    private record Entrada(ServicioCardView tarjeta,
+                           Map<String, Integer> frecuencias,
+                           int longitud,
+                           Set<String> gramasNombre,
+                           Set<String> gramasProveedor) {
+        Set<String> gramas() {
+            Set<String> todos = new HashSet<>(gramasNombre);
+            todos.addAll(gramasProveedor);
+            return todos;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entrada> documentos = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> terminos = new HashMap<>();   // palabra  -> (idServicio -> tf)
+    private final Map<String, Set<Long>> gramas = new HashMap<>();              // trigrama -> idServicio
+    private long longitudTotal;
+
+    // ===================== Escritura =====================
+
+    public void indexar(ServicioCardView tarjeta) {
+        if (tarjeta == null || tarjeta.getIdServicio() == null) return;
+        Entrada entrada = analizar(tarjeta);
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(tarjeta.getIdServicio());
+            agregarSinBloqueo(entrada);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(Long idServicio) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(idServicio);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Sustituye todo el contenido; el análisis se hace fuera del bloqueo. */
+    public void reconstruir(Collection<? extends ServicioCardView> tarjetas) {
+        List<Entrada> entradas = new ArrayList<>(tarjetas.size());
+        for (ServicioCardView t : tarjetas) {
+            if (t != null && t.getIdServicio() != null) entradas.add(analizar(t));
+        }
+        lock.writeLock().lock();
+        try {
+            documentos.clear();
+            terminos.clear();
+            gramas.clear();
+            longitudTotal = 0;
+            entradas.forEach(this::agregarSinBloqueo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== Lectura =====================
+
+    /** BM25 sobre nombre + descripción; todas las palabras de la consulta deben aparecer (AND). */
+    public List<Puntuado> buscar(String consulta, Predicate<ServicioCardView> filtro, int limite) {
+        Set<String> palabras = new LinkedHashSet<>(AnalizadorTexto.palabras(consulta));
+        if (palabras.isEmpty() || limite <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> listas = new ArrayList<>(palabras.size());
+            for (String p : palabras) {
+                Map<Long, Integer> lista = terminos.get(p);
+                if (lista == null) return List.of();
+                listas.add(lista);
+            }
+            // Se recorre la lista de posteo más corta y se comprueban las demás
+            listas.sort(Comparator.comparingInt(Map::size));
+            int n = documentos.size();
+            double longitudMedia = n == 0 ? 1 : (double) longitudTotal / n;
+
+            PriorityQueue<Puntuado> top = new PriorityQueue<>(limite + 1, ORDEN);
+            for (Long id : listas.get(0).keySet()) {
+                Entrada e = documentos.get(id);
+                if (!filtro.test(e.tarjeta())) continue;
+                double puntaje = 0;
+                boolean todas = true;
+                for (Map<Long, Integer> lista : listas) {
+                    Integer tf = lista.get(id);
+                    if (tf == null) { todas = false; break; }
+                    double idf = Math.log(1 + (n - lista.size() + 0.5) / (lista.size() + 0.5));
+                    puntaje += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * e.longitud() / longitudMedia));
+                }
+                if (todas) ofrecer(top, new Puntuado(e.tarjeta(), puntaje), limite);
+            }
+            return ordenar(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Coincidencia por trigramas sobre el nombre del servicio y del proveedor.
+     * puntaje = trigramas de la consulta presentes / trigramas de la consulta (similar a word_similarity).
+     */
+    public List<Puntuado> buscarAproximado(String consulta, double umbral,
+                                           Predicate<ServicioCardView> filtro, int limite) {
+        Set<String> q = AnalizadorTexto.trigramas(consulta);
+        if (q.isEmpty() || limite <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> compartidos = contarCompartidos(q);
+            PriorityQueue<Puntuado> top = new PriorityQueue<>(limite + 1, ORDEN);
+            for (Map.Entry<Long, Integer> c : compartidos.entrySet()) {
+                double puntaje = (double) c.getValue() / q.size();
+                if (puntaje < umbral) continue;
+                Entrada e = documentos.get(c.getKey());
+                if (filtro.test(e.tarjeta())) ofrecer(top, new Puntuado(e.tarjeta(), puntaje), limite);
+            }
+            return ordenar(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Nombre de servicio o proveedor más parecido (similitud de Jaccard sobre trigramas, como similarity()). */
+    public Optional<String> sugerir(String consulta, double umbral) {
+        Set<String> q = AnalizadorTexto.trigramas(consulta);
+        if (q.isEmpty()) return Optional.empty();
+
+        lock.readLock().lock();
+        try {
+            String mejor = null;
+            double mejorSim = umbral;
+            for (Long id : contarCompartidos(q).keySet()) {
+                Entrada e = documentos.get(id);
+                double simNombre = jaccard(q, e.gramasNombre());
+                if (simNombre >= mejorSim) { mejorSim = simNombre; mejor = e.tarjeta().getNombre(); }
+                double simProveedor = jaccard(q, e.gramasProveedor());
+                if (simProveedor >= mejorSim) { mejorSim = simProveedor; mejor = e.tarjeta().getNombreProveedor(); }
+            }
+            return Optional.ofNullable(mejor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== Internos =====================
+
+    private static Entrada analizar(ServicioCardView t) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        int longitud = 0;
+        for (String p : AnalizadorTexto.palabras(t.getNombre())) {
+            frecuencias.merge(p, PESO_NOMBRE, Integer::sum);
+            longitud += PESO_NOMBRE;
+        }
+        for (String p : AnalizadorTexto.palabras(t.getDescripcion())) {
+            frecuencias.merge(p, 1, Integer::sum);
+            longitud++;
+        }
+        return new Entrada(t, frecuencias, longitud,
+                AnalizadorTexto.trigramas(t.getNombre()),
+                AnalizadorTexto.trigramas(t.getNombreProveedor()));
+    }
+
+    private void agregarSinBloqueo(Entrada e) {
+        Long id = e.tarjeta().getIdServicio();
+        documentos.put(id, e);
+        longitudTotal += e.longitud();
+        e.frecuencias().forEach((p, tf) -> terminos.computeIfAbsent(p, k -> new HashMap<>()).put(id, tf));
+        for (String g : e.gramas()) {
+            gramas.computeIfAbsent(g, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void quitarSinBloqueo(Long id) {
+        Entrada e = documentos.remove(id);
+        if (e == null) return;
+        longitudTotal -= e.longitud();
+        for (String p : e.frecuencias().keySet()) {
+            Map<Long, Integer> lista = terminos.get(p);
+            if (lista != null && lista.remove(id) != null && lista.isEmpty()) terminos.remove(p);
+        }
+        for (String g : e.gramas()) {
+            Set<Long> lista = gramas.get(g);
+            if (lista != null && lista.remove(id) && lista.isEmpty()) gramas.remove(g);
+        }
+    }
+
+    private Map<Long, Integer> contarCompartidos(Set<String> q) {
+        Map<Long, Integer> compartidos = new HashMap<>();
+        for (String g : q) {
+            Set<Long> lista = gramas.get(g);
+            if (lista == null) continue;
+            for (Long id : lista) compartidos.merge(id, 1, Integer::sum);
+        }
+        return compartidos;
+    }
+
+    private static double jaccard(Set<String> q, Set<String> d) {
+        if (d.isEmpty()) return 0;
+        int comunes = 0;
+        for (String g : q) if (d.contains(g)) comunes++;
+        return (double) comunes / (q.size() + d.size() - comunes);
+    }
+
+    private static void ofrecer(PriorityQueue<Puntuado> top, Puntuado p, int limite) {
+        top.offer(p);
+        if (top.size() > limite) top.poll();   // descarta el peor
+    }
+
+    private static List<Puntuado> ordenar(PriorityQueue<Puntuado> top) {
+        List<Puntuado> salida = new ArrayList<>(top);
+        salida.sort(ORDEN.reversed());
+        return salida;
+    }
+}
@@ -0,0 +1,220 @@
+package com.usta.serviexpress.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranking de proveedores en memoria con top-K por alcance (global y por ciudad), ordenado por el límite
+ * inferior de Wilson del promedio y no por el promedio crudo: una reseña de 5★ no supera a 400 de 4.8★.
+ * El puntaje solo depende de (suma, peso) del propio proveedor; si alguien sale del top-K, el alcance se
+ * rellena recorriendo sus miembros (poco frecuente).
+ */
+public final class RankingProveedores {
+
+    public static final String GLOBAL = "";
+
+    /** Entrada del ranking; puntaje en estrellas (1..5) ya penalizado por pocas reseñas. */
+    public record Puntaje(long idProveedor, String nombre, String ciudad,
+                          double suma, double peso, long total, double puntaje) {
+        public double promedio() {
+            return peso > 0 ? suma / peso : 0d;
+        }
+    }
+
+    // Mayor puntaje primero; a igualdad, más reseñas; el id desempata para que el orden sea total
+    private static final Comparator<Puntaje> ORDEN = Comparator
+            .comparingDouble(Puntaje::puntaje).reversed()
+            .thenComparing(Comparator.comparingLong(Puntaje::total).reversed())
+            .thenComparingLong(Puntaje::idProveedor);
+
+    private final int capacidad;
+    private final double z;
+    private final Map<Long, Puntaje> porProveedor = new HashMap<>();
+    private final Map<String, Alcance> alcances = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RankingProveedores(int capacidad, double z) {
+        this.capacidad = Math.max(capacidad, 1);
+        this.z = z;
+    }
+
+    // ===================== Escritura =====================
+
+    public Puntaje puntuar(long idProveedor, String nombre, String ciudad, double suma, double peso, long total) {
+        return crear(idProveedor, nombre, ciudad, suma, peso, total, z);
+    }
+
+    // Igual que puntuar, para quien arma entradas sin tener el motor (job de decaimiento)
+    public static Puntaje crear(long idProveedor, String nombre, String ciudad,
+                                double suma, double peso, long total, double z) {
+        return new Puntaje(idProveedor, nombre, ciudad, suma, peso, total, wilson(suma, peso, z));
+    }
+
+    public void reconstruir(Collection<Puntaje> entradas) {
+        lock.writeLock().lock();
+        try {
+            porProveedor.clear();
+            alcances.clear();
+            for (Puntaje p : entradas) {
+                porProveedor.put(p.idProveedor(), p);
+                alcance(GLOBAL).entrar(p);
+                if (p.ciudad() != null) alcance(p.ciudad()).entrar(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void poner(Puntaje nuevo) {
+        lock.writeLock().lock();
+        try {
+            Puntaje anterior = porProveedor.put(nuevo.idProveedor(), nuevo);
+            alcance(GLOBAL).actualizar(anterior, nuevo);
+            String ciudadAnterior = anterior != null ? anterior.ciudad() : null;
+            if (ciudadAnterior != null && ciudadAnterior.equals(nuevo.ciudad())) {
+                alcance(ciudadAnterior).actualizar(anterior, nuevo);
+            } else {
+                if (ciudadAnterior != null) salirDe(ciudadAnterior, anterior);
+                if (nuevo.ciudad() != null) alcance(nuevo.ciudad()).actualizar(null, nuevo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long idProveedor) {
+        lock.writeLock().lock();
+        try {
+            Puntaje anterior = porProveedor.remove(idProveedor);
+            if (anterior == null) return;
+            alcance(GLOBAL).actualizar(anterior, null);
+            if (anterior.ciudad() != null) salirDe(anterior.ciudad(), anterior);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===================== Lectura =====================
+
+    /** Los n mejores del alcance (GLOBAL o clave de ciudad) con al menos minResenas reseñas. */
+    public List<Puntaje> top(String alcance, int n, long minResenas) {
+        lock.readLock().lock();
+        try {
+            Alcance a = alcances.get(alcance == null ? GLOBAL : alcance);
+            if (a == null || n <= 0) return List.of();
+            List<Puntaje> salida = new ArrayList<>(Math.min(n, capacidad));
+            for (Puntaje p : a.top) {
+                if (p.total() < minResenas) continue;
+                salida.add(p);
+                if (salida.size() == n) return salida;
+            }
+            // El filtro de reseñas (o un n > K) agotó el top: se completa desde todos los miembros
+            if (a.top.size() < a.miembros.size()) {
+                return a.miembros.stream()
+                        .map(porProveedor::get)
+                        .filter(p -> p.total() >= minResenas)
+                        .sorted(ORDEN)
+                        .limit(n)
+                        .toList();
+            }
+            return salida;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Puntaje get(long idProveedor) {
+        lock.readLock().lock();
+        try {
+            return porProveedor.get(idProveedor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return porProveedor.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== Puntaje =====================
+
+    /**
+     * Límite inferior del intervalo de Wilson para la fracción (promedio - 1) / 4, reescalado a 1..5.
+     * Con peso 0 devuelve 0 (queda al final).
+     */
+    public static double wilson(double suma, double peso, double z) {
+        if (peso <= 0) return 0d;
+        double p = Math.min(Math.max((suma / peso - 1d) / 4d, 0d), 1d);
+        double z2 = z * z;
+        double centro = p + z2 / (2 * peso);
+        double margen = z * Math.sqrt((p * (1 - p) + z2 / (4 * peso)) / peso);
+        double inferior = (centro - margen) / (1 + z2 / peso);
+        return 1d + 4d * Math.max(inferior, 0d);
+    }
+
+    // ===================== Internos =====================
+
+    private Alcance alcance(String clave) {
+        return alcances.computeIfAbsent(clave, k -> new Alcance());
+    }
+
+    private void salirDe(String clave, Puntaje anterior) {
+        Alcance a = alcances.get(clave);
+        if (a == null) return;
+        a.actualizar(anterior, null);
+        if (a.miembros.isEmpty()) alcances.remove(clave);
+    }
+
+    /** Miembros de un alcance y su top-K ordenado (solo se toca con el write lock). */
+    private final class Alcance {
+        final Set<Long> miembros = new HashSet<>();
+        final TreeSet<Puntaje> top = new TreeSet<>(ORDEN);
+
+        void entrar(Puntaje p) {
+            miembros.add(p.idProveedor());
+            ofrecer(p);
+        }
+
+        void actualizar(Puntaje anterior, Puntaje nuevo) {
+            boolean salioDelTop = anterior != null && top.remove(anterior);
+            if (nuevo == null) {
+                if (anterior != null) miembros.remove(anterior.idProveedor());
+            } else {
+                miembros.add(nuevo.idProveedor());
+                ofrecer(nuevo);
+            }
+            if (salioDelTop && top.size() < capacidad && top.size() < miembros.size()) {
+                rellenar();
+            }
+        }
+
+        private void ofrecer(Puntaje p) {
+            if (top.size() < capacidad) {
+                top.add(p);
+            } else if (ORDEN.compare(p, top.last()) < 0) {
+                top.add(p);
+                top.pollLast();
+            }
+        }
+
+        private void rellenar() {
+            top.clear();
+            for (Long id : miembros) {
+                ofrecer(porProveedor.get(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.usta.serviexpress.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resultado inmutable de una corrida del ranking por decaimiento; RankingServiceImpl lo publica
+ * de una vez (reemplazo atómico del motor en memoria).
+ */
+public record RankingSnapshot(Instant calculadoEn, List<RankingProveedores.Puntaje> entradas,
+                              long calificaciones, Duration duracion) {
+    public RankingSnapshot {
+        entradas = List.copyOf(entradas);
+    }
+}
@@ -0,0 +1,168 @@
+package com.usta.serviexpress.search;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Árbol de prefijos para autocompletar: cada entrada se cuelga del inicio de cada palabra ("instalacion
+ * electrica" responde a "inst" y a "elec"). Cada nodo cachea sus TOP_NODO mejores entradas; una escritura
+ * solo invalida los nodos de su camino.
+ */
+public class TriePrefijos {
+
+    public static final int TOP_NODO = 10;
+
+    private static final Comparator<Entrada> POR_PESO = Comparator
+            .comparingLong(Entrada::peso)
+            .thenComparing(Entrada::texto, Comparator.reverseOrder());
+
+    /** id único de la entrada (p. ej. "S:plomeria"), texto visible, tipo y peso de popularidad. */
+    public record Entrada(String id, String texto, String tipo, long peso) { }
+
+    private static final class Nodo {
+        final Map<Character, Nodo> hijos = new HashMap<>();
+        final Set<Entrada> terminales = new HashSet<>();
+        volatile List<Entrada> top;   // null = pendiente de recalcular
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Nodo raiz = new Nodo();
+    private final Map<String, Entrada> porId = new HashMap<>();
+
+    // ===================== Escritura =====================
+
+    /** Inserta o reemplaza (mismo id) una entrada. */
+    public void poner(Entrada entrada) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(entrada.id());
+            porId.put(entrada.id(), entrada);
+            for (String clave : claves(entrada.texto())) {
+                Nodo n = raiz;
+                n.top = null;
+                for (int i = 0; i < clave.length(); i++) {
+                    n = n.hijos.computeIfAbsent(clave.charAt(i), c -> new Nodo());
+                    n.top = null;
+                }
+                n.terminales.add(entrada);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(String id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinBloqueo(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void limpiar() {
+        lock.writeLock().lock();
+        try {
+            raiz.hijos.clear();
+            raiz.terminales.clear();
+            raiz.top = null;
+            porId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===================== Lectura =====================
+
+    /** Mejores entradas (por peso) bajo el prefijo dado; limite <= TOP_NODO. */
+    public List<Entrada> buscar(String prefijo, int limite) {
+        String clave = AnalizadorTexto.plegar(prefijo).trim().replaceAll("\\s+", " ");
+        if (clave.isEmpty() || limite <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Nodo n = raiz;
+            for (int i = 0; i < clave.length() && n != null; i++) {
+                n = n.hijos.get(clave.charAt(i));
+            }
+            if (n == null) return List.of();
+            List<Entrada> top = n.top;
+            if (top == null) {
+                top = calcularTop(n);
+                n.top = top;   // carrera benigna: dos lectores calcularían lo mismo
+            }
+            return top.size() <= limite ? top : top.subList(0, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== Internos =====================
+
+    private void quitarSinBloqueo(String id) {
+        Entrada anterior = porId.remove(id);
+        if (anterior == null) return;
+        for (String clave : claves(anterior.texto())) {
+            Deque<Nodo> camino = new ArrayDeque<>();
+            Nodo n = raiz;
+            camino.push(n);
+            for (int i = 0; i < clave.length() && n != null; i++) {
+                n = n.hijos.get(clave.charAt(i));
+                if (n != null) camino.push(n);
+            }
+            if (n == null) continue;
+            n.terminales.remove(anterior);
+            // Invalida el camino y poda los nodos que quedaron vacíos
+            for (int i = clave.length(); !camino.isEmpty(); i--) {
+                Nodo actual = camino.pop();
+                actual.top = null;
+                Nodo padre = camino.peek();
+                if (padre != null && actual.hijos.isEmpty() && actual.terminales.isEmpty()) {
+                    padre.hijos.remove(clave.charAt(i - 1));
+                }
+            }
+        }
+    }
+
+    // Recorre el subárbol con un montículo acotado; entradas repetidas (varias palabras) cuentan una vez
+    private static List<Entrada> calcularTop(Nodo inicio) {
+        PriorityQueue<Entrada> heap = new PriorityQueue<>(TOP_NODO + 1, POR_PESO);
+        Set<String> vistos = new HashSet<>();
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(inicio);
+        while (!pendientes.isEmpty()) {
+            Nodo n = pendientes.pop();
+            for (Entrada e : n.terminales) {
+                if (!vistos.add(e.id())) continue;
+                heap.offer(e);
+                if (heap.size() > TOP_NODO) heap.poll();
+            }
+            n.hijos.values().forEach(pendientes::push);
+        }
+        List<Entrada> salida = new ArrayList<>(heap);
+        salida.sort(POR_PESO.reversed());
+        return List.copyOf(salida);
+    }
+
+    // Texto completo plegado a partir de cada inicio de palabra
+    private static Set<String> claves(String texto) {
+        String plegado = AnalizadorTexto.plegar(texto).trim().replaceAll("\\s+", " ");
+        Set<String> salida = new LinkedHashSet<>();
+        if (plegado.isEmpty()) return salida;
+        salida.add(plegado);
+        for (int i = 1; i < plegado.length(); i++) {
+            if (plegado.charAt(i - 1) == ' ') salida.add(plegado.substring(i));
+        }
+        return salida;
+    }
+}
@@ -0,0 +1,18 @@
+package com.usta.serviexpress.util;
+
+import com.usta.serviexpress.search.AnalizadorTexto;
+
+/**
+ * Clave normalizada de ciudad ("  Bogotá D.C." -> "bogota d.c."): minúsculas, sin tildes, espacios simples.
+ * Es la única normalización; las filas previas se recalculan con ella (CiudadClaveBackfill).
+ */
+public final class CiudadUtils {
+
+    private CiudadUtils() { }
+
+    public static String clave(String ciudad) {
+        if (ciudad == null) return null;
+        String clave = AnalizadorTexto.plegar(ciudad).trim().replaceAll("\\s+", " ");
+        return clave.isEmpty() ? null : clave;
+    }
+}
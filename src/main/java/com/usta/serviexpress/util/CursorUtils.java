@@ -0,0 +1,21 @@
+package com.usta.serviexpress.util;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cursor de la siguiente página en listados keyset: la clave de orden del último elemento visto,
+ * o null si no hay más páginas.
+ */
+public final class CursorUtils {
+
+    private CursorUtils() { }
+
+    public static <T> Long siguienteCursor(Slice<T> slice, Function<T, Long> clave) {
+        if (slice == null || !slice.hasNext()) return null;
+        List<T> contenido = slice.getContent();
+        return contenido.isEmpty() ? null : clave.apply(contenido.get(contenido.size() - 1));
+    }
+}
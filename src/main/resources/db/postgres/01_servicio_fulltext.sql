@@ -0,0 +1,15 @@
+-- =====================================================================
+-- Búsqueda de texto completo del catálogo (PostgreSQL, configuración 'spanish')
+-- Se ejecuta en cada arranque después de Hibernate (spring.sql.init, ver application.properties),
+-- por eso todas las sentencias son idempotentes.
+-- =====================================================================
+
+-- Vector generado sobre nombre (peso A) + descripción (peso B); lo mantiene la propia BD
+ALTER TABLE servicio
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('spanish', coalesce(nombre, '')), 'A') ||
+            setweight(to_tsvector('spanish', coalesce(descripcion, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS ix_servicio_search_vector ON servicio USING GIN (search_vector);
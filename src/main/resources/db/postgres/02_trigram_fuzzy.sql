@@ -0,0 +1,11 @@
+-- =====================================================================
+-- Búsqueda aproximada (tolerante a errores de escritura) con pg_trgm
+-- "plomeria" -> "Plomería", "electrisista" -> "Electricista"
+-- Idempotente: se ejecuta en cada arranque (spring.sql.init).
+-- =====================================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Índices GIN de trigramas: sirven a los operadores %, <% y a ORDER BY similarity
+CREATE INDEX IF NOT EXISTS ix_servicio_nombre_trgm ON servicio USING GIN (nombre gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS ix_usuarios_nombre_usuario_trgm ON usuarios USING GIN (nombre_usuario gin_trgm_ops);
@@ -0,0 +1,19 @@
+-- =====================================================================
+-- Índices para los órdenes del catálogo (precio asc/desc, rating)
+-- Recientes (estado, id_servicio DESC) lo cubre ix_servicio_estado_id, declarado en ServicioEntity.
+-- Idempotente: se ejecuta en cada arranque (spring.sql.init).
+-- =====================================================================
+
+-- Precio asc/desc dentro de un estado (desc = recorrido inverso del mismo índice);
+-- también sirve a los filtros precioMin/precioMax de CatalogoQueryService
+CREATE INDEX IF NOT EXISTS ix_servicio_estado_precio
+    ON servicio (estado, precio, id_servicio) INCLUDE (id_proveedor);
+
+-- Rating: promedio por proveedor sin leer la tabla (carga del catálogo facetado, ranking)
+CREATE INDEX IF NOT EXISTS ix_calificaciones_proveedor_puntuacion
+    ON calificaciones (id_proveedor) INCLUDE (puntuacion);
+
+-- Retirados: ix_servicio_estado_recientes duplicaba ix_servicio_estado_id e ix_usuarios_id_ciudad repetía
+-- la PK; ninguna consulta los usaba (las facetas se calculan en memoria) y encarecían cada escritura
+DROP INDEX IF EXISTS ix_servicio_estado_recientes;
+DROP INDEX IF EXISTS ix_usuarios_id_ciudad;
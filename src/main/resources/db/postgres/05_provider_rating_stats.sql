@@ -0,0 +1,10 @@
+-- =====================================================================
+-- Agregado de calificaciones por proveedor (provider_rating_stats)
+-- La tabla la crea Hibernate (ProveedorRatingStatsEntity); el backfill lo hace
+-- ProveedorRatingStatsBackfill al arrancar. Idempotente.
+-- =====================================================================
+
+-- Ranking: orden por promedio/total recorriendo el índice, con el filtro de mínimo de reseñas
+-- resuelto sin leer la tabla
+CREATE INDEX IF NOT EXISTS ix_provider_rating_stats_ranking
+    ON provider_rating_stats (promedio DESC NULLS LAST, total DESC, id_proveedor);
@@ -0,0 +1,20 @@
+-- =====================================================================
+-- Listado keyset de calificaciones (CalificacionRepository.findFeed*)
+-- Orden id_calificacion DESC, una consulta por forma de filtro:
+--  - proveedor y estrellas: su índice ya está en ese orden; se detiene al llenar la página.
+--  - solo fechas: el orden por id no sale de un índice por fecha; el planner elige entre la PK en reversa
+--    filtrando fecha y el rango de ix_calificaciones_fecha_id seguido de un top-N.
+-- Idempotente.
+-- =====================================================================
+
+-- Filtro por estrellas
+CREATE INDEX IF NOT EXISTS ix_calificaciones_puntuacion_id
+    ON calificaciones (puntuacion, id_calificacion DESC);
+
+-- Reseñas de un proveedor (opcionalmente por estrellas)
+CREATE INDEX IF NOT EXISTS ix_calificaciones_proveedor_id
+    ON calificaciones (id_proveedor, id_calificacion DESC) INCLUDE (puntuacion);
+
+-- Rango de fechas
+CREATE INDEX IF NOT EXISTS ix_calificaciones_fecha_id
+    ON calificaciones (fecha, id_calificacion);
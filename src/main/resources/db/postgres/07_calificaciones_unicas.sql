@@ -0,0 +1,41 @@
+-- =====================================================================
+-- Una calificación por (cliente, proveedor, servicio) y por (cliente, proveedor) sin servicio.
+-- Son el árbitro del upsert de CalificacionRepository (ON CONFLICT ... WHERE ...).
+-- Antes de crear cada índice, y solo esa vez (comprobando pg_indexes), se eliminan los duplicados previos
+-- (se conserva la más reciente); provider_rating_stats se reconcilia al arrancar (ProveedorRatingStatsBackfill).
+-- =====================================================================
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_indexes
+                   WHERE schemaname = current_schema()
+                     AND indexname = ''ux_calificaciones_cliente_proveedor_servicio'') THEN
+        DELETE FROM calificaciones c
+        USING calificaciones d
+        WHERE c.id_servicio IS NOT NULL
+          AND d.id_cliente = c.id_cliente
+          AND d.id_proveedor = c.id_proveedor
+          AND d.id_servicio = c.id_servicio
+          AND d.id_calificacion > c.id_calificacion;
+
+        CREATE UNIQUE INDEX ux_calificaciones_cliente_proveedor_servicio
+            ON calificaciones (id_cliente, id_proveedor, id_servicio)
+            WHERE id_servicio IS NOT NULL;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_indexes
+                   WHERE schemaname = current_schema()
+                     AND indexname = ''ux_calificaciones_cliente_proveedor_sin_servicio'') THEN
+        DELETE FROM calificaciones c
+        USING calificaciones d
+        WHERE c.id_servicio IS NULL
+          AND d.id_servicio IS NULL
+          AND d.id_cliente = c.id_cliente
+          AND d.id_proveedor = c.id_proveedor
+          AND d.id_calificacion > c.id_calificacion;
+
+        CREATE UNIQUE INDEX ux_calificaciones_cliente_proveedor_sin_servicio
+            ON calificaciones (id_cliente, id_proveedor)
+            WHERE id_servicio IS NULL;
+    END IF;
+END';
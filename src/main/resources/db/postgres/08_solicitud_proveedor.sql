@@ -0,0 +1,46 @@
+-- =====================================================================
+-- Solicitudes por proveedor sin join a servicio
+-- solicitud_servicio.id_proveedor es el proveedor asignado: al crearla, copia de servicio.id_proveedor
+-- (@PrePersist) y se re-alinea al reasignar el servicio (sincronizarProveedor). Las que otro proveedor
+-- tomó por despacho (despacho.estado = 'TOMADA', tabla creada por Hibernate) conservan a quien las tomó.
+-- Esto cubre filas previas y crea los índices compuestos de los listados keyset
+-- (orden fecha_solicitud DESC, id_solicitud DESC).
+-- =====================================================================
+
+-- Backfill de filas previas: recorre toda la tabla, así que corre una sola vez, mientras aún no existe
+-- ix_solicitud_proveedor_fecha (se crea abajo). Después la aplicación mantiene la columna. Tras convertir
+-- la tabla a particionada (ParticionesPostgres) los índices se recrean y el backfill vuelve a pasar una vez.
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_indexes
+                   WHERE schemaname = current_schema()
+                     AND indexname = ''ix_solicitud_proveedor_fecha'') THEN
+        UPDATE solicitud_servicio ss
+        SET id_proveedor = s.id_proveedor
+        FROM servicio s
+        WHERE s.id_servicio = ss.id_servicio
+          AND ss.id_proveedor IS DISTINCT FROM s.id_proveedor
+          AND NOT EXISTS (SELECT 1 FROM despacho d
+                          WHERE d.id_solicitud = ss.id_solicitud AND d.estado = ''TOMADA'');
+    END IF;
+END';
+
+-- Historial del proveedor sin filtro de estado (findByProveedorDeep, el listado por defecto)
+CREATE INDEX IF NOT EXISTS ix_solicitud_proveedor_fecha
+    ON solicitud_servicio (id_proveedor, fecha_solicitud DESC, id_solicitud DESC);
+
+-- Historial / contadores del proveedor filtrados por estado
+CREATE INDEX IF NOT EXISTS ix_solicitud_proveedor_estado_fecha
+    ON solicitud_servicio (id_proveedor, estado, fecha_solicitud DESC, id_solicitud DESC);
+
+-- Historial del cliente
+CREATE INDEX IF NOT EXISTS ix_solicitud_cliente_fecha
+    ON solicitud_servicio (id_cliente, fecha_solicitud DESC, id_solicitud DESC);
+
+-- Popularidad por servicio, re-sincronización de id_proveedor y borrado de servicios
+CREATE INDEX IF NOT EXISTS ix_solicitud_servicio
+    ON solicitud_servicio (id_servicio);
+
+-- Historial del administrador (sin filtro de dueño)
+CREATE INDEX IF NOT EXISTS ix_solicitud_fecha
+    ON solicitud_servicio (fecha_solicitud DESC, id_solicitud DESC);
@@ -0,0 +1,17 @@
+-- =====================================================================
+-- Ciclo de vida de solicitudes (EstadoSolicitud)
+-- Las transiciones son un UPDATE condicional por id_solicitud (PK); aquí van los índices parciales
+-- de las solicitudes "activas" que consultan los tableros (filtro Activas del historial).
+-- El predicado debe coincidir literalmente con SolicitudRepository.findActivas*Deep.
+-- Idempotente.
+-- =====================================================================
+
+-- Activas de un proveedor, en orden de historial
+CREATE INDEX IF NOT EXISTS ix_solicitud_activas_proveedor
+    ON solicitud_servicio (id_proveedor, fecha_solicitud DESC, id_solicitud DESC)
+    WHERE estado IN ('PENDIENTE', 'PAGO_EN_PROCESO', 'PAGO_ACEPTADO', 'EN PROCESO');
+
+-- Activas de toda la plataforma (tablero del administrador)
+CREATE INDEX IF NOT EXISTS ix_solicitud_activas
+    ON solicitud_servicio (fecha_solicitud DESC, id_solicitud DESC)
+    WHERE estado IN ('PENDIENTE', 'PAGO_EN_PROCESO', 'PAGO_ACEPTADO', 'EN PROCESO');
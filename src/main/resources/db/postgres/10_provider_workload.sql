@@ -0,0 +1,11 @@
+-- =====================================================================
+-- Contadores de carga por proveedor (provider_workload)
+-- La tabla la crea Hibernate (ProveedorCargaEntity); el backfill y la reconciliación los hace
+-- CargaProveedorReconciliacionJob (al arrancar y cada carga.reconciliacion.intervalo). Idempotente.
+-- =====================================================================
+
+-- Lectura de todos los contadores de un proveedor (o de una página de proveedores) sin tocar la tabla:
+-- la clave primaria no incluye total, este índice sí (index-only scan)
+CREATE INDEX IF NOT EXISTS ix_provider_workload_lectura
+    ON provider_workload (id_proveedor, tipo, estado) INCLUDE (total);
+
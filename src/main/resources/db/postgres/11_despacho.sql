@@ -0,0 +1,16 @@
+-- =====================================================================
+-- Despacho automático de solicitudes (despacho)
+-- La tabla la crea Hibernate (DespachoEntity); el motor de emparejamiento vive en memoria
+-- (DespachoServiceImplement). Idempotente.
+-- =====================================================================
+
+-- Ofertas abiertas de una ciudad, más recientes primero (DespachoRepository.findOfertas).
+-- Parcial: las asignadas / tomadas, que son casi todas, no ocupan el índice
+CREATE INDEX IF NOT EXISTS ix_despacho_ofertas
+    ON despacho (ciudad_clave, creado DESC, id_solicitud DESC)
+    WHERE estado = 'OFERTADA';
+
+-- Re-alineación de proveedores (sincronizarProveedor y 08_solicitud_proveedor.sql) excluye las tomadas
+CREATE INDEX IF NOT EXISTS ix_despacho_tomadas
+    ON despacho (id_solicitud)
+    WHERE estado = 'TOMADA';
@@ -0,0 +1,50 @@
+-- =====================================================================
+-- Agenda de proveedores (agenda_reservas)
+-- La tabla la crea Hibernate (AgendaReservaEntity); el árbol de intervalos por proveedor vive en
+-- memoria (AgendaServiceImplement). Aquí va lo que Hibernate no sabe declarar. Idempotente.
+-- =====================================================================
+
+-- Igualdad sobre bigint dentro de un índice GiST (id_proveedor WITH =)
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Dos franjas del mismo proveedor no se cruzan: [inicio, fin) semiabierto, así una franja puede empezar
+-- justo cuando termina otra. AgendaRepository.reservar usa ON CONFLICT DO NOTHING contra esta restricción.
+-- PostgreSQL no tiene ADD CONSTRAINT IF NOT EXISTS: se crea una sola vez, comprobando pg_constraint (así
+-- los arranques siguientes no bloquean la tabla ni reconstruyen el índice GiST). Si ya hubiera franjas
+-- cruzadas se avisa en el log en vez de abortar el arranque. El cuerpo del DO va entre comillas simples
+-- (no $$): el separador de spring.sql.init respeta las comillas y no corta en los ; internos.
+--
+-- En el mismo bloque (una sola vez, junto con la restricción) se agendan los trabajos en proceso con
+-- fecha estimada desde hoy que aún no tienen franja: hasta ahora la fecha se fijaba sin hora, se reservan
+-- en el primer bloque de la jornada (08:00, 4 h). Los que se cruzan con otra franja del mismo día se
+-- omiten (ON CONFLICT DO NOTHING) y se agendan al reprogramarlos. Fuera del bloque correría en cada
+-- arranque y devolvería franjas que el proveedor ya liberó.
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = ''ex_agenda_solape''
+                     AND conrelid = ''agenda_reservas''::regclass) THEN
+        ALTER TABLE agenda_reservas ADD CONSTRAINT ex_agenda_solape
+            EXCLUDE USING gist (id_proveedor WITH =, tsrange(inicio, fin, ''[)'') WITH &&);
+
+        INSERT INTO agenda_reservas (id_proveedor, id_solicitud, inicio, fin, creado)
+        SELECT s.id_proveedor,
+               s.id_solicitud,
+               s.fecha_estimada + time ''08:00'',
+               s.fecha_estimada + time ''12:00'',
+               now()
+        FROM solicitud_servicio s
+        WHERE s.estado = ''EN PROCESO''
+          AND s.fecha_estimada >= current_date
+          AND s.id_proveedor IS NOT NULL
+          AND NOT EXISTS (SELECT 1 FROM agenda_reservas a WHERE a.id_solicitud = s.id_solicitud)
+        ORDER BY s.id_solicitud
+        ON CONFLICT DO NOTHING;
+    END IF;
+EXCEPTION WHEN exclusion_violation THEN
+    RAISE WARNING ''ex_agenda_solape no se creó: hay franjas cruzadas en agenda_reservas'';
+END';
+
+-- Carga del árbol de un proveedor: franjas que aún no terminan (AgendaRepository.findVigentes)
+CREATE INDEX IF NOT EXISTS ix_agenda_proveedor_fin
+    ON agenda_reservas (id_proveedor, fin);
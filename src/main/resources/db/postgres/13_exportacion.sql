@@ -0,0 +1,11 @@
+-- =====================================================================
+-- Exportaciones del administrador (ExportacionServiceImplement)
+-- Las consultas de exportación recorren en orden cronológico y en streaming: con un índice en ese
+-- orden la primera fila sale enseguida y no hay un sort de toda la tabla en disco. Idempotente.
+-- =====================================================================
+
+-- Pagos por (fecha_pago, id_pago) (PagoRepository.streamExportacion); en la tabla particionada se crea en
+-- cada partición. solicitud_servicio (08_solicitud_proveedor.sql) y calificaciones
+-- (06_calificaciones_listado.sql) ya tienen el suyo
+CREATE INDEX IF NOT EXISTS ix_pagos_fecha
+    ON pagos (fecha_pago, id_pago);
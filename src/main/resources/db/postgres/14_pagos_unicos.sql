@@ -0,0 +1,40 @@
+-- =====================================================================
+-- Unicidad de pagos por solicitud, referencia externa y token (idempotencia del checkout y del webhook)
+-- PagoEntity ya no las declara: Hibernate las reintentaba en cada arranque sobre la tabla particionada.
+-- Mientras pagos no está particionada son restricciones UNIQUE (los nombres que creaba Hibernate, así las
+-- bases existentes no cambian); una vez particionada no caben (no incluyen fecha_pago) y las reemplaza
+-- pagos_claves con su trigger (TablaParticionada.PAGOS). Cada una se crea una sola vez; si ya hay
+-- duplicados se avisa en el log en vez de abortar el arranque.
+-- =====================================================================
+
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(''pagos'') AND relkind = ''r'') THEN
+        BEGIN
+            IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                           WHERE conname = ''uk_pago_solicitud'' AND conrelid = ''pagos''::regclass) THEN
+                ALTER TABLE pagos ADD CONSTRAINT uk_pago_solicitud UNIQUE (id_solicitud);
+            END IF;
+        EXCEPTION WHEN unique_violation THEN
+            RAISE WARNING ''uk_pago_solicitud no se creó: hay pagos repetidos por solicitud'';
+        END;
+
+        BEGIN
+            IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                           WHERE conname = ''uk_pago_referencia_ext'' AND conrelid = ''pagos''::regclass) THEN
+                ALTER TABLE pagos ADD CONSTRAINT uk_pago_referencia_ext UNIQUE (referencia_ext);
+            END IF;
+        EXCEPTION WHEN unique_violation THEN
+            RAISE WARNING ''uk_pago_referencia_ext no se creó: hay referencias externas repetidas'';
+        END;
+
+        BEGIN
+            IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                           WHERE conname = ''uk_pago_token'' AND conrelid = ''pagos''::regclass) THEN
+                ALTER TABLE pagos ADD CONSTRAINT uk_pago_token UNIQUE (payment_token);
+            END IF;
+        EXCEPTION WHEN unique_violation THEN
+            RAISE WARNING ''uk_pago_token no se creó: hay tokens de pago repetidos'';
+        END;
+    END IF;
+END';
@@ -0,0 +1,117 @@
+package com.usta.serviexpress.Controller;
+
+import com.usta.serviexpress.DTOs.PagoFiltroDTO;
+import com.usta.serviexpress.Service.ExportacionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportacionControllerTest {
+
+    private ExportacionService exportacionService;
+    private ExportacionController controller;
+
+    @BeforeEach
+    void armar() throws IOException {
+        exportacionService = mock(ExportacionService.class);
+        when(exportacionService.exportarPagos(any(), any(), any())).thenReturn(0L);
+        // Un solo permiso: si no vuelve, la siguiente descarga recibe 429
+        controller = new ExportacionController(exportacionService, 1);
+    }
+
+    @AfterEach
+    void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void unaSegundaDescargaSimultaneaSeRechaza() {
+        assertEquals(HttpStatus.OK, pedir().respuesta().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, pedir().respuesta().getStatusCode());
+    }
+
+    @Test
+    void elCuerpoDevuelveElPermisoAunqueLaExportacionFalle() throws IOException {
+        when(exportacionService.exportarPagos(any(), any(), any())).thenThrow(new IOException("Broken pipe"));
+        Peticion primera = pedir();
+
+        assertThrows(IOException.class, () -> primera.respuesta().getBody().writeTo(new ByteArrayOutputStream()));
+        assertEquals(HttpStatus.OK, pedir().respuesta().getStatusCode());
+    }
+
+    @Test
+    void siElCuerpoNuncaCorreLoDevuelveElCierreAsincrono() throws Exception {
+        Peticion primera = pedir();
+        List<Runnable> pendientes = new ArrayList<>();
+        primera.iniciarAsincrono(pendientes);
+        assertEquals(1, pendientes.size());
+
+        // El cliente cortó antes de que el executor llegara a correr el cuerpo
+        primera.cerrarAsincrono();
+        assertEquals(HttpStatus.OK, pedir().respuesta().getStatusCode());
+    }
+
+    @Test
+    void elPermisoVuelveUnaSolaVez() throws Exception {
+        Peticion primera = pedir();
+        List<Runnable> pendientes = new ArrayList<>();
+        primera.iniciarAsincrono(pendientes);
+        pendientes.forEach(Runnable::run);
+        primera.cerrarAsincrono();
+
+        // El cuerpo y el cierre liberan, pero sigue habiendo un solo permiso
+        assertEquals(HttpStatus.OK, pedir().respuesta().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, pedir().respuesta().getStatusCode());
+    }
+
+    private Peticion pedir() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/Admins/exportar/pagos");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return new Peticion(request, response, controller.pagos("csv", new PagoFiltroDTO(), null));
+    }
+
+    private record Peticion(MockHttpServletRequest request, MockHttpServletResponse response,
+                            ResponseEntity<StreamingResponseBody> respuesta) {
+
+        // Lo mismo que StreamingResponseBodyReturnValueHandler: el cuerpo va a un Callable en el executor de MVC,
+        // que aquí solo lo encola
+        void iniciarAsincrono(List<Runnable> pendientes) throws Exception {
+            WebAsyncManager manager = WebAsyncUtils.getAsyncManager(request);
+            manager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+            manager.setTaskExecutor(new ConcurrentTaskExecutor(pendientes::add));
+            StreamingResponseBody cuerpo = respuesta.getBody();
+            manager.startCallableProcessing(() -> {
+                cuerpo.writeTo(new ByteArrayOutputStream());
+                return null;
+            });
+        }
+
+        void cerrarAsincrono() {
+            request.getAsyncContext().complete();
+        }
+    }
+}
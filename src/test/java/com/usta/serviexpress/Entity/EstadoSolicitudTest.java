@@ -0,0 +1,99 @@
+package com.usta.serviexpress.Entity;
+
+import com.usta.serviexpress.Entity.EstadoSolicitud.Actor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.usta.serviexpress.Entity.EstadoSolicitud.EN_PROCESO;
+import static com.usta.serviexpress.Entity.EstadoSolicitud.FINALIZADO;
+import static com.usta.serviexpress.Entity.EstadoSolicitud.PAGO_ACEPTADO;
+import static com.usta.serviexpress.Entity.EstadoSolicitud.PAGO_EN_PROCESO;
+import static com.usta.serviexpress.Entity.EstadoSolicitud.PAGO_RECHAZADO;
+import static com.usta.serviexpress.Entity.EstadoSolicitud.PENDIENTE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EstadoSolicitudTest {
+
+    /** Tabla esperada completa: cualquier transición que no esté aquí debe rechazarse. */
+    private static Set<EstadoSolicitud> esperado(Actor actor, EstadoSolicitud destino) {
+        return switch (actor) {
+            case CLIENTE -> switch (destino) {
+                case PAGO_EN_PROCESO -> EnumSet.of(PENDIENTE, PAGO_RECHAZADO, PAGO_EN_PROCESO);
+                case EN_PROCESO, FINALIZADO -> EnumSet.of(PAGO_ACEPTADO, EN_PROCESO);
+                default -> EnumSet.noneOf(EstadoSolicitud.class);
+            };
+            case PROVEEDOR -> switch (destino) {
+                case EN_PROCESO, FINALIZADO -> EnumSet.of(PAGO_ACEPTADO, EN_PROCESO);
+                default -> EnumSet.noneOf(EstadoSolicitud.class);
+            };
+            case ADMIN -> switch (destino) {
+                case PAGO_ACEPTADO, PAGO_RECHAZADO -> EnumSet.of(PAGO_EN_PROCESO);
+                default -> EnumSet.noneOf(EstadoSolicitud.class);
+            };
+        };
+    }
+
+    @Test
+    void laTablaCoincideConLaEsperadaParaCadaActorYEstado() {
+        for (Actor actor : Actor.values()) {
+            for (EstadoSolicitud destino : EstadoSolicitud.values()) {
+                Set<EstadoSolicitud> permitidos = esperado(actor, destino);
+                assertEquals(permitidos, destino.origenes(actor), actor + " -> " + destino);
+                for (EstadoSolicitud actual : EstadoSolicitud.values()) {
+                    assertEquals(permitidos.contains(actual), destino.permiteDesde(actual, actor),
+                            actor + ": " + actual + " -> " + destino);
+                }
+                assertFalse(destino.permiteDesde(null, actor));
+            }
+        }
+    }
+
+    @Test
+    void finalizadoEsTerminal() {
+        for (Actor actor : Actor.values()) {
+            for (EstadoSolicitud destino : EstadoSolicitud.values()) {
+                assertFalse(destino.permiteDesde(FINALIZADO, actor), actor + ": FINALIZADO -> " + destino);
+            }
+        }
+    }
+
+    @Test
+    void valoresOrigenUsanElTextoDeBd() {
+        assertEquals(Set.of("PAGO_ACEPTADO", "EN PROCESO"), Set.copyOf(FINALIZADO.valoresOrigen(Actor.PROVEEDOR)));
+        assertEquals(List.of(), PENDIENTE.valoresOrigen(Actor.ADMIN));
+    }
+
+    @Test
+    void origenesNoSePuedeModificar() {
+        assertThrows(UnsupportedOperationException.class, () -> EN_PROCESO.origenes(Actor.CLIENTE).add(PENDIENTE));
+    }
+
+    @Test
+    void deAceptaValorONombreSinDistinguirMayusculas() {
+        assertEquals(Optional.of(EN_PROCESO), EstadoSolicitud.de("EN PROCESO"));
+        assertEquals(Optional.of(EN_PROCESO), EstadoSolicitud.de(" en_proceso "));
+        assertEquals(Optional.of(PAGO_RECHAZADO), EstadoSolicitud.de("pago_rechazado"));
+        assertEquals(Optional.empty(), EstadoSolicitud.de("CANCELADO"));
+        assertEquals(Optional.empty(), EstadoSolicitud.de("  "));
+        assertEquals(Optional.empty(), EstadoSolicitud.de(null));
+    }
+
+    @Test
+    void activosCoincidenConLosIndicesParciales() {
+        // Predicado de db/postgres/09_solicitud_estados.sql
+        List<String> indice = List.of("PENDIENTE", "PAGO_EN_PROCESO", "PAGO_ACEPTADO", "EN PROCESO");
+        List<String> activos = Arrays.stream(EstadoSolicitud.values())
+                .filter(EstadoSolicitud::activo)
+                .map(EstadoSolicitud::valor)
+                .toList();
+        assertEquals(indice, activos);
+        assertEquals(EstadoSolicitud.values().length, EstadoSolicitud.valores().size());
+    }
+}
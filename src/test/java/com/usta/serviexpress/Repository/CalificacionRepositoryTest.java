@@ -0,0 +1,87 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Repository.CalificacionRepository.CalificacionUpsertView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Contra la PostgreSQL de docker-compose (perfil local); cada prueba se revierte al terminar
+@SpringBootTest
+@ActiveProfiles("local")
+@Transactional
+class CalificacionRepositoryTest {
+
+    @Autowired
+    private CalificacionRepository calificacionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private long idCliente;
+    private long idProveedor;
+    private long idServicio;
+
+    @BeforeEach
+    void datos() {
+        long idRol = jdbc.queryForObject(
+                "insert into roles (rol) values ('PRUEBA_CALIFICACION_REPO') returning id_rol", Long.class);
+        idCliente = usuario("cliente.calificacion.repo@prueba.local", idRol);
+        idProveedor = usuario("proveedor.calificacion.repo@prueba.local", idRol);
+        idServicio = jdbc.queryForObject("""
+                insert into servicio (nombre, descripcion, precio, estado, id_proveedor)
+                values ('Pintura', 'Prueba', 80000, 'DISPONIBLE', ?) returning id_servicio
+                """, Long.class, idProveedor);
+    }
+
+    @Test
+    void upsertDeServicioInsertaYLuegoDevuelveLaPuntuacionReemplazada() {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        CalificacionUpsertView nueva = calificacionRepository
+                .upsertDeServicio(idCliente, idServicio, 4, "Bien", ahora).orElseThrow();
+        assertEquals(idProveedor, nueva.getIdProveedor());
+        assertEquals(idServicio, nueva.getIdServicio());
+        assertEquals(4, nueva.getPuntuacion());
+        assertNull(nueva.getPuntuacionAnterior());
+
+        CalificacionUpsertView editada = calificacionRepository
+                .upsertDeServicio(idCliente, idServicio, 2, "Regular", ahora.plusMinutes(1)).orElseThrow();
+        assertEquals(nueva.getIdCalificacion(), editada.getIdCalificacion());
+        assertEquals(2, editada.getPuntuacion());
+        assertEquals(4, editada.getPuntuacionAnterior());
+    }
+
+    @Test
+    void upsertDeProveedorNoLlevaServicio() {
+        CalificacionUpsertView v = calificacionRepository
+                .upsertDeProveedor(idCliente, idProveedor, 5, null, LocalDateTime.now()).orElseThrow();
+
+        assertEquals(idProveedor, v.getIdProveedor());
+        assertNull(v.getIdServicio());
+        assertEquals(5, v.getPuntuacion());
+        assertNull(v.getPuntuacionAnterior());
+    }
+
+    @Test
+    void sinFilasSiElServicioNoExiste() {
+        assertTrue(calificacionRepository.upsertDeServicio(idCliente, -1L, 3, null, LocalDateTime.now()).isEmpty());
+        assertTrue(calificacionRepository.upsertDeProveedor(idCliente, -1L, 3, null, LocalDateTime.now()).isEmpty());
+    }
+
+    private long usuario(String correo, long idRol) {
+        return jdbc.queryForObject("""
+                insert into usuarios (correo, clave, nombre_usuario, id_rol)
+                values (?, 'x', ?, ?) returning id_usuario
+                """, Long.class, correo, correo, idRol);
+    }
+}
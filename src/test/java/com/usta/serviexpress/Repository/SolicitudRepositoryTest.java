@@ -0,0 +1,101 @@
+package com.usta.serviexpress.Repository;
+
+import com.usta.serviexpress.Repository.SolicitudRepository.SolicitudTransicionView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Contra la PostgreSQL de docker-compose (perfil local); cada prueba se revierte al terminar
+@SpringBootTest
+@ActiveProfiles("local")
+@Transactional
+class SolicitudRepositoryTest {
+
+    @Autowired
+    private SolicitudRepository solicitudRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private long idCliente;
+    private long idProveedor;
+    private long idServicio;
+    private long idSolicitud;
+
+    @BeforeEach
+    void datos() {
+        long idRol = jdbc.queryForObject(
+                "insert into roles (rol) values ('PRUEBA_SOLICITUD_REPO') returning id_rol", Long.class);
+        idCliente = usuario("cliente.solicitud.repo@prueba.local", idRol);
+        idProveedor = usuario("proveedor.solicitud.repo@prueba.local", idRol);
+        idServicio = jdbc.queryForObject("""
+                insert into servicio (nombre, descripcion, precio, estado, id_proveedor)
+                values ('Plomería', 'Prueba', 50000, 'DISPONIBLE', ?) returning id_servicio
+                """, Long.class, idProveedor);
+        idSolicitud = jdbc.queryForObject("""
+                insert into solicitud_servicio (fecha_solicitud, estado, id_servicio, id_cliente, id_proveedor)
+                values (current_date, 'PAGO_ACEPTADO', ?, ?, ?) returning id_solicitud
+                """, Long.class, idServicio, idCliente, idProveedor);
+    }
+
+    @Test
+    void transicionarDevuelveLaFilaDeReturningEnLaProyeccion() {
+        LocalDate fecha = LocalDate.now().plusDays(3);
+
+        Optional<SolicitudTransicionView> r = solicitudRepository.transicionar(idSolicitud,
+                List.of("PAGO_ACEPTADO", "EN PROCESO"), "EN PROCESO", null, idProveedor, true, fecha);
+
+        assertTrue(r.isPresent());
+        SolicitudTransicionView v = r.get();
+        assertEquals(idSolicitud, v.getIdSolicitud());
+        assertEquals(idServicio, v.getIdServicio());
+        assertEquals(idCliente, v.getIdCliente());
+        assertEquals(idProveedor, v.getIdProveedor());
+        assertEquals("EN PROCESO", v.getEstado());
+        assertEquals("PAGO_ACEPTADO", v.getEstadoAnterior());
+        assertEquals(fecha, jdbc.queryForObject(
+                "select fecha_estimada from solicitud_servicio where id_solicitud = ?", LocalDate.class, idSolicitud));
+    }
+
+    @Test
+    void sinFijarFechaConservaLaActual() {
+        LocalDate fecha = LocalDate.now().plusDays(1);
+        solicitudRepository.transicionar(idSolicitud, List.of("PAGO_ACEPTADO"), "EN PROCESO",
+                null, idProveedor, true, fecha);
+
+        Optional<SolicitudTransicionView> r = solicitudRepository.transicionar(idSolicitud,
+                List.of("EN PROCESO"), "FINALIZADO", idCliente, null, false, null);
+
+        assertEquals("EN PROCESO", r.orElseThrow().getEstadoAnterior());
+        assertEquals(fecha, jdbc.queryForObject(
+                "select fecha_estimada from solicitud_servicio where id_solicitud = ?", LocalDate.class, idSolicitud));
+    }
+
+    @Test
+    void sinFilasSiElEstadoOElDuenoNoCoinciden() {
+        assertTrue(solicitudRepository.transicionar(idSolicitud, List.of("PENDIENTE"), "PAGO_EN_PROCESO",
+                idCliente, null, false, null).isEmpty());
+        assertTrue(solicitudRepository.transicionar(idSolicitud, List.of("PAGO_ACEPTADO"), "EN PROCESO",
+                null, idCliente, false, null).isEmpty());
+        assertEquals("PAGO_ACEPTADO", jdbc.queryForObject(
+                "select estado from solicitud_servicio where id_solicitud = ?", String.class, idSolicitud));
+    }
+
+    private long usuario(String correo, long idRol) {
+        return jdbc.queryForObject("""
+                insert into usuarios (correo, clave, nombre_usuario, id_rol)
+                values (?, 'x', ?, ?) returning id_usuario
+                """, Long.class, correo, correo, idRol);
+    }
+}
@@ -0,0 +1,141 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.Entity.AgendaReservaEntity;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Repository.AgendaRepository;
+import com.usta.serviexpress.Service.AgendaService.ResultadoAgenda;
+import com.usta.serviexpress.Service.SolicitudServicioService.ResultadoTransicion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AgendaServiceImplementTest {
+
+    private static final long PROVEEDOR = 7L;
+    private static final long SOLICITUD = 100L;
+    private static final Duration DURACION = Duration.ofHours(2);
+
+    private final LocalDateTime inicio = LocalDateTime.now().plusDays(2).withHour(10).truncatedTo(ChronoUnit.HOURS);
+
+    private AgendaRepository agendaRepository;
+    private SolicitudServicioService solicitudServicioService;
+    private ApplicationEventPublisher eventos;
+    private TransaccionesDePrueba transacciones;
+    private AgendaService agenda;
+
+    @BeforeEach
+    void armar() {
+        agendaRepository = mock(AgendaRepository.class);
+        solicitudServicioService = mock(SolicitudServicioService.class);
+        eventos = mock(ApplicationEventPublisher.class);
+        transacciones = new TransaccionesDePrueba();
+        when(agendaRepository.findVigentes(eq(PROVEEDOR), any())).thenReturn(List.of());
+        when(agendaRepository.borrarDeSolicitud(SOLICITUD)).thenReturn(Optional.empty());
+        when(solicitudServicioService.transicionar(eq(SOLICITUD), any(), any(), any(), anyBoolean(), any()))
+                .thenReturn(ResultadoTransicion.APLICADA);
+
+        AgendaServiceImplement servicio = new AgendaServiceImplement(agendaRepository, solicitudServicioService,
+                eventos, new SimpleMeterRegistry(), "08:00", "18:00", 60, 100, Duration.ofMinutes(30));
+        // @Transactional como en la aplicación, para ver el commit o el rollback
+        ProxyFactory proxy = new ProxyFactory(servicio);
+        proxy.addAdvice(new TransactionInterceptor(transacciones, new AnnotationTransactionAttributeSource()));
+        agenda = (AgendaService) proxy.getProxy();
+    }
+
+    @Test
+    void agendaYPublicaLaFranja() {
+        when(agendaRepository.reservar(PROVEEDOR, SOLICITUD, inicio, inicio.plus(DURACION))).thenReturn(1);
+
+        assertEquals(ResultadoAgenda.AGENDADA,
+                agenda.agendar(SOLICITUD, PROVEEDOR, EstadoSolicitud.EN_PROCESO, inicio, DURACION));
+
+        verify(solicitudServicioService).transicionar(SOLICITUD, EstadoSolicitud.EN_PROCESO,
+                EstadoSolicitud.Actor.PROVEEDOR, PROVEEDOR, true, inicio.toLocalDate());
+        verify(eventos).publishEvent(new AgendaCambiadaEvent(SOLICITUD, null, PROVEEDOR, inicio, inicio.plus(DURACION)));
+        assertEquals(1, transacciones.commits);
+        assertEquals(0, transacciones.rollbacks);
+    }
+
+    @Test
+    void unCruceEnMemoriaNoTocaLaSolicitud() {
+        when(agendaRepository.findVigentes(eq(PROVEEDOR), any()))
+                .thenReturn(List.of(reserva(200L, inicio.plusHours(1), inicio.plusHours(3))));
+
+        assertEquals(ResultadoAgenda.CONFLICTO,
+                agenda.agendar(SOLICITUD, PROVEEDOR, EstadoSolicitud.EN_PROCESO, inicio, DURACION));
+
+        verify(solicitudServicioService, never()).transicionar(anyLong(), any(), any(), any(), anyBoolean(), any());
+        verify(agendaRepository, never()).reservar(any(), any(), any(), any());
+    }
+
+    @Test
+    void laFranjaPropiaNoCuentaComoCruce() {
+        when(agendaRepository.findVigentes(eq(PROVEEDOR), any()))
+                .thenReturn(List.of(reserva(SOLICITUD, inicio.plusHours(1), inicio.plusHours(3))));
+        when(agendaRepository.borrarDeSolicitud(SOLICITUD)).thenReturn(Optional.of(PROVEEDOR));
+        when(agendaRepository.reservar(PROVEEDOR, SOLICITUD, inicio, inicio.plus(DURACION))).thenReturn(1);
+
+        assertEquals(ResultadoAgenda.AGENDADA,
+                agenda.agendar(SOLICITUD, PROVEEDOR, EstadoSolicitud.EN_PROCESO, inicio, DURACION));
+        verify(eventos).publishEvent(new AgendaCambiadaEvent(SOLICITUD, PROVEEDOR, PROVEEDOR, inicio, inicio.plus(DURACION)));
+    }
+
+    @Test
+    void siLaBdRechazaLaFranjaSeRevierteTodaLaTransaccion() {
+        // Otra reserva ganó entre la comprobación en memoria y el INSERT (ex_agenda_solape)
+        when(agendaRepository.reservar(PROVEEDOR, SOLICITUD, inicio, inicio.plus(DURACION))).thenReturn(0);
+
+        assertEquals(ResultadoAgenda.CONFLICTO,
+                agenda.agendar(SOLICITUD, PROVEEDOR, EstadoSolicitud.EN_PROCESO, inicio, DURACION));
+
+        assertEquals(0, transacciones.commits);
+        assertEquals(1, transacciones.rollbacks);
+        verify(eventos, never()).publishEvent(any(AgendaCambiadaEvent.class));
+    }
+
+    @Test
+    void unaTransicionRechazadaNoReserva() {
+        when(solicitudServicioService.transicionar(eq(SOLICITUD), any(), any(), any(), anyBoolean(), any()))
+                .thenReturn(ResultadoTransicion.NO_AUTORIZADO);
+
+        assertEquals(ResultadoAgenda.NO_AUTORIZADO,
+                agenda.agendar(SOLICITUD, PROVEEDOR, EstadoSolicitud.EN_PROCESO, inicio, DURACION));
+        verify(agendaRepository, never()).reservar(any(), any(), any(), any());
+    }
+
+    @Test
+    void noAgendaEnElPasado() {
+        assertEquals(ResultadoAgenda.EN_EL_PASADO, agenda.agendar(SOLICITUD, PROVEEDOR, EstadoSolicitud.EN_PROCESO,
+                LocalDateTime.now().minusDays(1), DURACION));
+        verify(solicitudServicioService, never()).transicionar(anyLong(), any(), any(), any(), anyBoolean(), any());
+    }
+
+    private static AgendaReservaEntity reserva(long idSolicitud, LocalDateTime inicio, LocalDateTime fin) {
+        AgendaReservaEntity r = new AgendaReservaEntity();
+        r.setIdProveedor(PROVEEDOR);
+        r.setIdSolicitud(idSolicitud);
+        r.setInicio(inicio);
+        r.setFin(fin);
+        return r;
+    }
+}
@@ -0,0 +1,127 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CargaProveedorDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Entity.ProveedorCargaEntity;
+import com.usta.serviexpress.Repository.ProveedorCargaRepository;
+import com.usta.serviexpress.Repository.ProveedorCargaRepository.ContadorView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CargaProveedorServiceImplementTest {
+
+    private static final long PROVEEDOR = 7L;
+    private static final String PENDIENTE = EstadoSolicitud.PENDIENTE.valor();
+    private static final String EN_PROCESO = EstadoSolicitud.EN_PROCESO.valor();
+
+    private ProveedorCargaRepository cargaRepository;
+    private ApplicationEventPublisher eventos;
+    private CargaProveedorServiceImplement servicio;
+
+    @BeforeEach
+    void armar() {
+        cargaRepository = mock(ProveedorCargaRepository.class);
+        eventos = mock(ApplicationEventPublisher.class);
+        servicio = new CargaProveedorServiceImplement(cargaRepository, eventos, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void moverUnaSolicitudRestaEnElEstadoAnteriorYSumaEnElNuevo() {
+        servicio.solicitudMovida(PROVEEDOR, PENDIENTE, EN_PROCESO);
+
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SOLICITUD, PENDIENTE, -1);
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SOLICITUD, EN_PROCESO, 1);
+        verify(eventos).publishEvent(new CargaProveedorCambiadaEvent(PROVEEDOR));
+    }
+
+    @Test
+    void altasYBajasSoloTocanUnEstado() {
+        servicio.solicitudCreada(PROVEEDOR, PENDIENTE);
+        servicio.solicitudEliminada(PROVEEDOR, EN_PROCESO);
+
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SOLICITUD, PENDIENTE, 1);
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SOLICITUD, EN_PROCESO, -1);
+        verify(cargaRepository, times(2)).aplicarDelta(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void losServiciosUsanSuPropioTipo() {
+        servicio.servicioCreado(PROVEEDOR, "DISPONIBLE");
+        servicio.servicioMovido(PROVEEDOR, "DISPONIBLE", "OCUPADO");
+        servicio.servicioEliminado(PROVEEDOR, "OCUPADO");
+
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SERVICIO, "DISPONIBLE", 1);
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SERVICIO, "DISPONIBLE", -1);
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SERVICIO, "OCUPADO", 1);
+        verify(cargaRepository).aplicarDelta(PROVEEDOR, ProveedorCargaEntity.SERVICIO, "OCUPADO", -1);
+        verify(cargaRepository, never()).aplicarDelta(anyLong(), eq(ProveedorCargaEntity.SOLICITUD), anyString(), anyLong());
+    }
+
+    @Test
+    void sinCambioDeEstadoOSinProveedorNoHayDelta() {
+        servicio.solicitudMovida(PROVEEDOR, PENDIENTE, PENDIENTE);
+        servicio.servicioMovido(PROVEEDOR, "DISPONIBLE", "DISPONIBLE");
+        servicio.solicitudCreada(null, PENDIENTE);
+        servicio.servicioEliminado(null, "DISPONIBLE");
+
+        verifyNoInteractions(cargaRepository, eventos);
+    }
+
+    @Test
+    void reconciliarSumaLasCorreccionesYSoloAvisaSiHubo() {
+        when(cargaRepository.recalcularSolicitudes()).thenReturn(2);
+        when(cargaRepository.recalcularServicios()).thenReturn(1);
+        when(cargaRepository.borrarSobrantes()).thenReturn(3);
+
+        assertEquals(6, servicio.reconciliar());
+        verify(eventos).publishEvent(new CargaProveedorCambiadaEvent(null));
+        verify(cargaRepository, never()).aplicarDelta(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void reconciliarSinDerivaNoInvalidaNada() {
+        assertEquals(0, servicio.reconciliar());
+        verifyNoInteractions(eventos);
+    }
+
+    @Test
+    void laCargaSeLeeUnaVezHastaQueSeInvalida() {
+        ContadorView pendientes = contador(ProveedorCargaEntity.SOLICITUD, PENDIENTE, 2L);
+        when(cargaRepository.findContadores(PROVEEDOR)).thenReturn(List.of(pendientes));
+
+        CargaProveedorDTO primera = servicio.carga(PROVEEDOR);
+        assertEquals(2, primera.getPendientes());
+        assertSame(primera, servicio.carga(PROVEEDOR));
+        verify(cargaRepository, times(1)).findContadores(PROVEEDOR);
+
+        servicio.onCargaCambiada(new CargaProveedorCambiadaEvent(PROVEEDOR));
+        servicio.carga(PROVEEDOR);
+        verify(cargaRepository, times(2)).findContadores(PROVEEDOR);
+    }
+
+    private static ContadorView contador(String tipo, String estado, long total) {
+        ContadorView c = mock(ContadorView.class);
+        when(c.getIdProveedor()).thenReturn(PROVEEDOR);
+        when(c.getTipo()).thenReturn(tipo);
+        when(c.getEstado()).thenReturn(estado);
+        when(c.getTotal()).thenReturn(total);
+        return c;
+    }
+}
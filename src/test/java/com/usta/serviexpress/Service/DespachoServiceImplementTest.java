@@ -0,0 +1,112 @@
+package com.usta.serviexpress.Service;
+
+import com.usta.serviexpress.DTOs.CargaProveedorDTO;
+import com.usta.serviexpress.Entity.EstadoSolicitud;
+import com.usta.serviexpress.Repository.DespachoRepository;
+import com.usta.serviexpress.Repository.ProveedorRatingStatsRepository;
+import com.usta.serviexpress.Repository.SolicitudRepository;
+import com.usta.serviexpress.Repository.UsuarioRepository;
+import com.usta.serviexpress.Repository.UsuarioRepository.ProveedorDespachoView;
+import com.usta.serviexpress.Service.DespachoService.ResultadoToma;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DespachoServiceImplementTest {
+
+    private static final long PROVEEDOR = 7L;
+    private static final long DUENO = 3L;
+    private static final long SOLICITUD = 100L;
+    private static final String CIUDAD = "bogota";
+
+    private SolicitudRepository solicitudRepository;
+    private DespachoRepository despachoRepository;
+    private CargaProveedorService cargaProveedorService;
+    private TransaccionesDePrueba transacciones;
+    private DespachoService despacho;
+
+    @BeforeEach
+    void armar() {
+        solicitudRepository = mock(SolicitudRepository.class);
+        despachoRepository = mock(DespachoRepository.class);
+        UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+        cargaProveedorService = mock(CargaProveedorService.class);
+        transacciones = new TransaccionesDePrueba();
+
+        // Un solo cupo: una reserva que no se devuelva deja al proveedor SIN_CUPO en la siguiente toma
+        ProveedorDespachoView perfil = mock(ProveedorDespachoView.class);
+        when(perfil.getIdProveedor()).thenReturn(PROVEEDOR);
+        when(perfil.getCiudadClave()).thenReturn(CIUDAD);
+        when(perfil.getDisponibilidad()).thenReturn(true);
+        when(perfil.getCapacidad()).thenReturn(1);
+        when(usuarioRepository.findProveedorDespacho(PROVEEDOR)).thenReturn(Optional.of(perfil));
+        when(cargaProveedorService.carga(PROVEEDOR)).thenReturn(CargaProveedorDTO.vacia(PROVEEDOR));
+
+        DespachoServiceImplement servicio = new DespachoServiceImplement(solicitudRepository, despachoRepository,
+                usuarioRepository, mock(ProveedorRatingStatsRepository.class), cargaProveedorService,
+                mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(),
+                true, 3, 3, 32, Duration.ofMinutes(30), 1.0, 0.6, 0.4, 25, 1.96);
+        ProxyFactory proxy = new ProxyFactory(servicio);
+        proxy.addAdvice(new TransactionInterceptor(transacciones, new AnnotationTransactionAttributeSource()));
+        despacho = (DespachoService) proxy.getProxy();
+    }
+
+    @Test
+    void laTomaAplicadaConservaElCupo() {
+        when(despachoRepository.tomar(eq(SOLICITUD), eq(PROVEEDOR), eq(CIUDAD), any())).thenReturn(Optional.of(DUENO));
+        when(solicitudRepository.reasignarProveedor(SOLICITUD, DUENO, PROVEEDOR,
+                EstadoSolicitud.PENDIENTE.valor())).thenReturn(1);
+
+        assertEquals(ResultadoToma.TOMADA, despacho.tomar(SOLICITUD, PROVEEDOR));
+        verify(cargaProveedorService).recontarSolicitudes(DUENO);
+        verify(cargaProveedorService).recontarSolicitudes(PROVEEDOR);
+        assertEquals(1, transacciones.commits);
+
+        assertEquals(ResultadoToma.SIN_CUPO, despacho.tomar(SOLICITUD + 1, PROVEEDOR));
+        verify(despachoRepository, never()).tomar(eq(SOLICITUD + 1), anyLong(), any(), any());
+    }
+
+    @Test
+    void siOtroGanoLaOfertaSeDevuelveElCupo() {
+        when(despachoRepository.tomar(eq(SOLICITUD), eq(PROVEEDOR), eq(CIUDAD), any())).thenReturn(Optional.empty());
+
+        assertEquals(ResultadoToma.NO_VIGENTE, despacho.tomar(SOLICITUD, PROVEEDOR));
+        verify(solicitudRepository, never()).reasignarProveedor(any(), any(), any(), any());
+
+        // Con el cupo de vuelta la segunda toma llega otra vez al UPDATE
+        assertEquals(ResultadoToma.NO_VIGENTE, despacho.tomar(SOLICITUD, PROVEEDOR));
+        verify(despachoRepository, times(2)).tomar(eq(SOLICITUD), eq(PROVEEDOR), eq(CIUDAD), any());
+    }
+
+    @Test
+    void siElDuenoLaAvanzoSeDeshaceLaTomaYSeDevuelveElCupo() {
+        when(despachoRepository.tomar(eq(SOLICITUD), eq(PROVEEDOR), eq(CIUDAD), any())).thenReturn(Optional.of(DUENO));
+        when(solicitudRepository.reasignarProveedor(SOLICITUD, DUENO, PROVEEDOR,
+                EstadoSolicitud.PENDIENTE.valor())).thenReturn(0);
+
+        assertEquals(ResultadoToma.NO_VIGENTE, despacho.tomar(SOLICITUD, PROVEEDOR));
+        assertEquals(0, transacciones.commits);
+        assertEquals(1, transacciones.rollbacks);
+        verify(cargaProveedorService, never()).recontarSolicitudes(any());
+
+        assertEquals(ResultadoToma.NO_VIGENTE, despacho.tomar(SOLICITUD, PROVEEDOR));
+        verify(despachoRepository, times(2)).tomar(eq(SOLICITUD), eq(PROVEEDOR), eq(CIUDAD), any());
+    }
+}
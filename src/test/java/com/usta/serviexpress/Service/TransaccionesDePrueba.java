@@ -0,0 +1,30 @@
+package com.usta.serviexpress.Service;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/** Cuenta commits y rollbacks; el rollback-only local de la transacción termina en doRollback. */
+final class TransaccionesDePrueba extends AbstractPlatformTransactionManager {
+    int commits;
+    int rollbacks;
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        commits++;
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        rollbacks++;
+    }
+}
@@ -0,0 +1,153 @@
+package com.usta.serviexpress.agenda;
+
+import com.usta.serviexpress.agenda.ArbolIntervalos.Intervalo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArbolIntervalosTest {
+
+    @Test
+    void solapadoUsaIntervalosSemiabiertos() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.poner(new Intervalo(1, 100, 200));
+
+        assertNull(arbol.solapado(0, 100));
+        assertNull(arbol.solapado(200, 300));
+        assertNotNull(arbol.solapado(199, 300));
+        assertNotNull(arbol.solapado(50, 101));
+        assertNotNull(arbol.solapado(120, 130));
+        assertNotNull(arbol.solapado(0, 1000));
+    }
+
+    @Test
+    void siguienteLibreSaltaHuecosQueNoAlcanzan() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.poner(new Intervalo(1, 100, 200));
+        arbol.poner(new Intervalo(2, 230, 300));
+        arbol.poner(new Intervalo(3, 360, 400));
+
+        assertEquals(0, arbol.siguienteLibre(0, 100));
+        assertEquals(400, arbol.siguienteLibre(0, 101));
+        assertEquals(200, arbol.siguienteLibre(150, 30));
+        assertEquals(300, arbol.siguienteLibre(150, 31));
+        assertEquals(400, arbol.siguienteLibre(150, 61));
+        assertEquals(250, new ArbolIntervalos().siguienteLibre(250, 1000));
+    }
+
+    @Test
+    void ponerConElMismoIdReemplazaElHorario() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.poner(new Intervalo(1, 100, 200));
+        arbol.poner(new Intervalo(1, 500, 600));
+
+        assertEquals(1, arbol.tamano());
+        assertNull(arbol.solapado(100, 200));
+        assertEquals(new Intervalo(1, 500, 600), arbol.get(1));
+        assertEquals(new Intervalo(1, 500, 600), arbol.quitar(1));
+        assertNull(arbol.quitar(1));
+        assertEquals(0, arbol.tamano());
+    }
+
+    @Test
+    void agregadosCorrectosTrasRotacionesYBorradosConDosHijos() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        // Inserción ascendente: fuerza rotaciones simples en cada nivel
+        for (int i = 0; i < 64; i++) arbol.poner(new Intervalo(i, i * 100L, i * 100L + 60));
+        // Borra intervalos internos (nodos con dos hijos tras balancear)
+        for (int i = 8; i < 64; i += 8) arbol.quitar(i);
+
+        assertEquals(64 - 7, arbol.tamano());
+        assertNull(arbol.solapado(800, 900));
+        assertEquals(760, arbol.siguienteLibre(0, 100));
+        assertEquals(760, arbol.siguienteLibre(760, 140));
+        assertEquals(1560, arbol.siguienteLibre(761, 140));
+        assertEquals(63 * 100L + 60, arbol.siguienteLibre(0, 141));
+    }
+
+    @Test
+    void solapadoCoincideConFuerzaBrutaConIntervalosCruzados() {
+        Random rnd = new Random(42);
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        Map<Long, Intervalo> modelo = new HashMap<>();
+
+        for (int paso = 0; paso < 5_000; paso++) {
+            long id = rnd.nextInt(300);
+            if (rnd.nextInt(4) == 0) {
+                assertEquals(modelo.remove(id), arbol.quitar(id));
+            } else {
+                long inicio = rnd.nextInt(10_000);
+                Intervalo i = new Intervalo(id, inicio, inicio + 1 + rnd.nextInt(300));
+                arbol.poner(i);
+                modelo.put(id, i);
+            }
+            long inicio = rnd.nextInt(10_500);
+            long fin = inicio + 1 + rnd.nextInt(200);
+            Intervalo r = arbol.solapado(inicio, fin);
+            boolean hay = modelo.values().stream().anyMatch(i -> cruza(i, inicio, fin));
+            assertEquals(hay, r != null, "paso " + paso + " [" + inicio + ", " + fin + ")");
+            if (r != null) {
+                assertTrue(cruza(r, inicio, fin));
+                assertSame(modelo.get(r.id()), r);
+            }
+        }
+        assertEquals(modelo.size(), arbol.tamano());
+    }
+
+    @Test
+    void siguienteLibreCoincideConFuerzaBrutaEnAgendaDisjunta() {
+        Random rnd = new Random(7);
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        Map<Long, Intervalo> modelo = new HashMap<>();
+        long siguienteId = 0;
+
+        for (int paso = 0; paso < 5_000; paso++) {
+            if (!modelo.isEmpty() && rnd.nextInt(3) == 0) {
+                List<Long> ids = new ArrayList<>(modelo.keySet());
+                long id = ids.get(rnd.nextInt(ids.size()));
+                assertEquals(modelo.remove(id), arbol.quitar(id));
+            } else {
+                // Como la agenda: solo se reserva un horario libre
+                long inicio = rnd.nextInt(20_000);
+                long fin = inicio + 10 + rnd.nextInt(240);
+                if (arbol.solapado(inicio, fin) == null) {
+                    Intervalo i = new Intervalo(siguienteId++, inicio, fin);
+                    arbol.poner(i);
+                    modelo.put(i.id(), i);
+                }
+            }
+            long desde = rnd.nextInt(21_000);
+            long duracion = 1 + rnd.nextInt(rnd.nextBoolean() ? 60 : 400);
+            long esperado = siguienteLibreFuerzaBruta(modelo.values(), desde, duracion);
+            assertEquals(esperado, arbol.siguienteLibre(desde, duracion),
+                    "paso " + paso + " desde " + desde + " duracion " + duracion);
+        }
+        assertEquals(modelo.size(), arbol.tamano());
+    }
+
+    private static boolean cruza(Intervalo i, long inicio, long fin) {
+        return i.inicio() < fin && inicio < i.fin();
+    }
+
+    private static long siguienteLibreFuerzaBruta(Iterable<Intervalo> intervalos, long desde, long duracion) {
+        List<Intervalo> orden = new ArrayList<>();
+        intervalos.forEach(orden::add);
+        orden.sort(Comparator.comparingLong(Intervalo::inicio));
+        long s = desde;
+        for (Intervalo i : orden) {
+            if (cruza(i, s, s + duracion)) s = i.fin();
+        }
+        return s;
+    }
+}
@@ -0,0 +1,184 @@
+package com.usta.serviexpress.despacho;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MotorDespachoTest {
+
+    private static final MotorDespacho.Pesos PESOS = new MotorDespacho.Pesos(1.0, 0.6, 0.4, 25);
+
+    @Test
+    void reservarRespetaLaCapacidad() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", true, 2, 4.0));
+
+        assertTrue(motor.reservar(1));
+        assertTrue(motor.reservar(1));
+        assertFalse(motor.reservar(1));
+        assertEquals(2, motor.carga(1));
+
+        motor.liberar(1);
+        assertEquals(1, motor.carga(1));
+        assertTrue(motor.reservar(1));
+    }
+
+    @Test
+    void noReservaSiNoEstaONoEstaDisponible() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", false, 3, 4.0));
+
+        assertFalse(motor.reservar(1));
+        assertFalse(motor.reservar(99));
+        motor.liberar(99);
+        assertEquals(0, motor.carga(1));
+    }
+
+    @Test
+    void liberarNoBajaDeCero() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", true, 3, 4.0));
+
+        motor.liberar(1);
+        assertEquals(0, motor.carga(1));
+    }
+
+    @Test
+    void reservasConcurrentesNoSobrepasanElCupo() throws Exception {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", true, 50, 4.0));
+        AtomicInteger exitos = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+
+        List<Thread> hilos = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            hilos.add(new Thread(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 100; i++) if (motor.reservar(1)) exitos.incrementAndGet();
+            }));
+        }
+        hilos.forEach(Thread::start);
+        inicio.countDown();
+        for (Thread h : hilos) h.join();
+
+        assertEquals(50, exitos.get());
+        assertEquals(50, motor.carga(1));
+        // Lleno: fuera de la cola de su ciudad
+        assertTrue(motor.candidatos("bogota", null, null, Set.of(), 5).isEmpty());
+    }
+
+    @Test
+    void candidatosOrdenaPorCalificacionYOcupacion() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", true, 4, 3.0));
+        motor.poner(perfil(2, "bogota", true, 4, 5.0));
+        motor.poner(perfil(3, "bogota", true, 4, 4.0));
+        motor.poner(perfil(4, "cali", true, 4, 5.0));
+
+        assertEquals(List.of(2L, 3L, 1L), ids(motor.candidatos("bogota", null, null, Set.of(), 5)));
+
+        // Ocupación 3/4 de 2: 1.0 - 0.6 * 0.75 = 0.55 < 0.75 (3, sin carga)
+        motor.fijarCarga(2, 3);
+        assertEquals(List.of(3L, 2L, 1L), ids(motor.candidatos("bogota", null, null, Set.of(), 5)));
+
+        assertEquals(List.of(3L), ids(motor.candidatos("bogota", null, null, Set.of(), 1)));
+        assertEquals(List.of(2L, 1L), ids(motor.candidatos("bogota", null, null, Set.of(3L), 5)));
+        assertTrue(motor.candidatos("medellin", null, null, Set.of(), 5).isEmpty());
+        assertTrue(motor.candidatos(null, null, null, Set.of(), 5).isEmpty());
+    }
+
+    @Test
+    void laDistanciaReordenaLosCandidatos() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        // 1 está mejor calificado pero a más de radioKm; 2 está en el mismo punto que la solicitud
+        motor.poner(new MotorDespacho.Perfil(1, "bogota", true, 4, 4.2, 4.60, -74.08));
+        motor.poner(new MotorDespacho.Perfil(2, "bogota", true, 4, 4.0, 4.90, -74.08));
+
+        List<MotorDespacho.Candidato> c = motor.candidatos("bogota", 4.90, -74.08, Set.of(), 5);
+        assertEquals(List.of(2L, 1L), ids(c));
+        assertEquals(0d, c.get(0).distanciaKm(), 1e-9);
+        assertTrue(c.get(1).distanciaKm() > 25);
+
+        // Sin ubicación de la solicitud todos reciben la misma penalización: manda la calificación
+        List<MotorDespacho.Candidato> sinUbicacion = motor.candidatos("bogota", null, null, Set.of(), 5);
+        assertEquals(List.of(1L, 2L), ids(sinUbicacion));
+        assertNull(sinUbicacion.get(0).distanciaKm());
+    }
+
+    @Test
+    void soloSeRecorreLaVentana() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 2);
+        motor.poner(new MotorDespacho.Perfil(1, "bogota", true, 4, 5.0, 10.0, -70.0));
+        motor.poner(new MotorDespacho.Perfil(2, "bogota", true, 4, 4.5, 10.0, -70.0));
+        // El más cercano queda tercero en la cola: fuera de la ventana
+        motor.poner(new MotorDespacho.Perfil(3, "bogota", true, 4, 4.0, 4.90, -74.08));
+
+        assertEquals(List.of(1L, 2L), ids(motor.candidatos("bogota", 4.90, -74.08, Set.of(), 5)));
+    }
+
+    @Test
+    void cambiosDePerfilMuevenEntreColas() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", true, 2, 4.0));
+
+        motor.poner(perfil(1, "cali", true, 2, 4.0));
+        assertTrue(motor.candidatos("bogota", null, null, Set.of(), 5).isEmpty());
+        assertEquals(List.of(1L), ids(motor.candidatos("cali", null, null, Set.of(), 5)));
+
+        motor.poner(perfil(1, "cali", false, 2, 4.0));
+        assertTrue(motor.candidatos("cali", null, null, Set.of(), 5).isEmpty());
+
+        motor.poner(perfil(1, null, true, 2, 4.0));
+        assertTrue(motor.candidatos("cali", null, null, Set.of(), 5).isEmpty());
+        assertTrue(motor.reservar(1));
+
+        motor.quitar(1);
+        assertFalse(motor.contiene(1));
+        assertEquals(0, motor.proveedores());
+    }
+
+    @Test
+    void unProveedorLlenoVuelveALaColaAlLiberar() {
+        MotorDespacho motor = new MotorDespacho(PESOS, 32);
+        motor.poner(perfil(1, "bogota", true, 1, 4.0));
+
+        assertTrue(motor.reservar(1));
+        assertTrue(motor.candidatos("bogota", null, null, Set.of(), 5).isEmpty());
+        // El dueño ya cuenta la solicitud en su carga: límite inclusivo
+        assertTrue(motor.admite(1));
+
+        motor.liberar(1);
+        assertEquals(List.of(1L), ids(motor.candidatos("bogota", null, null, Set.of(), 5)));
+    }
+
+    @Test
+    void distanciaKmEsHaversine() {
+        // Un grado de meridiano ~ 111.2 km
+        assertEquals(111.2, MotorDespacho.distanciaKm(0d, 0d, 1d, 0d), 0.1);
+        assertEquals(0d, MotorDespacho.distanciaKm(4.6, -74.08, 4.6, -74.08), 1e-9);
+        assertNull(MotorDespacho.distanciaKm(null, 0d, 1d, 0d));
+    }
+
+    private static MotorDespacho.Perfil perfil(long id, String ciudad, boolean disponible, int capacidad,
+                                               double calificacion) {
+        return new MotorDespacho.Perfil(id, ciudad, disponible, capacidad, calificacion, null, null);
+    }
+
+    private static List<Long> ids(List<MotorDespacho.Candidato> candidatos) {
+        return candidatos.stream().map(MotorDespacho.Candidato::idProveedor).toList();
+    }
+}
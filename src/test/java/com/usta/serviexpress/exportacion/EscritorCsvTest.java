@@ -0,0 +1,99 @@
+package com.usta.serviexpress.exportacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EscritorCsvTest {
+
+    private enum Estado { PENDIENTE }
+
+    @Test
+    void escribeBomCabeceraYFilasConCrlf() throws IOException {
+        ByteArrayOutputStream destino = new ByteArrayOutputStream();
+        try (EscritorFilas csv = new EscritorCsv(destino, List.of("id", "nombre"))) {
+            csv.fila(1L, "Plomería");
+            csv.fila(2L, "Pintura");
+            assertEquals(2, csv.filas());
+        }
+
+        byte[] bytes = destino.toByteArray();
+        assertEquals((byte) 0xEF, bytes[0]);
+        assertEquals((byte) 0xBB, bytes[1]);
+        assertEquals((byte) 0xBF, bytes[2]);
+        assertEquals("\uFEFFid,nombre\r\n1,Plomería\r\n2,Pintura\r\n", new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void entrecomillaComasComillasYSaltosDeLinea() throws IOException {
+        assertEquals("\"a,b\"", unaCelda("a,b"));
+        assertEquals("\"dijo \"\"hola\"\"\"", unaCelda("dijo \"hola\""));
+        assertEquals("\"línea 1\nlínea 2\"", unaCelda("línea 1\nlínea 2"));
+        assertEquals("\"a\rb\"", unaCelda("a\rb"));
+        assertEquals("simple", unaCelda("simple"));
+    }
+
+    @Test
+    void neutralizaTextosQueEmpiezanComoFormula() throws IOException {
+        assertEquals("\"'=HYPERLINK(\"\"x\"\")\"", unaCelda("=HYPERLINK(\"x\")"));
+        assertEquals("'+57 300", unaCelda("+57 300"));
+        assertEquals("'-2+3", unaCelda("-2+3"));
+        assertEquals("'@SUM(A1)", unaCelda("@SUM(A1)"));
+        assertEquals("'\tx", unaCelda("\tx"));
+        assertEquals("\"'\rx\"", unaCelda("\rx"));
+        // Los números negativos son números, no texto de usuario
+        assertEquals("-5", unaCelda(-5));
+        assertEquals("a=b", unaCelda("a=b"));
+    }
+
+    @Test
+    void formateaNumerosFechasEnumsYNulos() throws IOException {
+        assertEquals("1000000", unaCelda(new BigDecimal("1E+6")));
+        assertEquals("12.50", unaCelda(new BigDecimal("12.50")));
+        assertEquals("2025-03-04 05:06:07", unaCelda(LocalDateTime.of(2025, 3, 4, 5, 6, 7)));
+        assertEquals("2025-03-04", unaCelda(LocalDate.of(2025, 3, 4)));
+        assertEquals("PENDIENTE", unaCelda(Estado.PENDIENTE));
+        assertEquals("", unaCelda(null));
+    }
+
+    @Test
+    void cerrarNoCierraElDestino() throws IOException {
+        DestinoQueRegistraCierre destino = new DestinoQueRegistraCierre();
+        EscritorFilas csv = new EscritorCsv(destino, List.of("id"));
+        csv.fila(1);
+        csv.close();
+
+        assertFalse(destino.cerrado);
+        assertTrue(destino.toString(StandardCharsets.UTF_8).endsWith("1\r\n"));
+    }
+
+    // Valor de la única celda de la primera fila de datos (sin el CRLF final)
+    private static String unaCelda(Object valor) throws IOException {
+        ByteArrayOutputStream destino = new ByteArrayOutputStream();
+        try (EscritorFilas csv = new EscritorCsv(destino, List.of("c"))) {
+            csv.fila(valor);
+        }
+        String texto = destino.toString(StandardCharsets.UTF_8);
+        String datos = texto.substring("\uFEFFc\r\n".length());
+        return datos.substring(0, datos.length() - 2);
+    }
+
+    private static final class DestinoQueRegistraCierre extends ByteArrayOutputStream {
+        boolean cerrado;
+
+        @Override
+        public void close() {
+            cerrado = true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.usta.serviexpress.exportacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EscritorXlsxTest {
+
+    // Límite de Excel, cabecera incluida
+    private static final int FILAS_POR_HOJA = 1_048_576;
+
+    @Test
+    void generaElPaqueteMinimo() throws IOException {
+        Map<String, String> partes = escribir("Solicitudes", List.of("id"), new Object[]{1L});
+
+        assertEquals(List.of("[Content_Types].xml", "_rels/.rels", "xl/worksheets/sheet1.xml",
+                "xl/workbook.xml", "xl/_rels/workbook.xml.rels"), List.copyOf(partes.keySet()));
+        assertTrue(partes.get("xl/workbook.xml").contains("<sheet name=\"Solicitudes\" sheetId=\"1\" r:id=\"rId1\"/>"));
+        assertTrue(partes.get("xl/_rels/workbook.xml.rels").contains("Target=\"worksheets/sheet1.xml\""));
+        assertTrue(partes.get("xl/worksheets/sheet1.xml").endsWith(
+                "<row><c t=\"inlineStr\"><is><t xml:space=\"preserve\">id</t></is></c></row>"
+                        + "<row><c><v>1</v></c></row></sheetData></worksheet>"));
+    }
+
+    @Test
+    void escapaXmlYDescartaCaracteresDeControl() throws IOException {
+        String hoja = escribir("x", List.of("c"), new Object[]{"<a href=\"x\">&\u0001\u0008ok\t\n\uFFFF"})
+                .get("xl/worksheets/sheet1.xml");
+
+        assertTrue(hoja.contains("<t xml:space=\"preserve\">&lt;a href=&quot;x&quot;&gt;&amp;ok\t\n</t>"), hoja);
+    }
+
+    @Test
+    void tiposDeCelda() throws IOException {
+        String hoja = escribir("x", List.of("a", "b", "c", "d", "e"),
+                new Object[]{new BigDecimal("1E+3"), Double.NaN, null, LocalDateTime.of(2025, 1, 2, 3, 4, 5), -7})
+                .get("xl/worksheets/sheet1.xml");
+
+        assertTrue(hoja.contains("<row><c><v>1000</v></c>"
+                + "<c t=\"inlineStr\"><is><t xml:space=\"preserve\">NaN</t></is></c>"
+                + "<c/>"
+                + "<c t=\"inlineStr\"><is><t xml:space=\"preserve\">2025-01-02 03:04:05</t></is></c>"
+                + "<c><v>-7</v></c></row>"), hoja);
+    }
+
+    @Test
+    void limpiaYAcortaElNombreDeLaHoja() throws IOException {
+        assertTrue(escribir("a/b:c", List.of("c")).get("xl/workbook.xml").contains("<sheet name=\"a b c\""));
+        assertTrue(escribir("  ", List.of("c")).get("xl/workbook.xml").contains("<sheet name=\"Hoja\""));
+        assertTrue(escribir("R&D", List.of("c")).get("xl/workbook.xml").contains("<sheet name=\"R&amp;D\""));
+        String largo = "x".repeat(40);
+        assertTrue(escribir(largo, List.of("c")).get("xl/workbook.xml")
+                .contains("<sheet name=\"" + "x".repeat(31) + "\""));
+    }
+
+    @Test
+    void alLlenarUnaHojaAbreOtraConLaMismaCabecera() throws IOException {
+        String nombre = "Calificaciones del periodo 2025";   // 31 caracteres
+        ByteArrayOutputStream destino = new ByteArrayOutputStream();
+        try (EscritorFilas xlsx = new EscritorXlsx(destino, nombre, List.of("id"))) {
+            for (int i = 0; i < FILAS_POR_HOJA; i++) xlsx.fila(i);
+            assertEquals(FILAS_POR_HOJA, xlsx.filas());
+        }
+        Map<String, String> partes = leer(destino.toByteArray());
+
+        assertEquals(FILAS_POR_HOJA, contar(partes.get("xl/worksheets/sheet1.xml"), "<row>"));
+        String segunda = partes.get("xl/worksheets/sheet2.xml");
+        assertEquals(2, contar(segunda, "<row>"));
+        assertTrue(segunda.contains("<row><c t=\"inlineStr\"><is><t xml:space=\"preserve\">id</t></is></c></row>"
+                + "<row><c><v>" + (FILAS_POR_HOJA - 1) + "</v></c></row>"));
+        // El sufijo " 2" cabe dentro de los 31 caracteres
+        String libro = partes.get("xl/workbook.xml");
+        assertTrue(libro.contains("<sheet name=\"" + nombre + "\" sheetId=\"1\""));
+        assertTrue(libro.contains("<sheet name=\"" + nombre.substring(0, 29) + " 2\" sheetId=\"2\" r:id=\"rId2\"/>"));
+        assertTrue(partes.get("xl/_rels/workbook.xml.rels").contains("Target=\"worksheets/sheet2.xml\""));
+        assertFalse(partes.containsKey("xl/worksheets/sheet3.xml"));
+    }
+
+    @Test
+    void cerrarNoCierraElDestino() throws IOException {
+        boolean[] cerrado = {false};
+        OutputStream destino = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                cerrado[0] = true;
+            }
+        };
+        new EscritorXlsx(destino, "x", List.of("c")).close();
+
+        assertFalse(cerrado[0]);
+    }
+
+    private static Map<String, String> escribir(String nombre, List<String> columnas, Object[]... filas)
+            throws IOException {
+        ByteArrayOutputStream destino = new ByteArrayOutputStream();
+        try (EscritorFilas xlsx = new EscritorXlsx(destino, nombre, columnas)) {
+            for (Object[] f : filas) xlsx.fila(f);
+        }
+        return leer(destino.toByteArray());
+    }
+
+    private static Map<String, String> leer(byte[] zip) throws IOException {
+        Map<String, String> partes = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8)) {
+            ZipEntry e;
+            while ((e = in.getNextEntry()) != null) {
+                partes.put(e.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return partes;
+    }
+
+    private static int contar(String texto, String patron) {
+        int n = 0;
+        for (int i = texto.indexOf(patron); i >= 0; i = texto.indexOf(patron, i + patron.length())) n++;
+        return n;
+    }
+}
@@ -0,0 +1,160 @@
+package com.usta.serviexpress.notificaciones;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CanalSseTest {
+
+    @Test
+    void drenaEnOrdenDeLlegada() {
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        CanalSse canal = new CanalSse(1L, false, emisor, 8);
+
+        assertTrue(canal.encolar(new CanalSse.Mensaje("solicitud", "a")));
+        assertTrue(canal.encolar(new CanalSse.Mensaje("solicitud", "b")));
+        canal.drenar();
+
+        assertEquals(2, emisor.enviados.size());
+        assertTrue(emisor.enviados.get(0).startsWith("event:solicitud"));
+        assertTrue(emisor.enviados.get(0).contains("data:a\n"));
+        assertTrue(emisor.enviados.get(1).contains("data:b\n"));
+    }
+
+    @Test
+    void elLatidoEsUnComentario() {
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        CanalSse canal = new CanalSse(1L, false, emisor, 8);
+
+        canal.encolar(CanalSse.Mensaje.LATIDO);
+        canal.drenar();
+
+        assertEquals(1, emisor.enviados.size());
+        assertTrue(emisor.enviados.get(0).startsWith(":latido"));
+    }
+
+    @Test
+    void alDesbordarDescartaElMasAntiguoYPideResync() {
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        CanalSse canal = new CanalSse(1L, false, emisor, 2);
+
+        for (String d : List.of("uno", "dos", "tres")) canal.encolar(new CanalSse.Mensaje("solicitud", d));
+        canal.drenar();
+
+        assertEquals(3, emisor.enviados.size());
+        assertTrue(emisor.enviados.get(0).startsWith("event:resync"));
+        assertTrue(emisor.enviados.get(1).contains("data:dos\n"));
+        assertTrue(emisor.enviados.get(2).contains("data:tres\n"));
+
+        // El resync se envía una sola vez
+        canal.encolar(new CanalSse.Mensaje("solicitud", "cuatro"));
+        canal.drenar();
+        assertEquals(4, emisor.enviados.size());
+        assertTrue(emisor.enviados.get(3).contains("data:cuatro\n"));
+    }
+
+    @Test
+    void unErrorDeEnvioCierraElCanal() {
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        emisor.fallo = new IOException("Broken pipe");
+        CanalSse canal = new CanalSse(1L, false, emisor, 8);
+
+        canal.encolar(new CanalSse.Mensaje("solicitud", "a"));
+        canal.drenar();
+
+        assertTrue(canal.cerrado());
+        assertEquals(1, emisor.completados);
+        assertFalse(canal.encolar(new CanalSse.Mensaje("solicitud", "b")));
+    }
+
+    @Test
+    void cerrarEsIdempotenteYToleraUnEmisorCompletado() {
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        emisor.yaCompletado = true;
+        CanalSse canal = new CanalSse(1L, false, emisor, 8);
+        canal.encolar(new CanalSse.Mensaje("solicitud", "a"));
+
+        canal.cerrar();
+        canal.cerrar();
+        canal.drenar();
+
+        assertTrue(canal.cerrado());
+        assertEquals(1, emisor.completados);
+        assertTrue(emisor.enviados.isEmpty());
+    }
+
+    @Test
+    void variosDrenadoresConcurrentesEntreganCadaMensajeUnaVezYEnOrden() throws Exception {
+        int total = 20_000;
+        EmisorDePrueba emisor = new EmisorDePrueba();
+        CanalSse canal = new CanalSse(1L, false, emisor, total);
+        CountDownLatch inicio = new CountDownLatch(1);
+
+        Thread productor = new Thread(() -> {
+            await(inicio);
+            for (int i = 0; i < total; i++) {
+                canal.encolar(new CanalSse.Mensaje("n", i));
+                if (i % 100 == 0) canal.drenar();
+            }
+        });
+        List<Thread> drenadores = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            drenadores.add(new Thread(() -> {
+                await(inicio);
+                for (int i = 0; i < 2_000; i++) canal.drenar();
+            }));
+        }
+        productor.start();
+        drenadores.forEach(Thread::start);
+        inicio.countDown();
+        productor.join();
+        for (Thread d : drenadores) d.join();
+        canal.drenar();
+
+        assertEquals(total, emisor.enviados.size());
+        for (int i = 0; i < total; i++) {
+            assertTrue(emisor.enviados.get(i).contains("data:" + i + "\n"), "posición " + i);
+        }
+        assertFalse(canal.cerrado());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Registra el texto de cada evento en lugar de escribirlo en la respuesta. */
+    private static final class EmisorDePrueba extends SseEmitter {
+        final List<String> enviados = Collections.synchronizedList(new ArrayList<>());
+        volatile IOException fallo;
+        volatile boolean yaCompletado;
+        int completados;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fallo != null) throw fallo;
+            StringBuilder texto = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType d : builder.build()) texto.append(d.getData());
+            enviados.add(texto.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completados++;
+            if (yaCompletado) throw new IllegalStateException("ResponseBodyEmitter has already completed");
+        }
+    }
+}
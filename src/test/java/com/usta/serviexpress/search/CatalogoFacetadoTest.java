@@ -0,0 +1,150 @@
+package com.usta.serviexpress.search;
+
+import com.usta.serviexpress.Entity.ServicioEntity.EstadoServicio;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogoFacetadoTest {
+
+    private CatalogoFacetado catalogo;
+
+    @BeforeEach
+    void cargar() {
+        catalogo = new CatalogoFacetado();
+        catalogo.reconstruir(List.of(
+                fila(1L, 30_000, EstadoServicio.DISPONIBLE, 10L, "Bogotá"),
+                fila(2L, 120_000, EstadoServicio.DISPONIBLE, 20L, "Medellín"),
+                fila(3L, 60_000, EstadoServicio.OCUPADO, 10L, "bogota "),
+                fila(4L, 700_000, EstadoServicio.DISPONIBLE, 30L, "BOGOTA"),
+                fila(5L, 45_000, EstadoServicio.PENDIENTE, null, null)
+        ), Map.of(10L, 4.5, 20L, 3.2));
+    }
+
+    @Test
+    void cadaFacetaSeCuentaSinSuPropioFiltro() {
+        CatalogoFacetado.Resultado r = catalogo.consultar(
+                consulta(EstadoServicio.DISPONIBLE, null, "Bogotá", null, CatalogoFacetado.Orden.RECIENTES));
+
+        assertEquals(2, r.total());
+        assertEquals(List.of(4L, 1L), ids(r.pagina()));
+        // Estado: sin filtro de estado, solo Bogotá (1, 3, 4)
+        assertEquals(2, r.porEstado()[EstadoServicio.DISPONIBLE.ordinal()]);
+        assertEquals(1, r.porEstado()[EstadoServicio.OCUPADO.ordinal()]);
+        assertEquals(0, r.porEstado()[EstadoServicio.PENDIENTE.ordinal()]);
+        // Ciudad: sin filtro de ciudad, solo disponibles (1, 2, 4)
+        assertEquals(Map.entry("Bogotá", 2), r.porCiudad().get("bogota"));
+        assertEquals(Map.entry("Medellín", 1), r.porCiudad().get("medellin"));
+        assertEquals(2, r.porCiudad().size());
+        assertEquals(1, r.porRangoPrecio()[0]);
+        assertEquals(1, r.porRangoPrecio()[CatalogoFacetado.LIMITES_PRECIO.length]);
+        // Solo el proveedor 10 tiene calificaciones
+        assertArrayEquals(new int[]{1, 1, 1, 1}, r.porRatingMinimo());
+        assertEquals(Map.of(10L, 4.5), r.ratingPorProveedor());
+    }
+
+    @Test
+    void filtraPorRatingMinimoYPrecio() {
+        CatalogoFacetado.Resultado r = catalogo.consultar(consulta(null, 0, null, 4, null));
+
+        assertEquals(List.of(1L), ids(r.pagina()));
+        // Rango de precio sin su filtro: 1 y 3 (proveedor 10, rating 4.5)
+        assertEquals(1, r.porRangoPrecio()[0]);
+        assertEquals(1, r.porRangoPrecio()[1]);
+        // Rating sin su filtro: solo rango 0 con calificación (fila 1)
+        assertEquals(1, r.porRatingMinimo()[0]);
+    }
+
+    @Test
+    void ordenaYPagina() {
+        assertEquals(List.of(1L, 5L, 3L, 2L, 4L),
+                ids(catalogo.consultar(consulta(null, null, null, null, CatalogoFacetado.Orden.PRECIO_ASC)).pagina()));
+        assertEquals(List.of(4L, 2L, 3L, 5L, 1L),
+                ids(catalogo.consultar(consulta(null, null, null, null, CatalogoFacetado.Orden.PRECIO_DESC)).pagina()));
+        // Sin calificaciones al final, y a igualdad el más reciente
+        assertEquals(List.of(3L, 1L, 2L, 5L, 4L),
+                ids(catalogo.consultar(consulta(null, null, null, null, CatalogoFacetado.Orden.RATING)).pagina()));
+
+        CatalogoFacetado.Resultado pagina = catalogo.consultar(new CatalogoFacetado.Consulta(
+                null, null, null, null, CatalogoFacetado.Orden.RECIENTES, 1, 2));
+        assertEquals(List.of(4L, 3L), ids(pagina.pagina()));
+        assertTrue(pagina.hayMas());
+        CatalogoFacetado.Resultado ultima = catalogo.consultar(new CatalogoFacetado.Consulta(
+                null, null, null, null, CatalogoFacetado.Orden.RECIENTES, 4, 2));
+        assertEquals(List.of(1L), ids(ultima.pagina()));
+        assertFalse(ultima.hayMas());
+    }
+
+    @Test
+    void ciudadDesconocidaNoCoincide() {
+        CatalogoFacetado.Resultado r = catalogo.consultar(consulta(null, null, "Cali", null, null));
+
+        assertEquals(0, r.total());
+        assertEquals(2, r.porCiudad().size());
+    }
+
+    @Test
+    void quitarMueveLaUltimaFilaSinPerderla() {
+        catalogo.quitar(1L);
+        catalogo.quitar(99L);
+        // La fila 5 (última) ocupa el hueco; debe seguir actualizable por id
+        catalogo.poner(fila(5L, 45_000, EstadoServicio.DISPONIBLE, 20L, "Medellin"));
+
+        CatalogoFacetado.Resultado r = catalogo.consultar(
+                consulta(EstadoServicio.DISPONIBLE, null, "medellin", null, null));
+        assertEquals(List.of(5L, 2L), ids(r.pagina()));
+        assertEquals(4, catalogo.consultar(consulta(null, null, null, null, null)).total());
+    }
+
+    @Test
+    void fijarRatingActualizaOrdenYFacetas() {
+        catalogo.fijarRating(30L, 5.0);
+        catalogo.fijarRating(10L, null);
+
+        CatalogoFacetado.Resultado r = catalogo.consultar(consulta(null, null, null, 4, CatalogoFacetado.Orden.RATING));
+        assertEquals(List.of(4L), ids(r.pagina()));
+        assertEquals(Map.of(30L, 5.0), r.ratingPorProveedor());
+    }
+
+    @Test
+    void rangoPrecioUsaLimitesExclusivos() {
+        assertEquals(0, CatalogoFacetado.rangoPrecio(49_999));
+        assertEquals(1, CatalogoFacetado.rangoPrecio(50_000));
+        assertEquals(CatalogoFacetado.LIMITES_PRECIO.length, CatalogoFacetado.rangoPrecio(500_000));
+    }
+
+    private static CatalogoFacetado.Consulta consulta(EstadoServicio estado, Integer rango, String ciudad,
+                                                      Integer ratingMinimo, CatalogoFacetado.Orden orden) {
+        return new CatalogoFacetado.Consulta(estado, rango, ciudad, ratingMinimo, orden, 0, 20);
+    }
+
+    private static List<Long> ids(List<ServicioCardView> pagina) {
+        return pagina.stream().map(ServicioCardView::getIdServicio).toList();
+    }
+
+    private static CatalogoFacetado.Fila fila(Long id, long precio, EstadoServicio estado, Long idProveedor,
+                                              String ciudad) {
+        Tarjeta t = new Tarjeta(id, BigDecimal.valueOf(precio), estado, idProveedor);
+        return new CatalogoFacetado.Fila(t, CatalogoFacetado.claveCiudad(ciudad), ciudad);
+    }
+
+    private record Tarjeta(Long idServicio, BigDecimal precio, EstadoServicio estado, Long idProveedor)
+            implements ServicioCardView {
+        @Override public Long getIdServicio() { return idServicio; }
+        @Override public String getNombre() { return "Servicio " + idServicio; }
+        @Override public String getDescripcion() { return ""; }
+        @Override public BigDecimal getPrecio() { return precio; }
+        @Override public EstadoServicio getEstado() { return estado; }
+        @Override public Long getIdProveedor() { return idProveedor; }
+        @Override public String getNombreProveedor() { return "Proveedor " + idProveedor; }
+    }
+}
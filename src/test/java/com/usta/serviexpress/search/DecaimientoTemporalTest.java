@@ -0,0 +1,65 @@
+package com.usta.serviexpress.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecaimientoTemporalTest {
+
+    private static final long DIA = Duration.ofDays(1).toSeconds();
+    private static final long AHORA = 1_800_000_000L;
+
+    private final DecaimientoTemporal decaimiento = new DecaimientoTemporal(Duration.ofDays(180));
+
+    @Test
+    void pesaLaMitadCadaVidaMedia() {
+        assertEquals(1d, decaimiento.peso(AHORA, AHORA), 1e-12);
+        assertEquals(0.5, decaimiento.peso(AHORA - 180 * DIA, AHORA), 1e-12);
+        assertEquals(0.25, decaimiento.peso(AHORA - 360 * DIA, AHORA), 1e-12);
+    }
+
+    @Test
+    void fechasFuturasCuentanComoEdadCero() {
+        assertEquals(1d, decaimiento.peso(AHORA + 30 * DIA, AHORA), 1e-12);
+    }
+
+    @Test
+    void acumularPonderaSumaYPeso() {
+        int[] puntuaciones = {5, 1, 3};
+        long[] fechas = {AHORA, AHORA - 180 * DIA, AHORA - 360 * DIA};
+
+        double[] r = decaimiento.acumular(puntuaciones, fechas, 3, AHORA);
+        assertArrayEquals(new double[]{5 + 0.5 + 0.75, 1 + 0.5 + 0.25}, r, 1e-12);
+    }
+
+    @Test
+    void acumularSoloUsaLasPrimerasN() {
+        int[] puntuaciones = {4, 2, 0};
+        long[] fechas = {AHORA, AHORA, 0L};
+
+        assertArrayEquals(new double[]{6, 2}, decaimiento.acumular(puntuaciones, fechas, 2, AHORA), 1e-12);
+        assertArrayEquals(new double[]{0, 0}, decaimiento.acumular(puntuaciones, fechas, 0, AHORA), 0);
+    }
+
+    @Test
+    void elPromedioNoCambiaSiTodasEnvejecenIgual() {
+        int[] puntuaciones = {5, 4, 2, 3};
+        long[] fechas = {AHORA - 10 * DIA, AHORA - 50 * DIA, AHORA - 200 * DIA, AHORA - 400 * DIA};
+
+        double[] hoy = decaimiento.acumular(puntuaciones, fechas, 4, AHORA);
+        double[] despues = decaimiento.acumular(puntuaciones, fechas, 4, AHORA + 90 * DIA);
+        assertEquals(hoy[0] / hoy[1], despues[0] / despues[1], 1e-12);
+        assertEquals(hoy[1] * Math.sqrt(0.5), despues[1], 1e-12);
+    }
+
+    @Test
+    void rechazaVidaMediaNoPositiva() {
+        assertThrows(IllegalArgumentException.class, () -> new DecaimientoTemporal(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new DecaimientoTemporal(Duration.ofDays(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new DecaimientoTemporal(null));
+    }
+}
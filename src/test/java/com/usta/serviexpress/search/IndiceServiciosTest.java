@@ -0,0 +1,140 @@
+package com.usta.serviexpress.search;
+
+import com.usta.serviexpress.Entity.ServicioEntity;
+import com.usta.serviexpress.Repository.ServicioCardView;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceServiciosTest {
+
+    private static final Predicate<ServicioCardView> TODOS = t -> true;
+
+    @Test
+    void buscarExigeTodasLasPalabras() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Plomería", "Arreglo de tuberías", "Ana"));
+        indice.indexar(tarjeta(2L, "Electricidad", "Arreglo de tomas", "Luis"));
+
+        assertEquals(List.of(1L), ids(indice.buscar("arreglo tuberia", TODOS, 10)));
+        assertEquals(List.of(2L, 1L), ids(indice.buscar("arreglo", TODOS, 10)));
+        assertTrue(indice.buscar("arreglo pintura", TODOS, 10).isEmpty());
+    }
+
+    @Test
+    void elNombrePesaMasQueLaDescripcion() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Pintura", "Paredes y techos", "Ana"));
+        indice.indexar(tarjeta(2L, "Remodelación", "Incluye pintura", "Luis"));
+
+        assertEquals(List.of(1L, 2L), ids(indice.buscar("pintura", TODOS, 10)));
+    }
+
+    @Test
+    void aIgualdadDePuntajeGanaElMasReciente() {
+        IndiceServicios indice = new IndiceServicios();
+        for (long id = 1; id <= 5; id++) indice.indexar(tarjeta(id, "Cerrajería", "Urgencias", "P" + id));
+
+        assertEquals(List.of(5L, 4L, 3L), ids(indice.buscar("cerrajeria", TODOS, 3)));
+    }
+
+    @Test
+    void aplicaElFiltroAntesDelLimite() {
+        IndiceServicios indice = new IndiceServicios();
+        for (long id = 1; id <= 6; id++) indice.indexar(tarjeta(id, "Jardinería", "Poda", "P" + id));
+
+        List<IndiceServicios.Puntuado> pares = indice.buscar("poda", t -> t.getIdServicio() % 2 == 0, 2);
+        assertEquals(List.of(6L, 4L), ids(pares));
+    }
+
+    @Test
+    void reindexarYQuitarActualizanLasListas() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Plomería", "Fugas", "Ana"));
+        indice.indexar(tarjeta(1L, "Carpintería", "Muebles", "Ana"));
+
+        assertEquals(1, indice.tamano());
+        assertTrue(indice.buscar("plomeria", TODOS, 10).isEmpty());
+        assertEquals(List.of(1L), ids(indice.buscar("carpinteria", TODOS, 10)));
+
+        indice.quitar(1L);
+        assertEquals(0, indice.tamano());
+        assertTrue(indice.buscar("carpinteria", TODOS, 10).isEmpty());
+        assertTrue(indice.buscarAproximado("carpinteria", 0.1, TODOS, 10).isEmpty());
+    }
+
+    @Test
+    void reconstruirReemplazaElContenido() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Plomería", "Fugas", "Ana"));
+        indice.reconstruir(List.of(tarjeta(2L, "Mudanzas", "Trasteos", "Luis"),
+                tarjeta(3L, "Mudanzas", "Acarreos", "Marta")));
+
+        assertEquals(2, indice.tamano());
+        assertTrue(indice.buscar("plomeria", TODOS, 10).isEmpty());
+        assertEquals(List.of(3L, 2L), ids(indice.buscar("mudanza", TODOS, 10)));
+    }
+
+    @Test
+    void buscarAproximadoToleraErroresYRespetaElUmbral() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Plomería", "Fugas", "Ana"));
+        indice.indexar(tarjeta(2L, "Electricidad", "Tomas", "Luis"));
+
+        List<IndiceServicios.Puntuado> r = indice.buscarAproximado("plomeira", 0.4, TODOS, 10);
+        assertEquals(List.of(1L), ids(r));
+        assertTrue(r.get(0).puntaje() < 1.0);
+
+        // Todos los trigramas de la consulta están en el nombre del proveedor
+        List<IndiceServicios.Puntuado> porProveedor = indice.buscarAproximado("luis", 0.4, TODOS, 10);
+        assertEquals(List.of(2L), ids(porProveedor));
+        assertEquals(1.0, porProveedor.get(0).puntaje(), 1e-9);
+
+        assertTrue(indice.buscarAproximado("plomeira", 0.99, TODOS, 10).isEmpty());
+    }
+
+    @Test
+    void sugerirDevuelveElNombreMasParecido() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Plomería", "Fugas", "Ana"));
+        indice.indexar(tarjeta(2L, "Electricidad", "Tomas", "Luis Gómez"));
+
+        assertEquals("Plomería", indice.sugerir("plomeria", 0.3).orElse(null));
+        assertEquals("Luis Gómez", indice.sugerir("luis gomes", 0.3).orElse(null));
+        assertTrue(indice.sugerir("zzzz", 0.3).isEmpty());
+    }
+
+    @Test
+    void consultasVaciasOLimiteCeroNoDevuelvenNada() {
+        IndiceServicios indice = new IndiceServicios();
+        indice.indexar(tarjeta(1L, "Plomería", "Fugas", "Ana"));
+
+        assertTrue(indice.buscar("de la", TODOS, 10).isEmpty());
+        assertTrue(indice.buscar("plomeria", TODOS, 0).isEmpty());
+        assertTrue(indice.buscarAproximado("", 0.1, TODOS, 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<IndiceServicios.Puntuado> r) {
+        return r.stream().map(p -> p.tarjeta().getIdServicio()).toList();
+    }
+
+    private static ServicioCardView tarjeta(Long id, String nombre, String descripcion, String proveedor) {
+        return new Tarjeta(id, nombre, descripcion, proveedor);
+    }
+
+    private record Tarjeta(Long idServicio, String nombre, String descripcion, String nombreProveedor)
+            implements ServicioCardView {
+        @Override public Long getIdServicio() { return idServicio; }
+        @Override public String getNombre() { return nombre; }
+        @Override public String getDescripcion() { return descripcion; }
+        @Override public BigDecimal getPrecio() { return BigDecimal.TEN; }
+        @Override public ServicioEntity.EstadoServicio getEstado() { return ServicioEntity.EstadoServicio.DISPONIBLE; }
+        @Override public Long getIdProveedor() { return idServicio * 10; }
+        @Override public String getNombreProveedor() { return nombreProveedor; }
+    }
+}
@@ -0,0 +1,122 @@
+package com.usta.serviexpress.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankingProveedoresTest {
+
+    private static final double Z = 1.96;
+
+    @Test
+    void wilsonPenalizaPocasResenas() {
+        double unaDeCinco = RankingProveedores.wilson(5, 1, Z);
+        double muchasDeCuatroOcho = RankingProveedores.wilson(4.8 * 400, 400, Z);
+
+        assertTrue(muchasDeCuatroOcho > unaDeCinco);
+        assertTrue(muchasDeCuatroOcho < 4.8);
+        assertTrue(RankingProveedores.wilson(5 * 10, 10, Z) < RankingProveedores.wilson(5 * 100, 100, Z));
+    }
+
+    @Test
+    void wilsonQuedaEntreUnoYCinco() {
+        assertEquals(0d, RankingProveedores.wilson(0, 0, Z), 0);
+        assertEquals(1d, RankingProveedores.wilson(1 * 50, 50, Z), 1e-9);
+        assertTrue(RankingProveedores.wilson(5 * 1_000_000d, 1_000_000, Z) <= 5d);
+        assertTrue(RankingProveedores.wilson(5 * 1_000_000d, 1_000_000, Z) > 4.99);
+        // Valores fuera de escala se recortan a 1..5
+        assertEquals(RankingProveedores.wilson(5 * 20, 20, Z), RankingProveedores.wilson(9 * 20, 20, Z), 1e-12);
+    }
+
+    @Test
+    void wilsonConZCeroEsElPromedio() {
+        assertEquals(4.2, RankingProveedores.wilson(4.2 * 7, 7, 0), 1e-9);
+        // Pesos fraccionarios (decaimiento)
+        assertEquals(3.5, RankingProveedores.wilson(3.5 * 0.25, 0.25, 0), 1e-9);
+    }
+
+    @Test
+    void topOrdenaPorPuntajeLuegoResenasLuegoId() {
+        RankingProveedores ranking = new RankingProveedores(10, 0);
+        ranking.reconstruir(List.of(
+                p(ranking, 1, "bogota", 4.0, 10),
+                p(ranking, 2, "bogota", 4.5, 3),
+                p(ranking, 3, "cali", 4.0, 20),
+                p(ranking, 4, "cali", 4.0, 10)));
+
+        assertEquals(List.of(2L, 3L, 1L, 4L), ids(ranking.top(RankingProveedores.GLOBAL, 10, 0)));
+        assertEquals(List.of(3L, 4L), ids(ranking.top("cali", 10, 0)));
+        assertEquals(List.of(2L), ids(ranking.top(null, 1, 0)));
+        assertTrue(ranking.top("medellin", 10, 0).isEmpty());
+    }
+
+    @Test
+    void minResenasCompletaDesdeFueraDelTop() {
+        RankingProveedores ranking = new RankingProveedores(2, 0);
+        ranking.reconstruir(List.of(
+                p(ranking, 1, null, 5.0, 1),
+                p(ranking, 2, null, 4.9, 2),
+                p(ranking, 3, null, 4.0, 30),
+                p(ranking, 4, null, 3.0, 40)));
+
+        // n > K y filtro de reseñas: ambos casos recorren los miembros fuera del top
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(ranking.top(RankingProveedores.GLOBAL, 5, 0)));
+        assertEquals(List.of(3L, 4L), ids(ranking.top(RankingProveedores.GLOBAL, 5, 10)));
+    }
+
+    @Test
+    void quitarDelTopRellenaConElSiguiente() {
+        RankingProveedores ranking = new RankingProveedores(2, 0);
+        ranking.reconstruir(List.of(
+                p(ranking, 1, "bogota", 5.0, 5),
+                p(ranking, 2, "bogota", 4.0, 5),
+                p(ranking, 3, "bogota", 3.0, 5)));
+
+        ranking.quitar(1);
+        assertEquals(List.of(2L, 3L), ids(ranking.top("bogota", 2, 0)));
+        assertNull(ranking.get(1));
+        assertEquals(2, ranking.tamano());
+
+        // Bajar de puntaje también saca del top
+        ranking.poner(p(ranking, 2, "bogota", 1.0, 5));
+        assertEquals(List.of(3L, 2L), ids(ranking.top(RankingProveedores.GLOBAL, 2, 0)));
+    }
+
+    @Test
+    void cambiarDeCiudadMueveAlProveedor() {
+        RankingProveedores ranking = new RankingProveedores(5, 0);
+        ranking.reconstruir(List.of(
+                p(ranking, 1, "bogota", 4.0, 5),
+                p(ranking, 2, "cali", 3.0, 5)));
+
+        ranking.poner(p(ranking, 1, "cali", 4.0, 5));
+        assertTrue(ranking.top("bogota", 5, 0).isEmpty());
+        assertEquals(List.of(1L, 2L), ids(ranking.top("cali", 5, 0)));
+
+        ranking.poner(p(ranking, 1, null, 4.0, 5));
+        assertEquals(List.of(2L), ids(ranking.top("cali", 5, 0)));
+        assertEquals(List.of(1L, 2L), ids(ranking.top(RankingProveedores.GLOBAL, 5, 0)));
+    }
+
+    @Test
+    void promedioUsaSumaSobrePeso() {
+        RankingProveedores.Puntaje p = RankingProveedores.crear(1, "Ana", null, 9, 2, 3, Z);
+
+        assertEquals(4.5, p.promedio(), 1e-12);
+        assertEquals(3, p.total());
+        assertEquals(0d, RankingProveedores.crear(1, "Ana", null, 0, 0, 0, Z).promedio(), 0);
+    }
+
+    private static RankingProveedores.Puntaje p(RankingProveedores r, long id, String ciudad,
+                                                double promedio, long total) {
+        return r.puntuar(id, "P" + id, ciudad, promedio * total, total, total);
+    }
+
+    private static List<Long> ids(List<RankingProveedores.Puntaje> top) {
+        return top.stream().map(RankingProveedores.Puntaje::idProveedor).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.usta.serviexpress.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TriePrefijosTest {
+
+    @Test
+    void respondeAlInicioDeCadaPalabraSinTildes() {
+        TriePrefijos trie = new TriePrefijos();
+        trie.poner(entrada("S:1", "Instalación eléctrica", 5));
+
+        assertEquals(List.of("S:1"), ids(trie.buscar("inst", 10)));
+        assertEquals(List.of("S:1"), ids(trie.buscar("ELEC", 10)));
+        assertEquals(List.of("S:1"), ids(trie.buscar("instalacion  elec", 10)));
+        assertTrue(trie.buscar("talacion", 10).isEmpty());
+    }
+
+    @Test
+    void ordenaPorPesoYAIgualdadPorTexto() {
+        TriePrefijos trie = new TriePrefijos();
+        trie.poner(entrada("S:1", "Pintura", 3));
+        trie.poner(entrada("S:2", "Pisos", 7));
+        trie.poner(entrada("S:3", "Piscinas", 3));
+
+        assertEquals(List.of("S:2", "S:1", "S:3"), ids(trie.buscar("pi", 10)));
+        assertEquals(List.of("S:2"), ids(trie.buscar("pi", 1)));
+    }
+
+    @Test
+    void unaEntradaConVariasPalabrasCuentaUnaVez() {
+        TriePrefijos trie = new TriePrefijos();
+        trie.poner(entrada("S:1", "Casa casera", 1));
+
+        assertEquals(List.of("S:1"), ids(trie.buscar("cas", 10)));
+    }
+
+    @Test
+    void lasEscriturasInvalidanLaCacheDelCamino() {
+        TriePrefijos trie = new TriePrefijos();
+        trie.poner(entrada("S:1", "Plomería", 1));
+        assertEquals(List.of("S:1"), ids(trie.buscar("plo", 10)));
+
+        trie.poner(entrada("S:2", "Plomero a domicilio", 9));
+        assertEquals(List.of("S:2", "S:1"), ids(trie.buscar("plo", 10)));
+
+        // Mismo id: reemplaza el texto y el peso
+        trie.poner(entrada("S:2", "Cerrajería", 9));
+        assertEquals(List.of("S:1"), ids(trie.buscar("plo", 10)));
+        assertTrue(trie.buscar("domi", 10).isEmpty());
+        assertEquals(List.of("S:2"), ids(trie.buscar("cerr", 10)));
+    }
+
+    @Test
+    void quitarPodaYNoAfectaAOtrasEntradas() {
+        TriePrefijos trie = new TriePrefijos();
+        trie.poner(entrada("S:1", "Pintura", 1));
+        trie.poner(entrada("S:2", "Pintor", 2));
+
+        trie.quitar("S:2");
+        assertEquals(List.of("S:1"), ids(trie.buscar("pint", 10)));
+        assertTrue(trie.buscar("pintor", 10).isEmpty());
+
+        trie.quitar("S:1");
+        trie.quitar("S:1");
+        assertTrue(trie.buscar("p", 10).isEmpty());
+    }
+
+    @Test
+    void acotaElTopPorNodo() {
+        TriePrefijos trie = new TriePrefijos();
+        for (int i = 0; i < TriePrefijos.TOP_NODO + 5; i++) trie.poner(entrada("S:" + i, "Servicio " + i, i));
+
+        List<TriePrefijos.Entrada> top = trie.buscar("serv", 100);
+        assertEquals(TriePrefijos.TOP_NODO, top.size());
+        assertEquals(TriePrefijos.TOP_NODO + 4L, top.get(0).peso());
+        assertEquals(5L, top.get(top.size() - 1).peso());
+    }
+
+    @Test
+    void limpiarYConsultasVacias() {
+        TriePrefijos trie = new TriePrefijos();
+        trie.poner(entrada("S:1", "Pintura", 1));
+
+        assertTrue(trie.buscar("   ", 10).isEmpty());
+        assertTrue(trie.buscar("pin", 0).isEmpty());
+
+        trie.limpiar();
+        assertTrue(trie.buscar("pin", 10).isEmpty());
+    }
+
+    private static TriePrefijos.Entrada entrada(String id, String texto, long peso) {
+        return new TriePrefijos.Entrada(id, texto, "SERVICIO", peso);
+    }
+
+    private static List<String> ids(List<TriePrefijos.Entrada> r) {
+        return r.stream().map(TriePrefijos.Entrada::id).toList();
+    }
+}